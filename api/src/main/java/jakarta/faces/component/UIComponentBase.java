@@ -18,6 +18,7 @@
  */
 package jakarta.faces.component;
 
+import org.apache.myfaces.core.api.shared.ComponentIdIndex;
 import org.apache.myfaces.core.api.shared.ComponentUtils;
 import org.apache.myfaces.buildtools.maven2.plugin.builder.annotation.JSFComponent;
 import org.apache.myfaces.buildtools.maven2.plugin.builder.annotation.JSFJspProperty;
@@ -54,6 +55,7 @@
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.logging.Logger;
 import jakarta.faces.event.PhaseId;
 import org.apache.myfaces.core.api.shared.lang.Assert;
@@ -156,8 +158,18 @@ public UIComponentBase()
     public void setId(String id)
     {
         isIdValid(id);
+        String oldId = _id;
         _id = id;
         _clientId = null;
+
+        if (isInView() && !Objects.equals(oldId, id))
+        {
+            ComponentIdIndex index = _getIdIndex(getFacesContext(), this);
+            if (index != null)
+            {
+                index.idChanged(this, oldId);
+            }
+        }
     }
 
     /**
@@ -176,10 +188,16 @@ public void setParent(UIComponent parent)
             // not UIViewRoot...
             if (_parent != null && _parent.isInView())
             {
+                FacesContext facesContext = getFacesContext();
+                ComponentIdIndex index = _getIdIndex(facesContext, _parent);
+                if (index != null)
+                {
+                    index.removeAll(this);
+                }
+
                 // trigger the "remove event" lifecycle
                 // and call setInView(false) for all children/facets
                 // doing this => recursive
-                FacesContext facesContext = getFacesContext();
                 if (facesContext.isProcessingEvents())
                 {
                     _publishPreRemoveFromViewEvent(facesContext, this);
@@ -211,10 +229,33 @@ public void setParent(UIComponent parent)
                 {
                     _updateInView(this, true);
                 }
+
+                // the listeners of PostAddToViewEvent can relocate this component, addAll only adds
+                // the components still in the view
+                ComponentIdIndex index = _getIdIndex(facesContext, parent);
+                if (index != null)
+                {
+                    index.addAll(this);
+                }
             }
         }
     }
 
+    /**
+     * @return the index of the components by id of the view of the component, if a lookup has
+     *         created one
+     */
+    private static ComponentIdIndex _getIdIndex(FacesContext facesContext, UIComponent component)
+    {
+        // checked first, finding the view walks up to the root
+        if (facesContext == null || !ComponentIdIndex.isEnabled(facesContext))
+        {
+            return null;
+        }
+        UIComponent root = ComponentUtils.findRootComponent(component);
+        return root instanceof UIViewRoot viewRoot ? viewRoot.getIdIndex() : null;
+    }
+
     
     /**
      * Publish PostAddToViewEvent to the component and all facets and children.
@@ -696,14 +737,16 @@ public UIComponent findComponent(String expr)
             }
         }
 
+        ComponentIdIndex index = ComponentIdIndex.getInstance(getFacesContext(), findBase);
+
         int separator = expr.indexOf(separatorChar);
         if (separator == -1)
         {
-            return ComponentUtils.findComponent(findBase, expr, separatorChar);
+            return _findComponent(index, findBase, expr, separatorChar);
         }
 
         String id = expr.substring(0, separator);
-        findBase = ComponentUtils.findComponent(findBase, id, separatorChar);
+        findBase = _findComponent(index, findBase, id, separatorChar);
         if (findBase == null)
         {
             return null;
@@ -719,6 +762,17 @@ public UIComponent findComponent(String expr)
 
     }
 
+    private static UIComponent _findComponent(ComponentIdIndex index, UIComponent findBase, String id,
+            char separatorChar)
+    {
+        UIComponent component = index == null ? null : index.findComponent(findBase, id);
+        if (component == null)
+        {
+            component = ComponentUtils.findComponent(findBase, id, separatorChar);
+        }
+        return component;
+    }
+
     /**
      * Get a map through which all the UIComponent's properties, value-bindings and non-property attributes can be read
      * and written.
@@ -26,11 +26,13 @@
 import java.lang.reflect.Method;
 import java.sql.ResultSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.BaseStream;
 
 import jakarta.el.ValueExpression;
 import jakarta.faces.FacesException;
@@ -40,6 +42,7 @@
 import jakarta.faces.component.visit.VisitContext;
 import jakarta.faces.component.visit.VisitHint;
 import jakarta.faces.component.visit.VisitResult;
+import jakarta.faces.context.ExternalContext;
 import jakarta.faces.context.FacesContext;
 import jakarta.faces.event.AbortProcessingException;
 import jakarta.faces.event.FacesEvent;
@@ -52,14 +55,17 @@
 import jakarta.faces.model.DataModel;
 import jakarta.faces.model.IterableDataModel;
 import jakarta.faces.model.ListDataModel;
-import jakarta.faces.model.ResultSetDataModel;
 import jakarta.faces.model.ScalarDataModel;
 import java.util.regex.Pattern;
 
 import org.apache.myfaces.buildtools.maven2.plugin.builder.annotation.JSFComponent;
 import org.apache.myfaces.buildtools.maven2.plugin.builder.annotation.JSFFacet;
 import org.apache.myfaces.buildtools.maven2.plugin.builder.annotation.JSFProperty;
+import org.apache.myfaces.buildtools.maven2.plugin.builder.annotation.JSFWebConfigParam;
 import org.apache.myfaces.core.api.shared.EditableValueHolderState;
+import org.apache.myfaces.core.api.shared.ChunkedResultSetDataModel;
+import org.apache.myfaces.core.api.shared.StreamingDataModel;
+import org.apache.myfaces.core.api.shared.RowStateMap;
 import org.apache.myfaces.core.api.shared.lang.Assert;
 
 /**
@@ -128,6 +134,14 @@ public class UIData extends UIComponentBase implements NamingContainer, UniqueId
     public static final String COMPONENT_TYPE = "jakarta.faces.Data"; // for unit tests
 
     private static final String SUB_ID_PATTERN = "oam.UIData.SUB_ID_PATTERN";
+
+    /**
+     * If true, the decode, validation and update phases only visit the rows rendered in the previous
+     * response and the rows with a submitted request parameter, like an input or the source of an ajax
+     * request, instead of all the rows between first and first + rows.
+     */
+    @JSFWebConfigParam(defaultValue="false", expectedValues="true, false", since="5.0", tags="performance")
+    private static final String WINDOWED_PROCESSING_PARAM_NAME = "org.apache.myfaces.DATA_WINDOWED_PROCESSING";
     
     private static final String FACES_DATA_MODEL_MANAGER_CLASS_NAME
             = "org.apache.myfaces.cdi.model.FacesDataModelManager";
@@ -166,12 +180,19 @@ public class UIData extends UIComponentBase implements NamingContainer, UniqueId
 
     private int _rowIndex = -1;
 
+    // The rows rendered by the current encoding in windowed processing, from _renderedRowsFirst to
+    // _renderedRowsLast excluded, saved by encodeEnd in PropertyKeys.renderedRows.
+    private boolean _recordRenderedRows;
+    private int _renderedRowsFirst;
+    private int _renderedRowsLast;
+
     // Holds for each row the states of the child components of this UIData.
     // Note that only "partial" component state is saved: the component fields
     // that are expected to vary between rows.
-    private Map<String, Object> _rowStates = new HashMap<>();
-    private Map<String, Map<String, Object>> _rowDeltaStates = new HashMap<>();
-    private Map<String, Map<String, Object>> _rowTransientStates = new HashMap<>();
+    // The states are kept by row index, see RowStateMap.
+    private RowStateMap<Object> _rowStates = new RowStateMap<>();
+    private RowStateMap<Map<String, Object>> _rowDeltaStates = new RowStateMap<>();
+    private RowStateMap<Map<String, Object>> _rowTransientStates = new RowStateMap<>();
 
     /**
      * Handle case where this table is nested inside another table. See method getDataModel for more details.
@@ -513,6 +534,11 @@ public int getRowIndex()
      */
     public void setRowIndex(int rowIndex)
     {
+        if (_recordRenderedRows && rowIndex >= 0)
+        {
+            _renderedRowsFirst = Math.min(_renderedRowsFirst, rowIndex);
+            _renderedRowsLast = Math.max(_renderedRowsLast, rowIndex + 1);
+        }
         if (isRowStatePreserved())
         {
             setRowIndexPreserveComponentState(rowIndex);
@@ -562,7 +588,7 @@ private void setRowIndexWithoutPreserveComponentState(int rowIndex)
                 Collection<Object[]> savedRowState = saveDescendantComponentStates(this, false, false);
                 if (savedRowState != null)
                 {
-                    _rowStates.put(getContainerClientId(facesContext), savedRowState);
+                    _rowStates.put(super.getContainerClientId(facesContext), _rowIndex, savedRowState);
                 }
             }
         }
@@ -611,7 +637,7 @@ private void setRowIndexWithoutPreserveComponentState(int rowIndex)
         }
         else
         {
-            Object rowState = _rowStates.get(getContainerClientId(facesContext));
+            Object rowState = _rowStates.get(super.getContainerClientId(facesContext), _rowIndex);
             if (rowState == null)
             {
                 // We haven't been positioned on this row before, so just
@@ -651,6 +677,7 @@ private void setRowIndexPreserveComponentState(int rowIndex)
         }
 
         FacesContext facesContext = getFacesContext();
+        String clientId = super.getContainerClientId(facesContext);
 
         if (_initialDescendantFullComponentState != null)
         {
@@ -659,11 +686,11 @@ private void setRowIndexPreserveComponentState(int rowIndex)
                                                                        getChildren().iterator(), false);
             if (sm != null && !sm.isEmpty())
             {
-                _rowDeltaStates.put(getContainerClientId(facesContext), sm);
+                _rowDeltaStates.put(clientId, _rowIndex, sm);
             }
             if (_rowIndex != -1)
             {
-                _rowTransientStates.put(getContainerClientId(facesContext),
+                _rowTransientStates.put(clientId, _rowIndex,
                         saveTransientDescendantComponentStates(facesContext, null, getChildren().iterator(), false));
             }
         }
@@ -699,7 +726,7 @@ private void setRowIndexPreserveComponentState(int rowIndex)
 
         if (_initialDescendantFullComponentState != null)
         {
-            Map<String, Object> rowState = _rowDeltaStates.get(getContainerClientId(facesContext));
+            Map<String, Object> rowState = _rowDeltaStates.get(clientId, _rowIndex);
             if (rowState == null)
             {
                 //Restore as original
@@ -718,7 +745,7 @@ private void setRowIndexPreserveComponentState(int rowIndex)
             }
             else
             {
-                rowState = _rowTransientStates.get(getContainerClientId(facesContext));
+                rowState = _rowTransientStates.get(clientId, _rowIndex);
                 if (rowState == null)
                 {
                     restoreTransientDescendantComponentStates(facesContext, getChildren().iterator(), null, false);
@@ -1336,48 +1363,16 @@ public void restoreState(FacesContext context, Object state)
         Object[] values = (Object[]) state;
         super.restoreState(context, values[0]);
 
-        Object restoredRowStates = UIComponentBase.restoreAttachedState(context, values[1]);
-        if (restoredRowStates == null)
-        {
-            if (!_rowDeltaStates.isEmpty())
-            {
-                _rowDeltaStates.clear();
-            }
-        }
-        else
-        {
-            _rowDeltaStates = (Map<String, Map<String, Object> >) restoredRowStates;
-        }
+        char separatorChar = context.getNamingContainerSeparatorChar();
+        _rowDeltaStates.restoreState(values[1], separatorChar);
 
         if (values.length > 2)
         {
-            Object rs = UIComponentBase.restoreAttachedState(context, values[2]);
-            if (rs == null)
-            {
-                if (!_rowStates.isEmpty())
-                {
-                    _rowStates.clear();
-                }
-            }
-            else
-            {
-                _rowStates = (Map<String, Object>) rs;
-            }
+            _rowStates.restoreState(values[2], separatorChar);
         }
         if (values.length > 3)
         {
-            Object rs = UIComponentBase.restoreAttachedState(context, values[3]);
-            if (rs == null)
-            {
-                if (!_rowTransientStates.isEmpty())
-                {
-                    _rowTransientStates.clear();
-                }
-            }
-            else
-            {
-                _rowTransientStates = (Map<String, Map<String, Object> >) rs;
-            }
+            _rowTransientStates.restoreState(values[3], separatorChar);
         }
     }
 
@@ -1416,9 +1411,9 @@ public Object saveState(FacesContext context)
                 {
                     Object[] values = new Object[4];
                     values[0] = super.saveState(context);
-                    values[1] = UIComponentBase.saveAttachedState(context, _rowDeltaStates);
-                    values[2] = UIComponentBase.saveAttachedState(context, _rowStates);
-                    values[3] = UIComponentBase.saveAttachedState(context, _rowTransientStates);
+                    values[1] = _rowDeltaStates.saveState();
+                    values[2] = _rowStates.saveState();
+                    values[3] = _rowTransientStates.saveState();
                     return values;
                 }
             }
@@ -1432,7 +1427,7 @@ public Object saveState(FacesContext context)
                 {
                     Object[] values = new Object[2];
                     values[0] = super.saveState(context);
-                    values[1] = UIComponentBase.saveAttachedState(context, _rowDeltaStates);
+                    values[1] = _rowDeltaStates.saveState();
                     return values; 
                 }
             }
@@ -1443,16 +1438,16 @@ public Object saveState(FacesContext context)
             {
                 Object[] values = new Object[4];
                 values[0] = super.saveState(context);
-                values[1] = UIComponentBase.saveAttachedState(context, _rowDeltaStates);
-                values[2] = UIComponentBase.saveAttachedState(context, _rowStates);
-                values[3] = UIComponentBase.saveAttachedState(context, _rowTransientStates);
+                values[1] = _rowDeltaStates.saveState();
+                values[2] = _rowStates.saveState();
+                values[3] = _rowTransientStates.saveState();
                 return values; 
             }
             else
             {
                 Object[] values = new Object[2];
                 values[0] = super.saveState(context);
-                values[1] = UIComponentBase.saveAttachedState(context, _rowDeltaStates);
+                values[1] = _rowDeltaStates.saveState();
                 return values;
             }
         }
@@ -1608,6 +1603,9 @@ public void encodeBegin(FacesContext context) throws IOException
                 _rowStates.clear();
             }
         }
+        _recordRenderedRows = isWindowedProcessing(context);
+        _renderedRowsFirst = Integer.MAX_VALUE;
+        _renderedRowsLast = -1;
         super.encodeBegin(context);
     }
 
@@ -1638,6 +1636,21 @@ public void encodeEnd(FacesContext context) throws IOException
         {
             setCachedFacesContext(context);
             setRowIndex(-1);
+            if (_recordRenderedRows)
+            {
+                _recordRenderedRows = false;
+                // keyed by the client id, a nested table is rendered once per row of its parent
+                String clientId = super.getContainerClientId(context);
+                if (_renderedRowsLast == -1)
+                {
+                    getStateHelper().remove(PropertyKeys.renderedRows, clientId);
+                }
+                else
+                {
+                    getStateHelper().put(PropertyKeys.renderedRows, clientId,
+                            new int[] { _renderedRowsFirst, _renderedRowsLast });
+                }
+            }
         }
         finally
         {
@@ -1824,6 +1837,12 @@ private void processColumnChildren(FacesContext context, int processAction)
         {
             last = first + rows;
         }
+        if (isWindowedProcessing(context))
+        {
+            processColumnChildrenOfRows(context, processAction, first, last);
+            return;
+        }
+
         for (int rowIndex = first; last == -1 || rowIndex < last; rowIndex++)
         {
             setRowIndex(rowIndex);
@@ -1833,26 +1852,165 @@ private void processColumnChildren(FacesContext context, int processAction)
             {
                 break;
             }
-            
-            for (int i = 0, childCount = getChildCount(); i < childCount; i++)
+            processColumnChildrenOfRow(context, processAction);
+        }
+    }
+
+    /**
+     * Visits the rows rendered in the previous response, so a row whose inputs submit nothing, like an
+     * unchecked checkbox, is still processed, and the submitted rows around them, in the order of the
+     * row indexes.
+     */
+    @SuppressWarnings("unchecked")
+    private void processColumnChildrenOfRows(FacesContext context, int processAction, int first, int last)
+    {
+        int renderedFirst = 0;
+        int renderedLast = 0;
+        Map<String, int[]> renderedRows = (Map<String, int[]>) getStateHelper().get(PropertyKeys.renderedRows);
+        int[] rendered = renderedRows == null ? null : renderedRows.get(super.getContainerClientId(context));
+        if (rendered != null)
+        {
+            renderedFirst = Math.max(first, rendered[0]);
+            renderedLast = last == -1 ? rendered[1] : Math.min(last, rendered[1]);
+        }
+
+        int[] submittedRows = getSubmittedRows(context, first, last);
+        int i = 0;
+        while (i < submittedRows.length && submittedRows[i] < renderedFirst)
+        {
+            if (!processColumnChildrenOfRow(context, processAction, submittedRows[i++]))
+            {
+                return;
+            }
+        }
+        for (int rowIndex = renderedFirst; rowIndex < renderedLast; rowIndex++)
+        {
+            if (!processColumnChildrenOfRow(context, processAction, rowIndex))
+            {
+                return;
+            }
+        }
+        for (; i < submittedRows.length; i++)
+        {
+            if (submittedRows[i] >= renderedLast
+                    && !processColumnChildrenOfRow(context, processAction, submittedRows[i]))
             {
-                UIComponent child = getChildren().get(i);
-                if (child instanceof UIColumn)
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return false if the row is not available, scrolled past the last row
+     */
+    private boolean processColumnChildrenOfRow(FacesContext context, int processAction, int rowIndex)
+    {
+        setRowIndex(rowIndex);
+        if (!isRowAvailable())
+        {
+            return false;
+        }
+        processColumnChildrenOfRow(context, processAction);
+        return true;
+    }
+
+    private void processColumnChildrenOfRow(FacesContext context, int processAction)
+    {
+        for (int i = 0, childCount = getChildCount(); i < childCount; i++)
+        {
+            UIComponent child = getChildren().get(i);
+            if (child instanceof UIColumn)
+            {
+                if (!ComponentUtils.isRendered(context, child))
                 {
-                    if (!ComponentUtils.isRendered(context, child))
-                    {
-                        // Column is not visible
-                        continue;
-                    }
+                    // Column is not visible
+                    continue;
+                }
+
+                for (int j = 0, columnChildCount = child.getChildCount(); j < columnChildCount; j++)
+                {
+                    UIComponent columnChild = child.getChildren().get(j);
+                    process(context, columnChild, processAction);
+                }
+            }
+        }
+    }
 
-                    for (int j = 0, columnChildCount = child.getChildCount(); j < columnChildCount; j++)
+    private boolean isWindowedProcessing(FacesContext context)
+    {
+        ExternalContext ec = context.getExternalContext();
+        Boolean windowedProcessing = (Boolean) ec.getApplicationMap().get(WINDOWED_PROCESSING_PARAM_NAME);
+        if (windowedProcessing == null)
+        {
+            windowedProcessing = "true".equalsIgnoreCase(ec.getInitParameter(WINDOWED_PROCESSING_PARAM_NAME));
+            ec.getApplicationMap().put(WINDOWED_PROCESSING_PARAM_NAME, windowedProcessing);
+        }
+        return windowedProcessing;
+    }
+
+    /**
+     * The indexes of the rows which have a request parameter named after a component of the row, or
+     * whose value is the client id of one, like the source of an ajax request or of a command link.
+     * They are found again in each phase, as a nested table is processed once per row of its parent.
+     * Only the rows from first to last are kept, sorted and without duplicates, so a request cannot
+     * make the result larger than its own parameters.
+     */
+    private int[] getSubmittedRows(FacesContext context, int first, int last)
+    {
+        char separatorChar = context.getNamingContainerSeparatorChar();
+        String prefix = super.getContainerClientId(context) + separatorChar;
+        int[] rows = new int[8];
+        int size = 0;
+        for (Map.Entry<String, String> entry : context.getExternalContext().getRequestParameterMap().entrySet())
+        {
+            for (int i = 0; i < 2; i++)
+            {
+                int rowIndex = getSubmittedRowIndex(i == 0 ? entry.getKey() : entry.getValue(), prefix,
+                        separatorChar);
+                if (rowIndex >= first && (last == -1 || rowIndex < last))
+                {
+                    if (size == rows.length)
                     {
-                        UIComponent columnChild = child.getChildren().get(j);
-                        process(context, columnChild, processAction);
+                        rows = Arrays.copyOf(rows, size * 2);
                     }
+                    rows[size++] = rowIndex;
                 }
             }
         }
+
+        Arrays.sort(rows, 0, size);
+        int distinct = 0;
+        for (int i = 0; i < size; i++)
+        {
+            if (distinct == 0 || rows[i] != rows[distinct - 1])
+            {
+                rows[distinct++] = rows[i];
+            }
+        }
+        return Arrays.copyOf(rows, distinct);
+    }
+
+    /**
+     * @return the row index after the prefix of the client id, or -1 if it has none
+     */
+    private static int getSubmittedRowIndex(String clientId, String prefix, char separatorChar)
+    {
+        if (clientId == null || !clientId.startsWith(prefix))
+        {
+            return -1;
+        }
+        int start = prefix.length();
+        int end = start;
+        // at most 9 digits, an int
+        while (end < clientId.length() && end - start < 10 && Character.isDigit(clientId.charAt(end)))
+        {
+            end++;
+        }
+        if (end > start && end - start < 10 && (end == clientId.length() || clientId.charAt(end) == separatorChar))
+        {
+            return Integer.parseInt(clientId, start, end, 10);
+        }
+        return -1;
     }
 
     private void process(FacesContext context, UIComponent component, int processAction)
@@ -1972,7 +2130,7 @@ else if (OBJECT_ARRAY_CLASS.isAssignableFrom(value.getClass()))
                 }
                 else if (value instanceof ResultSet set)
                 {
-                    return new ResultSetDataModel(set);
+                    return ChunkedResultSetDataModel.createDataModel(set);
                 }
                 else if (value instanceof Iterable iterable)
                 {
@@ -1986,6 +2144,11 @@ else if (value instanceof Collection collection)
                 {
                     return new CollectionDataModel(collection);
                 }
+                else if (value instanceof BaseStream || value instanceof Iterator)
+                {
+                    // the value is evaluated again to visit the rows once more
+                    return new StreamingDataModel<>(value, this::getValue);
+                }
                 else
                 {
                     return new ScalarDataModel(value);
@@ -2269,7 +2432,8 @@ public void setRowStatePreserved(boolean preserveComponentState)
         rows,
         var,
         uniqueIdCounter,
-        rowStatePreserved
+        rowStatePreserved,
+        renderedRows
     }
 
     @Override
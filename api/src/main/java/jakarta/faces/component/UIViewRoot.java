@@ -21,6 +21,7 @@
 import jakarta.faces.component.visit.VisitHint;
 import jakarta.faces.context.PartialResponseWriter;
 import org.apache.myfaces.core.api.shared.lang.ClassUtils;
+import org.apache.myfaces.core.api.shared.ComponentIdIndex;
 import org.apache.myfaces.core.api.shared.ComponentUtils;
 import org.apache.myfaces.core.api.shared.lang.LocaleUtils;
 import java.io.IOException;
@@ -173,6 +174,7 @@ public class UIViewRoot extends UIComponentBase implements UniqueIdVendor
 
     private transient int _resetSaveStateMode = 0;
     private transient boolean _resourceDependencyUniqueId;
+    private transient ComponentIdIndex _idIndex;
     private transient Map<String,Object> _attributesMap;
 
     private Doctype doctype;
@@ -1513,6 +1515,19 @@ void setResourceDependencyUniqueId(boolean resourceDependencyUniqueId)
         this._resourceDependencyUniqueId = resourceDependencyUniqueId;
     }
 
+    /**
+     * @return the index of the components by id, or null if no lookup has created it yet
+     */
+    ComponentIdIndex getIdIndex()
+    {
+        return _idIndex;
+    }
+
+    void setIdIndex(ComponentIdIndex idIndex)
+    {
+        this._idIndex = idIndex;
+    }
+
     enum PropertyKeys
     {
         afterPhaseListener
@@ -146,7 +146,7 @@
     private UIComponent _component;
 
     /**
-     * This map holds the full current state
+     * This map holds the full current state, see _PropertyStateMap
      */
     private Map<Serializable, Object> _fullState;
 
@@ -180,7 +180,7 @@ public _DeltaStateHelper(UIComponent component)
     {
         super();
         this._component = component;
-        _fullState = new HashMap<Serializable, Object>();
+        _fullState = new _PropertyStateMap();
         _deltas = null;
         _transientState = null;
         _initialFullState = null;
@@ -201,7 +201,7 @@ private boolean _createDeltas(Serializable key)
                 if (_initialState == null)
                 {
                     // Copy it directly
-                    _initialFullState = new HashMap<Serializable, Object>();
+                    _initialFullState = new _PropertyStateMap();
                     copyMap(_component.getFacesContext(), _fullState, _initialFullState);
                 }
                 else
@@ -223,14 +223,14 @@ private boolean _createDeltas(Serializable key)
                         // contains some key already defined in initialState, this key must be
                         // overriden. It is better to do in that way, because it is possible
                         // to skip resetState() if the view cannot be recycled.
-                        _initialFullState = new HashMap<Serializable, Object>();
+                        _initialFullState = new _PropertyStateMap();
                         copyMap(_component.getFacesContext(), _fullState, _initialFullState);
                     }
                 }
             }
             if (_deltas == null)
             {
-                _deltas = new HashMap<Serializable, Object>(2);
+                _deltas = new _PropertyStateMap();
             }
             return true;
         }
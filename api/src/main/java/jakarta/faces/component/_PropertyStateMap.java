@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package jakarta.faces.component;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The map of the property values of a _DeltaStateHelper.
+ * <p>
+ * The properties of the components are keyed by the constants of their PropertyKeys enums, so
+ * their values are kept in an array per enum, indexed by the ordinal of the constant, instead of
+ * a HashMap node per value. A component has usually one enum per class of its hierarchy. Other
+ * keys, like strings used by custom components, are kept in a HashMap.
+ * </p>
+ */
+class _PropertyStateMap extends AbstractMap<Serializable, Object>
+{
+    /**
+     * Marks a key with a null value, a null slot is a missing key.
+     */
+    private static final Object NULL_VALUE = new Object();
+
+    private static final ClassValue<Enum<?>[]> ENUM_CONSTANTS = new ClassValue<Enum<?>[]>()
+    {
+        @Override
+        protected Enum<?>[] computeValue(Class<?> type)
+        {
+            return (Enum<?>[]) type.getEnumConstants();
+        }
+    };
+
+    private Class<?>[] _enumTypes;
+    private Object[][] _enumValues;
+    private int _enumTypeCount;
+    private int _enumSize;
+    private Map<Serializable, Object> _otherValues;
+
+    private Object[] getEnumValues(Enum<?> key, boolean create)
+    {
+        Class<?> type = key.getDeclaringClass();
+        for (int i = 0; i < _enumTypeCount; i++)
+        {
+            if (_enumTypes[i] == type)
+            {
+                return _enumValues[i];
+            }
+        }
+        if (!create)
+        {
+            return null;
+        }
+
+        if (_enumTypes == null)
+        {
+            _enumTypes = new Class<?>[4];
+            _enumValues = new Object[4][];
+        }
+        else if (_enumTypeCount == _enumTypes.length)
+        {
+            Class<?>[] enumTypes = new Class<?>[_enumTypeCount * 2];
+            Object[][] enumValues = new Object[_enumTypeCount * 2][];
+            System.arraycopy(_enumTypes, 0, enumTypes, 0, _enumTypeCount);
+            System.arraycopy(_enumValues, 0, enumValues, 0, _enumTypeCount);
+            _enumTypes = enumTypes;
+            _enumValues = enumValues;
+        }
+        Object[] values = new Object[ENUM_CONSTANTS.get(type).length];
+        _enumTypes[_enumTypeCount] = type;
+        _enumValues[_enumTypeCount] = values;
+        _enumTypeCount++;
+        return values;
+    }
+
+    @Override
+    public Object get(Object key)
+    {
+        if (key instanceof Enum<?> enumKey)
+        {
+            Object[] values = getEnumValues(enumKey, false);
+            return values == null ? null : unmask(values[enumKey.ordinal()]);
+        }
+        return _otherValues == null ? null : _otherValues.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        if (key instanceof Enum<?> enumKey)
+        {
+            Object[] values = getEnumValues(enumKey, false);
+            return values != null && values[enumKey.ordinal()] != null;
+        }
+        return _otherValues != null && _otherValues.containsKey(key);
+    }
+
+    @Override
+    public Object put(Serializable key, Object value)
+    {
+        if (key instanceof Enum<?> enumKey)
+        {
+            Object[] values = getEnumValues(enumKey, true);
+            int ordinal = enumKey.ordinal();
+            Object previous = values[ordinal];
+            values[ordinal] = value == null ? NULL_VALUE : value;
+            if (previous == null)
+            {
+                _enumSize++;
+            }
+            return unmask(previous);
+        }
+        if (_otherValues == null)
+        {
+            _otherValues = new HashMap<>(2);
+        }
+        return _otherValues.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key)
+    {
+        if (key instanceof Enum<?> enumKey)
+        {
+            Object[] values = getEnumValues(enumKey, false);
+            if (values == null)
+            {
+                return null;
+            }
+            int ordinal = enumKey.ordinal();
+            Object previous = values[ordinal];
+            if (previous != null)
+            {
+                values[ordinal] = null;
+                _enumSize--;
+            }
+            return unmask(previous);
+        }
+        return _otherValues == null ? null : _otherValues.remove(key);
+    }
+
+    @Override
+    public int size()
+    {
+        return _enumSize + (_otherValues == null ? 0 : _otherValues.size());
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    @Override
+    public void clear()
+    {
+        _enumTypes = null;
+        _enumValues = null;
+        _enumTypeCount = 0;
+        _enumSize = 0;
+        _otherValues = null;
+    }
+
+    @Override
+    public Set<Map.Entry<Serializable, Object>> entrySet()
+    {
+        return new AbstractSet<Map.Entry<Serializable, Object>>()
+        {
+            @Override
+            public Iterator<Map.Entry<Serializable, Object>> iterator()
+            {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size()
+            {
+                return _PropertyStateMap.this.size();
+            }
+        };
+    }
+
+    private static Object unmask(Object value)
+    {
+        return value == NULL_VALUE ? null : value;
+    }
+
+    private class EntryIterator implements Iterator<Map.Entry<Serializable, Object>>
+    {
+        private int _type;
+        private int _ordinal = -1;
+        private Iterator<Map.Entry<Serializable, Object>> _otherIterator;
+
+        EntryIterator()
+        {
+            findNextEnumValue();
+        }
+
+        private void findNextEnumValue()
+        {
+            while (_type < _enumTypeCount)
+            {
+                Object[] values = _enumValues[_type];
+                while (++_ordinal < values.length)
+                {
+                    if (values[_ordinal] != null)
+                    {
+                        return;
+                    }
+                }
+                _type++;
+                _ordinal = -1;
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if (_type < _enumTypeCount)
+            {
+                return true;
+            }
+            if (_otherIterator == null)
+            {
+                if (_otherValues == null)
+                {
+                    return false;
+                }
+                _otherIterator = _otherValues.entrySet().iterator();
+            }
+            return _otherIterator.hasNext();
+        }
+
+        @Override
+        public Map.Entry<Serializable, Object> next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            if (_otherIterator != null)
+            {
+                return _otherIterator.next();
+            }
+            Map.Entry<Serializable, Object> entry = new AbstractMap.SimpleImmutableEntry<>(
+                    ENUM_CONSTANTS.get(_enumTypes[_type])[_ordinal], unmask(_enumValues[_type][_ordinal]));
+            findNextEnumValue();
+            return entry;
+        }
+    }
+}
@@ -23,6 +23,7 @@
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import org.apache.myfaces.core.api.shared.ComponentIdIndex;
 import org.apache.myfaces.core.api.shared.lang.Assert;
 
 class _ViewAttributeMap implements Map<String, Object>, Serializable
@@ -40,6 +41,7 @@
               "oam.view.resourceDependencyUniqueId";
     private static final String UNIQUE_ID_COUNTER_KEY =
               "oam.view.uniqueIdCounter";
+    private static final String ID_INDEX_KEY = ComponentIdIndex.ID_INDEX_KEY;
     
     private Map<String, Object> _delegate;
     private UIViewRoot _root;
@@ -95,6 +97,11 @@ public Object get(Object key)
         {
             return _root.getStateHelper().get(UIViewRoot.PropertyKeys.uniqueIdCounter);
         }
+        if (ID_INDEX_KEY.length() == keyLength
+            && ID_INDEX_KEY.equals(key))
+        {
+            return _root.getIdIndex();
+        }
         return _delegate.get(key);
     }
 
@@ -124,6 +131,13 @@ public Object put(String key, Object value)
             _root.getStateHelper().put(UIViewRoot.PropertyKeys.uniqueIdCounter, value);
             return v;
         }
+        if (ID_INDEX_KEY.length() == keyLength
+            && ID_INDEX_KEY.equals(key))
+        {
+            ComponentIdIndex index = _root.getIdIndex();
+            _root.setIdIndex((ComponentIdIndex) value);
+            return index;
+        }
         return _delegate.put(key, value);
     }
 
@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.core.api.shared;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jakarta.faces.FacesException;
+import jakarta.faces.model.DataModel;
+import jakarta.faces.model.DataModelEvent;
+import jakarta.faces.model.DataModelListener;
+import jakarta.faces.model.ResultSetDataModel;
+
+/**
+ * A DataModel over a ResultSet, which also works with forward only cursors, unlike the
+ * ResultSetDataModel that moves the cursor with absolute() for each row.
+ * <p>
+ * The rows are read in chunks of the fetch size and copied into read only maps, with the column
+ * labels as case insensitive keys. The last rows up to the window size are kept, so the rows of a
+ * page can be visited again in each phase. Moving before the window starts again from the first
+ * row, which is only possible if the ResultSet is scrollable.
+ * </p>
+ */
+public class ChunkedResultSetDataModel extends DataModel<Map<String, Object>>
+{
+    public static final int DEFAULT_CHUNK_SIZE = 100;
+    public static final int DEFAULT_WINDOW_SIZE = 1000;
+
+    private ResultSet _resultSet;
+    private String[] _columnLabels;
+    private final int _chunkSize;
+    private final Map<String, Object>[] _window;
+
+    // the rows [_first, _next) are in the window
+    private int _first;
+    private int _next;
+    private int _count = -1;
+    private int _rowIndex = -1;
+
+    /**
+     * @return a ResultSetDataModel for a scrollable ResultSet, as required by the specification, or
+     *         else a ChunkedResultSetDataModel
+     */
+    public static DataModel<?> createDataModel(ResultSet resultSet)
+    {
+        try
+        {
+            if (resultSet.getType() == ResultSet.TYPE_FORWARD_ONLY)
+            {
+                return new ChunkedResultSetDataModel(resultSet);
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new FacesException(e);
+        }
+        return new ResultSetDataModel(resultSet);
+    }
+
+    public ChunkedResultSetDataModel()
+    {
+        this(null);
+    }
+
+    public ChunkedResultSetDataModel(ResultSet resultSet)
+    {
+        this(resultSet, DEFAULT_CHUNK_SIZE, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param chunkSize the number of rows read at once, also given as fetch size to the ResultSet
+     * @param windowSize the number of rows kept, at least the chunk size
+     */
+    @SuppressWarnings("unchecked")
+    public ChunkedResultSetDataModel(ResultSet resultSet, int chunkSize, int windowSize)
+    {
+        if (chunkSize < 1)
+        {
+            throw new IllegalArgumentException("chunkSize must be > 0");
+        }
+        _chunkSize = chunkSize;
+        _window = new Map[Math.max(chunkSize, windowSize)];
+        setWrappedData(resultSet);
+    }
+
+    @Override
+    public int getRowCount()
+    {
+        return _count;
+    }
+
+    @Override
+    public Map<String, Object> getRowData()
+    {
+        if (_resultSet == null)
+        {
+            return null;
+        }
+        Map<String, Object> row = getRow(_rowIndex);
+        if (row == null)
+        {
+            throw new IllegalArgumentException(
+                "the requested row is not available in the ResultSet - you have scrolled beyond the end.");
+        }
+        return row;
+    }
+
+    @Override
+    public int getRowIndex()
+    {
+        return _rowIndex;
+    }
+
+    @Override
+    public Object getWrappedData()
+    {
+        return _resultSet;
+    }
+
+    @Override
+    public boolean isRowAvailable()
+    {
+        return getRow(_rowIndex) != null;
+    }
+
+    @Override
+    public void setRowIndex(int rowIndex)
+    {
+        if (rowIndex < -1)
+        {
+            throw new IllegalArgumentException("illegal rowIndex " + rowIndex);
+        }
+        int oldRowIndex = _rowIndex;
+        _rowIndex = rowIndex;
+        DataModelListener[] listeners = getDataModelListeners();
+        if (_resultSet != null && oldRowIndex != _rowIndex && listeners.length > 0)
+        {
+            DataModelEvent event = new DataModelEvent(this, _rowIndex, getRow(_rowIndex));
+            for (int i = 0; i < listeners.length; i++)
+            {
+                listeners[i].rowSelected(event);
+            }
+        }
+    }
+
+    @Override
+    public void setWrappedData(Object data)
+    {
+        _resultSet = (ResultSet) data;
+        _columnLabels = null;
+        _first = 0;
+        _next = 0;
+        _count = -1;
+        _rowIndex = -1;
+        Arrays.fill(_window, null);
+        if (_resultSet != null)
+        {
+            try
+            {
+                _resultSet.setFetchSize(_chunkSize);
+            }
+            catch (SQLException e)
+            {
+                // only a hint
+            }
+            setRowIndex(0);
+        }
+    }
+
+    /**
+     * @return the row, or null if the ResultSet has less rows
+     */
+    private Map<String, Object> getRow(int rowIndex)
+    {
+        if (_resultSet == null || rowIndex < 0 || (_count != -1 && rowIndex >= _count))
+        {
+            return null;
+        }
+        try
+        {
+            if (rowIndex < _first)
+            {
+                restart();
+            }
+            while (rowIndex >= _next && _count == -1)
+            {
+                readChunk();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new FacesException(e);
+        }
+        return rowIndex < _next ? _window[rowIndex % _window.length] : null;
+    }
+
+    private void readChunk() throws SQLException
+    {
+        if (_columnLabels == null)
+        {
+            ResultSetMetaData metaData = _resultSet.getMetaData();
+            _columnLabels = new String[metaData.getColumnCount()];
+            for (int i = 0; i < _columnLabels.length; i++)
+            {
+                _columnLabels[i] = metaData.getColumnLabel(i + 1);
+            }
+        }
+
+        for (int i = 0; i < _chunkSize; i++)
+        {
+            if (!_resultSet.next())
+            {
+                _count = _next;
+                return;
+            }
+            Map<String, Object> row = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (int j = 0; j < _columnLabels.length; j++)
+            {
+                row.put(_columnLabels[j], _resultSet.getObject(j + 1));
+            }
+            _window[_next % _window.length] = Collections.unmodifiableMap(row);
+            _next++;
+            if (_next - _first > _window.length)
+            {
+                _first++;
+            }
+        }
+    }
+
+    private void restart() throws SQLException
+    {
+        if (_resultSet.getType() == ResultSet.TYPE_FORWARD_ONLY)
+        {
+            throw new IllegalStateException("The rows before " + _first + " are not kept anymore and the "
+                    + "ResultSet is forward only, use a bigger window");
+        }
+        _resultSet.beforeFirst();
+        _first = 0;
+        _next = 0;
+        _count = -1;
+        Arrays.fill(_window, null);
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.core.api.shared;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.faces.component.NamingContainer;
+import jakarta.faces.component.UIComponent;
+import jakarta.faces.component.UIViewRoot;
+import jakarta.faces.context.ExternalContext;
+import jakarta.faces.context.FacesContext;
+
+import org.apache.myfaces.buildtools.maven2.plugin.builder.annotation.JSFWebConfigParam;
+
+/**
+ * An index of the components of a view by their id, to resolve a client id or an id of a
+ * findComponent expression without walking the component tree.
+ * <p>
+ * The index is created by the first lookup of a view and kept by the UIViewRoot, which
+ * UIComponentBase then updates when a component is added to or removed from the view, or when
+ * the id of a component of the view changes. The components are keyed by their id instead of
+ * their client id, so a naming container getting a new id does not change the keys of its
+ * descendants.
+ * </p>
+ * <p>
+ * The candidates of a lookup are always checked against the tree. If no single component
+ * matches, the lookup returns null and the caller walks the tree as before, which also finds the
+ * components of the rows of a UIData or a UIRepeat.
+ * </p>
+ */
+public final class ComponentIdIndex
+{
+    /**
+     * If true, the client ids of partial requests and the ids of findComponent are resolved with
+     * an index of the components of the view by their id, instead of walking the component tree.
+     */
+    @JSFWebConfigParam(defaultValue="false", expectedValues="true, false", since="5.0", tags="performance")
+    public static final String ID_INDEX_PARAM_NAME = "org.apache.myfaces.VIEW_ROOT_ID_INDEX";
+
+    /**
+     * Key of the index in the attributes of the UIViewRoot.
+     */
+    public static final String ID_INDEX_KEY = "oam.view.idIndex";
+
+    // the component with the id, or a List of the components with the same id
+    private final Map<String, Object> _components = new HashMap<>();
+
+    private ComponentIdIndex()
+    {
+    }
+
+    /**
+     * @return the index of the view of the component, created if needed, or null if the index is
+     *         disabled or the component is not part of a view
+     */
+    public static ComponentIdIndex getInstance(FacesContext context, UIComponent component)
+    {
+        if (component == null)
+        {
+            return null;
+        }
+        UIComponent root = ComponentUtils.findRootComponent(component);
+        if (!(root instanceof UIViewRoot))
+        {
+            return null;
+        }
+
+        ComponentIdIndex index = (ComponentIdIndex) root.getAttributes().get(ID_INDEX_KEY);
+        if (index == null && isEnabled(context))
+        {
+            index = new ComponentIdIndex();
+            index.addAll(root);
+            root.getAttributes().put(ID_INDEX_KEY, index);
+        }
+        return index;
+    }
+
+    /**
+     * @return true if the index is enabled for the application, the flag is cached in the
+     *         application map
+     */
+    public static boolean isEnabled(FacesContext context)
+    {
+        ExternalContext ec = context.getExternalContext();
+        Boolean enabled = (Boolean) ec.getApplicationMap().get(ID_INDEX_PARAM_NAME);
+        if (enabled == null)
+        {
+            enabled = "true".equalsIgnoreCase(ec.getInitParameter(ID_INDEX_PARAM_NAME));
+            ec.getApplicationMap().put(ID_INDEX_PARAM_NAME, enabled);
+        }
+        return enabled;
+    }
+
+    /**
+     * Adds the component and its facets and children, if they are in the view.
+     */
+    public void addAll(UIComponent component)
+    {
+        if (!component.isInView())
+        {
+            return;
+        }
+        add(component, component.getId());
+
+        if (component.getFacetCount() > 0)
+        {
+            for (UIComponent facet : component.getFacets().values())
+            {
+                addAll(facet);
+            }
+        }
+        for (int i = 0, childCount = component.getChildCount(); i < childCount; i++)
+        {
+            addAll(component.getChildren().get(i));
+        }
+    }
+
+    /**
+     * Removes the component and its facets and children.
+     */
+    public void removeAll(UIComponent component)
+    {
+        remove(component, component.getId());
+
+        if (component.getFacetCount() > 0)
+        {
+            for (UIComponent facet : component.getFacets().values())
+            {
+                removeAll(facet);
+            }
+        }
+        for (int i = 0, childCount = component.getChildCount(); i < childCount; i++)
+        {
+            removeAll(component.getChildren().get(i));
+        }
+    }
+
+    /**
+     * Moves the component from its previous id to its current one.
+     */
+    public void idChanged(UIComponent component, String oldId)
+    {
+        remove(component, oldId);
+        add(component, component.getId());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void add(UIComponent component, String id)
+    {
+        if (id == null)
+        {
+            return;
+        }
+        Object components = _components.get(id);
+        if (components == null)
+        {
+            _components.put(id, component);
+        }
+        else if (components instanceof List)
+        {
+            List<UIComponent> list = (List<UIComponent>) components;
+            if (!list.contains(component))
+            {
+                list.add(component);
+            }
+        }
+        else if (components != component)
+        {
+            List<UIComponent> list = new ArrayList<>(2);
+            list.add((UIComponent) components);
+            list.add(component);
+            _components.put(id, list);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void remove(UIComponent component, String id)
+    {
+        if (id == null)
+        {
+            return;
+        }
+        Object components = _components.get(id);
+        if (components == component)
+        {
+            _components.remove(id);
+        }
+        else if (components instanceof List)
+        {
+            List<UIComponent> list = (List<UIComponent>) components;
+            list.remove(component);
+            if (list.size() == 1)
+            {
+                _components.put(id, list.get(0));
+            }
+        }
+    }
+
+    /**
+     * Like {@link ComponentUtils#findComponent(UIComponent, String, char)}, finds the component
+     * with the id in the findBase or its descendants, without looking into nested naming
+     * containers.
+     *
+     * @return the component, or null if there is none or more than one, then the tree must be
+     *         walked
+     */
+    @SuppressWarnings("unchecked")
+    public UIComponent findComponent(UIComponent findBase, String id)
+    {
+        Object components = _components.get(id);
+        if (components instanceof List)
+        {
+            UIComponent found = null;
+            for (UIComponent component : (List<UIComponent>) components)
+            {
+                if (isInScope(findBase, component))
+                {
+                    if (found != null)
+                    {
+                        return null;
+                    }
+                    found = component;
+                }
+            }
+            return found;
+        }
+        UIComponent component = (UIComponent) components;
+        return component != null && isInScope(findBase, component) ? component : null;
+    }
+
+    private static boolean isInScope(UIComponent findBase, UIComponent component)
+    {
+        if (!component.isInView())
+        {
+            return false;
+        }
+        if (component == findBase)
+        {
+            return true;
+        }
+        UIComponent parent = component.getParent();
+        while (parent != null && parent != findBase && !(parent instanceof NamingContainer))
+        {
+            parent = parent.getParent();
+        }
+        return parent == findBase;
+    }
+
+    /**
+     * @return the component with the client id, or null if there is none or more than one, like
+     *         the components of the rows of a UIData, then the tree must be walked
+     */
+    @SuppressWarnings("unchecked")
+    public UIComponent findComponentByClientId(FacesContext context, String clientId)
+    {
+        String id = clientId.substring(clientId.lastIndexOf(context.getNamingContainerSeparatorChar()) + 1);
+        Object components = _components.get(id);
+        if (components instanceof List)
+        {
+            UIComponent found = null;
+            for (UIComponent component : (List<UIComponent>) components)
+            {
+                if (component.isInView() && clientId.equals(component.getClientId(context)))
+                {
+                    if (found != null)
+                    {
+                        return null;
+                    }
+                    found = component;
+                }
+            }
+            return found;
+        }
+        UIComponent component = (UIComponent) components;
+        return component != null && component.isInView() && clientId.equals(component.getClientId(context))
+                ? component : null;
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.core.api.shared;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds the state of each row of an iterating component, addressed by the row index.
+ * <p>
+ * The rows are grouped by the client id of the component without the row index, which only
+ * differs when the component is nested in another iterating component. Inside a group the rows
+ * are kept in an open addressing map with primitive int keys, so moving to a row neither
+ * builds nor hashes the "form:table:1234" client id.
+ * </p>
+ * <p>
+ * The saved state is an array of the client id, the row indexes and the row states of each
+ * group.
+ * </p>
+ */
+public final class RowStateMap<V>
+{
+    private static final int NO_ROW = Integer.MIN_VALUE;
+
+    private Map<String, Rows> _rows;
+
+    // the last group, iterating a table always uses the same one
+    private String _lastClientId;
+    private Rows _lastRows;
+
+    /**
+     * @param clientId the client id of the component without the row index
+     * @param rowIndex the row index, -1 for the component itself
+     */
+    @SuppressWarnings("unchecked")
+    public V get(String clientId, int rowIndex)
+    {
+        Rows rows = getRows(clientId, false);
+        return rows == null ? null : (V) rows.get(rowIndex);
+    }
+
+    public void put(String clientId, int rowIndex, V state)
+    {
+        getRows(clientId, true).put(rowIndex, state);
+    }
+
+    public boolean isEmpty()
+    {
+        return _rows == null || _rows.isEmpty();
+    }
+
+    public void clear()
+    {
+        _rows = null;
+        _lastClientId = null;
+        _lastRows = null;
+    }
+
+    private Rows getRows(String clientId, boolean create)
+    {
+        if (clientId == _lastClientId && _lastRows != null)
+        {
+            return _lastRows;
+        }
+
+        Rows rows = _rows == null ? null : _rows.get(clientId);
+        if (rows == null)
+        {
+            if (!create)
+            {
+                return null;
+            }
+            if (_rows == null)
+            {
+                _rows = new HashMap<>(4, 1f);
+            }
+            rows = new Rows(8);
+            _rows.put(clientId, rows);
+        }
+        _lastClientId = clientId;
+        _lastRows = rows;
+        return rows;
+    }
+
+    public Object saveState()
+    {
+        if (isEmpty())
+        {
+            return null;
+        }
+
+        Object[] state = new Object[_rows.size() * 3];
+        int i = 0;
+        for (Map.Entry<String, Rows> entry : _rows.entrySet())
+        {
+            Rows rows = entry.getValue();
+            int[] rowIndexes = new int[rows.size];
+            Object[] rowStates = new Object[rows.size];
+            int j = 0;
+            for (int k = 0; k < rows.keys.length; k++)
+            {
+                if (rows.keys[k] != NO_ROW)
+                {
+                    rowIndexes[j] = rows.keys[k];
+                    rowStates[j] = rows.values[k];
+                    j++;
+                }
+            }
+            state[i++] = entry.getKey();
+            state[i++] = rowIndexes;
+            state[i++] = rowStates;
+        }
+        return state;
+    }
+
+    /**
+     * Replaces the rows with the saved ones, a map keyed by the client id with the row index is
+     * accepted too as saved by previous versions.
+     */
+    @SuppressWarnings("unchecked")
+    public void restoreState(Object state, char separatorChar)
+    {
+        clear();
+        if (state instanceof Object[] values)
+        {
+            for (int i = 0; i < values.length; i += 3)
+            {
+                String clientId = (String) values[i];
+                int[] rowIndexes = (int[]) values[i + 1];
+                Object[] rowStates = (Object[]) values[i + 2];
+                Rows rows = getRows(clientId, true);
+                for (int j = 0; j < rowIndexes.length; j++)
+                {
+                    rows.put(rowIndexes[j], rowStates[j]);
+                }
+            }
+        }
+        else if (state instanceof Map<?, ?> map)
+        {
+            for (Map.Entry<?, ?> entry : map.entrySet())
+            {
+                String clientId = (String) entry.getKey();
+                int end = clientId.length();
+                int start = end;
+                while (start > 0 && Character.isDigit(clientId.charAt(start - 1)))
+                {
+                    start--;
+                }
+                if (start < end && start > 0 && clientId.charAt(start - 1) == separatorChar)
+                {
+                    put(clientId.substring(0, start - 1), Integer.parseInt(clientId.substring(start, end)),
+                            (V) entry.getValue());
+                }
+                else
+                {
+                    put(clientId, -1, (V) entry.getValue());
+                }
+            }
+        }
+    }
+
+    private static class Rows
+    {
+        private int[] keys;
+        private Object[] values;
+        private int size;
+
+        Rows(int capacity)
+        {
+            keys = new int[capacity];
+            values = new Object[capacity];
+            Arrays.fill(keys, NO_ROW);
+        }
+
+        private int indexOf(int rowIndex)
+        {
+            int mask = keys.length - 1;
+            int h = rowIndex * 0x9E3779B9;
+            int i = (h ^ (h >>> 16)) & mask;
+            while (keys[i] != NO_ROW && keys[i] != rowIndex)
+            {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        Object get(int rowIndex)
+        {
+            int i = indexOf(rowIndex);
+            return keys[i] == NO_ROW ? null : values[i];
+        }
+
+        void put(int rowIndex, Object state)
+        {
+            int i = indexOf(rowIndex);
+            if (keys[i] == NO_ROW)
+            {
+                // keep the load factor below 0.5
+                if ((size + 1) * 2 > keys.length)
+                {
+                    resize();
+                    i = indexOf(rowIndex);
+                }
+                keys[i] = rowIndex;
+                size++;
+            }
+            values[i] = state;
+        }
+
+        private void resize()
+        {
+            int[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new Object[oldKeys.length * 2];
+            Arrays.fill(keys, NO_ROW);
+            for (int i = 0; i < oldKeys.length; i++)
+            {
+                if (oldKeys[i] != NO_ROW)
+                {
+                    int j = indexOf(oldKeys[i]);
+                    keys[j] = oldKeys[i];
+                    values[j] = oldValues[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.core.api.shared;
+
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.BaseStream;
+
+import jakarta.faces.model.DataModel;
+import jakarta.faces.model.DataModelEvent;
+import jakarta.faces.model.DataModelListener;
+
+import org.apache.myfaces.core.api.shared.lang.Assert;
+
+/**
+ * A DataModel over an Iterator or a Stream, which only holds the current row instead of the
+ * whole list like the IterableDataModel.
+ * <p>
+ * The rows are read in order, moving to a previous row starts again from the first one. That
+ * is only possible with a Supplier or an Iterable, which provide a new Iterator or Stream each
+ * time, a single Iterator or Stream can only be visited once. The row count is -1 until the
+ * last row was read.
+ * </p>
+ */
+public class StreamingDataModel<E> extends DataModel<E>
+{
+    private Object _wrappedData;
+    private Supplier<?> _source;
+    private Object _iterated;
+    private Iterator<? extends E> _iterator;
+    private AutoCloseable _closeable;
+    private int _position = -1;
+    private E _current;
+    private int _rowIndex = -1;
+    private int _count = -1;
+
+    public StreamingDataModel()
+    {
+    }
+
+    /**
+     * @param data a Supplier of Iterators or Streams, an Iterable, an Iterator or a Stream
+     */
+    public StreamingDataModel(Object data)
+    {
+        Assert.notNull(data, "data");
+        setWrappedData(data);
+    }
+
+    /**
+     * @param data the Iterator or Stream of the first visit
+     * @param source provides the Iterators or Streams of the next visits
+     */
+    public StreamingDataModel(Object data, Supplier<?> source)
+    {
+        this(data);
+        _source = source;
+    }
+
+    @Override
+    public int getRowCount()
+    {
+        return _count;
+    }
+
+    @Override
+    public E getRowData()
+    {
+        if (_wrappedData == null)
+        {
+            return null;
+        }
+        if (!isRowAvailable())
+        {
+            throw new IllegalArgumentException("row is unavailable");
+        }
+        return _current;
+    }
+
+    @Override
+    public int getRowIndex()
+    {
+        return _rowIndex;
+    }
+
+    @Override
+    public boolean isRowAvailable()
+    {
+        return _wrappedData != null && _rowIndex >= 0 && _rowIndex == _position;
+    }
+
+    @Override
+    public void setRowIndex(int rowIndex)
+    {
+        if (rowIndex < -1)
+        {
+            throw new IllegalArgumentException("illegal rowIndex " + rowIndex);
+        }
+        int oldRowIndex = _rowIndex;
+        _rowIndex = rowIndex;
+        if (_wrappedData == null)
+        {
+            return;
+        }
+
+        if (rowIndex >= 0 && rowIndex != _position)
+        {
+            if (rowIndex < _position || _iterator == null)
+            {
+                restart();
+            }
+            while (_position < rowIndex && _iterator.hasNext())
+            {
+                _current = _iterator.next();
+                _position++;
+            }
+            if (_position < rowIndex)
+            {
+                _count = _position + 1;
+                // past the last row, a row is only available again from a new iteration
+                _position = Integer.MAX_VALUE;
+                _current = null;
+                close();
+            }
+        }
+
+        if (oldRowIndex != _rowIndex)
+        {
+            Object data = isRowAvailable() ? _current : null;
+            DataModelEvent event = new DataModelEvent(this, _rowIndex, data);
+            DataModelListener[] listeners = getDataModelListeners();
+            for (int i = 0; i < listeners.length; i++)
+            {
+                listeners[i].rowSelected(event);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void restart()
+    {
+        if (_iterator != null)
+        {
+            if (_source == null)
+            {
+                throw new IllegalStateException("The rows of an Iterator or Stream can only be visited once, "
+                        + "wrap a Supplier to visit them again");
+            }
+            close();
+        }
+        Object data = _iterator == null && _source == null ? _wrappedData : _source.get();
+        if (data == _iterated && !(data instanceof Iterable))
+        {
+            throw new IllegalStateException("The rows of an Iterator or Stream can only be visited once, "
+                    + "the Supplier must provide a new one");
+        }
+        _iterated = data;
+        if (data instanceof BaseStream<?, ?> stream)
+        {
+            _closeable = stream;
+            _iterator = (Iterator<? extends E>) stream.iterator();
+        }
+        else if (data instanceof Iterable<?> iterable)
+        {
+            _iterator = (Iterator<? extends E>) iterable.iterator();
+        }
+        else
+        {
+            _iterator = (Iterator<? extends E>) data;
+        }
+        _position = -1;
+        _current = null;
+    }
+
+    private void close()
+    {
+        if (_closeable != null)
+        {
+            try
+            {
+                _closeable.close();
+            }
+            catch (Exception e)
+            {
+                // the rows are read already
+            }
+            _closeable = null;
+        }
+    }
+
+    @Override
+    public Object getWrappedData()
+    {
+        return _wrappedData;
+    }
+
+    @Override
+    public void setWrappedData(Object data)
+    {
+        close();
+        _iterated = null;
+        _iterator = null;
+        _position = -1;
+        _current = null;
+        _count = -1;
+        if (data == null)
+        {
+            _wrappedData = null;
+            _source = null;
+            setRowIndex(-1);
+            return;
+        }
+
+        if (data instanceof Supplier<?> supplier)
+        {
+            _source = supplier;
+        }
+        else if (data instanceof Iterable<?> iterable)
+        {
+            _source = () -> iterable;
+        }
+        else if (data instanceof Iterator<?> || data instanceof BaseStream<?, ?>)
+        {
+            _source = null;
+        }
+        else
+        {
+            throw new IllegalArgumentException("Not a Supplier, Iterable, Iterator or Stream: " + data.getClass());
+        }
+        _wrappedData = data;
+        _rowIndex = -1;
+        setRowIndex(0);
+    }
+}
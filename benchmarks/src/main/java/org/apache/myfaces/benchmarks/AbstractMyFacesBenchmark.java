@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.benchmarks;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.el.ExpressionFactory;
+import jakarta.faces.application.ProjectStage;
+import jakarta.faces.application.StateManager;
+import jakarta.faces.application.ViewHandler;
+
+import org.apache.myfaces.test.core.AbstractMyFacesRequestTestCase;
+
+/**
+ * Base class of the JMH states that need a running MyFaces instance. It reuses the mock
+ * container of the impl test suite, so a benchmark is driven exactly like a request test case:
+ * <code>startViewRequest(viewId)</code>, <code>processLifecycleExecuteAndRender()</code>,
+ * <code>client.submit(...)</code>, <code>endRequest()</code>.
+ *
+ * <p>The facelets are loaded from the directory given by the system property
+ * <code>myfaces.benchmarks.webapp</code>, which by default is <code>src/main/webapp</code>
+ * relative to the working directory, so the benchmarks must be started from the benchmarks
+ * module directory.</p>
+ */
+public abstract class AbstractMyFacesBenchmark extends AbstractMyFacesRequestTestCase
+{
+    public static final String WEBAPP_PROPERTY = "myfaces.benchmarks.webapp";
+
+    /**
+     * Name of the application scoped attribute holding the rows shown by the views.
+     */
+    public static final String ROWS_ATTRIBUTE = "benchmarkRows";
+
+    public static final String SUBMIT_CLIENT_ID = "form:submit";
+
+    public static final String FORM_CLIENT_ID = "form";
+
+    /**
+     * Start MyFaces. Called from the <code>@Setup(Level.Trial)</code> method of the subclasses.
+     */
+    public void startContainer() throws Exception
+    {
+        setUp();
+
+        List<BenchmarkRow> rows = new ArrayList<>(getRowCount());
+        for (int i = 0; i < getRowCount(); i++)
+        {
+            rows.add(new BenchmarkRow(i));
+        }
+        servletContext.setAttribute(ROWS_ATTRIBUTE, rows);
+    }
+
+    /**
+     * Stop MyFaces. Called from the <code>@TearDown(Level.Trial)</code> method of the subclasses.
+     */
+    public void stopContainer() throws Exception
+    {
+        tearDown();
+    }
+
+    /**
+     * Render the view with a GET request and leave the request open.
+     */
+    protected void renderInitialRequest(String viewId)
+    {
+        startViewRequest(viewId);
+        processLifecycleExecuteAndRender();
+    }
+
+    /**
+     * Render the view with a GET request and start the postback of it, so the next call to
+     * <code>processLifecycleExecuteAndRender()</code> processes the postback only.
+     */
+    protected void preparePostback(String viewId, boolean ajax) throws Exception
+    {
+        renderInitialRequest(viewId);
+        if (ajax)
+        {
+            client.ajax(SUBMIT_CLIENT_ID, "action", FORM_CLIENT_ID, FORM_CLIENT_ID, true);
+        }
+        else
+        {
+            client.submit(SUBMIT_CLIENT_ID);
+        }
+    }
+
+    @Override
+    protected void setUpWebConfigParams() throws Exception
+    {
+        super.setUpWebConfigParams();
+        servletContext.addInitParameter(ProjectStage.PROJECT_STAGE_PARAM_NAME, ProjectStage.Production.name());
+        servletContext.addInitParameter(ViewHandler.FACELETS_REFRESH_PERIOD_PARAM_NAME, "-1");
+        servletContext.addInitParameter(StateManager.STATE_SAVING_METHOD_PARAM_NAME, getStateSavingMethod());
+    }
+
+    @Override
+    protected URI getWebappContextURI()
+    {
+        File webapp = new File(System.getProperty(WEBAPP_PROPERTY, "src/main/webapp"));
+        if (!webapp.isDirectory())
+        {
+            throw new RuntimeException("Error Initializing Context",
+                    new FileNotFoundException(webapp.getAbsolutePath() + " was not found, set the "
+                            + WEBAPP_PROPERTY + " system property or start the benchmarks from the"
+                            + " benchmarks module directory"));
+        }
+        return webapp.getAbsoluteFile().toURI();
+    }
+
+    @Override
+    protected ExpressionFactory createExpressionFactory()
+    {
+        return new org.apache.el.ExpressionFactoryImpl();
+    }
+
+    /**
+     * @return "server" or "client", see {@link StateManager#STATE_SAVING_METHOD_PARAM_NAME}
+     */
+    protected String getStateSavingMethod()
+    {
+        return StateManager.STATE_SAVING_METHOD_SERVER;
+    }
+
+    /**
+     * @return the number of rows rendered by the table and repeat based views
+     */
+    protected int getRowCount()
+    {
+        return 200;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import jakarta.faces.application.ViewHandler;
+import jakarta.faces.component.UIViewRoot;
+import jakarta.faces.view.ViewDeclarationLanguage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * FaceletViewDeclarationLanguage.buildView of a freshly created view root. The facelets are
+ * compiled and cached during warmup, so this measures the component tree creation only.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BuildViewBenchmark extends AbstractMyFacesBenchmark
+{
+    @Param({"/dataTable.xhtml", "/template.xhtml", "/composite.xhtml"})
+    public String viewId;
+
+    private UIViewRoot viewRoot;
+    private ViewDeclarationLanguage vdl;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws Exception
+    {
+        startContainer();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws Exception
+    {
+        stopContainer();
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation()
+    {
+        startViewRequest(viewId);
+        ViewHandler viewHandler = application.getViewHandler();
+        vdl = viewHandler.getViewDeclarationLanguage(facesContext, viewId);
+        viewRoot = viewHandler.createView(facesContext, viewId);
+        facesContext.setViewRoot(viewRoot);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownInvocation()
+    {
+        endRequest();
+    }
+
+    @Benchmark
+    public UIViewRoot buildView() throws Exception
+    {
+        vdl.buildView(facesContext, viewRoot);
+        return viewRoot;
+    }
+}
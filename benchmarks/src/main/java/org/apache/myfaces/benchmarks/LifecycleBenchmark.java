@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full request lifecycle (LifecycleImpl execute and render) of a GET request, a full postback
+ * and an ajax partial request for each of the benchmark views.
+ *
+ * <p>For the postbacks the initial GET request is done in the per invocation setup, so only
+ * the postback itself is measured.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LifecycleBenchmark extends AbstractMyFacesBenchmark
+{
+    @Param({"/dataTable.xhtml", "/template.xhtml", "/composite.xhtml"})
+    public String viewId;
+
+    @Param({"server", "client"})
+    public String stateSavingMethod;
+
+    @Param({"none", "postback", "ajax"})
+    public String requestType;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws Exception
+    {
+        startContainer();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws Exception
+    {
+        stopContainer();
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() throws Exception
+    {
+        if ("postback".equals(requestType))
+        {
+            preparePostback(viewId, false);
+        }
+        else if ("ajax".equals(requestType))
+        {
+            preparePostback(viewId, true);
+        }
+        else
+        {
+            startViewRequest(viewId);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownInvocation()
+    {
+        endRequest();
+    }
+
+    @Benchmark
+    public String processRequest() throws Exception
+    {
+        processLifecycleExecuteAndRender();
+        return getRenderedContent();
+    }
+
+    @Override
+    protected String getStateSavingMethod()
+    {
+        return stateSavingMethod;
+    }
+}
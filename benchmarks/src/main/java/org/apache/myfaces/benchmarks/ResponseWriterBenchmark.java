@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.myfaces.renderkit.html.HtmlResponseWriterImpl;
+import org.apache.myfaces.util.lang.FastWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * HtmlResponseWriterImpl writing a table like markup: elements, attributes, URIs and text
+ * that needs escaping. It does not need a running MyFaces instance.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseWriterBenchmark
+{
+    @Param({"100", "1000"})
+    public int rows;
+
+    private FastWriter writer;
+    private String[] texts;
+
+    @Setup
+    public void setUp()
+    {
+        writer = new FastWriter(64 * 1024);
+        texts = new String[rows];
+        for (int i = 0; i < rows; i++)
+        {
+            texts[i] = new BenchmarkRow(i).getDescription();
+        }
+    }
+
+    @Benchmark
+    public int writeTable() throws IOException
+    {
+        writer.reset();
+        HtmlResponseWriterImpl responseWriter = new HtmlResponseWriterImpl(writer, "text/html", "UTF-8");
+        responseWriter.startElement("table", null);
+        responseWriter.writeAttribute("id", "form:table", null);
+        responseWriter.writeAttribute("class", "data", null);
+        responseWriter.startElement("tbody", null);
+        for (int i = 0; i < rows; i++)
+        {
+            responseWriter.startElement("tr", null);
+            responseWriter.writeAttribute("class", i % 2 == 0 ? "even" : "odd", null);
+
+            responseWriter.startElement("td", null);
+            responseWriter.writeText(texts[i], null);
+            responseWriter.endElement("td");
+
+            responseWriter.startElement("td", null);
+            responseWriter.startElement("a", null);
+            responseWriter.writeURIAttribute("href", "/app/faces/detail.xhtml?id=" + i + "&mode=view", null);
+            responseWriter.writeText("Row " + i, null);
+            responseWriter.endElement("a");
+            responseWriter.endElement("td");
+
+            responseWriter.startElement("td", null);
+            responseWriter.startElement("input", null);
+            responseWriter.writeAttribute("type", "text", null);
+            responseWriter.writeAttribute("name", "form:table:" + i + ":name", null);
+            responseWriter.writeAttribute("value", texts[i], null);
+            responseWriter.endElement("input");
+            responseWriter.endElement("td");
+
+            responseWriter.endElement("tr");
+        }
+        responseWriter.endElement("tbody");
+        responseWriter.endElement("table");
+        responseWriter.flush();
+        return writer.toString().length();
+    }
+}
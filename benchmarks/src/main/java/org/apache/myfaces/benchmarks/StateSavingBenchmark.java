@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import jakarta.faces.component.UIViewRoot;
+import jakarta.faces.render.ResponseStateManager;
+import jakarta.faces.view.StateManagementStrategy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PartialStateManagementStrategy.saveView and restoreView, plus the ResponseStateManager
+ * round trip (StateCacheServerSide or StateUtils for client side state saving).
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StateSavingBenchmark
+{
+    /**
+     * A rendered view, ready to have its state saved again.
+     */
+    @State(Scope.Thread)
+    public static class SaveViewState extends AbstractMyFacesBenchmark
+    {
+        @Param({"/dataTable.xhtml", "/template.xhtml", "/composite.xhtml"})
+        public String viewId;
+
+        @Param({"server", "client"})
+        public String stateSavingMethod;
+
+        StateManagementStrategy strategy;
+        ResponseStateManager responseStateManager;
+
+        @Setup(Level.Trial)
+        public void setUpTrial() throws Exception
+        {
+            startContainer();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDownTrial() throws Exception
+        {
+            stopContainer();
+        }
+
+        @Setup(Level.Invocation)
+        public void setUpInvocation()
+        {
+            renderInitialRequest(viewId);
+            strategy = application.getViewHandler().getViewDeclarationLanguage(facesContext, viewId)
+                    .getStateManagementStrategy(facesContext, viewId);
+            responseStateManager = facesContext.getRenderKit().getResponseStateManager();
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDownInvocation()
+        {
+            endRequest();
+        }
+
+        @Override
+        protected String getStateSavingMethod()
+        {
+            return stateSavingMethod;
+        }
+    }
+
+    /**
+     * A postback of a rendered view, before the restore view phase.
+     */
+    @State(Scope.Thread)
+    public static class RestoreViewState extends AbstractMyFacesBenchmark
+    {
+        @Param({"/dataTable.xhtml", "/template.xhtml", "/composite.xhtml"})
+        public String viewId;
+
+        @Param({"server", "client"})
+        public String stateSavingMethod;
+
+        StateManagementStrategy strategy;
+        String renderKitId;
+
+        @Setup(Level.Trial)
+        public void setUpTrial() throws Exception
+        {
+            startContainer();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDownTrial() throws Exception
+        {
+            stopContainer();
+        }
+
+        @Setup(Level.Invocation)
+        public void setUpInvocation() throws Exception
+        {
+            preparePostback(viewId, false);
+            strategy = application.getViewHandler().getViewDeclarationLanguage(facesContext, viewId)
+                    .getStateManagementStrategy(facesContext, viewId);
+            renderKitId = application.getViewHandler().calculateRenderKitId(facesContext);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDownInvocation()
+        {
+            endRequest();
+        }
+
+        @Override
+        protected String getStateSavingMethod()
+        {
+            return stateSavingMethod;
+        }
+    }
+
+    @Benchmark
+    public Object saveView(SaveViewState state)
+    {
+        return state.strategy.saveView(state.getFacesContext());
+    }
+
+    @Benchmark
+    public String saveViewAndGetViewState(SaveViewState state)
+    {
+        Object savedState = state.strategy.saveView(state.getFacesContext());
+        return state.responseStateManager.getViewState(state.getFacesContext(), savedState);
+    }
+
+    @Benchmark
+    public UIViewRoot restoreView(RestoreViewState state)
+    {
+        return state.strategy.restoreView(state.getFacesContext(), state.viewId, state.renderKitId);
+    }
+}
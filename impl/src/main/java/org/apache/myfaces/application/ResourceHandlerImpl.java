@@ -40,11 +40,14 @@
 import org.apache.myfaces.resource.ContractResource;
 import org.apache.myfaces.resource.ContractResourceLoader;
 import org.apache.myfaces.resource.ResourceCachedInfo;
+import org.apache.myfaces.resource.ResourceCombiner;
+import org.apache.myfaces.resource.ResourceContent;
 import org.apache.myfaces.resource.ResourceHandlerCache;
 import org.apache.myfaces.resource.ResourceHandlerCache.ResourceValue;
 import org.apache.myfaces.resource.ResourceHandlerSupport;
 import org.apache.myfaces.resource.ResourceImpl;
 import org.apache.myfaces.resource.ResourceLoader;
+import org.apache.myfaces.resource.ResourceLoaderUtils;
 import org.apache.myfaces.resource.ResourceMeta;
 import org.apache.myfaces.resource.ResourceValidationUtils;
 import org.apache.myfaces.util.ExternalContextUtils;
@@ -53,10 +56,21 @@
 import org.apache.myfaces.util.lang.SkipMatchIterator;
 import org.apache.myfaces.util.lang.StringUtils;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -75,6 +89,7 @@
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * DOCUMENT ME!
@@ -96,6 +111,14 @@ public class ResourceHandlerImpl extends ResourceHandler
 
     private static final String SHARED_STRING_BUILDER = ResourceHandlerImpl.class.getName() + ".SHARED_STRING_BUILDER";
     
+    private static final int MIN_COMPRESSION_LENGTH = 256;
+
+    // request attributes of the sendfile support of Tomcat
+    private static final String TOMCAT_SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String TOMCAT_SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String TOMCAT_SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String TOMCAT_SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private static final String[] FACELETS_VIEW_MAPPINGS_PARAM = {ViewHandler.FACELETS_VIEW_MAPPINGS_PARAM_NAME,
             "facelets.VIEW_MAPPINGS"};
     
@@ -147,6 +170,11 @@ libraryName, isAllowSlashesLibraryName()))
             return null;
         }
         FacesContext facesContext = FacesContext.getCurrentInstance();
+        if (ResourceCombiner.LIBRARY_NAME.equals(libraryName))
+        {
+            return ResourceCombiner.getInstance(facesContext).createResource(resourceName,
+                    getResourceHandlerSupport());
+        }
         if (contentType == null)
         {
             //Resolve contentType using ExternalContext.getMimeType
@@ -566,39 +594,102 @@ libraryName, isAllowSlashesLibraryName()))
             return;
         }
 
+        Map<String, String> headers = resource.getResponseHeaders();
+        // every response of a resource that can be served gzip encoded varies by Accept-Encoding,
+        // also the ones sent before the content is cached, from the file or as 304
+        boolean gzipVariant = isGzipVariantPossible(facesContext, resource);
+
         if (!resource.userAgentNeedsUpdate(facesContext))
         {
             httpServletResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            // a 304 carries the ETag and Cache-Control headers of a 200 response
+            for (Map.Entry<String, String> entry : headers.entrySet())
+            {
+                httpServletResponse.setHeader(entry.getKey(), entry.getValue());
+            }
+            if (gzipVariant)
+            {
+                httpServletResponse.addHeader("Vary", "Accept-Encoding");
+            }
             return;
         }
 
         httpServletResponse.setContentType(_getContentType(resource, facesContext.getExternalContext()));
 
-        Map<String, String> headers = resource.getResponseHeaders();
-
         for (Map.Entry<String, String> entry : headers.entrySet())
         {
             httpServletResponse.setHeader(entry.getKey(), entry.getValue());
         }
+        if (gzipVariant)
+        {
+            httpServletResponse.addHeader("Vary", "Accept-Encoding");
+        }
 
         // Sets the preferred buffer size for the body of the response
         extContext.setResponseBufferSize(this.getResourceBufferSize());
 
+        ResourceHandlerCache.ResourceKey contentKey = getResourceContentKey(resource);
+        ResourceContent content = contentKey == null ? null : getResourceHandlerCache().getResourceContent(contentKey);
+
+        Path file = getResourceFile(resource);
+        String range = null;
+        if (file != null)
+        {
+            httpServletResponse.setHeader("Accept-Ranges", "bytes");
+            range = getRange(facesContext, headers);
+        }
+
         //serve up the bytes (taken from trinidad ResourceServlet)
         try
         {
+            if (file != null && (range != null || (content == null && (contentKey == null
+                    || Files.size(file) > getResourceHandlerCache().getResourceContentCacheMaxEntrySize()))))
+            {
+                sendFile(facesContext, httpServletResponse, file, range);
+                return;
+            }
+
+            if (content != null)
+            {
+                ResourceContent gzipContent = content.getGzipContent();
+                if (gzipContent != null && isGzipAccepted(facesContext))
+                {
+                    httpServletResponse.setHeader("Content-Encoding", "gzip");
+                    String eTag = headers.get("ETag");
+                    if (eTag != null)
+                    {
+                        // each representation needs its own strong entity tag
+                        httpServletResponse.setHeader("ETag", ResourceLoaderUtils.getGzipETag(eTag));
+                    }
+                    content = gzipContent;
+                }
+                httpServletResponse.setContentLength(content.getLength());
+                try (OutputStream out = httpServletResponse.getOutputStream())
+                {
+                    content.writeTo(out);
+                }
+                return;
+            }
+
             InputStream in = resource.getInputStream();
             OutputStream out = httpServletResponse.getOutputStream();
             byte[] buffer = new byte[this.getResourceBufferSize()];
+            ByteArrayOutputStream copy = contentKey == null ? null : new ByteArrayOutputStream(buffer.length);
 
             try
             {
-                int count = pipeBytes(in, out, buffer);
+                int count = pipeBytes(in, out, buffer, copy,
+                        getResourceHandlerCache().getResourceContentCacheMaxEntrySize());
                 //set the content lenght
                 if (!httpServletResponse.isCommitted())
                 {
                     httpServletResponse.setContentLength(count);
                 }
+                if (copy != null && copy.size() == count)
+                {
+                    getResourceHandlerCache().putResourceContent(contentKey,
+                            createResourceContent(facesContext, (ResourceImpl) resource, copy.toByteArray()));
+                }
             }
             finally
             {
@@ -664,9 +755,11 @@ private static boolean isConnectionAbort(Exception e)
 
     /**
      * Reads the specified input stream into the provided byte array storage and
-     * writes it to the output stream.
+     * writes it to the output stream. The bytes are also copied to the copy stream,
+     * if any, as long as the total does not exceed maxCopy.
      */
-    private static int pipeBytes(InputStream in, OutputStream out, byte[] buffer) throws IOException
+    private static int pipeBytes(InputStream in, OutputStream out, byte[] buffer,
+            ByteArrayOutputStream copy, int maxCopy) throws IOException
     {
         int count = 0;
         int length;
@@ -675,10 +768,244 @@ private static int pipeBytes(InputStream in, OutputStream out, byte[] buffer) th
         {
             out.write(buffer, 0, length);
             count += length;
+            if (copy != null && count <= maxCopy)
+            {
+                copy.write(buffer, 0, length);
+            }
         }
         return count;
     }
 
+    /**
+     * Returns the file of a resource created by this class that is sent as it is, like the resources
+     * of an exploded web application or the ones copied by the TempDirFileCacheResourceLoader, or
+     * null if the resource is not backed by a file.
+     */
+    private static Path getResourceFile(Resource resource)
+    {
+        if (resource.getClass() != ResourceImpl.class
+                || ((ResourceImpl) resource).couldResourceContainValueExpressions())
+        {
+            return null;
+        }
+        URL url = resource.getURL();
+        if (url == null || !"file".equals(url.getProtocol()))
+        {
+            return null;
+        }
+        try
+        {
+            Path file = Paths.get(url.toURI());
+            return Files.isRegularFile(file) ? file : null;
+        }
+        catch (URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the Range header of the request, or null if there is none or if the If-Range header
+     * refers to another version of the resource.
+     */
+    private static String getRange(FacesContext facesContext, Map<String, String> headers)
+    {
+        Map<String, String> requestHeaders = facesContext.getExternalContext().getRequestHeaderMap();
+        String range = requestHeaders.get("Range");
+        String ifRange = requestHeaders.get("If-Range");
+        if (range != null && ifRange != null
+                && !ifRange.equals(headers.get("ETag")) && !ifRange.equals(headers.get("Last-Modified")))
+        {
+            return null;
+        }
+        return range;
+    }
+
+    /**
+     * Sends a file, or the requested byte range of it. If Tomcat supports sendfile, it sends the file
+     * itself, otherwise the file is transferred from its FileChannel to the response without going
+     * through a heap buffer of this class.
+     */
+    private static void sendFile(FacesContext facesContext, HttpServletResponse httpServletResponse, Path file,
+            String range) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            long start = 0;
+            long end = size - 1;
+            long[] byteRange = ResourceLoaderUtils.getByteRange(range, size);
+            if (byteRange != null)
+            {
+                if (byteRange.length == 0)
+                {
+                    httpServletResponse.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    httpServletResponse.setHeader("Content-Range", "bytes */" + size);
+                    return;
+                }
+                start = byteRange[0];
+                end = byteRange[1];
+                httpServletResponse.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                httpServletResponse.setHeader("Content-Range", "bytes " + start + '-' + end + '/' + size);
+            }
+            httpServletResponse.setContentLengthLong(end + 1 - start);
+
+            Map<String, Object> requestMap = facesContext.getExternalContext().getRequestMap();
+            if (Boolean.TRUE.equals(requestMap.get(TOMCAT_SENDFILE_SUPPORT)))
+            {
+                requestMap.put(TOMCAT_SENDFILE_FILENAME, file.toFile().getCanonicalPath());
+                requestMap.put(TOMCAT_SENDFILE_START, start);
+                requestMap.put(TOMCAT_SENDFILE_END, end + 1);
+                return;
+            }
+
+            try (OutputStream out = httpServletResponse.getOutputStream())
+            {
+                WritableByteChannel target = Channels.newChannel(out);
+                long position = start;
+                while (position <= end)
+                {
+                    long count = channel.transferTo(position, end + 1 - position, target);
+                    if (count <= 0)
+                    {
+                        // the file was truncated
+                        break;
+                    }
+                    position += count;
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the content to cache. Text resources also get a gzip encoded variant: the precompressed
+     * sibling of the resource (the same name with .gz appended) if there is one, otherwise the
+     * content is compressed once here.
+     */
+    private static ResourceContent createResourceContent(FacesContext facesContext, ResourceImpl resource,
+            byte[] bytes) throws IOException
+    {
+        if (bytes.length < MIN_COMPRESSION_LENGTH
+                || !isCompressible(resource.getContentType())
+                || !MyfacesConfig.getCurrentInstance(facesContext).isResourceHandlerCompressionEnabled())
+        {
+            return new ResourceContent(bytes);
+        }
+
+        byte[] gzipBytes = readPrecompressed(resource.getURL());
+        if (gzipBytes == null)
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out))
+            {
+                gzip.write(bytes);
+            }
+            gzipBytes = out.toByteArray();
+        }
+
+        if (gzipBytes.length >= bytes.length)
+        {
+            return new ResourceContent(bytes);
+        }
+        return new ResourceContent(bytes, new ResourceContent(gzipBytes));
+    }
+
+    private static byte[] readPrecompressed(URL url)
+    {
+        if (url == null)
+        {
+            return null;
+        }
+        try (InputStream in = new URL(url.toExternalForm() + ".gz").openStream())
+        {
+            return in.readAllBytes();
+        }
+        catch (IOException e)
+        {
+            // no precompressed variant
+            return null;
+        }
+    }
+
+    /**
+     * Checks if the resource can get a gzip encoded variant, that is when its content is cached and
+     * it is text. The variant is only created when the content is cached, and not if it does not
+     * make the content smaller, but the responses must vary by Accept-Encoding before that too.
+     */
+    private boolean isGzipVariantPossible(FacesContext facesContext, Resource resource)
+    {
+        return isCompressible(resource.getContentType())
+                && getResourceContentKey(resource) != null
+                && MyfacesConfig.getCurrentInstance(facesContext).isResourceHandlerCompressionEnabled();
+    }
+
+    private static boolean isCompressible(String contentType)
+    {
+        return contentType != null
+                && (contentType.startsWith("text/")
+                        || contentType.contains("javascript")
+                        || contentType.contains("json")
+                        || contentType.contains("xml"));
+    }
+
+    /**
+     * Checks if the Accept-Encoding header of the request allows gzip, either explicitly or with
+     * the * wildcard, and without a quality value of 0.
+     */
+    private static boolean isGzipAccepted(FacesContext facesContext)
+    {
+        String acceptEncoding = facesContext.getExternalContext().getRequestHeaderMap().get("Accept-Encoding");
+        if (acceptEncoding == null)
+        {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(","))
+        {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim();
+            if ("gzip".equalsIgnoreCase(name) || "*".equals(name))
+            {
+                for (int i = 1; i < parameters.length; i++)
+                {
+                    String parameter = parameters[i].trim();
+                    if (parameter.startsWith("q="))
+                    {
+                        try
+                        {
+                            return Double.parseDouble(parameter.substring(2)) > 0;
+                        }
+                        catch (NumberFormatException e)
+                        {
+                            return false;
+                        }
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the key of the resource content in the ResourceHandlerCache, or null if the content
+     * of the resource cannot be cached. Only the resources created by this class are cached, whose
+     * content only depends on the resource meta and the application. The content of resources with
+     * value expressions also depends on the request, it is kept by the ValueExpressionContentCache.
+     */
+    private ResourceHandlerCache.ResourceKey getResourceContentKey(Resource resource)
+    {
+        if (getResourceHandlerCache().isResourceContentCacheEnabled()
+                && resource.getClass() == ResourceImpl.class
+                && !((ResourceImpl) resource).couldResourceContainValueExpressions())
+        {
+            ResourceMeta resourceMeta = ((ResourceImpl) resource).getResourceMeta();
+            return new ResourceHandlerCache.ResourceKey(resourceMeta.getResourceName(),
+                    resourceMeta.getLibraryName(), resource.getContentType(), resourceMeta.getLocalePrefix(),
+                    resourceMeta.getContractName());
+        }
+        return null;
+    }
+
     @Override
     public boolean isResourceRequest(FacesContext facesContext)
     {
@@ -1011,6 +1338,11 @@ public Resource createResourceFromId(String resourceId)
         }
         
         FacesContext facesContext = FacesContext.getCurrentInstance();
+        if (resourceId.startsWith(ResourceCombiner.LIBRARY_NAME + ':'))
+        {
+            return ResourceCombiner.getInstance(facesContext).createResource(
+                    resourceId.substring(ResourceCombiner.LIBRARY_NAME.length() + 1), getResourceHandlerSupport());
+        }
         final List<String> contracts = facesContext.getResourceLibraryContracts(); 
         String contractPreferred = getContractNameForLocateResource(facesContext);
         ResourceValue resourceValue = null;
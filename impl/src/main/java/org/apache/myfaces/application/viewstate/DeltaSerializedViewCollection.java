@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.io.Serializable;
+import jakarta.faces.context.FacesContext;
+
+/**
+ * SerializedViewCollection that stores a serialized view as a binary diff against the serialized
+ * view of the previous request, see {@link ViewStateDelta}. After snapshotInterval - 1 deltas in a
+ * row the full view is stored again, so at most snapshotInterval - 1 patches are applied to restore
+ * a view.
+ * 
+ * <p>A delta references the value of its base directly and not by key, so a view can still be
+ * restored after its base was discarded from the collection, and the chain is written as is when
+ * the session is serialized.</p>
+ */
+class DeltaSerializedViewCollection extends SerializedViewCollection
+{
+    private static final long serialVersionUID = -2408264416232386093L;
+
+    private final int snapshotInterval;
+
+    DeltaSerializedViewCollection(int snapshotInterval)
+    {
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    @Override
+    protected Object storeState(FacesContext context, SerializedViewKey key, SerializedViewKey previousKey,
+            Object state)
+    {
+        if (state instanceof byte[] bytes && previousKey != null && snapshotInterval > 1)
+        {
+            Object base = getStoredValue(previousKey);
+            int depth;
+            if (base instanceof byte[])
+            {
+                depth = 1;
+            }
+            else if (base instanceof Delta delta)
+            {
+                depth = delta.depth + 1;
+            }
+            else
+            {
+                return state;
+            }
+
+            if (depth < snapshotInterval)
+            {
+                byte[] diff = ViewStateDelta.diff(resolve(base), bytes);
+                // not worth it if the view changed a lot
+                if (diff.length < bytes.length / 2)
+                {
+                    return new Delta(base, diff, depth);
+                }
+            }
+        }
+        return state;
+    }
+
+    @Override
+    protected Object loadState(SerializedViewKey key, Object value)
+    {
+        if (value instanceof Delta)
+        {
+            return resolve(value);
+        }
+        return value;
+    }
+
+    private static byte[] resolve(Object value)
+    {
+        if (value instanceof Delta delta)
+        {
+            return ViewStateDelta.patch(resolve(delta.base), delta.diff);
+        }
+        return (byte[]) value;
+    }
+
+    /**
+     * A serialized view stored as the diff against the serialized view of its base.
+     */
+    static final class Delta implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * byte[] or Delta
+         */
+        private final Object base;
+        private final byte[] diff;
+        private final int depth;
+
+        Delta(Object base, byte[] diff, int depth)
+        {
+            this.base = base;
+            this.diff = diff;
+            this.depth = depth;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.lang.ref.Cleaner;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jakarta.faces.context.FacesContext;
+
+/**
+ * SerializedViewCollection that keeps the serialized views in the {@link OffHeapViewStateStore}.
+ * The session only contains the keys, the precedence, window and view scope bookkeeping, and a
+ * small handle per view.
+ * 
+ * <p>The handles release their blocks when the view is discarded by this collection, and when
+ * the collection is garbage collected (for example after the session is invalidated). If the
+ * session is serialized, the handles are replaced by the serialized view, so the views are not
+ * lost on passivation or replication.</p>
+ */
+class OffHeapSerializedViewCollection extends SerializedViewCollection
+{
+    private static final Logger log = Logger.getLogger(OffHeapSerializedViewCollection.class.getName());
+
+    private static final long serialVersionUID = 2907327846213318422L;
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private static final byte[] EXPIRED = new byte[0];
+
+    private transient OffHeapViewStateStore store;
+
+    OffHeapSerializedViewCollection(OffHeapViewStateStore store)
+    {
+        this.store = store;
+    }
+
+    @Override
+    protected Object storeState(FacesContext context, SerializedViewKey key, SerializedViewKey previousKey,
+            Object state)
+    {
+        if (state instanceof byte[] bytes)
+        {
+            OffHeapViewStateStore currentStore = getStore(context);
+            if (currentStore != null)
+            {
+                try
+                {
+                    OffHeapViewStateStore.Entry entry = currentStore.put(bytes);
+                    if (entry != null)
+                    {
+                        return new Handle(currentStore, entry);
+                    }
+                }
+                catch (IOException e)
+                {
+                    log.log(Level.SEVERE, "Could not store the view off heap, keeping it in session", e);
+                }
+            }
+        }
+        return state;
+    }
+
+    @Override
+    protected Object loadState(SerializedViewKey key, Object value)
+    {
+        if (value instanceof Handle handle)
+        {
+            return handle.getBytes();
+        }
+        else if (value instanceof byte[] bytes && bytes.length == 0)
+        {
+            // evicted before the session was serialized
+            return null;
+        }
+        return value;
+    }
+
+    @Override
+    protected void discardState(SerializedViewKey key, Object value)
+    {
+        if (value instanceof Handle handle)
+        {
+            handle.release();
+        }
+    }
+
+    private OffHeapViewStateStore getStore(FacesContext context)
+    {
+        if (store == null)
+        {
+            // after the session was deserialized
+            store = OffHeapSessionViewStorageFactory.getStore(context);
+        }
+        return store;
+    }
+
+    /**
+     * The value kept in the session for a view stored off heap.
+     */
+    static final class Handle implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final transient OffHeapViewStateStore store;
+        private final transient OffHeapViewStateStore.Entry entry;
+        private final transient Cleaner.Cleanable cleanable;
+
+        Handle(OffHeapViewStateStore store, OffHeapViewStateStore.Entry entry)
+        {
+            this.store = store;
+            this.entry = entry;
+            this.cleanable = CLEANER.register(this, new Release(store, entry));
+        }
+
+        byte[] getBytes()
+        {
+            return store == null ? null : store.get(entry);
+        }
+
+        void release()
+        {
+            if (cleanable != null)
+            {
+                cleanable.clean();
+            }
+        }
+
+        /**
+         * Write the serialized view instead of the handle, or an empty array if it was evicted.
+         */
+        private Object writeReplace() throws ObjectStreamException
+        {
+            byte[] bytes = getBytes();
+            return bytes == null ? EXPIRED : bytes;
+        }
+    }
+
+    /**
+     * Must not reference the Handle, otherwise it never becomes phantom reachable.
+     */
+    private static final class Release implements Runnable
+    {
+        private final OffHeapViewStateStore store;
+        private final OffHeapViewStateStore.Entry entry;
+
+        Release(OffHeapViewStateStore store, OffHeapViewStateStore.Entry entry)
+        {
+            this.store = store;
+            this.entry = entry;
+        }
+
+        @Override
+        public void run()
+        {
+            store.remove(entry);
+        }
+    }
+}
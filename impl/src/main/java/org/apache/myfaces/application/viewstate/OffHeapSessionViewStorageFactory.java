@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.event.PreDestroyApplicationEvent;
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+
+/**
+ * SessionViewStorageFactory for org.apache.myfaces.VIEW_STATE_SESSION_STORAGE="offHeap".
+ * One {@link OffHeapViewStateStore} is shared by all sessions of the application, it is destroyed
+ * with the application.
+ */
+class OffHeapSessionViewStorageFactory extends SessionViewStorageFactoryImpl
+{
+    private static final String STORE_KEY = OffHeapViewStateStore.class.getName();
+
+    private final OffHeapViewStateStore store;
+
+    public OffHeapSessionViewStorageFactory(FacesContext facesContext, KeyFactory<byte[]> keyFactory)
+    {
+        super(keyFactory);
+        MyfacesConfig config = MyfacesConfig.getCurrentInstance(facesContext);
+        store = new OffHeapViewStateStore(config.getViewStateOffHeapMaxSize(),
+                config.getViewStateOffHeapBlockSize());
+        facesContext.getExternalContext().getApplicationMap().put(STORE_KEY, store);
+        facesContext.getApplication().subscribeToEvent(PreDestroyApplicationEvent.class, store);
+    }
+
+    @Override
+    public SerializedViewCollection createSerializedViewCollection(FacesContext context)
+    {
+        return new OffHeapSerializedViewCollection(store);
+    }
+
+    public OffHeapViewStateStore getStore()
+    {
+        return store;
+    }
+
+    static OffHeapViewStateStore getStore(FacesContext facesContext)
+    {
+        return (OffHeapViewStateStore) facesContext.getExternalContext().getApplicationMap().get(STORE_KEY);
+    }
+}
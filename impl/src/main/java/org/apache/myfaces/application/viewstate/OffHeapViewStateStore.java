@@ -0,0 +1,589 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jakarta.faces.event.AbortProcessingException;
+import jakarta.faces.event.SystemEvent;
+import jakarta.faces.event.SystemEventListener;
+
+/**
+ * Stores serialized views outside of the java heap, in memory mapped segments of a temporary
+ * file. The store is divided in blocks of a fixed size, a view uses as many blocks as needed, so
+ * there is no fragmentation. The store is shared by all sessions of the application and limited to
+ * a max size: when there are not enough free blocks the least recently used views are discarded,
+ * no matter which session they belong to.
+ * 
+ * <p>Segments are mapped lazily, so the store only uses as much memory as the views need. A
+ * segment is unmapped and its file deleted when its last block is released, and all of them when
+ * the store is destroyed with the application.</p>
+ * 
+ * <p>Only the block allocation and the LRU order are guarded by a single lock, the bytes are copied
+ * under the lock of each segment. Copies take its read lock, they never touch the same blocks, and
+ * releasing, mapping or unmapping takes its write lock, so a view is never read from blocks already
+ * reused by another one. A view is only put in the LRU order once it is written, so it can not be
+ * evicted while it is copied in.</p>
+ */
+class OffHeapViewStateStore implements SystemEventListener
+{
+    private static final Logger log = Logger.getLogger(OffHeapViewStateStore.class.getName());
+
+    private static final int MAX_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    // sun.misc.Unsafe.invokeCleaner, to unmap a segment without waiting for the garbage collector
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static
+    {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try
+        {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        }
+        catch (Exception | LinkageError e)
+        {
+            // not available, the segments are unmapped by the garbage collector
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final int blockSize;
+    private final int totalBlocks;
+    private final int blocksPerSegment;
+
+    private final Segment[] segments;
+    private final ReentrantLock allocationLock = new ReentrantLock();
+    private int usedBlocks = 0;
+    private boolean destroyed = false;
+
+    /**
+     * Entries in access order, the first one is the least recently used.
+     */
+    private final LinkedHashMap<Entry, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long evictions = 0;
+
+    OffHeapViewStateStore(long maxSize, int blockSize)
+    {
+        this.blockSize = blockSize;
+        this.totalBlocks = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxSize / blockSize));
+        this.blocksPerSegment = Math.max(1, Math.min(totalBlocks, MAX_SEGMENT_SIZE / blockSize));
+        this.segments = new Segment[(totalBlocks + blocksPerSegment - 1) / blocksPerSegment];
+        for (int i = 0; i < segments.length; i++)
+        {
+            segments[i] = new Segment(Math.min(blocksPerSegment, totalBlocks - i * blocksPerSegment));
+        }
+    }
+
+    /**
+     * A stored view. It becomes invalid when it is removed or evicted.
+     */
+    static final class Entry
+    {
+        private final int[] blocks;
+        private final int length;
+        private volatile boolean valid = true;
+
+        private Entry(int[] blocks, int length)
+        {
+            this.blocks = blocks;
+            this.length = length;
+        }
+
+        int getLength()
+        {
+            return length;
+        }
+    }
+
+    /**
+     * A mapped part of the store, the blocks are numbered within the segment.
+     */
+    private static final class Segment
+    {
+        private final int blockCount;
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private MappedByteBuffer buffer;
+        // only kept if it could not be deleted while mapped
+        private File file;
+        private int[] freeBlocks = new int[0];
+        private int freeBlocksCount = 0;
+        private int nextUnusedBlock = 0;
+        private int usedBlocks = 0;
+
+        private Segment(int blockCount)
+        {
+            this.blockCount = blockCount;
+        }
+
+        private boolean hasFreeBlock()
+        {
+            return freeBlocksCount > 0 || nextUnusedBlock < blockCount;
+        }
+    }
+
+    /**
+     * @return the entry, or null if the bytes do not fit in the store at all, all blocks are taken
+     *         by views still being written or the store was destroyed
+     */
+    Entry put(byte[] bytes) throws IOException
+    {
+        int blocksNeeded = Math.max(1, (bytes.length + blockSize - 1) / blockSize);
+        if (blocksNeeded > totalBlocks)
+        {
+            return null;
+        }
+
+        int[] blocks = new int[blocksNeeded];
+        allocationLock.lock();
+        try
+        {
+            if (destroyed)
+            {
+                return null;
+            }
+            while (totalBlocks - usedBlocks < blocksNeeded)
+            {
+                if (entries.isEmpty())
+                {
+                    return null;
+                }
+                Iterator<Entry> it = entries.keySet().iterator();
+                Entry eldest = it.next();
+                it.remove();
+                release(eldest);
+                evictions++;
+            }
+
+            int allocated = 0;
+            try
+            {
+                while (allocated < blocksNeeded)
+                {
+                    blocks[allocated] = allocateBlock();
+                    allocated++;
+                }
+            }
+            catch (IOException e)
+            {
+                for (int i = 0; i < allocated; i++)
+                {
+                    releaseBlock(blocks[i]);
+                }
+                throw e;
+            }
+        }
+        finally
+        {
+            allocationLock.unlock();
+        }
+
+        Entry entry = new Entry(blocks, bytes.length);
+        if (!copy(entry, bytes, true))
+        {
+            // destroyed meanwhile
+            return null;
+        }
+
+        allocationLock.lock();
+        try
+        {
+            if (destroyed)
+            {
+                entry.valid = false;
+                return null;
+            }
+            entries.put(entry, entry);
+        }
+        finally
+        {
+            allocationLock.unlock();
+        }
+        return entry;
+    }
+
+    /**
+     * @return the bytes of the entry, or null if it was evicted
+     */
+    byte[] get(Entry entry)
+    {
+        if (!entry.valid)
+        {
+            return null;
+        }
+        // update the access order, unless another thread is allocating, the order is approximate
+        // then but the copy does not wait for it
+        if (allocationLock.tryLock())
+        {
+            try
+            {
+                entries.get(entry);
+            }
+            finally
+            {
+                allocationLock.unlock();
+            }
+        }
+
+        byte[] bytes = new byte[entry.length];
+        return copy(entry, bytes, false) ? bytes : null;
+    }
+
+    void remove(Entry entry)
+    {
+        allocationLock.lock();
+        try
+        {
+            if (entry.valid)
+            {
+                entries.remove(entry);
+                release(entry);
+            }
+        }
+        finally
+        {
+            allocationLock.unlock();
+        }
+    }
+
+    /**
+     * Discards all views, unmaps the segments and deletes their files. The store does not take any
+     * views anymore.
+     */
+    void destroy()
+    {
+        allocationLock.lock();
+        try
+        {
+            destroyed = true;
+            for (Entry entry : entries.keySet())
+            {
+                entry.valid = false;
+            }
+            entries.clear();
+            usedBlocks = 0;
+            for (Segment segment : segments)
+            {
+                segment.lock.writeLock().lock();
+                try
+                {
+                    unmap(segment);
+                }
+                finally
+                {
+                    segment.lock.writeLock().unlock();
+                }
+            }
+        }
+        finally
+        {
+            allocationLock.unlock();
+        }
+    }
+
+    /**
+     * Destroys the store with the application.
+     */
+    @Override
+    public void processEvent(SystemEvent event) throws AbortProcessingException
+    {
+        destroy();
+    }
+
+    @Override
+    public boolean isListenerForSource(Object source)
+    {
+        return true;
+    }
+
+    /**
+     * Copies the bytes into or out of the blocks of the entry, block by block under the read lock of
+     * their segment.
+     * 
+     * @return false if the entry was removed, evicted or the store destroyed in the meantime
+     */
+    private boolean copy(Entry entry, byte[] bytes, boolean write)
+    {
+        int offset = 0;
+        for (int block : entry.blocks)
+        {
+            int length = Math.min(blockSize, bytes.length - offset);
+            if (length <= 0)
+            {
+                break;
+            }
+            Segment segment = segment(block);
+            segment.lock.readLock().lock();
+            try
+            {
+                // the blocks of a valid entry can not be released until the read lock is unlocked
+                if (!entry.valid || segment.buffer == null)
+                {
+                    return false;
+                }
+                if (write)
+                {
+                    segment.buffer.put(segmentOffset(block), bytes, offset, length);
+                }
+                else
+                {
+                    segment.buffer.get(segmentOffset(block), bytes, offset, length);
+                }
+            }
+            finally
+            {
+                segment.lock.readLock().unlock();
+            }
+            offset += length;
+        }
+        return true;
+    }
+
+    private void release(Entry entry)
+    {
+        entry.valid = false;
+        for (int block : entry.blocks)
+        {
+            releaseBlock(block);
+        }
+    }
+
+    private void releaseBlock(int block)
+    {
+        Segment segment = segment(block);
+        usedBlocks--;
+        // waits for the copies still reading the block before it can be reused
+        segment.lock.writeLock().lock();
+        try
+        {
+            if (--segment.usedBlocks == 0)
+            {
+                // the segment is empty, give back its memory and disk space
+                unmap(segment);
+                return;
+            }
+            if (segment.freeBlocksCount == segment.freeBlocks.length)
+            {
+                int[] old = segment.freeBlocks;
+                segment.freeBlocks = new int[Math.min(segment.blockCount, Math.max(16, old.length * 2))];
+                System.arraycopy(old, 0, segment.freeBlocks, 0, segment.freeBlocksCount);
+            }
+            segment.freeBlocks[segment.freeBlocksCount++] = block % blocksPerSegment;
+        }
+        finally
+        {
+            segment.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Takes a free block of a mapped segment, or maps a segment if they are all full.
+     */
+    private int allocateBlock() throws IOException
+    {
+        int index = -1;
+        for (int i = 0; i < segments.length; i++)
+        {
+            Segment segment = segments[i];
+            if (segment.buffer != null && segment.hasFreeBlock())
+            {
+                index = i;
+                break;
+            }
+            if (index == -1 && segment.buffer == null)
+            {
+                index = i;
+            }
+        }
+
+        Segment segment = segments[index];
+        if (segment.buffer == null)
+        {
+            segment.lock.writeLock().lock();
+            try
+            {
+                map(segment, index);
+            }
+            finally
+            {
+                segment.lock.writeLock().unlock();
+            }
+        }
+        int block = segment.freeBlocksCount > 0
+                ? segment.freeBlocks[--segment.freeBlocksCount]
+                : segment.nextUnusedBlock++;
+        segment.usedBlocks++;
+        usedBlocks++;
+        return index * blocksPerSegment + block;
+    }
+
+    private void map(Segment segment, int index) throws IOException
+    {
+        File file = File.createTempFile("myfaces-viewstate", ".bin");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+        {
+            long size = (long) segment.blockCount * blockSize;
+            raf.setLength(size);
+            // the mapping stays valid after the channel is closed
+            segment.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        finally
+        {
+            // the file can not be deleted while it is mapped on some platforms, then it is deleted
+            // when the segment is unmapped
+            if (!file.delete())
+            {
+                segment.file = file;
+            }
+            if (log.isLoggable(Level.FINE))
+            {
+                log.fine("Mapped off heap view state segment " + index + " of " + segment.blockCount + " blocks");
+            }
+        }
+    }
+
+    private static void unmap(Segment segment)
+    {
+        MappedByteBuffer buffer = segment.buffer;
+        segment.buffer = null;
+        segment.freeBlocks = new int[0];
+        segment.freeBlocksCount = 0;
+        segment.nextUnusedBlock = 0;
+        segment.usedBlocks = 0;
+
+        if (buffer != null && INVOKE_CLEANER != null)
+        {
+            try
+            {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            }
+            catch (Exception e)
+            {
+                log.log(Level.FINE, "Could not unmap an off heap view state segment", e);
+            }
+        }
+        if (segment.file != null && (!segment.file.delete() && segment.file.exists()))
+        {
+            // still mapped, because the buffer could not be cleaned
+            segment.file.deleteOnExit();
+        }
+        segment.file = null;
+    }
+
+    private Segment segment(int block)
+    {
+        return segments[block / blocksPerSegment];
+    }
+
+    private int segmentOffset(int block)
+    {
+        return (block % blocksPerSegment) * blockSize;
+    }
+
+    int getEntryCount()
+    {
+        allocationLock.lock();
+        try
+        {
+            return entries.size();
+        }
+        finally
+        {
+            allocationLock.unlock();
+        }
+    }
+
+    long getUsedBytes()
+    {
+        allocationLock.lock();
+        try
+        {
+            return (long) usedBlocks * blockSize;
+        }
+        finally
+        {
+            allocationLock.unlock();
+        }
+    }
+
+    long getEvictionCount()
+    {
+        allocationLock.lock();
+        try
+        {
+            return evictions;
+        }
+        finally
+        {
+            allocationLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of segments currently mapped
+     */
+    int getMappedSegmentCount()
+    {
+        allocationLock.lock();
+        try
+        {
+            int count = 0;
+            for (Segment segment : segments)
+            {
+                if (segment.buffer != null)
+                {
+                    count++;
+                }
+            }
+            return count;
+        }
+        finally
+        {
+            allocationLock.unlock();
+        }
+    }
+
+    long getMaxSize()
+    {
+        return (long) totalBlocks * blockSize;
+    }
+}
@@ -18,11 +18,15 @@
  */
 package org.apache.myfaces.application.viewstate;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 import jakarta.faces.context.FacesContext;
 import java.util.function.Consumer;
@@ -31,7 +35,18 @@
 import org.apache.myfaces.util.lang.LRULinkedHashMap;
 
 /**
- *
+ * Holds the views of a session. It is accessed by all concurrent requests of the session (ajax
+ * requests, multiple tabs), so it does not lock: the views are kept in a ConcurrentHashMap and
+ * every put appends the key with a new stamp to a discard queue. The queue is consumed from the
+ * head when the collection is full; nodes whose stamp does not match the current entry anymore
+ * (the view was updated or already removed) are skipped, and an entry is only removed if it
+ * is still the one the node refers to. That way the least recently stored view is discarded
+ * first, as before.
+ * <p>
+ * The number of views is counted separately. A put that adds a view and takes the count beyond
+ * the limit claims one eviction by decrementing the count with a compare and set, so concurrent
+ * puts together evict only as many views as they added beyond the limit.
+ * </p>
  */
 class SerializedViewCollection implements Serializable
 {
@@ -39,45 +54,57 @@ class SerializedViewCollection implements Serializable
 
     private static final Object[] EMPTY_STATES = new Object[]{null, null};
 
-    private static final long serialVersionUID = -3734849062185115847L;
+    /**
+     * Stored instead of null, ConcurrentHashMap does not accept null values. Compared by
+     * length and not by identity, because the identity does not survive serialization.
+     */
+    private static final Object[] NULL_STATE = new Object[0];
 
-    private final List<SerializedViewKey> _keys = new ArrayList<>(MyfacesConfig.NUMBER_OF_VIEWS_IN_SESSION_DEFAULT);
-    private final Map<SerializedViewKey, Object> _serializedViews = new HashMap<>();
+    private static final long serialVersionUID = -3734849062185115848L;
+
+    private final Map<SerializedViewKey, ViewEntry> _serializedViews = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<KeyStamp> _keys = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger _keysCount = new AtomicInteger();
+    private final AtomicInteger _size = new AtomicInteger();
+    private final AtomicLong _stamps = new AtomicLong();
 
     /**
      * The viewScopeIds can be shared between multiple entries of the same
-     * view. To store it into session, the best is use two maps, one to 
-     * associate the view key with the view scope id and other to keep track 
+     * view. The id is kept in the entry of the view, and this map keeps track
      * of the number of times the id is used. In that way it is possible to
      * know when a view scope id has been discarded and destroy the view scope
      * in the right time.
      */
-    private HashMap<SerializedViewKey, String> _viewScopeIds = null;
-    private HashMap<String, Integer> _viewScopeIdCounts = null;
+    private final Map<String, Integer> _viewScopeIdCounts = new ConcurrentHashMap<>();
 
-    private final Map<SerializedViewKey, SerializedViewKey> _precedence = new HashMap<>();
+    private final Map<SerializedViewKey, SerializedViewKey> _precedence = new ConcurrentHashMap<>();
     private Map<String, SerializedViewKey> _lastWindowKeys = null;
 
+    private transient Stats _stats = new Stats();
+
     public void put(FacesContext context, Object state, SerializedViewKey key, SerializedViewKey previousRestoredKey)
     {
         put(context, state, key, previousRestoredKey, null,
                 (oldViewScopeId) -> ViewScopeContext.destroyAll(context, oldViewScopeId));
     }
     
-    public synchronized void put(FacesContext context, Object state, 
+    public void put(FacesContext context, Object state, 
         SerializedViewKey key, SerializedViewKey previousRestoredKey, String viewScopeId)
     {
         put(context, state, key, previousRestoredKey, viewScopeId,
             (oldViewScopeId) -> ViewScopeContext.destroyAll(context, oldViewScopeId));
     }
 
-    public synchronized void put(FacesContext context, Object state, 
+    public void put(FacesContext context, Object state, 
         SerializedViewKey key, SerializedViewKey previousRestoredKey, String viewScopeId,
         Consumer<String> destroyCallback)
     {
+        _stats.puts.increment();
+
+        Object value;
         if (state == null)
         {
-            state = EMPTY_STATES;
+            value = storeState(context, key, previousRestoredKey, EMPTY_STATES);
         }
         else if (state instanceof Object[] objects &&
             objects.length == 2 &&
@@ -86,65 +113,66 @@ else if (state instanceof Object[] objects &&
         {
             // The generated state can be considered zero, set it as null
             // into the map.
-            state = null;
+            value = NULL_STATE;
         }
-
-        if (_serializedViews.containsKey(key))
+        else
         {
-            // Update the state, the viewScopeId does not change.
-            _serializedViews.put(key, state);
-            // Make sure the view is at the end of the discard queue
-            while (_keys.remove(key))
-            {
-                // do nothing
-            }
-            _keys.add(key);
-            return;
+            value = storeState(context, key, previousRestoredKey, state);
         }
 
         Integer maxCount = getNumberOfSequentialViewsInSession(context);
-        if (maxCount != null)
+        int views = getNumberOfViewsInSession(context);
+        long stamp = _stamps.incrementAndGet();
+
+        while (true)
         {
-            if (previousRestoredKey != null)
+            ViewEntry current = _serializedViews.get(key);
+            if (current != null)
             {
-                if (!_serializedViews.isEmpty())
+                // Update the state, the viewScopeId does not change.
+                if (_serializedViews.replace(key, current, new ViewEntry(value, current.viewScopeId, stamp)))
                 {
-                    _precedence.put(key, previousRestoredKey);
+                    discardState(key, current.value);
+                    // Make sure the view is at the end of the discard queue
+                    enqueue(key, stamp, views);
+                    return;
                 }
-                else
+            }
+            else
+            {
+                boolean empty = _serializedViews.isEmpty();
+                if (_serializedViews.putIfAbsent(key, new ViewEntry(value, viewScopeId, stamp)) == null)
                 {
-                    // Note when the session is invalidated, _serializedViews map is empty,
-                    // but we could have a not null previousRestoredKey (the last one before
-                    // invalidate the session), so we need to check that condition before
-                    // set the precence. In that way, we ensure the precedence map will always
-                    // have valid keys.
-                    previousRestoredKey = null;
+                    _size.incrementAndGet();
+                    if (maxCount != null && previousRestoredKey != null)
+                    {
+                        if (!empty)
+                        {
+                            _precedence.put(key, previousRestoredKey);
+                        }
+                        else
+                        {
+                            // Note when the session is invalidated, _serializedViews map is empty,
+                            // but we could have a not null previousRestoredKey (the last one before
+                            // invalidate the session), so we need to check that condition before
+                            // set the precence. In that way, we ensure the precedence map will always
+                            // have valid keys.
+                            previousRestoredKey = null;
+                        }
+                    }
+                    break;
                 }
             }
+            // another request of the session changed the entry in the meantime
+            _stats.retries.increment();
         }
-        _serializedViews.put(key, state);
-        
+
         if (viewScopeId != null)
         {
-            if (_viewScopeIds == null)
-            {
-                _viewScopeIds = new HashMap<>();
-            }
-            _viewScopeIds.put(key, viewScopeId);
-            if (_viewScopeIdCounts == null)
-            {
-                _viewScopeIdCounts = new HashMap<>();
-            }
-            Integer vscount = _viewScopeIdCounts.get(viewScopeId);
-            vscount = (vscount == null) ? 1 : vscount + 1;
-            _viewScopeIdCounts.put(viewScopeId, vscount);
+            _viewScopeIdCounts.merge(viewScopeId, 1, Integer::sum);
         }
 
-        while (_keys.remove(key))
-        {
-            // do nothing
-        }
-        _keys.add(key);
+        enqueue(key, stamp, views);
 
         if (previousRestoredKey != null && maxCount != null && maxCount > 0)
         {
@@ -161,34 +189,16 @@ else if (state instanceof Object[] objects &&
             {
                 SerializedViewKey keyToRemove = previousKey;
                 // In theory it should be only one key but just to be sure
-                // do it in a loop, but in this case if cache old views is on,
-                // put on that map.
+                // do it in a loop. The queue nodes of the removed keys are
+                // skipped when they reach the head of the queue.
                 do
                 {
-                    while (_keys.remove(keyToRemove))
-                    {
-                        // do nothing
-                    }
-
-                    _serializedViews.remove(keyToRemove);
-                    
-                    if (_viewScopeIds != null)
+                    ViewEntry removed = _serializedViews.remove(keyToRemove);
+                    if (removed != null)
                     {
-                        String oldViewScopeId = _viewScopeIds.remove(keyToRemove);
-                        if (oldViewScopeId != null)
-                        {
-                            Integer vscount = _viewScopeIdCounts.get(oldViewScopeId);
-                            vscount = vscount - 1;
-                            if (vscount < 1)
-                            {
-                                _viewScopeIdCounts.remove(oldViewScopeId);
-                                destroyCallback.accept(oldViewScopeId);
-                            }
-                            else
-                            {
-                                _viewScopeIdCounts.put(oldViewScopeId, vscount);
-                            }
-                        }
+                        _size.decrementAndGet();
+                        _stats.sequentialEvictions.increment();
+                        discard(keyToRemove, removed, destroyCallback);
                     }
 
                     keyToRemove = _precedence.remove(keyToRemove);
@@ -196,13 +206,60 @@ else if (state instanceof Object[] objects &&
                 while (keyToRemove != null);
             }
         }
-        int views = getNumberOfViewsInSession(context);
-        while (_keys.size() > views)
+
+        while (true)
         {
-            key = _keys.remove(0);
+            int size = _size.get();
+            if (size <= views)
+            {
+                break;
+            }
+            if (!_size.compareAndSet(size, size - 1))
+            {
+                continue;
+            }
+            // this put removes one view, the count is already decremented for it
+            if (!evictOldest(maxCount, destroyCallback))
+            {
+                _size.incrementAndGet();
+                break;
+            }
+        }
+    }
+
+    /**
+     * Removes the least recently stored view.
+     * 
+     * @return false if there is no view to remove
+     */
+    private boolean evictOldest(Integer maxCount, Consumer<String> destroyCallback)
+    {
+        while (true)
+        {
+            KeyStamp oldest = _keys.poll();
+            if (oldest == null)
+            {
+                return false;
+            }
+            _keysCount.decrementAndGet();
+
+            ViewEntry entry = _serializedViews.get(oldest.key);
+            if (entry == null || entry.stamp != oldest.stamp)
+            {
+                // removed or stored again after this node was added
+                _stats.staleKeys.increment();
+                continue;
+            }
+            if (!_serializedViews.remove(oldest.key, entry))
+            {
+                // updated in the meantime, so it is not the oldest one anymore
+                _stats.retries.increment();
+                continue;
+            }
+
             if (maxCount != null && maxCount > 0)
             {
-                SerializedViewKey keyToRemove = key;
+                SerializedViewKey keyToRemove = oldest.key;
                 // Note in this case the key to delete is the oldest one,
                 // so it could be at least one precedence, but to be safe
                 // do it with a loop.
@@ -213,29 +270,111 @@ else if (state instanceof Object[] objects &&
                 while (keyToRemove != null);
             }
 
-            _serializedViews.remove(key);
-            
-            if (_viewScopeIds != null)
+            _stats.evictions.increment();
+            discard(oldest.key, entry, destroyCallback);
+            return true;
+        }
+    }
+
+    private void enqueue(SerializedViewKey key, long stamp, int views)
+    {
+        _keys.offer(new KeyStamp(key, stamp));
+        if (_keysCount.incrementAndGet() > 2 * views + 16)
+        {
+            // Updated and sequentially removed views leave nodes behind, which are only skipped when
+            // the collection is full. Drop them, so the queue does not grow in a session that never
+            // fills up.
+            AtomicInteger purged = new AtomicInteger();
+            _keys.removeIf(node ->
             {
-                String oldViewScopeId = _viewScopeIds.remove(key);
-                if (oldViewScopeId != null)
+                ViewEntry entry = _serializedViews.get(node.key);
+                if (entry == null || entry.stamp != node.stamp)
                 {
-                    Integer vscount = _viewScopeIdCounts.get(oldViewScopeId);
-                    vscount = vscount - 1;
-                    if (vscount < 1)
-                    {
-                        _viewScopeIdCounts.remove(oldViewScopeId);
-                        destroyCallback.accept(oldViewScopeId);
-                    }
-                    else
-                    {
-                        _viewScopeIdCounts.put(oldViewScopeId, vscount);
-                    }
+                    purged.incrementAndGet();
+                    return true;
                 }
+                return false;
+            });
+            _keysCount.addAndGet(-purged.get());
+            _stats.staleKeys.add(purged.get());
+        }
+    }
+
+    private void discard(SerializedViewKey key, ViewEntry entry, Consumer<String> destroyCallback)
+    {
+        discardState(key, entry.value);
+
+        String oldViewScopeId = entry.viewScopeId;
+        if (oldViewScopeId != null)
+        {
+            boolean[] destroy = new boolean[1];
+            _viewScopeIdCounts.computeIfPresent(oldViewScopeId, (id, vscount) ->
+            {
+                if (vscount > 1)
+                {
+                    return vscount - 1;
+                }
+                destroy[0] = true;
+                return null;
+            });
+            if (destroy[0])
+            {
+                destroyCallback.accept(oldViewScopeId);
             }
         }
     }
 
+    /**
+     * Returns the value kept in this collection for the given state. By default the state itself.
+     * 
+     * @param context
+     * @param key
+     * @param previousKey the key of the view restored by the request that created this state, can be null
+     * @param state the state to store
+     * @return 
+     */
+    protected Object storeState(FacesContext context, SerializedViewKey key, SerializedViewKey previousKey,
+            Object state)
+    {
+        return state;
+    }
+
+    /**
+     * @param key
+     * @return the value kept in this collection for the given key, or null
+     */
+    protected Object getStoredValue(SerializedViewKey key)
+    {
+        ViewEntry entry = _serializedViews.get(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * Returns the state for a value returned by
+     * {@link #storeState(FacesContext, SerializedViewKey, SerializedViewKey, Object)}, or null if the state
+     * is not available anymore.
+     * 
+     * @param key
+     * @param value
+     * @return 
+     */
+    protected Object loadState(SerializedViewKey key, Object value)
+    {
+        return value;
+    }
+
+    /**
+     * Called when a value returned by
+     * {@link #storeState(FacesContext, SerializedViewKey, SerializedViewKey, Object)} is replaced or removed
+     * from this collection.
+     * 
+     * @param key
+     * @param value the value, can be null
+     */
+    protected void discardState(SerializedViewKey key, Object value)
+    {
+    }
+
     protected Integer getNumberOfSequentialViewsInSession(FacesContext context)
     {
         return MyfacesConfig.getCurrentInstance(context).getNumberOfSequentialViewsInSession();
@@ -252,25 +391,27 @@ protected int getNumberOfViewsInSession(FacesContext context)
         return MyfacesConfig.getCurrentInstance(context).getNumberOfViewsInSession();
     }
 
+    // the last window keys are only accessed once per request, unlike the views they are kept in
+    // an access ordered map under the lock of the collection
     public synchronized void putLastWindowKey(FacesContext context, String id, SerializedViewKey key)
     {
         if (_lastWindowKeys == null)
         {
             Integer i = getNumberOfSequentialViewsInSession(context);
             int j = getNumberOfViewsInSession(context);
-            if (i != null && i> 0)
+            if (i != null && i > 0)
             {
                 _lastWindowKeys = new LRULinkedHashMap<>((j / i) + 1);
             }
             else
             {
-                _lastWindowKeys = new LRULinkedHashMap(j + 1);
+                _lastWindowKeys = new LRULinkedHashMap<>(j + 1);
             }
         }
         _lastWindowKeys.put(id, key);
     }
 
-    public SerializedViewKey getLastWindowKey(FacesContext context, String id)
+    public synchronized SerializedViewKey getLastWindowKey(FacesContext context, String id)
     {
         if (_lastWindowKeys != null)
         {
@@ -281,15 +422,22 @@ public SerializedViewKey getLastWindowKey(FacesContext context, String id)
 
     public Object get(SerializedViewKey key)
     {
-        Object value = _serializedViews.get(key);
-        if (value == null)
+        ViewEntry entry = _serializedViews.get(key);
+        if (entry == null)
         {
-            if (_serializedViews.containsKey(key))
-            {
-                return EMPTY_STATES;
-            }
+            _stats.misses.increment();
+            return null;
+        }
+        _stats.hits.increment();
+
+        if (entry.value instanceof Object[] objects && objects.length == 0)
+        {
+            // NULL_STATE
+            return EMPTY_STATES;
         }
-        else if (value instanceof Object[] objects &&
+
+        Object value = loadState(key, entry.value);
+        if (value instanceof Object[] objects &&
             objects.length == 2 &&
             objects[0] == null &&
             objects[1] == null)
@@ -299,4 +447,127 @@ else if (value instanceof Object[] objects &&
         }
         return value;
     }
+
+    /**
+     * @return the number of views in this collection
+     */
+    public int size()
+    {
+        return _serializedViews.size();
+    }
+
+    /**
+     * @return the counters of this collection, they are not serialized with the session
+     */
+    public Stats getStats()
+    {
+        return _stats;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        _stats = new Stats();
+    }
+
+    private static final class ViewEntry implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Object value;
+        private final String viewScopeId;
+        private final long stamp;
+
+        ViewEntry(Object value, String viewScopeId, long stamp)
+        {
+            this.value = value;
+            this.viewScopeId = viewScopeId;
+            this.stamp = stamp;
+        }
+    }
+
+    private static final class KeyStamp implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final SerializedViewKey key;
+        private final long stamp;
+
+        KeyStamp(SerializedViewKey key, long stamp)
+        {
+            this.key = key;
+            this.stamp = stamp;
+        }
+    }
+
+    /**
+     * Counters to see how the collection is used and how often concurrent requests of the same
+     * session got in the way of each other.
+     */
+    public static final class Stats
+    {
+        private final LongAdder puts = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+        private final LongAdder sequentialEvictions = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder staleKeys = new LongAdder();
+
+        public long getPuts()
+        {
+            return puts.sum();
+        }
+
+        public long getHits()
+        {
+            return hits.sum();
+        }
+
+        public long getMisses()
+        {
+            return misses.sum();
+        }
+
+        /**
+         * @return the views discarded because of NUMBER_OF_VIEWS_IN_SESSION
+         */
+        public long getEvictions()
+        {
+            return evictions.sum();
+        }
+
+        /**
+         * @return the views discarded because of NUMBER_OF_SEQUENTIAL_VIEWS_IN_SESSION
+         */
+        public long getSequentialEvictions()
+        {
+            return sequentialEvictions.sum();
+        }
+
+        /**
+         * @return how often an update had to be repeated because another request changed the same
+         *     entry at the same time, this is the contention on the collection
+         */
+        public long getRetries()
+        {
+            return retries.sum();
+        }
+
+        /**
+         * @return discard queue nodes dropped because their view was updated or removed
+         */
+        public long getStaleKeys()
+        {
+            return staleKeys.sum();
+        }
+
+        @Override
+        public String toString()
+        {
+            return "puts=" + getPuts() + ", hits=" + getHits() + ", misses=" + getMisses()
+                    + ", evictions=" + getEvictions() + ", sequentialEvictions=" + getSequentialEvictions()
+                    + ", retries=" + getRetries() + ", staleKeys=" + getStaleKeys();
+        }
+    }
 }
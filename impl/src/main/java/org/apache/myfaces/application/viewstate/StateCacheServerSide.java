@@ -25,8 +25,6 @@
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.util.Map;
 import java.util.logging.Level;
@@ -34,6 +32,7 @@
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import jakarta.faces.FacesWrapper;
+import jakarta.faces.application.StateManager;
 
 import jakarta.faces.context.ExternalContext;
 import jakarta.faces.context.FacesContext;
@@ -42,7 +41,8 @@
 import org.apache.myfaces.config.webparameters.MyfacesConfig;
 import org.apache.myfaces.context.flash.FlashImpl;
 import org.apache.myfaces.renderkit.RendererUtils;
-import org.apache.myfaces.util.MyFacesObjectInputStream;
+import org.apache.myfaces.spi.SerialFactory;
+import org.apache.myfaces.spi.impl.DefaultSerialFactory;
 import org.apache.myfaces.view.ViewScopeProxyMap;
 
 class StateCacheServerSide extends StateCache<Object, Object>
@@ -66,6 +66,8 @@ class StateCacheServerSide extends StateCache<Object, Object>
     public static final int UNCOMPRESSED_FLAG = 0;
     public static final int COMPRESSED_FLAG = 1;
 
+    private static final SerialFactory DEFAULT_SERIAL_FACTORY = new DefaultSerialFactory();
+
     private final boolean useFlashScopePurgeViewsInSession;
     private final int numberOfSequentialViewsInSession;
     private final boolean serializeStateInSession;
@@ -84,16 +86,16 @@ public StateCacheServerSide()
                 && config.isUseFlashScopePurgeViewsInSession();
         numberOfSequentialViewsInSession = config.getNumberOfSequentialViewsInSession();
         serializeStateInSession = config.isSerializeStateInSession();
-        compressStateInSession = config.isCompressStateInSession();
         
         String randomMode = config.getRandomKeyInViewStateSessionToken();
+        KeyFactory<byte[]> keyFactory;
         if (MyfacesConfig.RANDOM_KEY_IN_VIEW_STATE_SESSION_TOKEN_SECURE_RANDOM.equals(randomMode))
         {
-            sessionViewStorageFactory = new SessionViewStorageFactoryImpl(new KeyFactorySecureRandom(facesContext));
+            keyFactory = new KeyFactorySecureRandom(facesContext);
         }
         else if (MyfacesConfig.RANDOM_KEY_IN_VIEW_STATE_SESSION_TOKEN_RANDOM.equals(randomMode))
         {
-            sessionViewStorageFactory = new SessionViewStorageFactoryImpl(new KeyFactoryRandom(facesContext));
+            keyFactory = new KeyFactoryRandom(facesContext);
         }
         else
         {
@@ -103,7 +105,41 @@ else if (MyfacesConfig.RANDOM_KEY_IN_VIEW_STATE_SESSION_TOKEN_RANDOM.equals(rand
                         + randomMode + "\" is not supported (anymore)."
                         + " Fallback to \"secureRandom\"");
             }
-            sessionViewStorageFactory = new SessionViewStorageFactoryImpl(new KeyFactorySecureRandom(facesContext));
+            keyFactory = new KeyFactorySecureRandom(facesContext);
+        }
+
+        String storage = config.getViewStateSessionStorage();
+        boolean serializedStorage = MyfacesConfig.VIEW_STATE_SESSION_STORAGE_OFF_HEAP.equals(storage)
+                || MyfacesConfig.VIEW_STATE_SESSION_STORAGE_DELTA.equals(storage);
+        if (serializedStorage && !serializeStateInSession)
+        {
+            log.warning(MyfacesConfig.VIEW_STATE_SESSION_STORAGE + " \"" + storage + "\" requires "
+                    + StateManager.SERIALIZE_SERVER_STATE_PARAM_NAME + "=true. Fallback to \""
+                    + MyfacesConfig.VIEW_STATE_SESSION_STORAGE_SESSION + "\"");
+            storage = MyfacesConfig.VIEW_STATE_SESSION_STORAGE_SESSION;
+        }
+
+        if (MyfacesConfig.VIEW_STATE_SESSION_STORAGE_OFF_HEAP.equals(storage))
+        {
+            sessionViewStorageFactory = new OffHeapSessionViewStorageFactory(facesContext, keyFactory);
+            compressStateInSession = config.isCompressStateInSession();
+        }
+        else if (MyfacesConfig.VIEW_STATE_SESSION_STORAGE_DELTA.equals(storage))
+        {
+            sessionViewStorageFactory = new DeltaSessionViewStorageFactory(facesContext, keyFactory);
+            // compressed states do not have anything in common
+            compressStateInSession = false;
+        }
+        else
+        {
+            if (storage != null && !MyfacesConfig.VIEW_STATE_SESSION_STORAGE_SESSION.equals(storage))
+            {
+                log.warning(MyfacesConfig.VIEW_STATE_SESSION_STORAGE + " \"" + storage
+                        + "\" is not supported. Fallback to \""
+                        + MyfacesConfig.VIEW_STATE_SESSION_STORAGE_SESSION + "\"");
+            }
+            sessionViewStorageFactory = new SessionViewStorageFactoryImpl(keyFactory);
+            compressStateInSession = config.isCompressStateInSession();
         }
         
         String csrfRandomMode = config.getRandomKeyInCsrfSessionToken();
@@ -230,7 +266,7 @@ protected Object getSerializedViewFromSession(FacesContext context, String viewI
                             sessionViewStorageFactory.createSerializedViewKey(context, viewId, sequence));
                     if (state != null)
                     {
-                        serializedView = deserializeView(state);
+                        serializedView = deserializeView(context, state);
                     }
                 }
             }
@@ -341,12 +377,10 @@ protected Object serializeView(FacesContext context, Object serializedView)
                     os.write(UNCOMPRESSED_FLAG);
                 }
 
-                try (ObjectOutputStream out = new ObjectOutputStream(os))
+                try (OutputStream out = os)
                 {
-                    out.writeObject(serializedView);
+                    getSerialFactory(context).writeObject(serializedView, out);
                 }
-                
-                baos.close();
 
                 if (log.isLoggable(Level.FINEST))
                 {
@@ -371,7 +405,7 @@ protected Object serializeView(FacesContext context, Object serializedView)
 
     }
 
-    protected Object deserializeView(Object state)
+    protected Object deserializeView(FacesContext context, Object state)
     {
         if (log.isLoggable(Level.FINEST))
         {
@@ -396,18 +430,9 @@ protected Object deserializeView(Object state)
                     is = new GZIPInputStream(is);
                 }
 
-                ObjectInputStream ois = new MyFacesObjectInputStream(is);
-                try
+                try (InputStream in = is)
                 {
-                    return ois.readObject();
-                }
-                finally
-                {
-                    if (ois != null)
-                    {
-                        ois.close();
-                        ois = null;
-                    }
+                    return getSerialFactory(context).readObject(in);
                 }
             }
             catch (IOException | ClassNotFoundException e) 
@@ -438,6 +463,17 @@ else if(state == null)
         }
     }
     
+    /**
+     * The SerialFactory configured with org.apache.myfaces.SERIAL_FACTORY, or java serialization
+     * if MyFaces was not initialized through FacesConfigurator.
+     */
+    protected SerialFactory getSerialFactory(FacesContext context)
+    {
+        SerialFactory serialFactory = (SerialFactory) context.getExternalContext().getApplicationMap()
+                .get(StateUtils.SERIAL_FACTORY);
+        return serialFactory == null ? DEFAULT_SERIAL_FACTORY : serialFactory;
+    }
+
     //------------------------------------- METHOD FROM StateCache ------------------------------------------------
 
     @Override
@@ -18,6 +18,8 @@
  */
 package org.apache.myfaces.application.viewstate;
 
+import java.io.IOException;
+import java.io.Writer;
 import jakarta.faces.context.FacesContext;
 
 /**
@@ -49,4 +51,18 @@ public String encode(FacesContext facesContext, Object savedStateObject)
         String serializedState = StateUtils.construct(savedStateObject, facesContext.getExternalContext());
         return serializedState;
     }
+
+    /**
+     * Same as {@link #encode(FacesContext, Object)}, but writes the token directly to the writer. The token only
+     * contains base64 chars, so it does not need to be escaped.
+     */
+    public void encode(FacesContext facesContext, Object savedStateObject, Writer writer) throws IOException
+    {
+        if (facesContext.getViewRoot().isTransient())
+        {
+            writer.write(STATELESS_TOKEN);
+            return;
+        }
+        StateUtils.construct(savedStateObject, facesContext.getExternalContext(), writer);
+    }
 }
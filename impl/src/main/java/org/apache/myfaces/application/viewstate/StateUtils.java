@@ -20,20 +20,35 @@
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
+import javax.crypto.AEADBadTagException;
 import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
 import javax.crypto.KeyGenerator;
 import javax.crypto.Mac;
 import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import jakarta.faces.FacesException;
@@ -44,6 +59,11 @@
 import org.apache.myfaces.buildtools.maven2.plugin.builder.annotation.JSFWebConfigParam;
 import org.apache.myfaces.core.api.shared.lang.Assert;
 import org.apache.myfaces.spi.SerialFactory;
+import org.apache.myfaces.spi.StateCompressor;
+import org.apache.myfaces.spi.impl.DeflateStateCompressor;
+import org.apache.myfaces.spi.impl.GZIPStateCompressor;
+import org.apache.myfaces.util.lang.ClassUtils;
+import org.apache.myfaces.util.lang.FastWriter;
 
 /**
  * <p>This Class exposes a handful of methods related to encryption,
@@ -51,7 +71,7 @@
  * 
  * <ul>
  * <li>ISO-8859-1 is the character set used.</li>
- * <li>GZIP is used for all compression/decompression.</li>
+ * <li>GZIP is used for compression/decompression by default, see <i>org.apache.myfaces.STATE_COMPRESSOR</i></li>
  * <li>Base64 is used for all encoding and decoding.</li>
  * <li>AES is the default encryption algorithm</li>
  * <li>ECB is the default mode</li>
@@ -61,7 +81,9 @@
  * <i>org.apache.myfaces.ALGORITHM</i> parameter</li>
  * <li>The default mode and padding can be overridden using the
  * <i>org.apache.myfaces.ALGORITHM.PARAMETERS</i> parameter</li>
- * <li>This class has not been tested with modes other than ECB and CBC</li>
+ * <li>This class has been tested with the modes ECB, CBC and GCM. With GCM (an AEAD mode, for example
+ * <i>GCM/NoPadding</i>) a random initialization vector is used for every state and the state is
+ * authenticated by the cipher, no MAC is appended</li>
  * <li>An initialization vector can be specified via the
  * <i>org.apache.myfaces.ALGORITHM.IV</i> parameter</li>
  * <li>The default MAC algorithm can be overridden using the
@@ -134,7 +156,10 @@
     public static final String INIT_ALGORITHM_IV = INIT_ALGORITHM + ".IV";
     
     /**
-     * Defines the default mode and padding used for the encryption algorithm
+     * Defines the default mode and padding used for the encryption algorithm. With an AEAD mode like
+     * "GCM/NoPadding" the state is authenticated by the cipher instead of the MAC and
+     * org.apache.myfaces.ALGORITHM.IV is ignored. The encrypted states of the AEAD modes are not
+     * compatible with the states of the other modes.
      */
     @JSFWebConfigParam(name="org.apache.myfaces.ALGORITHM.PARAMETERS",since="1.1",
             defaultValue="ECB/PKCS5Padding",group="state")
@@ -143,7 +168,10 @@
     /**
      * Defines the factory class name using for serialize/deserialize the view state returned 
      * by state manager into a byte array. The expected class must implement
-     * {@link org.apache.myfaces.spi.SerialFactory} interface.
+     * {@link org.apache.myfaces.spi.SerialFactory} interface. It is used for client side state
+     * and for server side state when org.apache.myfaces.SERIALIZE_STATE_IN_SESSION is enabled.
+     * {@link org.apache.myfaces.spi.impl.CompactSerialFactory} provides a compact binary encoding
+     * that is faster and smaller than java serialization.
      */
     @JSFWebConfigParam(name="org.apache.myfaces.SERIAL_FACTORY", since="1.1",group="state",tags="performance")
     public static final String SERIAL_FACTORY = INIT_PREFIX + "SERIAL_FACTORY";
@@ -155,8 +183,21 @@
             expectedValues="true,false",group="state",tags="performance")
     public static final String COMPRESS_STATE_IN_CLIENT = INIT_PREFIX + "COMPRESS_STATE_IN_CLIENT";
 
+    /**
+     * Compression used for the client side view state if org.apache.myfaces.COMPRESS_STATE_IN_CLIENT is
+     * enabled. "gzip" (default), "deflate" (raw deflate with the fastest level, no header and checksum) or
+     * the class name of a {@link org.apache.myfaces.spi.StateCompressor} implementation.
+     */
+    @JSFWebConfigParam(name="org.apache.myfaces.STATE_COMPRESSOR",since="5.0",defaultValue="gzip",
+            expectedValues="gzip,deflate",group="state",tags="performance")
+    public static final String STATE_COMPRESSOR = INIT_PREFIX + "STATE_COMPRESSOR";
+
     public static final String DEFAULT_MAC_ALGORITHM = "HmacSHA256";
 
+    private static final String CRYPTO_POOL = StateUtils.class.getName() + ".CRYPTO_POOL";
+    private static final int GCM_IV_LENGTH = 12;
+    private static final int GCM_TAG_LENGTH = 128;
+
     /**
      * Indicate the algorithm used to calculate the Message Authentication Code that is
      * added to the view state.
@@ -201,6 +242,23 @@ private static void testConfiguration(ExternalContext ctx)
         }
     }
     
+    /**
+     * The pooled Cipher and Mac instances of the application, created on first use.
+     */
+    private static CryptoPool getCryptoPool(ExternalContext ctx)
+    {
+        Map<String, Object> applicationMap = ctx.getApplicationMap();
+        CryptoPool pool = (CryptoPool) applicationMap.get(CRYPTO_POOL);
+        if (pool == null)
+        {
+            testConfiguration(ctx);
+            // two concurrent requests may both create one, that is harmless
+            pool = new CryptoPool(ctx);
+            applicationMap.put(CRYPTO_POOL, pool);
+        }
+        return pool;
+    }
+
     public static Cipher createCipher(ExternalContext externalContext, int mode) throws Exception
     {
         SecretKey secretKey = getSecret(externalContext);
@@ -257,24 +315,49 @@ public static boolean isSecure(ExternalContext externalContext)
      */
     public static final String construct(Object object, ExternalContext ctx)
     {
-        byte[] bytes = getAsByteArray(object, ctx);
-        if (enableCompression(ctx))
+        FastWriter writer = new FastWriter(1024);
+        try
         {
-            bytes = compress(bytes);
+            construct(object, ctx, writer);
         }
-        if (isSecure(ctx))
+        catch (IOException e)
         {
-            bytes = encrypt(bytes, ctx);
+            throw new FacesException(e);
         }
-        bytes = encode(bytes);
+        return writer.toString();
+    }
 
-        try
+    /**
+     * Same as {@link #construct(Object, ExternalContext)}, but the state is serialized, compressed, encrypted
+     * and encoded in one pass directly into the writer, without intermediate arrays. The writer is not closed.
+     */
+    public static void construct(Object object, ExternalContext ctx, Writer writer) throws IOException
+    {
+        // get the Factory that was instantiated @ startup
+        SerialFactory serialFactory = (SerialFactory) ctx.getApplicationMap().get(SERIAL_FACTORY);
+        Assert.notNull(serialFactory, "serialFactory");
+
+        OutputStream out = Base64.getEncoder().wrap(new WriterOutputStream(writer));
+        if (isSecure(ctx))
         {
-            return new String(bytes, ZIP_CHARSET);
+            CryptoPool pool = getCryptoPool(ctx);
+            try
+            {
+                out = new EncryptingOutputStream(out, pool, pool.borrow(ctx));
+            }
+            catch (Exception e)
+            {
+                throw new FacesException(e);
+            }
         }
-        catch (UnsupportedEncodingException e)
+        if (enableCompression(ctx))
         {
-            throw new FacesException(e);
+            out = getStateCompressor(ctx).compress(out);
+        }
+
+        try (OutputStream os = out)
+        {
+            serialFactory.writeObject(object, os);
         }
     }
 
@@ -306,26 +389,43 @@ public static byte[] encrypt(byte[] insecure, ExternalContext externalContext)
     {
         Assert.notNull(externalContext, "externalContext");
 
-        testConfiguration(externalContext);
-
+        CryptoPool pool = getCryptoPool(externalContext);
+        Crypto crypto = null;
         try
         {
-            Mac mac = createMac(externalContext);
-            Cipher cipher = createCipher(externalContext, Cipher.ENCRYPT_MODE);
+            crypto = pool.borrow(externalContext);
+            byte[] iv = crypto.initEncrypt();
+            Cipher cipher = crypto.cipher;
+
+            if (iv != null)
+            {
+                // AEAD, the IV is sent in front of the encrypted bytes and the tag authenticates them
+                byte[] secure = new byte[iv.length + cipher.getOutputSize(insecure.length)];
+                System.arraycopy(iv, 0, secure, 0, iv.length);
+                int secureCount = cipher.doFinal(insecure, 0, insecure.length, secure, iv.length);
+                return secureCount + iv.length == secure.length
+                        ? secure
+                        : Arrays.copyOf(secure, secureCount + iv.length);
+            }
 
             //EtM (Encrypt-then-MAC) Composition Approach
+            Mac mac = crypto.mac;
             int macLenght = mac.getMacLength();
             byte[] secure = new byte[cipher.getOutputSize(insecure.length) + macLenght];
             int secureCount = cipher.doFinal(insecure, 0, insecure.length, secure);
             mac.update(secure, 0, secureCount);
             mac.doFinal(secure, secureCount);
-                        
+
             return secure;
         }
         catch (Exception e)
         {
             throw new FacesException(e);
         }
+        finally
+        {
+            pool.release(crypto);
+        }
     }
 
     public static final byte[] compress(byte[] bytes)
@@ -358,10 +458,13 @@ public static final byte[] encode(byte[] bytes)
 
     /**
      * This fires during the Restore View phase, restoring state.
+     * 
+     * <p>Without encryption the state is decoded, decompressed and deserialized in one pass. With
+     * encryption the decoded bytes are kept, because the MAC has to be verified before anything is
+     * decrypted and deserialized, but the decryption and decompression are streamed.</p>
      */
     public static final Object reconstruct(String string, ExternalContext ctx)
     {
-        byte[] bytes;
         try
         {
             if (log.isLoggable(Level.FINE))
@@ -370,18 +473,28 @@ public static final Object reconstruct(String string, ExternalContext ctx)
                 log.fine("Processing serialized viewstate string with hashCode : " + string.hashCode());
             }
 
-            bytes = string.getBytes(ZIP_CHARSET);
-            bytes = decode(bytes);
+            // get the Factory that was instantiated @ startup
+            SerialFactory serialFactory = (SerialFactory) ctx.getApplicationMap().get(SERIAL_FACTORY);
+            Assert.notNull(serialFactory, "serialFactory");
+
+            InputStream in;
             if (isSecure(ctx))
             {
-                bytes = decrypt(bytes, ctx);
+                in = decryptingStream(Base64.getDecoder().decode(string), ctx);
+            }
+            else
+            {
+                in = Base64.getDecoder().wrap(new CharSequenceInputStream(string));
             }
             if (enableCompression(ctx))
             {
-                bytes = decompress(bytes);
+                in = getStateCompressor(ctx).decompress(in);
             }
 
-            return getAsObject(bytes, ctx);
+            try (InputStream is = in)
+            {
+                return serialFactory.readObject(is);
+            }
         }
         catch (Throwable e)
         {
@@ -393,6 +506,109 @@ public static final Object reconstruct(String string, ExternalContext ctx)
         }
     }
 
+    /**
+     * Verifies the MAC of the encrypted state and returns a stream that decrypts it. With an AEAD mode
+     * the state is decrypted and authenticated at once, nothing is returned before the tag is verified.
+     */
+    private static InputStream decryptingStream(byte[] secure, ExternalContext externalContext)
+    {
+        CryptoPool pool = getCryptoPool(externalContext);
+        Crypto crypto = null;
+        try
+        {
+            crypto = pool.borrow(externalContext);
+            if (pool.aead)
+            {
+                return new ByteArrayInputStream(decryptAead(crypto, secure));
+            }
+
+            Mac mac = crypto.mac;
+            Cipher cipher = crypto.initDecrypt(null);
+
+            int macLenght = mac.getMacLength();
+            verifyMac(mac, secure, macLenght);
+
+            InputStream in = new CipherInputStream(
+                    new ByteArrayInputStream(secure, 0, secure.length - macLenght), cipher);
+            Crypto borrowed = crypto;
+            crypto = null;
+            return new FilterInputStream(in)
+            {
+                @Override
+                public void close() throws IOException
+                {
+                    try
+                    {
+                        super.close();
+                    }
+                    finally
+                    {
+                        pool.release(borrowed);
+                    }
+                }
+            };
+        }
+        catch (Exception e)
+        {
+            throw new FacesException(e);
+        }
+        finally
+        {
+            pool.release(crypto);
+        }
+    }
+
+    private static byte[] decryptAead(Crypto crypto, byte[] secure) throws GeneralSecurityException
+    {
+        if (secure.length < GCM_IV_LENGTH + GCM_TAG_LENGTH / 8)
+        {
+            throw new ViewExpiredException();
+        }
+        Cipher cipher = crypto.initDecrypt(secure);
+        try
+        {
+            return cipher.doFinal(secure, GCM_IV_LENGTH, secure.length - GCM_IV_LENGTH);
+        }
+        catch (AEADBadTagException e)
+        {
+            throw new ViewExpiredException();
+        }
+    }
+
+    /**
+     * The state compressor configured with {@link #STATE_COMPRESSOR}, created on first use.
+     */
+    public static StateCompressor getStateCompressor(ExternalContext ctx)
+    {
+        StateCompressor compressor = (StateCompressor) ctx.getApplicationMap().get(STATE_COMPRESSOR);
+        if (compressor == null)
+        {
+            String name = ctx.getInitParameter(STATE_COMPRESSOR);
+            if (name == null || name.isBlank() || "gzip".equalsIgnoreCase(name.trim()))
+            {
+                compressor = new GZIPStateCompressor();
+            }
+            else if ("deflate".equalsIgnoreCase(name.trim()))
+            {
+                compressor = new DeflateStateCompressor();
+            }
+            else
+            {
+                try
+                {
+                    compressor = (StateCompressor) ClassUtils.newInstance(name.trim());
+                }
+                catch (Exception e)
+                {
+                    log.log(Level.SEVERE, "Could not create the state compressor '" + name + "', using gzip", e);
+                    compressor = new GZIPStateCompressor();
+                }
+            }
+            ctx.getApplicationMap().put(STATE_COMPRESSOR, compressor);
+        }
+        return compressor;
+    }
+
     public static final byte[] decode(byte[] bytes)
     {
         return Base64.getDecoder().decode(bytes);
@@ -432,44 +648,59 @@ public static byte[] decrypt(byte[] secure, ExternalContext externalContext)
     {
         Assert.notNull(externalContext, "externalContext");
 
-        testConfiguration(externalContext);
-
+        CryptoPool pool = getCryptoPool(externalContext);
+        Crypto crypto = null;
         try
         {
-            Mac mac = createMac(externalContext);
-            Cipher cipher = createCipher(externalContext, Cipher.DECRYPT_MODE);
+            crypto = pool.borrow(externalContext);
+            if (pool.aead)
+            {
+                return decryptAead(crypto, secure);
+            }
+
+            Mac mac = crypto.mac;
+            Cipher cipher = crypto.initDecrypt(null);
 
             //EtM (Encrypt-then-MAC) Composition Approach
             int macLenght = mac.getMacLength();
-            mac.update(secure, 0, secure.length - macLenght);
-            byte[] signedDigestHash = mac.doFinal();
+            verifyMac(mac, secure, macLenght);
 
-            boolean isMacEqual = true;
-            for (int i = 0; i < signedDigestHash.length; i++)
-            {
-                if (signedDigestHash[i] != secure[secure.length - macLenght + i])
-                {
-                    isMacEqual = false;
-                    // MYFACES-2934 Must compare *ALL* bytes of the hash, 
-                    // otherwise a side-channel timing attack is theorically possible
-                    // but with a very very low probability, because the
-                    // comparison time is too small to be measured compared to
-                    // the overall request time and in real life applications,
-                    // there are too many uncertainties involved.
-                    //break;
-                }
-            }
-            if (!isMacEqual)
-            {
-                throw new ViewExpiredException();
-            }
-            
             return cipher.doFinal(secure, 0, secure.length - macLenght);
         }
         catch (Exception e)
         {
             throw new FacesException(e);
         }
+        finally
+        {
+            pool.release(crypto);
+        }
+    }
+
+    private static void verifyMac(Mac mac, byte[] secure, int macLenght)
+    {
+        mac.update(secure, 0, secure.length - macLenght);
+        byte[] signedDigestHash = mac.doFinal();
+
+        boolean isMacEqual = true;
+        for (int i = 0; i < signedDigestHash.length; i++)
+        {
+            if (signedDigestHash[i] != secure[secure.length - macLenght + i])
+            {
+                isMacEqual = false;
+                // MYFACES-2934 Must compare *ALL* bytes of the hash, 
+                // otherwise a side-channel timing attack is theorically possible
+                // but with a very very low probability, because the
+                // comparison time is too small to be measured compared to
+                // the overall request time and in real life applications,
+                // there are too many uncertainties involved.
+                //break;
+            }
+        }
+        if (!isMacEqual)
+        {
+            throw new ViewExpiredException();
+        }
     }
 
     /**
@@ -811,4 +1042,326 @@ private static byte[] findMacSecret(String secret, String algorithm)
         
         return bytes;
     }
+
+    /**
+     * Encrypts everything written to it and appends the MAC of the encrypted bytes on close
+     * (EtM, Encrypt-then-MAC), same result as {@link StateUtils#encrypt(byte[], ExternalContext)}.
+     * With an AEAD mode the IV is written first and the cipher appends the tag instead of the MAC.
+     * The Cipher and Mac are returned to the pool on close.
+     */
+    private static final class EncryptingOutputStream extends FilterOutputStream
+    {
+        private final CryptoPool pool;
+        private final Crypto crypto;
+        private final Cipher cipher;
+        private final Mac mac;
+        private byte[] buffer = new byte[1024];
+        private boolean closed;
+
+        EncryptingOutputStream(OutputStream out, CryptoPool pool, Crypto crypto)
+                throws GeneralSecurityException, IOException
+        {
+            super(out);
+            this.pool = pool;
+            this.crypto = crypto;
+            byte[] iv = crypto.initEncrypt();
+            this.cipher = crypto.cipher;
+            this.mac = iv == null ? crypto.mac : null;
+            if (iv != null)
+            {
+                out.write(iv);
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            try
+            {
+                ensureBuffer(cipher.getOutputSize(len));
+                int count = cipher.update(b, off, len, buffer, 0);
+                if (mac != null)
+                {
+                    mac.update(buffer, 0, count);
+                }
+                out.write(buffer, 0, count);
+            }
+            catch (GeneralSecurityException e)
+            {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+            try
+            {
+                ensureBuffer(cipher.getOutputSize(0));
+                int count = cipher.doFinal(buffer, 0);
+                out.write(buffer, 0, count);
+                if (mac != null)
+                {
+                    mac.update(buffer, 0, count);
+                    out.write(mac.doFinal());
+                }
+            }
+            catch (GeneralSecurityException e)
+            {
+                throw new IOException(e);
+            }
+            finally
+            {
+                pool.release(crypto);
+            }
+            out.close();
+        }
+
+        private void ensureBuffer(int size)
+        {
+            if (buffer.length < size)
+            {
+                buffer = new byte[Math.max(size, buffer.length * 2)];
+            }
+        }
+    }
+
+    /**
+     * The Cipher and Mac instances of the application. <code>Cipher.getInstance</code> and
+     * <code>Mac.getInstance</code> look up the provider on every call, which is the most expensive part of
+     * encrypting a small state. The instances are not thread safe, so a request borrows one {@link Crypto}
+     * and returns it when it is done. The Cipher is initialized and the Mac is reset on every use, so an
+     * instance left in the middle of an operation by a failed request can be reused safely.
+     */
+    private static final class CryptoPool
+    {
+        private final String algorithm;
+        private final String transformation;
+        private final byte[] iv;
+        private final boolean aead;
+        private final int maxIdle = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        private final Queue<Crypto> idle = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+
+        CryptoPool(ExternalContext ctx)
+        {
+            algorithm = findAlgorithm(ctx);
+            String algorithmParams = findAlgorithmParams(ctx);
+            transformation = algorithm + '/' + algorithmParams;
+            aead = algorithmParams.startsWith("GCM");
+            if (aead && ctx.getInitParameter(INIT_ALGORITHM_IV) != null)
+            {
+                log.warning(INIT_ALGORITHM_IV + " is ignored with " + algorithmParams
+                        + ", a random initialization vector is used for every state");
+            }
+            iv = aead ? null : findInitializationVector(ctx);
+        }
+
+        Crypto borrow(ExternalContext ctx) throws GeneralSecurityException
+        {
+            Crypto crypto = idle.poll();
+            if (crypto != null)
+            {
+                idleCount.decrementAndGet();
+                return crypto;
+            }
+            return new Crypto(this, ctx);
+        }
+
+        void release(Crypto crypto)
+        {
+            if (crypto == null)
+            {
+                return;
+            }
+            if (idleCount.incrementAndGet() <= maxIdle)
+            {
+                idle.offer(crypto);
+            }
+            else
+            {
+                idleCount.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * A Cipher and, unless the mode is AEAD, a Mac used by one request at a time.
+     */
+    private static final class Crypto
+    {
+        private final CryptoPool pool;
+        private final SecretKey secretKey;
+        private final Cipher cipher;
+        private final Mac mac;
+        private final SecureRandom random;
+
+        Crypto(CryptoPool pool, ExternalContext ctx) throws GeneralSecurityException
+        {
+            this.pool = pool;
+            this.secretKey = getSecret(ctx);
+            this.cipher = Cipher.getInstance(pool.transformation);
+            if (pool.aead)
+            {
+                this.mac = null;
+                this.random = new SecureRandom();
+            }
+            else
+            {
+                this.mac = Mac.getInstance(findMacAlgorithm(ctx));
+                this.mac.init(getMacSecret(ctx));
+                this.random = null;
+            }
+
+            if (log.isLoggable(Level.FINE))
+            {
+                log.fine("De/encrypting with " + pool.transformation);
+            }
+        }
+
+        /**
+         * @return the random IV of an AEAD mode, that has to be stored with the encrypted state, otherwise null
+         */
+        byte[] initEncrypt() throws GeneralSecurityException
+        {
+            if (pool.aead)
+            {
+                byte[] iv = new byte[GCM_IV_LENGTH];
+                random.nextBytes(iv);
+                cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+                return iv;
+            }
+            init(Cipher.ENCRYPT_MODE);
+            return null;
+        }
+
+        /**
+         * @param secure the encrypted state, the IV of an AEAD mode is read from it
+         */
+        Cipher initDecrypt(byte[] secure) throws GeneralSecurityException
+        {
+            if (pool.aead)
+            {
+                cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(GCM_TAG_LENGTH, secure, 0,
+                        GCM_IV_LENGTH));
+            }
+            else
+            {
+                init(Cipher.DECRYPT_MODE);
+            }
+            return cipher;
+        }
+
+        private void init(int mode) throws GeneralSecurityException
+        {
+            if (pool.iv != null)
+            {
+                cipher.init(mode, secretKey, new IvParameterSpec(pool.iv));
+            }
+            else
+            {
+                cipher.init(mode, secretKey);
+            }
+            mac.reset();
+        }
+    }
+
+    /**
+     * Writes the bytes as ISO-8859-1 chars, for the output of the Base64 encoder. Does not close or flush
+     * the writer, a flush of the response writer would commit the response in the middle of the page.
+     */
+    private static final class WriterOutputStream extends OutputStream
+    {
+        private final Writer writer;
+        private final char[] chars = new char[1024];
+
+        WriterOutputStream(Writer writer)
+        {
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            writer.write(b & 0xFF);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            while (len > 0)
+            {
+                int count = Math.min(len, chars.length);
+                for (int i = 0; i < count; i++)
+                {
+                    chars[i] = (char) (b[off + i] & 0xFF);
+                }
+                writer.write(chars, 0, count);
+                off += count;
+                len -= count;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException
+        {
+            // the chars are passed to the writer right away, there is nothing to flush here
+        }
+    }
+
+    /**
+     * Reads the chars as ISO-8859-1 bytes, for the input of the Base64 decoder.
+     */
+    private static final class CharSequenceInputStream extends InputStream
+    {
+        private final CharSequence chars;
+        private int position;
+
+        CharSequenceInputStream(CharSequence chars)
+        {
+            this.chars = chars;
+        }
+
+        @Override
+        public int read()
+        {
+            return position < chars.length() ? chars.charAt(position++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len)
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+            int count = Math.min(len, chars.length() - position);
+            if (count <= 0)
+            {
+                return -1;
+            }
+            for (int i = 0; i < count; i++)
+            {
+                b[off + i] = (byte) chars.charAt(position++);
+            }
+            return count;
+        }
+
+        @Override
+        public int available()
+        {
+            return chars.length() - position;
+        }
+    }
 }
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Binary diff of two serialized views. The base is indexed in blocks of 16 bytes, the new view
+ * is scanned with a rolling hash and encoded as a sequence of copies from the base and literal
+ * bytes. Two serialized states of the same view usually only differ in the state of a few
+ * components, so the delta is a small fraction of the full state.
+ * 
+ * <pre>
+ * delta   := length(varint) op*
+ * op      := 0 length(varint) byte{length}      literal bytes
+ *          | 1 offset(varint) length(varint)     copy from the base
+ * </pre>
+ */
+final class ViewStateDelta
+{
+    private static final int BLOCK = 16;
+    private static final int MULTIPLIER = 0x01000193;
+    private static final int LITERAL = 0;
+    private static final int COPY = 1;
+
+    /**
+     * MULTIPLIER ^ (BLOCK - 1), to remove the leading byte from the rolling hash.
+     */
+    private static final int LEADING_FACTOR;
+
+    static
+    {
+        int factor = 1;
+        for (int i = 0; i < BLOCK - 1; i++)
+        {
+            factor *= MULTIPLIER;
+        }
+        LEADING_FACTOR = factor;
+    }
+
+    private ViewStateDelta()
+    {
+    }
+
+    static byte[] diff(byte[] base, byte[] target)
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(32, target.length / 8));
+        writeVarInt(out, target.length);
+
+        if (base.length < BLOCK || target.length < BLOCK)
+        {
+            writeLiteral(out, target, 0, target.length);
+            return out.toByteArray();
+        }
+
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(16, (base.length / BLOCK) * 2) - 1);
+        int[] table = new int[1 << bits];
+        for (int i = 0; i + BLOCK <= base.length; i += BLOCK)
+        {
+            int slot = slot(hash(base, i), bits);
+            if (table[slot] == 0)
+            {
+                table[slot] = i + 1;
+            }
+        }
+
+        int literalStart = 0;
+        int p = 0;
+        int h = hash(target, 0);
+        while (p + BLOCK <= target.length)
+        {
+            int candidate = table[slot(h, bits)] - 1;
+            if (candidate >= 0 && matches(base, candidate, target, p))
+            {
+                // extend the match into the pending literal bytes and after the block
+                int baseStart = candidate;
+                int targetStart = p;
+                while (targetStart > literalStart && baseStart > 0
+                        && base[baseStart - 1] == target[targetStart - 1])
+                {
+                    baseStart--;
+                    targetStart--;
+                }
+                int baseEnd = candidate + BLOCK;
+                int targetEnd = p + BLOCK;
+                while (targetEnd < target.length && baseEnd < base.length && base[baseEnd] == target[targetEnd])
+                {
+                    baseEnd++;
+                    targetEnd++;
+                }
+
+                writeLiteral(out, target, literalStart, targetStart - literalStart);
+                out.write(COPY);
+                writeVarInt(out, baseStart);
+                writeVarInt(out, targetEnd - targetStart);
+
+                p = targetEnd;
+                literalStart = p;
+                if (p + BLOCK <= target.length)
+                {
+                    h = hash(target, p);
+                }
+            }
+            else
+            {
+                if (p + BLOCK < target.length)
+                {
+                    h = (h - (target[p] & 0xFF) * LEADING_FACTOR) * MULTIPLIER + (target[p + BLOCK] & 0xFF);
+                }
+                p++;
+            }
+        }
+        writeLiteral(out, target, literalStart, target.length - literalStart);
+        return out.toByteArray();
+    }
+
+    static byte[] patch(byte[] base, byte[] delta)
+    {
+        int[] position = new int[1];
+        byte[] result = new byte[readVarInt(delta, position)];
+        int offset = 0;
+        while (position[0] < delta.length)
+        {
+            int op = delta[position[0]++];
+            if (op == LITERAL)
+            {
+                int length = readVarInt(delta, position);
+                System.arraycopy(delta, position[0], result, offset, length);
+                position[0] += length;
+                offset += length;
+            }
+            else if (op == COPY)
+            {
+                int from = readVarInt(delta, position);
+                int length = readVarInt(delta, position);
+                System.arraycopy(base, from, result, offset, length);
+                offset += length;
+            }
+            else
+            {
+                throw new IllegalStateException("Invalid view state delta");
+            }
+        }
+        if (offset != result.length)
+        {
+            throw new IllegalStateException("Invalid view state delta");
+        }
+        return result;
+    }
+
+    private static int hash(byte[] bytes, int offset)
+    {
+        int h = 0;
+        for (int i = offset; i < offset + BLOCK; i++)
+        {
+            h = h * MULTIPLIER + (bytes[i] & 0xFF);
+        }
+        return h;
+    }
+
+    private static int slot(int hash, int bits)
+    {
+        return (hash * 0x9E3779B9) >>> (32 - bits);
+    }
+
+    private static boolean matches(byte[] base, int baseOffset, byte[] target, int targetOffset)
+    {
+        for (int i = 0; i < BLOCK; i++)
+        {
+            if (base[baseOffset + i] != target[targetOffset + i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeLiteral(ByteArrayOutputStream out, byte[] bytes, int offset, int length)
+    {
+        if (length > 0)
+        {
+            out.write(LITERAL);
+            writeVarInt(out, length);
+            out.write(bytes, offset, length);
+        }
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value)
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(byte[] bytes, int[] position)
+    {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do
+        {
+            b = bytes[position[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        }
+        while ((b & 0x80) != 0);
+        return value;
+    }
+}
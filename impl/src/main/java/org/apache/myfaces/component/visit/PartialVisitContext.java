@@ -25,6 +25,7 @@
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
@@ -36,6 +37,7 @@
 import jakarta.faces.component.visit.VisitHint;
 import jakarta.faces.component.visit.VisitResult;
 import jakarta.faces.context.FacesContext;
+import org.apache.myfaces.core.api.shared.ComponentIdIndex;
 import org.apache.myfaces.core.api.shared.lang.Assert;
 
 /**
@@ -69,6 +71,14 @@ public class PartialVisitContext extends VisitContext
 
     // Our visit hints
     private final Set<VisitHint> _hints;
+
+    // The index of the components of the view by id, if enabled
+    private final ComponentIdIndex _idIndex;
+
+    // The components to visit and their ancestors, or null if one of the
+    // client ids is not found in the index, like the ones of the rows of
+    // a UIData, then all the subtrees are visited
+    private Set<UIComponent> _visitPath;
     
     /**
      * Creates a PartialVisitorContext instance.
@@ -129,6 +139,10 @@ public PartialVisitContext(FacesContext facesContext, Collection<String> clientI
         // Intialize subtreeClientIds collection
         _subtreeClientIds = new HashMap<>();
 
+        // Initialize the visit path, which is populated with the ids
+        _idIndex = ComponentIdIndex.getInstance(facesContext, facesContext.getViewRoot());
+        _visitPath = _idIndex == null ? null : Collections.newSetFromMap(new IdentityHashMap<>());
+
         // Initialize the clientIds collection.  Note that we proxy
         // this collection so that we can trap adds/removes and sync
         // up all of the other collections.
@@ -218,7 +232,7 @@ public VisitResult invokeVisitCallback(UIComponent component, VisitCallback call
             // Not visiting this component, but allow visit to
             // continue into this subtree in case we've got
             // visit targets there.
-            return VisitResult.ACCEPT;
+            return _isOffVisitPath(component) ? VisitResult.REJECT : VisitResult.ACCEPT;
         }
 
         // If we made it this far, the component matches one of
@@ -256,6 +270,9 @@ private void _idAdded(String clientId)
 
         // Update the subtree ids collection
         _addSubtreeClientId(clientId);
+
+        // Update the visit path
+        _addVisitPath(clientId);
     }
 
     // Called by CollectionProxy to notify PartialVisitContext that
@@ -298,6 +315,38 @@ private String _getVisitId(UIComponent component)
         return _clientIds.contains(clientId) ? clientId : null;
     }
 
+    // Adds the component with the client id and its ancestors to the
+    // visit path, or gives up on the visit path if the index does not
+    // know the client id
+    private void _addVisitPath(String clientId)
+    {
+        if (_visitPath == null)
+        {
+            return;
+        }
+
+        UIComponent component = _idIndex.findComponentByClientId(getFacesContext(), clientId);
+        if (component == null)
+        {
+            _visitPath = null;
+            return;
+        }
+        while (component != null && _visitPath.add(component))
+        {
+            component = component.getParent();
+        }
+    }
+
+    // Tests whether the component starts a subtree without components
+    // to visit, ie. it is not on the visit path but its parent is. The
+    // visit of a component outside of the indexed view is never rejected.
+    private boolean _isOffVisitPath(UIComponent component)
+    {
+        return _visitPath != null
+                && !_visitPath.contains(component)
+                && _visitPath.contains(component.getParent());
+    }
+
     // Converts an client id into a plain old id by ripping
     // out the trailing id segmetn.
     private String _getIdFromClientId(String clientId)
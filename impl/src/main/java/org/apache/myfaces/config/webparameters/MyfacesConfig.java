@@ -224,6 +224,38 @@
         "org.apache.myfaces.COMPONENT_UNIQUE_IDS_CACHE_SIZE";
     private static final int COMPONENT_UNIQUE_IDS_CACHE_SIZE_DEFAULT = 200;
 
+    /**
+     * Set the maximum number of compiled facelets kept by the default FaceletCache, for each kind
+     * of facelet (views, view metadata and composite component metadata). When the limit is
+     * exceeded, the least recently used facelets are evicted and compiled again when they are
+     * needed. By default there is no limit.
+     */
+    @JSFWebConfigParam(defaultValue = "-1", since = "5.0", group="viewhandler", tags="performance",
+            classType="java.lang.Integer")
+    public static final String FACELETS_CACHE_SIZE = "org.apache.myfaces.FACELETS_CACHE_SIZE";
+    private static final int FACELETS_CACHE_SIZE_DEFAULT = -1;
+
+    /**
+     * If true and jakarta.faces.FACELETS_REFRESH_PERIOD is greater than 0, the changed facelets are
+     * detected and compiled again by a background thread instead of the requests, so the requests
+     * are not slowed down by the refresh. Facelets in the file system are watched for changes,
+     * the other ones are checked once per refresh period.
+     */
+    @JSFWebConfigParam(defaultValue = "false", since = "5.0", expectedValues = "true, false",
+            group="viewhandler", tags="performance")
+    public static final String FACELETS_BACKGROUND_REFRESH = "org.apache.myfaces.FACELETS_BACKGROUND_REFRESH";
+    private static final boolean FACELETS_BACKGROUND_REFRESH_DEFAULT = false;
+
+    /**
+     * If true, all views, templates and composite components of the web application are compiled
+     * in parallel at startup, so the first requests after a deployment do not wait for their
+     * compilation. The time spent is logged, per facelet with the FINE level.
+     */
+    @JSFWebConfigParam(defaultValue = "false", since = "5.0", expectedValues = "true, false",
+            group="viewhandler", tags="performance")
+    public static final String FACELETS_PRECOMPILE = "org.apache.myfaces.FACELETS_PRECOMPILE";
+    private static final boolean FACELETS_PRECOMPILE_DEFAULT = false;
+
     /**
      * If this param is set to true, a check will be done in Restore View Phase to check
      * if the viewId exists or not and if it does not exists, a 404 response will be thrown.
@@ -394,6 +426,116 @@
     public static final String RESOURCE_HANDLER_CACHE_ENABLED = 
         "org.apache.myfaces.RESOURCE_HANDLER_CACHE_ENABLED";
     private static final boolean RESOURCE_HANDLER_CACHE_ENABLED_DEFAULT = true;
+
+    /**
+     * Maximum number of bytes used to keep the content of the resources served by the default
+     * ResourceHandler in memory, so they are not read again from the class loader or the file
+     * system on each request. The resources with value expressions, like stylesheets, are not kept
+     * here, as their content depends on the request. 0 disables the cache.
+     *
+     * <p>Only active if org.apache.myfaces.RESOURCE_HANDLER_CACHE_ENABLED is true and the project
+     * stage is Production. The number of resources is limited by
+     * org.apache.myfaces.RESOURCE_HANDLER_CACHE_SIZE.</p>
+     */
+    @JSFWebConfigParam(defaultValue = "10485760", since = "5.0", group="resources",
+            classType="java.lang.Long", tags="performance")
+    public static final String RESOURCE_HANDLER_CONTENT_CACHE_SIZE =
+        "org.apache.myfaces.RESOURCE_HANDLER_CONTENT_CACHE_SIZE";
+    private static final long RESOURCE_HANDLER_CONTENT_CACHE_SIZE_DEFAULT = 10485760L;
+
+    /**
+     * Resources bigger than this number of bytes are not kept in the content cache, see
+     * org.apache.myfaces.RESOURCE_HANDLER_CONTENT_CACHE_SIZE.
+     */
+    @JSFWebConfigParam(defaultValue = "524288", since = "5.0", group="resources",
+            classType="java.lang.Integer", tags="performance")
+    public static final String RESOURCE_HANDLER_CONTENT_CACHE_MAX_ENTRY_SIZE =
+        "org.apache.myfaces.RESOURCE_HANDLER_CONTENT_CACHE_MAX_ENTRY_SIZE";
+    private static final int RESOURCE_HANDLER_CONTENT_CACHE_MAX_ENTRY_SIZE_DEFAULT = 524288;
+
+    /**
+     * If true, the text resources kept in the content cache (see
+     * org.apache.myfaces.RESOURCE_HANDLER_CONTENT_CACHE_SIZE) are also kept gzip encoded, and sent
+     * encoded to the clients that accept it. A precompressed file next to the resource, with the
+     * same name and the .gz extension, is used instead of compressing the resource if it exists.
+     */
+    @JSFWebConfigParam(defaultValue = "true", since = "5.0", group="resources",
+            expectedValues="true,false", tags="performance")
+    public static final String RESOURCE_HANDLER_COMPRESSION_ENABLED =
+        "org.apache.myfaces.RESOURCE_HANDLER_COMPRESSION_ENABLED";
+    private static final boolean RESOURCE_HANDLER_COMPRESSION_ENABLED_DEFAULT = true;
+
+    /**
+     * If true, the URLs of the resources served by the default ResourceHandler contain a hash of
+     * the resource content (the "v" request parameter), and the resources requested with the hash
+     * of their current content are sent with "Cache-Control: max-age=31536000, immutable", so the
+     * browsers do not revalidate them. A changed resource gets a new URL. The resources with value
+     * expressions, like stylesheets, keep their URL, as their content depends on the request.
+     *
+     * <p>Only active if the resource handler cache is enabled, that is in the Production project
+     * stage, see org.apache.myfaces.RESOURCE_HANDLER_CACHE_ENABLED.</p>
+     */
+    @JSFWebConfigParam(defaultValue = "false", since = "5.0", group="resources",
+            expectedValues="true,false", tags="performance")
+    public static final String RESOURCE_HANDLER_CONTENT_HASH_URLS =
+        "org.apache.myfaces.RESOURCE_HANDLER_CONTENT_HASH_URLS";
+    private static final boolean RESOURCE_HANDLER_CONTENT_HASH_URLS_DEFAULT = false;
+
+    /**
+     * If true, consecutive h:outputScript or h:outputStylesheet components of the same target are
+     * rendered as one combined resource, so the browser needs less requests to load a page. The name of
+     * the combined resource is a hash of its content followed by the ids of the combined resources, so
+     * any node can combine them again if the content is not cached in its memory. It is sent with
+     * "Cache-Control: max-age=31536000, immutable".
+     *
+     * <p>Only resources without pass through attributes, media or query parameters are combined, and
+     * stylesheets only if they have no relative urls or imports. Localized resources and the ones of
+     * a contract are not combined. Only active if the resource handler cache is enabled, that is in
+     * the Production project stage.</p>
+     */
+    @JSFWebConfigParam(defaultValue = "false", since = "5.0", group="resources",
+            expectedValues="true,false", tags="performance")
+    public static final String RESOURCE_HANDLER_COMBINE_RESOURCES =
+        "org.apache.myfaces.RESOURCE_HANDLER_COMBINE_RESOURCES";
+    private static final boolean RESOURCE_HANDLER_COMBINE_RESOURCES_DEFAULT = false;
+
+    /**
+     * If true, the files and directories of the /resources directory of the web application and of
+     * the META-INF/resources directories of the class path are indexed the first time they are used,
+     * and the resource loaders answer from the index if a library or resource exists and which
+     * versions it has, instead of probing the ExternalContext or the ClassLoader.
+     *
+     * <p>Resources added later are not found. Only active if the resource handler cache is enabled,
+     * that is in the Production project stage.</p>
+     */
+    @JSFWebConfigParam(defaultValue = "false", since = "5.0", group="resources",
+            expectedValues="true,false", tags="performance")
+    public static final String RESOURCE_HANDLER_INDEX_ENABLED = "org.apache.myfaces.RESOURCE_HANDLER_INDEX_ENABLED";
+    private static final boolean RESOURCE_HANDLER_INDEX_ENABLED_DEFAULT = false;
+
+    /**
+     * If true, the scripts and stylesheets of the head are announced with "Link: &lt;url&gt;; rel=preload"
+     * response headers before the head is rendered, so the browser can fetch them while the rest of the
+     * page is rendered. The links are the resources registered for the head target of the view and the
+     * ones rendered in the head of the previous request of the same view.
+     *
+     * <p>The headers reach the browser early only if the response is flushed early, see
+     * {@link #EARLY_FLUSH_ENABLED}, or if they are sent as 103 Early Hints, see {@link #EARLY_HINTS_ENABLED}.</p>
+     */
+    @JSFWebConfigParam(defaultValue = "false", since = "5.0", group="render",
+            expectedValues="true,false", tags="performance")
+    public static final String RESOURCE_PRELOAD_ENABLED = "org.apache.myfaces.RESOURCE_PRELOAD_ENABLED";
+    private static final boolean RESOURCE_PRELOAD_ENABLED_DEFAULT = false;
+
+    /**
+     * If true, the preload links of {@link #RESOURCE_PRELOAD_ENABLED} are also sent in an informational
+     * "103 Early Hints" response before the head is rendered, with HttpServletResponse.sendEarlyHints of
+     * Servlet 6.1. Containers without it only get the link headers of the final response.
+     */
+    @JSFWebConfigParam(defaultValue = "false", since = "5.0", group="render",
+            expectedValues="true,false", tags="performance")
+    public static final String EARLY_HINTS_ENABLED = "org.apache.myfaces.EARLY_HINTS_ENABLED";
+    private static final boolean EARLY_HINTS_ENABLED_DEFAULT = false;
     
     /**
      * Servlet context init parameter which defines which packages to scan
@@ -505,6 +647,55 @@
     public static final String COMPRESS_STATE_IN_SESSION = "org.apache.myfaces.COMPRESS_STATE_IN_SESSION";
     private static final boolean COMPRESS_STATE_IN_SESSION_DEFAULT = true;
     
+    /**
+     * Defines where the views saved with server side state saving are stored. "session" (default) keeps
+     * them in a map in the session. "offHeap" keeps only the keys in the session and the serialized views
+     * in a memory mapped store outside of the java heap, shared by all sessions and limited by
+     * org.apache.myfaces.VIEW_STATE_OFF_HEAP_MAX_SIZE. When the store is full, the least recently
+     * used views of all sessions are discarded. "delta" keeps the views in the session, but stores a view
+     * as a binary diff against the view restored by the same request, with a full copy every
+     * org.apache.myfaces.VIEW_STATE_DELTA_SNAPSHOT_INTERVAL views.
+     * 
+     * <p>"offHeap" and "delta" are only applicable if <code>jakarta.faces.SERIALIZE_SERVER_STATE</code> is 
+     * <code>true</code>. Views of a session that is serialized (passivation, replication) are written with
+     * the session and kept on heap after it is deserialized. "delta" needs
+     * org.apache.myfaces.NUMBER_OF_SEQUENTIAL_VIEWS_IN_SESSION &gt; 0 to know the previous view, and
+     * does not compress the state (org.apache.myfaces.COMPRESS_STATE_IN_SESSION is ignored), because
+     * compressed states can not be diffed.</p>
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="session", expectedValues="session, offHeap, delta",
+            group="state", tags="performance")
+    public static final String VIEW_STATE_SESSION_STORAGE = "org.apache.myfaces.VIEW_STATE_SESSION_STORAGE";
+    public static final String VIEW_STATE_SESSION_STORAGE_SESSION = "session";
+    public static final String VIEW_STATE_SESSION_STORAGE_OFF_HEAP = "offHeap";
+    public static final String VIEW_STATE_SESSION_STORAGE_DELTA = "delta";
+    private static final String VIEW_STATE_SESSION_STORAGE_DEFAULT = VIEW_STATE_SESSION_STORAGE_SESSION;
+
+    /**
+     * Max size in bytes of the off heap view state store. By default 268435456 (256 MB).
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="268435456", group="state", tags="performance")
+    public static final String VIEW_STATE_OFF_HEAP_MAX_SIZE = "org.apache.myfaces.VIEW_STATE_OFF_HEAP_MAX_SIZE";
+    private static final long VIEW_STATE_OFF_HEAP_MAX_SIZE_DEFAULT = 256L * 1024L * 1024L;
+
+    /**
+     * Size in bytes of the blocks the off heap view state store is divided into. A view uses as many
+     * blocks as needed for its serialized state. By default 4096.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="4096", group="state", tags="performance")
+    public static final String VIEW_STATE_OFF_HEAP_BLOCK_SIZE = "org.apache.myfaces.VIEW_STATE_OFF_HEAP_BLOCK_SIZE";
+    private static final int VIEW_STATE_OFF_HEAP_BLOCK_SIZE_DEFAULT = 4096;
+
+    /**
+     * With org.apache.myfaces.VIEW_STATE_SESSION_STORAGE="delta", every n-th view of a sequence is stored
+     * in full, the others as a diff. Higher values save more memory, but restoring a view has to apply
+     * up to n - 1 diffs. By default 8.
+     */
+    @JSFWebConfigParam(since="5.0", defaultValue="8", group="state", tags="performance")
+    public static final String VIEW_STATE_DELTA_SNAPSHOT_INTERVAL =
+            "org.apache.myfaces.VIEW_STATE_DELTA_SNAPSHOT_INTERVAL";
+    private static final int VIEW_STATE_DELTA_SNAPSHOT_INTERVAL_DEFAULT = 8;
+
     /**
      * Allow use flash scope to keep track of the views used in session and the previous ones,
      * so server side state saving can delete old views even if POST-REDIRECT-GET pattern is used.
@@ -807,6 +998,9 @@
     private String defaultResponseWriterContentTypeMode = DEFAULT_RESPONSE_WRITER_CONTENT_TYPE_MODE_DEFAULT;
     private boolean viewUniqueIdsCacheEnabled = VIEW_UNIQUE_IDS_CACHE_ENABLED_DEFAULT;
     private int componentUniqueIdsCacheSize = COMPONENT_UNIQUE_IDS_CACHE_SIZE_DEFAULT;
+    private int faceletsCacheSize = FACELETS_CACHE_SIZE_DEFAULT;
+    private boolean faceletsBackgroundRefresh = FACELETS_BACKGROUND_REFRESH_DEFAULT;
+    private boolean faceletsPrecompile = FACELETS_PRECOMPILE_DEFAULT;
     private boolean strictJsf2ViewNotFound = STRICT_JSF_2_VIEW_NOT_FOUND_DEFAULT;
     private boolean earlyFlushEnabled = EARLY_FLUSH_ENABLED_DEFAULT;
     private boolean strictJsf2FaceletsCompatibility = STRICT_JSF_2_FACELETS_COMPATIBILITY_DEFAULT;
@@ -822,6 +1016,14 @@
     private boolean useCdiForAnnotationScanning = USE_CDI_FOR_ANNOTATION_SCANNING_DEFAULT;
     private boolean resourceHandlerCacheEnabled = RESOURCE_HANDLER_CACHE_ENABLED_DEFAULT;
     private int resourceHandlerCacheSize = RESOURCE_HANDLER_CACHE_SIZE_DEFAULT;
+    private long resourceHandlerContentCacheSize = RESOURCE_HANDLER_CONTENT_CACHE_SIZE_DEFAULT;
+    private int resourceHandlerContentCacheMaxEntrySize = RESOURCE_HANDLER_CONTENT_CACHE_MAX_ENTRY_SIZE_DEFAULT;
+    private boolean resourceHandlerCompressionEnabled = RESOURCE_HANDLER_COMPRESSION_ENABLED_DEFAULT;
+    private boolean resourceHandlerContentHashUrls = RESOURCE_HANDLER_CONTENT_HASH_URLS_DEFAULT;
+    private boolean resourceHandlerCombineResources = RESOURCE_HANDLER_COMBINE_RESOURCES_DEFAULT;
+    private boolean resourceHandlerIndexEnabled = RESOURCE_HANDLER_INDEX_ENABLED_DEFAULT;
+    private boolean resourcePreloadEnabled = RESOURCE_PRELOAD_ENABLED_DEFAULT;
+    private boolean earlyHintsEnabled = EARLY_HINTS_ENABLED_DEFAULT;
     private String scanPackages;
     private long websocketMaxIdleTimeout = WEBSOCKET_MAX_IDLE_TIMEOUT_DEFAULT;
     private Integer websocketEndpointPort;
@@ -870,6 +1072,10 @@
     private boolean elResolverTracing = EL_RESOLVER_TRACING_DEFAULT;
     private long faceletsRefreshPeriod = -1;
     private List<String> exceptionTypesToIgnoreInLogging = new ArrayList<>();
+    private String viewStateSessionStorage = VIEW_STATE_SESSION_STORAGE_DEFAULT;
+    private long viewStateOffHeapMaxSize = VIEW_STATE_OFF_HEAP_MAX_SIZE_DEFAULT;
+    private int viewStateOffHeapBlockSize = VIEW_STATE_OFF_HEAP_BLOCK_SIZE_DEFAULT;
+    private int viewStateDeltaSnapshotInterval = VIEW_STATE_DELTA_SNAPSHOT_INTERVAL_DEFAULT;
     
     private static final boolean MYFACES_IMPL_AVAILABLE;
     private static final boolean RI_IMPL_AVAILABLE;
@@ -1007,6 +1213,15 @@ else if (refreshTransientBuildOnPSS.equalsIgnoreCase("true") ||
         cfg.componentUniqueIdsCacheSize = getInt(extCtx, COMPONENT_UNIQUE_IDS_CACHE_SIZE, 
                 COMPONENT_UNIQUE_IDS_CACHE_SIZE_DEFAULT);
 
+        cfg.faceletsCacheSize = getInt(extCtx, FACELETS_CACHE_SIZE,
+                FACELETS_CACHE_SIZE_DEFAULT);
+
+        cfg.faceletsBackgroundRefresh = getBoolean(extCtx, FACELETS_BACKGROUND_REFRESH,
+                FACELETS_BACKGROUND_REFRESH_DEFAULT);
+
+        cfg.faceletsPrecompile = getBoolean(extCtx, FACELETS_PRECOMPILE,
+                FACELETS_PRECOMPILE_DEFAULT);
+
         cfg.strictJsf2ViewNotFound = getBoolean(extCtx, STRICT_JSF_2_VIEW_NOT_FOUND,
                 STRICT_JSF_2_VIEW_NOT_FOUND_DEFAULT);
         
@@ -1110,6 +1325,30 @@ else if (refreshTransientBuildOnPSS.equalsIgnoreCase("true") ||
         
         cfg.resourceHandlerCacheSize = getInt(extCtx, RESOURCE_HANDLER_CACHE_SIZE,
                 RESOURCE_HANDLER_CACHE_SIZE_DEFAULT);
+
+        cfg.resourceHandlerContentCacheSize = getLong(extCtx, RESOURCE_HANDLER_CONTENT_CACHE_SIZE,
+                RESOURCE_HANDLER_CONTENT_CACHE_SIZE_DEFAULT);
+
+        cfg.resourceHandlerContentCacheMaxEntrySize = getInt(extCtx, RESOURCE_HANDLER_CONTENT_CACHE_MAX_ENTRY_SIZE,
+                RESOURCE_HANDLER_CONTENT_CACHE_MAX_ENTRY_SIZE_DEFAULT);
+
+        cfg.resourceHandlerCompressionEnabled = getBoolean(extCtx, RESOURCE_HANDLER_COMPRESSION_ENABLED,
+                RESOURCE_HANDLER_COMPRESSION_ENABLED_DEFAULT);
+
+        cfg.resourceHandlerContentHashUrls = getBoolean(extCtx, RESOURCE_HANDLER_CONTENT_HASH_URLS,
+                RESOURCE_HANDLER_CONTENT_HASH_URLS_DEFAULT);
+
+        cfg.resourceHandlerCombineResources = getBoolean(extCtx, RESOURCE_HANDLER_COMBINE_RESOURCES,
+                RESOURCE_HANDLER_COMBINE_RESOURCES_DEFAULT);
+
+        cfg.resourceHandlerIndexEnabled = getBoolean(extCtx, RESOURCE_HANDLER_INDEX_ENABLED,
+                RESOURCE_HANDLER_INDEX_ENABLED_DEFAULT);
+
+        cfg.resourcePreloadEnabled = getBoolean(extCtx, RESOURCE_PRELOAD_ENABLED,
+                RESOURCE_PRELOAD_ENABLED_DEFAULT);
+
+        cfg.earlyHintsEnabled = getBoolean(extCtx, EARLY_HINTS_ENABLED,
+                EARLY_HINTS_ENABLED_DEFAULT);
         
         cfg.scanPackages = getString(extCtx, SCAN_PACKAGES,
                 null);
@@ -1163,6 +1402,19 @@ else if (refreshTransientBuildOnPSS.equalsIgnoreCase("true") ||
         cfg.useFlashScopePurgeViewsInSession = getBoolean(extCtx, USE_FLASH_SCOPE_PURGE_VIEWS_IN_SESSION,
                 USE_FLASH_SCOPE_PURGE_VIEWS_IN_SESSION_DEFAULT);
 
+        cfg.viewStateSessionStorage = getString(extCtx, VIEW_STATE_SESSION_STORAGE,
+                VIEW_STATE_SESSION_STORAGE_DEFAULT);
+        cfg.viewStateOffHeapMaxSize = getLong(extCtx, VIEW_STATE_OFF_HEAP_MAX_SIZE,
+                VIEW_STATE_OFF_HEAP_MAX_SIZE_DEFAULT);
+        cfg.viewStateOffHeapBlockSize = getInt(extCtx, VIEW_STATE_OFF_HEAP_BLOCK_SIZE,
+                VIEW_STATE_OFF_HEAP_BLOCK_SIZE_DEFAULT);
+        if (cfg.viewStateOffHeapBlockSize <= 0)
+        {
+            cfg.viewStateOffHeapBlockSize = VIEW_STATE_OFF_HEAP_BLOCK_SIZE_DEFAULT;
+        }
+        cfg.viewStateDeltaSnapshotInterval = getInt(extCtx, VIEW_STATE_DELTA_SNAPSHOT_INTERVAL,
+                VIEW_STATE_DELTA_SNAPSHOT_INTERVAL_DEFAULT);
+
         cfg.autocompleteOffViewState = getBoolean(extCtx, AUTOCOMPLETE_OFF_VIEW_STATE,
                 AUTOCOMPLETE_OFF_VIEW_STATE_DEFAULT);
         
@@ -1501,6 +1753,21 @@ public int getComponentUniqueIdsCacheSize()
         return componentUniqueIdsCacheSize;
     }
 
+    public int getFaceletsCacheSize()
+    {
+        return faceletsCacheSize;
+    }
+
+    public boolean isFaceletsBackgroundRefresh()
+    {
+        return faceletsBackgroundRefresh;
+    }
+
+    public boolean isFaceletsPrecompile()
+    {
+        return faceletsPrecompile;
+    }
+
     public boolean isStrictJsf2ViewNotFound()
     {
         return strictJsf2ViewNotFound;
@@ -1571,6 +1838,46 @@ public int getResourceHandlerCacheSize()
         return resourceHandlerCacheSize;
     }
 
+    public long getResourceHandlerContentCacheSize()
+    {
+        return resourceHandlerContentCacheSize;
+    }
+
+    public int getResourceHandlerContentCacheMaxEntrySize()
+    {
+        return resourceHandlerContentCacheMaxEntrySize;
+    }
+
+    public boolean isResourceHandlerCompressionEnabled()
+    {
+        return resourceHandlerCompressionEnabled;
+    }
+
+    public boolean isResourceHandlerContentHashUrls()
+    {
+        return resourceHandlerContentHashUrls;
+    }
+
+    public boolean isResourceHandlerCombineResources()
+    {
+        return resourceHandlerCombineResources;
+    }
+
+    public boolean isResourceHandlerIndexEnabled()
+    {
+        return resourceHandlerIndexEnabled;
+    }
+
+    public boolean isResourcePreloadEnabled()
+    {
+        return resourcePreloadEnabled;
+    }
+
+    public boolean isEarlyHintsEnabled()
+    {
+        return earlyHintsEnabled;
+    }
+
     public String getScanPackages()
     {
         return scanPackages;
@@ -1636,6 +1943,26 @@ public boolean isUseFlashScopePurgeViewsInSession()
         return useFlashScopePurgeViewsInSession;
     }
 
+    public String getViewStateSessionStorage()
+    {
+        return viewStateSessionStorage;
+    }
+
+    public long getViewStateOffHeapMaxSize()
+    {
+        return viewStateOffHeapMaxSize;
+    }
+
+    public int getViewStateOffHeapBlockSize()
+    {
+        return viewStateOffHeapBlockSize;
+    }
+
+    public int getViewStateDeltaSnapshotInterval()
+    {
+        return viewStateDeltaSnapshotInterval;
+    }
+
     public boolean isAutocompleteOffViewState()
     {
         return autocompleteOffViewState;
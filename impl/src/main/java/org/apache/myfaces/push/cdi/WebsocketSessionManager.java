@@ -29,7 +29,6 @@
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Queue;
@@ -38,6 +37,7 @@
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -49,7 +49,7 @@
 import org.apache.myfaces.push.WebsocketSessionClusterSerializedRestore;
 import org.apache.myfaces.config.webparameters.MyfacesConfig;
 import org.apache.myfaces.push.Json;
-import org.apache.myfaces.util.lang.ConcurrentLRUCache;
+import org.apache.myfaces.util.lang.ShardedLRUCache;
 import org.apache.myfaces.util.lang.Lazy;
 
 import static jakarta.websocket.CloseReason.CloseCodes.NORMAL_CLOSURE;
@@ -57,11 +57,15 @@
 @ApplicationScoped
 public class WebsocketSessionManager
 {
-    private Lazy<ConcurrentLRUCache<String, Collection<Reference<Session>>>> sessionMap;
+    private Lazy<ShardedLRUCache<String, Collection<Reference<Session>>>> sessionMap;
 
     private Lazy<ConcurrentHashMap<UserChannelKey, Set<String>>> userMap;
     private Queue<String> restoreQueue;
 
+    // the channel token of the last added session, so a registered session is found without
+    // iterating the session map, which has no access order
+    private volatile String lastChannelToken;
+
     private static final CloseReason REASON_EXPIRED = new CloseReason(NORMAL_CLOSURE, "Expired");
 
     private static final Logger LOG = Logger.getLogger(WebsocketSessionManager.class.getName());
@@ -72,13 +76,13 @@ public void init()
         sessionMap = new Lazy<>(() ->
         {
             int size = MyfacesConfig.WEBSOCKET_MAX_CONNECTIONS_DEFAULT;
-            return new ConcurrentLRUCache<>((size * 4 + 3) / 3, size);
+            return new ShardedLRUCache<>(size);
         });
         restoreQueue = new ConcurrentLinkedQueue<>();
         userMap = new Lazy<>(ConcurrentHashMap::new);
     }
 
-    public ConcurrentLRUCache<String, Collection<Reference<Session>>> getSessionMap()
+    public ShardedLRUCache<String, Collection<Reference<Session>>> getSessionMap()
     {
         return sessionMap.get();
     }
@@ -90,7 +94,7 @@ public ConcurrentMap<UserChannelKey, Set<String>> getUserMap()
 
     public void registerSessionToken(String channelToken)
     {
-        ConcurrentLRUCache<String, Collection<Reference<Session>>> sessionMap = this.getSessionMap();
+        ShardedLRUCache<String, Collection<Reference<Session>>> sessionMap = this.getSessionMap();
         if (sessionMap.get(channelToken) == null)
         {
             sessionMap.put(channelToken, new ConcurrentLinkedQueue<>());
@@ -132,8 +136,8 @@ public Set<String> getChannelTokensForUser(Serializable user, String channel)
     public void initSessionMap(ExternalContext context)
     {
         int size = MyfacesConfig.getCurrentInstance(context).getWebsocketMaxConnections();
-        ConcurrentLRUCache<String, Collection<Reference<Session>>> newSessionMap
-                = new ConcurrentLRUCache<>((size * 4 + 3) / 3, size);
+        ShardedLRUCache<String, Collection<Reference<Session>>> newSessionMap
+                = new ShardedLRUCache<>(size);
         
         synchronized (sessionMap)
         {
@@ -141,12 +145,9 @@ public void initSessionMap(ExternalContext context)
             {
                 // If a Session has been restored, it could be already a lruCache instantiated, so in this case
                 // we need to fill the new one with the old instances, but only the instances that are active
-                // at the moment.
-                Set<Map.Entry<String, Collection<Reference<Session>>>> entries = sessionMap.get()
-                        .getLatestAccessedItems(MyfacesConfig.WEBSOCKET_MAX_CONNECTIONS_DEFAULT).entrySet();
-                for (Map.Entry<String, Collection<Reference<Session>>> entry : entries)
+                // at the moment. This iterates all entries, it is only done once, when the application starts.
+                sessionMap.get().forEach((channelToken, referenceCollection) ->
                 {
-                    Collection<Reference<Session>> referenceCollection = entry.getValue();
                     if (referenceCollection != null)
                     {
                         Collection<Reference<Session>> newReferenceCollection =
@@ -155,9 +156,9 @@ public void initSessionMap(ExternalContext context)
                                         .filter(p -> p.get() != null && p.get().isOpen())
                                         .distinct()
                                         .collect(Collectors.toCollection(ConcurrentLinkedQueue::new));
-                        newSessionMap.put(entry.getKey(), newReferenceCollection);
+                        newSessionMap.put(channelToken, newReferenceCollection);
                     }
-                }
+                });
             }
             
             sessionMap.reset(newSessionMap);
@@ -181,7 +182,7 @@ public boolean addOrUpdateSession(String channelToken, Session session)
                     "session.id = {1}", new Object[] {channelToken ,session.getId()});
         }
         
-        ConcurrentLRUCache<String, Collection<Reference<Session>>> sessionMap = this.getSessionMap();
+        ShardedLRUCache<String, Collection<Reference<Session>>> sessionMap = this.getSessionMap();
         Collection<Reference<Session>> sessions = sessionMap.get(channelToken);
         if (sessions == null)
         {
@@ -192,6 +193,7 @@ public boolean addOrUpdateSession(String channelToken, Session session)
         Optional<Reference<Session>> referenceOptional =
                 sessions.stream().filter(p -> Objects.equals(p.get(), session)).findFirst();
 
+        lastChannelToken = channelToken;
         if (!referenceOptional.isPresent())
         {
             return sessions.add(new SoftReference<>(session));
@@ -349,11 +351,9 @@ public void synchronizeSessionInstances()
         {
             // It is necessary to have at least 1 registered Session instance to call getOpenSessions() and get all
             // instances associated to javax.faces.push Endpoint.
-            Map<String, Collection<Reference<Session>>> map = getSessionMap().getLatestAccessedItems(1);
-            if (map != null && !map.isEmpty())
+            Collection<Reference<Session>> collectionRef = getAnySessions();
+            if (collectionRef != null)
             {
-
-                Collection<Reference<Session>> collectionRef = map.values().iterator().next();
                 collectionRef.stream().filter(ref -> ref != null).forEach(ref ->
                 {
                     Session session = ref.get();
@@ -379,6 +379,33 @@ public void synchronizeSessionInstances()
         }
     }
 
+    /**
+     * @return the sessions of one channel token, or null if there is none
+     */
+    private Collection<Reference<Session>> getAnySessions()
+    {
+        String lastToken = lastChannelToken;
+        if (lastToken != null)
+        {
+            Collection<Reference<Session>> lastSessions = getSessionMap().get(lastToken);
+            if (lastSessions != null && !lastSessions.isEmpty())
+            {
+                return lastSessions;
+            }
+        }
+
+        // the session of the last token was removed, look at the others
+        AtomicReference<Collection<Reference<Session>>> result = new AtomicReference<>();
+        getSessionMap().forEach((channelToken, sessions) ->
+        {
+            if (sessions != null && !sessions.isEmpty())
+            {
+                result.compareAndSet(null, sessions);
+            }
+        });
+        return result.get();
+    }
+
     public Queue<String> getRestoredQueue()
     {
         return restoreQueue;
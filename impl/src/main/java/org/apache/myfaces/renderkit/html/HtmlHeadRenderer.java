@@ -19,7 +19,9 @@
 package org.apache.myfaces.renderkit.html;
 
 import java.io.IOException;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import jakarta.faces.component.UIComponent;
 import jakarta.faces.component.UIViewRoot;
@@ -31,6 +33,8 @@
 import org.apache.myfaces.config.webparameters.MyfacesConfig;
 import org.apache.myfaces.renderkit.html.util.HTML;
 import org.apache.myfaces.renderkit.html.util.HtmlRendererUtils;
+import org.apache.myfaces.renderkit.html.util.ResourcePreloader;
+import org.apache.myfaces.renderkit.html.util.ResourceUtils;
 
 /**
  * Renderer used by h:head component
@@ -59,6 +63,11 @@ public void encodeBegin(FacesContext facesContext, UIComponent component) throws
     {
         super.encodeBegin(facesContext, component); //check for NP
 
+        if (ResourcePreloader.isEnabled(facesContext))
+        {
+            ResourcePreloader.getInstance(facesContext).sendPreloadLinks(facesContext, facesContext.getViewRoot());
+        }
+
         ResponseWriter writer = facesContext.getResponseWriter();
         writer.startElement(HTML.HEAD_ELEM, component);
         if (HtmlRendererUtils.isOutputHtml5Doctype(facesContext))
@@ -78,10 +87,15 @@ public void encodeEnd(FacesContext facesContext, UIComponent component) throws I
         UIViewRoot root = facesContext.getViewRoot();
 
         List<UIComponent> componentResources = root.getComponentResources(facesContext, "head");
-        for (int i = 0, childCount = componentResources.size(); i < childCount; i++)
+        if (ResourcePreloader.isEnabled(facesContext))
+        {
+            Set<ResourcePreloader.PreloadLink> links = new LinkedHashSet<>();
+            ResourceUtils.encodeComponentResources(facesContext, componentResources, links);
+            ResourcePreloader.getInstance(facesContext).setRenderedLinks(facesContext, root, links);
+        }
+        else
         {
-            UIComponent child = componentResources.get(i);
-            child.encodeAll(facesContext);
+            ResourceUtils.encodeComponentResources(facesContext, componentResources);
         }
         
         writer.endElement(HTML.HEAD_ELEM);
@@ -19,6 +19,7 @@
 package org.apache.myfaces.renderkit.html;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -30,6 +31,8 @@
 import jakarta.faces.render.ResponseStateManager;
 
 import org.apache.myfaces.application.viewstate.StateCache;
+import org.apache.myfaces.application.viewstate.StateTokenProcessor;
+import org.apache.myfaces.application.viewstate.StateTokenProcessorClientSide;
 import org.apache.myfaces.config.webparameters.MyfacesConfig;
 import org.apache.myfaces.renderkit.MyfacesResponseStateManager;
 import org.apache.myfaces.renderkit.html.util.HTML;
@@ -117,13 +120,7 @@ private void writeViewStateField(FacesContext facesContext, ResponseWriter respo
             String viewNamespace)
         throws IOException
     {
-        String serializedState = getStateCache(facesContext).getStateTokenProcessor(facesContext)
-                .encode(facesContext, savedState);
-
-        if (log.isLoggable(Level.FINE)) 
-        {
-             log.fine("Writing serialized ViewState string with hashCode: " + serializedState.hashCode());
-        }
+        StateTokenProcessor stateTokenProcessor = getStateCache(facesContext).getStateTokenProcessor(facesContext);
 
         responseWriter.startElement(HTML.INPUT_ELEM, null);
         responseWriter.writeAttribute(HTML.TYPE_ATTR, HTML.INPUT_TYPE_HIDDEN, null);
@@ -137,7 +134,29 @@ private void writeViewStateField(FacesContext facesContext, ResponseWriter respo
                 HtmlResponseStateManager.generateUpdateViewStateId(facesContext),
                 null);
         }
-        responseWriter.writeAttribute(HTML.VALUE_ATTR, serializedState, null);
+        if (stateTokenProcessor instanceof StateTokenProcessorClientSide clientSideProcessor
+                && responseWriter instanceof HtmlResponseWriterImpl htmlResponseWriter
+                && !log.isLoggable(Level.FINE))
+        {
+            // write the client side state directly into the response, without building the string
+            Writer valueWriter = htmlResponseWriter.startUnescapedAttribute(HTML.VALUE_ATTR);
+            if (valueWriter != null)
+            {
+                clientSideProcessor.encode(facesContext, savedState, valueWriter);
+                htmlResponseWriter.endUnescapedAttribute();
+            }
+        }
+        else
+        {
+            String serializedState = stateTokenProcessor.encode(facesContext, savedState);
+
+            if (log.isLoggable(Level.FINE)) 
+            {
+                 log.fine("Writing serialized ViewState string with hashCode: " + serializedState.hashCode());
+            }
+
+            responseWriter.writeAttribute(HTML.VALUE_ATTR, serializedState, null);
+        }
         if (myfacesConfig.isAutocompleteOffViewState())
         {
             responseWriter.writeAttribute(HTML.AUTOCOMPLETE_ATTR, "off", null);
@@ -801,6 +801,35 @@ public void writeAttribute(String name, Object value, String componentPropertyNa
         }
     }
     
+    /**
+     * Starts an attribute whose value is written by the caller directly to the returned writer, followed by
+     * {@link #endUnescapedAttribute()}. The value is not escaped, so this is only for values that never
+     * contain characters with a meaning in HTML, like the base64 encoded view state.
+     * 
+     * @return the writer for the value, or null if the attribute must not be written
+     */
+    Writer startUnescapedAttribute(String name) throws IOException
+    {
+        if (!_startTagOpen)
+        {
+            throw new IllegalStateException("Must be called before the start element is closed (attribute '"
+                    + name + "')");
+        }
+        if (_passThroughAttributesMap != null && _passThroughAttributesMap.containsKey(name))
+        {
+            return null;
+        }
+        _currentWriter.write(' ');
+        _currentWriter.write(name);
+        _currentWriter.write("=\"");
+        return _currentWriter;
+    }
+
+    void endUnescapedAttribute() throws IOException
+    {
+        _currentWriter.write('"');
+    }
+    
     private void encodeAndWriteAttribute(String name, Object value) throws IOException
     {
         _currentWriter.write(' ');
@@ -149,15 +149,7 @@ public void encodeEnd(FacesContext facesContext, UIComponent component) throws I
         // Perf: use indexes for iteration over children,
         // componentResources are jakarta.faces.component._ComponentChildrenList._ComponentChildrenList(UIComponent)  
         List<UIComponent> componentResources = root.getComponentResources(facesContext, HTML.BODY_TARGET);
-        int childrenCount = componentResources.size();
-        if (childrenCount > 0)
-        {
-            for (int i = 0; i < childrenCount; i++)
-            {
-                UIComponent child = componentResources.get(i);
-                child.encodeAll(facesContext);
-            }
-        }
+        ResourceUtils.encodeComponentResources(facesContext, componentResources);
         
         // render all unhandled FacesMessages when ProjectStage is Development
         if (facesContext.isProjectStage(ProjectStage.Development))
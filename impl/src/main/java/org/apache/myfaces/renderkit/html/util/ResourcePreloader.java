@@ -0,0 +1,311 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.renderkit.html.util;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jakarta.faces.application.Resource;
+import jakarta.faces.application.ResourceHandler;
+import jakarta.faces.component.UIComponent;
+import jakarta.faces.component.UIViewRoot;
+import jakarta.faces.context.ExternalContext;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.context.PartialViewContext;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.resource.ResourceCombiner;
+import org.apache.myfaces.util.ExternalContextUtils;
+import org.apache.myfaces.util.lang.ShardedLRUCache;
+
+/**
+ * Announces the scripts and stylesheets of the head with "Link: rel=preload" response headers, and
+ * optionally a "103 Early Hints" response, before the head is rendered.
+ *
+ * <p>The resources rendered in the head of a view are remembered by view id, locale and resource
+ * library contracts, so resources that are only added while rendering are announced on the next
+ * request of the same view. Only the library and name of the resources are remembered, the urls
+ * are created and encoded for each request, as they can contain the session id.</p>
+ *
+ * @see MyfacesConfig#RESOURCE_PRELOAD_ENABLED
+ * @see MyfacesConfig#EARLY_HINTS_ENABLED
+ */
+public class ResourcePreloader
+{
+    private static final Logger log = Logger.getLogger(ResourcePreloader.class.getName());
+
+    public static final String LINK_HEADER = "Link";
+
+    private static final String APPLICATION_MAP_KEY = ResourcePreloader.class.getName();
+
+    private static final int MAX_VIEWS = 500;
+
+    // HttpServletResponse.sendEarlyHints() of Servlet 6.1, null if the container does not have it
+    private static final Method SEND_EARLY_HINTS;
+
+    static
+    {
+        Method sendEarlyHints;
+        try
+        {
+            sendEarlyHints = HttpServletResponse.class.getMethod("sendEarlyHints");
+        }
+        catch (NoSuchMethodException | SecurityException e)
+        {
+            sendEarlyHints = null;
+        }
+        SEND_EARLY_HINTS = sendEarlyHints;
+    }
+
+    private final ShardedLRUCache<String, List<PreloadLink>> _renderedLinks;
+
+    public static ResourcePreloader getInstance(FacesContext facesContext)
+    {
+        Map<String, Object> applicationMap = facesContext.getExternalContext().getApplicationMap();
+        ResourcePreloader preloader = (ResourcePreloader) applicationMap.get(APPLICATION_MAP_KEY);
+        if (preloader == null)
+        {
+            preloader = new ResourcePreloader();
+            applicationMap.put(APPLICATION_MAP_KEY, preloader);
+        }
+        return preloader;
+    }
+
+    /**
+     * @return true if the head resources are announced for the current request
+     */
+    public static boolean isEnabled(FacesContext facesContext)
+    {
+        if (!MyfacesConfig.getCurrentInstance(facesContext).isResourcePreloadEnabled())
+        {
+            return false;
+        }
+        PartialViewContext partialViewContext = facesContext.getPartialViewContext();
+        return partialViewContext == null
+                || (!partialViewContext.isAjaxRequest() && !partialViewContext.isPartialRequest());
+    }
+
+    /**
+     * The preload link of a h:outputScript or h:outputStylesheet.
+     *
+     * @return the link, or null if the component is no script or stylesheet with a resource
+     */
+    public static PreloadLink getPreloadLink(UIComponent component)
+    {
+        String rendererType = component.getRendererType();
+        boolean script = ResourceUtils.DEFAULT_SCRIPT_RENDERER_TYPE.equals(rendererType);
+        if ((!script && !ResourceUtils.DEFAULT_STYLESHEET_RENDERER_TYPE.equals(rendererType))
+                || !component.isRendered())
+        {
+            return null;
+        }
+
+        Map<String, Object> attributes = component.getAttributes();
+        String resourceName = (String) attributes.get(ComponentAttrs.NAME_ATTR);
+        String libraryName = (String) attributes.get(ComponentAttrs.LIBRARY_ATTR);
+        if (resourceName == null || resourceName.isEmpty())
+        {
+            return null;
+        }
+        return new PreloadLink(libraryName, resourceName, script);
+    }
+
+    /**
+     * The preload link of a script or stylesheet resource.
+     */
+    public static PreloadLink getPreloadLink(Resource resource, boolean script)
+    {
+        return new PreloadLink(resource.getLibraryName(), resource.getResourceName(), script);
+    }
+
+    public ResourcePreloader()
+    {
+        _renderedLinks = new ShardedLRUCache<>(MAX_VIEWS);
+    }
+
+    /**
+     * Adds the preload link headers of the head resources of the view, and sends them as
+     * 103 Early Hints if enabled and supported by the container. Nothing is done if the response
+     * is already committed.
+     */
+    public void sendPreloadLinks(FacesContext facesContext, UIViewRoot root) throws IOException
+    {
+        ExternalContext externalContext = facesContext.getExternalContext();
+        if (externalContext.isResponseCommitted())
+        {
+            return;
+        }
+
+        Set<PreloadLink> links = new LinkedHashSet<>();
+        List<PreloadLink> renderedLinks = _renderedLinks.get(getViewKey(facesContext, root));
+        if (renderedLinks != null)
+        {
+            links.addAll(renderedLinks);
+        }
+        // combined resources are only known after rendering, the single ones must not be fetched too
+        if (renderedLinks == null || !ResourceCombiner.isEnabled(facesContext))
+        {
+            List<UIComponent> componentResources = root.getComponentResources(facesContext, "head");
+            for (int i = 0, childCount = componentResources.size(); i < childCount; i++)
+            {
+                PreloadLink link = getPreloadLink(componentResources.get(i));
+                if (link != null)
+                {
+                    links.add(link);
+                }
+            }
+        }
+
+        boolean added = false;
+        for (PreloadLink link : links)
+        {
+            String value = link.toHeaderValue(facesContext);
+            if (value != null)
+            {
+                externalContext.addResponseHeader(LINK_HEADER, value);
+                added = true;
+            }
+        }
+        if (added && MyfacesConfig.getCurrentInstance(facesContext).isEarlyHintsEnabled())
+        {
+            sendEarlyHints(externalContext);
+        }
+    }
+
+    private static void sendEarlyHints(ExternalContext externalContext) throws IOException
+    {
+        if (SEND_EARLY_HINTS == null)
+        {
+            return;
+        }
+        HttpServletResponse response = ExternalContextUtils.getHttpServletResponse(externalContext);
+        if (response == null)
+        {
+            return;
+        }
+        try
+        {
+            SEND_EARLY_HINTS.invoke(response);
+        }
+        catch (InvocationTargetException e)
+        {
+            if (e.getCause() instanceof IOException)
+            {
+                throw (IOException) e.getCause();
+            }
+            log.log(Level.FINE, "Could not send 103 Early Hints", e.getCause());
+        }
+        catch (IllegalAccessException e)
+        {
+            log.log(Level.FINE, "Could not send 103 Early Hints", e);
+        }
+    }
+
+    /**
+     * Remembers the links of the resources rendered in the head of the view.
+     */
+    public void setRenderedLinks(FacesContext facesContext, UIViewRoot root, Collection<PreloadLink> links)
+    {
+        if (root.getViewId() != null)
+        {
+            _renderedLinks.put(getViewKey(facesContext, root), List.copyOf(links));
+        }
+    }
+
+    /**
+     * The same view can render other resources for another locale or other contracts.
+     */
+    private static String getViewKey(FacesContext facesContext, UIViewRoot root)
+    {
+        return root.getViewId() + '|' + root.getLocale() + '|' + facesContext.getResourceLibraryContracts();
+    }
+
+    /**
+     * A script or stylesheet to announce, by library and name. The link header value is created
+     * for each request.
+     */
+    public static final class PreloadLink
+    {
+        private final String libraryName;
+        private final String resourceName;
+        private final boolean script;
+
+        public PreloadLink(String libraryName, String resourceName, boolean script)
+        {
+            this.libraryName = libraryName;
+            this.resourceName = resourceName;
+            this.script = script;
+        }
+
+        /**
+         * @return the value of the link header, or null if the resource does not exist
+         */
+        public String toHeaderValue(FacesContext facesContext)
+        {
+            ResourceHandler resourceHandler = facesContext.getApplication().getResourceHandler();
+            Resource resource = libraryName == null
+                    ? resourceHandler.createResource(resourceName)
+                    : resourceHandler.createResource(resourceName, libraryName);
+            if (resource == null)
+            {
+                return null;
+            }
+            String path = facesContext.getExternalContext().encodeResourceURL(resource.getRequestPath());
+            return '<' + path + ">; rel=preload; as=" + (script ? "script" : "style");
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (!(obj instanceof PreloadLink))
+            {
+                return false;
+            }
+            PreloadLink other = (PreloadLink) obj;
+            return script == other.script && resourceName.equals(other.resourceName)
+                    && Objects.equals(libraryName, other.libraryName);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(libraryName, resourceName, script);
+        }
+
+        @Override
+        public String toString()
+        {
+            return (libraryName == null ? "" : libraryName + ':') + resourceName;
+        }
+    }
+}
@@ -19,15 +19,22 @@
 package org.apache.myfaces.renderkit.html.util;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import jakarta.faces.FacesWrapper;
 
 import jakarta.faces.application.Resource;
 import jakarta.faces.application.ResourceHandler;
+import jakarta.faces.component.UIComponent;
 import jakarta.faces.context.FacesContext;
 import jakarta.faces.context.PartialViewContext;
 import jakarta.faces.context.ResponseWriter;
 
 import org.apache.myfaces.resource.ContractResource;
+import org.apache.myfaces.resource.ResourceCombiner;
+import org.apache.myfaces.resource.ResourceImpl;
 
 public class ResourceUtils
 {
@@ -121,6 +128,217 @@ public static void renderDefaultJsfJsInlineIfNecessary(FacesContext facesContext
         facesContext.getAttributes().put(RENDERED_FACES_JS, Boolean.TRUE);
     }
 
+    /**
+     * Encodes the component resources of a target. If the resources are combined, see
+     * {@link ResourceCombiner}, consecutive scripts or stylesheets are rendered as one resource.
+     */
+    public static void encodeComponentResources(FacesContext facesContext, List<UIComponent> componentResources)
+            throws IOException
+    {
+        encodeComponentResources(facesContext, componentResources, null);
+    }
+
+    /**
+     * Encodes the component resources of a target, and adds the preload links of the rendered
+     * scripts and stylesheets to the given collection, see {@link ResourcePreloader}.
+     *
+     * @param links the collection of the links, or null if they are not needed
+     */
+    public static void encodeComponentResources(FacesContext facesContext, List<UIComponent> componentResources,
+            Collection<ResourcePreloader.PreloadLink> links) throws IOException
+    {
+        if (!ResourceCombiner.isEnabled(facesContext))
+        {
+            for (int i = 0, childCount = componentResources.size(); i < childCount; i++)
+            {
+                encodeComponentResource(facesContext, componentResources.get(i), links);
+            }
+            return;
+        }
+
+        ResourceCombiner combiner = ResourceCombiner.getInstance(facesContext);
+        List<UIComponent> group = new ArrayList<>();
+        List<Resource> resources = new ArrayList<>();
+        for (int i = 0, childCount = componentResources.size(); i < childCount; i++)
+        {
+            UIComponent child = componentResources.get(i);
+            Resource resource = getCombinableResource(facesContext, combiner, child);
+            if (resource == null
+                    || (!group.isEmpty() && !child.getRendererType().equals(group.get(0).getRendererType())))
+            {
+                encodeCombinedResources(facesContext, combiner, group, resources, links);
+            }
+            if (resource == null)
+            {
+                encodeComponentResource(facesContext, child, links);
+            }
+            else if (!containsResource(resources, resource))
+            {
+                group.add(child);
+                resources.add(resource);
+            }
+        }
+        encodeCombinedResources(facesContext, combiner, group, resources, links);
+    }
+
+    private static void encodeComponentResource(FacesContext facesContext, UIComponent component,
+            Collection<ResourcePreloader.PreloadLink> links) throws IOException
+    {
+        if (links != null)
+        {
+            ResourcePreloader.PreloadLink link = ResourcePreloader.getPreloadLink(component);
+            if (link != null)
+            {
+                links.add(link);
+            }
+        }
+        component.encodeAll(facesContext);
+    }
+
+    /**
+     * Returns the resource of a h:outputScript or h:outputStylesheet that can be combined with
+     * others, or null if the component is rendered by its renderer.
+     */
+    private static Resource getCombinableResource(FacesContext facesContext, ResourceCombiner combiner,
+            UIComponent component)
+    {
+        boolean script = DEFAULT_SCRIPT_RENDERER_TYPE.equals(component.getRendererType());
+        if (!script && !DEFAULT_STYLESHEET_RENDERER_TYPE.equals(component.getRendererType()))
+        {
+            return null;
+        }
+        Map<String, Object> passThroughAttributes = component.getPassThroughAttributes(false);
+        if (!component.isRendered() || component.getChildCount() > 0
+                || (passThroughAttributes != null && !passThroughAttributes.isEmpty()))
+        {
+            return null;
+        }
+
+        Map<String, Object> attributes = component.getAttributes();
+        String resourceName = (String) attributes.get(ComponentAttrs.NAME_ATTR);
+        String libraryName = (String) attributes.get(ComponentAttrs.LIBRARY_ATTR);
+        if (resourceName == null || resourceName.isEmpty() || resourceName.indexOf('?') >= 0
+                || attributes.get("media") != null
+                || isRenderedScript(facesContext, libraryName, resourceName))
+        {
+            return null;
+        }
+
+        ResourceHandler resourceHandler = facesContext.getApplication().getResourceHandler();
+        Resource resource = libraryName == null
+                ? resourceHandler.createResource(resourceName)
+                : resourceHandler.createResource(resourceName, libraryName);
+        // faces.js finds its own script element
+        if (resource == null || resource.getClass() != ResourceImpl.class
+                || !ResourceCombiner.isCreatedFromName(resource)
+                || ResourceHandler.FACES_SCRIPT_LIBRARY_NAME.equals(resource.getLibraryName())
+                || isRenderedScript(facesContext, resource.getLibraryName(), resource.getResourceName()))
+        {
+            return null;
+        }
+
+        String contentType = resource.getContentType();
+        if (script)
+        {
+            return contentType != null && contentType.contains("javascript") ? resource : null;
+        }
+        return HTML.STYLE_TYPE_TEXT_CSS.equals(contentType) && combiner.isCombinableStylesheet(resource)
+                ? resource
+                : null;
+    }
+
+    private static boolean containsResource(List<Resource> resources, Resource resource)
+    {
+        for (int i = 0; i < resources.size(); i++)
+        {
+            if (resources.get(i).getRequestPath().equals(resource.getRequestPath()))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Encodes the grouped components as one combined resource, or one by one if they cannot be
+     * combined, and clears the group.
+     */
+    private static void encodeCombinedResources(FacesContext facesContext, ResourceCombiner combiner,
+            List<UIComponent> group, List<Resource> resources, Collection<ResourcePreloader.PreloadLink> links)
+            throws IOException
+    {
+        if (group.isEmpty())
+        {
+            return;
+        }
+
+        boolean script = DEFAULT_SCRIPT_RENDERER_TYPE.equals(group.get(0).getRendererType());
+        Resource combined = null;
+        if (group.size() > 1)
+        {
+            String resourceName = combiner.combine(resources,
+                    script ? ResourceCombiner.SCRIPT_EXTENSION : ResourceCombiner.STYLESHEET_EXTENSION);
+            if (resourceName != null)
+            {
+                combined = facesContext.getApplication().getResourceHandler().createResource(resourceName,
+                        ResourceCombiner.LIBRARY_NAME);
+            }
+        }
+
+        if (combined == null)
+        {
+            for (int i = 0; i < group.size(); i++)
+            {
+                encodeComponentResource(facesContext, group.get(i), links);
+            }
+        }
+        else
+        {
+            if (links != null)
+            {
+                links.add(ResourcePreloader.getPreloadLink(combined, script));
+            }
+            for (int i = 0; i < group.size(); i++)
+            {
+                Map<String, Object> attributes = group.get(i).getAttributes();
+                Resource resource = resources.get(i);
+                markResourceRendered(facesContext, (String) attributes.get(ComponentAttrs.LIBRARY_ATTR),
+                        (String) attributes.get(ComponentAttrs.NAME_ATTR));
+                markResourceRendered(facesContext, resource.getLibraryName(), resource.getResourceName());
+            }
+
+            ResponseWriter writer = facesContext.getResponseWriter();
+            String path = facesContext.getExternalContext().encodeResourceURL(combined.getRequestPath());
+            if (script)
+            {
+                writer.startElement(HTML.SCRIPT_ELEM, group.get(0));
+                HtmlRendererUtils.renderScriptType(facesContext, writer);
+                writer.writeURIAttribute(HTML.SRC_ATTR, path, null);
+                writer.endElement(HTML.SCRIPT_ELEM);
+            }
+            else
+            {
+                writer.startElement(HTML.LINK_ELEM, group.get(0));
+                writer.writeAttribute(HTML.REL_ATTR, HTML.STYLESHEET_VALUE, null);
+                if (!HtmlRendererUtils.isOutputHtml5Doctype(facesContext))
+                {
+                    writer.writeAttribute(HTML.TYPE_ATTR, HTML.STYLE_TYPE_TEXT_CSS, null);
+                }
+                writer.writeURIAttribute(HTML.HREF_ATTR, path, null);
+                writer.endElement(HTML.LINK_ELEM);
+            }
+        }
+
+        group.clear();
+        resources.clear();
+    }
+
+    private static void markResourceRendered(FacesContext facesContext, String libraryName, String resourceName)
+    {
+        facesContext.getApplication().getResourceHandler().markResourceRendered(
+                facesContext, resourceName, libraryName);
+    }
+
     public static String getContractName(Resource resource)
     {
         while (resource != null)
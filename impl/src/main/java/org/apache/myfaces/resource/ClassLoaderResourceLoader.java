@@ -73,6 +73,12 @@ public InputStream getResourceInputStream(ResourceMeta resourceMeta)
     //@Override
     public URL getResourceURL(String resourceId)
     {
+        ResourceIndex index = getResourceIndex();
+        if (index != null && !index.contains(resourceId))
+        {
+            return null;
+        }
+
         URL url = null;
 
         String prefix = getPrefix();
@@ -131,12 +137,32 @@ protected ClassLoader getClassLoader()
         return ClassUtils.getContextClassLoader();
     }
 
+    @Override
+    protected ResourceIndex createResourceIndex()
+    {
+        String prefix = getPrefix();
+        if (prefix == null || prefix.isEmpty())
+        {
+            return null;
+        }
+        ClassLoader classLoader = getClassLoader();
+        ClassLoader ownClassLoader = this.getClass().getClassLoader();
+        return ownClassLoader == classLoader
+                ? ResourceIndex.create(prefix, classLoader)
+                : ResourceIndex.create(prefix, classLoader, ownClassLoader);
+    }
+
     @Override
     public boolean libraryExists(String libraryName)
     {
         String prefix = getPrefix();
         if (prefix != null && !prefix.isEmpty())
         {
+            ResourceIndex index = getResourceIndex();
+            if (index != null)
+            {
+                return index.contains(libraryName);
+            }
             String name = prefix + '/' + libraryName;
             URL url = getClassLoader().getResource(name);
             if (url == null)
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+import jakarta.faces.application.Resource;
+import jakarta.faces.context.FacesContext;
+
+import org.apache.myfaces.application.FacesServletMapping;
+import org.apache.myfaces.application.FacesServletMappingUtils;
+
+/**
+ * A resource created by the {@link ResourceCombiner}. Its name starts with the hash of its
+ * content, so it never changes.
+ */
+class CombinedResource extends Resource
+{
+    private static final long IMMUTABLE_MAX_AGE = 31536000L;
+
+    private final ResourceContent _content;
+    private final ResourceHandlerSupport _resourceHandlerSupport;
+    private String _requestPath;
+
+    CombinedResource(String resourceName, String contentType, ResourceContent content,
+            ResourceHandlerSupport resourceHandlerSupport)
+    {
+        _content = content;
+        _resourceHandlerSupport = resourceHandlerSupport;
+        setResourceName(resourceName);
+        setLibraryName(ResourceCombiner.LIBRARY_NAME);
+        setContentType(contentType);
+    }
+
+    @Override
+    public InputStream getInputStream()
+    {
+        return _content.getInputStream();
+    }
+
+    @Override
+    public String getRequestPath()
+    {
+        if (_requestPath == null)
+        {
+            FacesContext context = FacesContext.getCurrentInstance();
+            FacesServletMapping mapping = FacesServletMappingUtils.getCurrentRequestFacesServletMapping(context);
+            if (mapping.isExactMapping())
+            {
+                // resources can't be exact, lets fallback to a generic one
+                mapping = FacesServletMappingUtils.getGenericPrefixOrSuffixMapping(context);
+            }
+
+            String path;
+            if (mapping.isExtensionMapping())
+            {
+                path = _resourceHandlerSupport.getResourceIdentifier() + '/' + getResourceName()
+                        + mapping.getExtension();
+            }
+            else
+            {
+                path = _resourceHandlerSupport.getResourceIdentifier() + '/' + getResourceName();
+                path = (mapping.getPrefix() == null) ? path : mapping.getPrefix() + path;
+            }
+            path = path + "?ln=" + getLibraryName();
+
+            _requestPath = context.getApplication().getViewHandler().getResourceURL(context, path);
+        }
+        return _requestPath;
+    }
+
+    @Override
+    public Map<String, String> getResponseHeaders()
+    {
+        Map<String, String> headers = new HashMap<>(4, 1);
+        headers.put("Cache-Control", "max-age=" + IMMUTABLE_MAX_AGE + ", immutable");
+        headers.put("ETag", getETag());
+        return headers;
+    }
+
+    @Override
+    public URL getURL()
+    {
+        return null;
+    }
+
+    @Override
+    public boolean userAgentNeedsUpdate(FacesContext context)
+    {
+        String ifNoneMatch = context.getExternalContext().getRequestHeaderMap().get("If-None-Match");
+        return ifNoneMatch == null || !ResourceLoaderUtils.isETagMatch(ifNoneMatch, getETag());
+    }
+
+    private String getETag()
+    {
+        return '"' + ResourceCombiner.getVersion(getResourceName()) + '"';
+    }
+}
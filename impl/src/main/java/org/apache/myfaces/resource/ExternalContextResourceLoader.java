@@ -21,6 +21,7 @@
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -56,9 +57,31 @@ public ExternalContextResourceLoader(String prefix)
 
     protected Set<String> getResourcePaths(String path)
     {
+        ResourceIndex index = getResourceIndex();
+        if (index != null)
+        {
+            Set<String> children = index.getChildren(path);
+            if (children == null || children.isEmpty())
+            {
+                return null;
+            }
+            String directory = getPrefix() + '/' + path + '/';
+            Set<String> resourcePaths = new HashSet<>(children.size() * 4 / 3 + 1);
+            for (String child : children)
+            {
+                resourcePaths.add(directory + child);
+            }
+            return resourcePaths;
+        }
         return FacesContext.getCurrentInstance().getExternalContext().getResourcePaths(getPrefix() + '/' + path);
     }
 
+    @Override
+    protected ResourceIndex createResourceIndex()
+    {
+        return ResourceIndex.create(FacesContext.getCurrentInstance().getExternalContext(), getPrefix());
+    }
+
     @Override
     public String getResourceVersion(String path)
     {
@@ -150,6 +173,11 @@ else if (getVersionComparator().compare(libraryVersion, version) < 0)
     //@Override
     public URL getResourceURL(String resourceId)
     {
+        ResourceIndex index = getResourceIndex();
+        if (index != null && !index.contains(resourceId))
+        {
+            return null;
+        }
         try
         {
             return FacesContext.getCurrentInstance().getExternalContext().getResource(
@@ -187,6 +215,11 @@ public boolean libraryExists(String libraryName)
         String prefix = getPrefix();
         if (prefix != null && !prefix.isEmpty())
         {
+            ResourceIndex index = getResourceIndex();
+            if (index != null)
+            {
+                return index.contains(libraryName);
+            }
             try
             {
                 URL url =
@@ -0,0 +1,387 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import jakarta.faces.application.Resource;
+import jakarta.faces.application.ResourceHandler;
+import jakarta.faces.context.FacesContext;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.util.lang.ShardedLRUCache;
+
+/**
+ * Combines the content of several scripts or stylesheets into one resource of the library
+ * {@link #LIBRARY_NAME}. Its name is the hash of the combined content, as version, followed by
+ * the encoded ids of the combined resources.
+ *
+ * <p>The combined contents are kept in memory. When a combined resource is requested and its
+ * content is not there, because it was evicted, the application was restarted or the page was
+ * rendered by another node of a cluster, the resources are combined again from the ids in its
+ * name. The result is only served if it still has the hash of the name.</p>
+ *
+ * @see MyfacesConfig#RESOURCE_HANDLER_COMBINE_RESOURCES
+ */
+public class ResourceCombiner
+{
+    private static final Logger log = Logger.getLogger(ResourceCombiner.class.getName());
+
+    public static final String LIBRARY_NAME = "myfaces.combined";
+
+    public static final String SCRIPT_EXTENSION = ".js";
+    public static final String STYLESHEET_EXTENSION = ".css";
+
+    private static final String APPLICATION_MAP_KEY = ResourceCombiner.class.getName();
+
+    private static final int MAX_COMBINATIONS = 100;
+
+    // bounds the work of a request for a combined resource that is not in memory
+    private static final int MAX_RESOURCES = 64;
+    private static final int MAX_NAME_LENGTH = 8192;
+
+    private static final char ID_SEPARATOR = '\n';
+
+    // a script without a final line break or semicolon must not continue in the next one
+    private static final byte[] SCRIPT_SEPARATOR = "\n;\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] STYLESHEET_SEPARATOR = "\n".getBytes(StandardCharsets.US_ASCII);
+
+    // urls that are resolved relative to the stylesheet, and imports
+    private static final Pattern RELATIVE_URL = Pattern.compile(
+            "url\\(\\s*['\"]?(?![\"')]|data:|/|#|[a-zA-Z][a-zA-Z0-9+.-]*:)|@import", Pattern.CASE_INSENSITIVE);
+
+    private final ShardedLRUCache<String, String> _combinations;
+    private final ShardedLRUCache<String, ResourceContent> _contents;
+    private final ShardedLRUCache<String, Boolean> _combinableStylesheets;
+
+    public static ResourceCombiner getInstance(FacesContext facesContext)
+    {
+        Map<String, Object> applicationMap = facesContext.getExternalContext().getApplicationMap();
+        ResourceCombiner combiner = (ResourceCombiner) applicationMap.get(APPLICATION_MAP_KEY);
+        if (combiner == null)
+        {
+            combiner = new ResourceCombiner();
+            applicationMap.put(APPLICATION_MAP_KEY, combiner);
+        }
+        return combiner;
+    }
+
+    /**
+     * @return true if the resources are combined in the current application
+     */
+    public static boolean isEnabled(FacesContext facesContext)
+    {
+        MyfacesConfig config = MyfacesConfig.getCurrentInstance(facesContext);
+        return config.isResourceHandlerCombineResources() && config.isResourceHandlerCacheEnabled();
+    }
+
+    public ResourceCombiner()
+    {
+        _combinations = new ShardedLRUCache<>(MAX_COMBINATIONS);
+        _contents = new ShardedLRUCache<>(MAX_COMBINATIONS);
+        _combinableStylesheets = new ShardedLRUCache<>(MAX_COMBINATIONS * 5);
+    }
+
+    /**
+     * Combines the content of the resources, in order.
+     *
+     * @param resources the resources, all of them scripts or stylesheets
+     * @param extension {@link #SCRIPT_EXTENSION} or {@link #STYLESHEET_EXTENSION}
+     * @return the name of the combined resource, or null if a resource cannot be read
+     */
+    public String combine(List<Resource> resources, String extension)
+    {
+        StringBuilder key = new StringBuilder(extension);
+        for (int i = 0; i < resources.size(); i++)
+        {
+            key.append('\n').append(resources.get(i).getRequestPath());
+        }
+
+        String resourceName = _combinations.get(key.toString());
+        if (resourceName != null && _contents.get(resourceName) != null)
+        {
+            return resourceName;
+        }
+
+        StringBuilder ids = new StringBuilder();
+        for (int i = 0; i < resources.size(); i++)
+        {
+            Resource resource = resources.get(i);
+            if (resource.getResourceName() == null)
+            {
+                return null;
+            }
+            if (i > 0)
+            {
+                ids.append(ID_SEPARATOR);
+            }
+            if (resource.getLibraryName() != null)
+            {
+                ids.append(resource.getLibraryName()).append(':');
+            }
+            ids.append(resource.getResourceName());
+        }
+
+        try
+        {
+            byte[] bytes = concat(resources, extension);
+            if (bytes == null)
+            {
+                return null;
+            }
+
+            resourceName = getContentHash(bytes) + '.'
+                    + Base64.getUrlEncoder().withoutPadding().encodeToString(
+                            ids.toString().getBytes(StandardCharsets.UTF_8))
+                    + extension;
+            _contents.put(resourceName, new ResourceContent(bytes));
+            _combinations.put(key.toString(), resourceName);
+            return resourceName;
+        }
+        catch (IOException e)
+        {
+            log.log(Level.WARNING, "Resources cannot be combined: " + key, e);
+            return null;
+        }
+    }
+
+    private static byte[] concat(List<Resource> resources, String extension) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < resources.size(); i++)
+        {
+            try (InputStream in = resources.get(i).getInputStream())
+            {
+                if (in == null)
+                {
+                    return null;
+                }
+                in.transferTo(out);
+            }
+            out.write(SCRIPT_EXTENSION.equals(extension) ? SCRIPT_SEPARATOR : STYLESHEET_SEPARATOR);
+        }
+        return out.toByteArray();
+    }
+
+    private static String getContentHash(byte[] bytes) throws IOException
+    {
+        return ResourceLoaderUtils.getContentHash(new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * @return the hash of the content of the combined resource with the given name
+     */
+    static String getVersion(String resourceName)
+    {
+        int separator = resourceName.indexOf('.');
+        return separator < 0 ? resourceName : resourceName.substring(0, separator);
+    }
+
+    /**
+     * Checks if the resource is created again from its library and resource name alone, as the
+     * resources of a combined resource are when its content is not in memory. The locale prefix
+     * and the contract of a resource depend on the request that rendered the page, they are not in
+     * the name of the combined resource.
+     */
+    public static boolean isCreatedFromName(Resource resource)
+    {
+        if (resource instanceof ResourceImpl resourceImpl)
+        {
+            ResourceMeta resourceMeta = resourceImpl.getResourceMeta();
+            return resourceMeta.getLocalePrefix() == null && resourceMeta.getContractName() == null;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a stylesheet can be combined, that is if it has no url that is relative to the
+     * location of the stylesheet and no import.
+     */
+    public boolean isCombinableStylesheet(Resource resource)
+    {
+        String requestPath = resource.getRequestPath();
+        Boolean combinable = _combinableStylesheets.get(requestPath);
+        if (combinable == null)
+        {
+            try (InputStream in = resource.getInputStream())
+            {
+                combinable = in != null
+                        && !RELATIVE_URL.matcher(new String(in.readAllBytes(), StandardCharsets.UTF_8)).find();
+            }
+            catch (IOException e)
+            {
+                combinable = Boolean.FALSE;
+            }
+            _combinableStylesheets.put(requestPath, combinable);
+        }
+        return combinable;
+    }
+
+    /**
+     * @return the combined resource with the given name, or null if its resources cannot be
+     *         combined again to the same content
+     */
+    public Resource createResource(String resourceName, ResourceHandlerSupport resourceHandlerSupport)
+    {
+        return createResource(resourceName, resourceHandlerSupport, (name, libraryName) ->
+        {
+            ResourceHandler resourceHandler = FacesContext.getCurrentInstance().getApplication()
+                    .getResourceHandler();
+            return libraryName == null
+                    ? resourceHandler.createResource(name)
+                    : resourceHandler.createResource(name, libraryName);
+        });
+    }
+
+    /**
+     * @param resourceFactory creates a resource from its name and library name, to combine the
+     *        resources again if the content is not in memory
+     */
+    Resource createResource(String resourceName, ResourceHandlerSupport resourceHandlerSupport,
+            BiFunction<String, String, Resource> resourceFactory)
+    {
+        ResourceContent content = _contents.get(resourceName);
+        if (content == null)
+        {
+            content = recombine(resourceName, resourceFactory);
+            if (content == null)
+            {
+                return null;
+            }
+            _contents.put(resourceName, content);
+        }
+        String contentType = resourceName.endsWith(STYLESHEET_EXTENSION) ? "text/css" : "text/javascript";
+        return new CombinedResource(resourceName, contentType, content, resourceHandlerSupport);
+    }
+
+    /**
+     * Combines the resources whose ids are encoded in the name again. The name comes from the
+     * request, so the ids are validated like the ones of any resource request, and only scripts
+     * and combinable stylesheets are combined.
+     */
+    private ResourceContent recombine(String resourceName, BiFunction<String, String, Resource> resourceFactory)
+    {
+        String extension;
+        if (resourceName.endsWith(SCRIPT_EXTENSION))
+        {
+            extension = SCRIPT_EXTENSION;
+        }
+        else if (resourceName.endsWith(STYLESHEET_EXTENSION))
+        {
+            extension = STYLESHEET_EXTENSION;
+        }
+        else
+        {
+            return null;
+        }
+        int separator = resourceName.indexOf('.');
+        if (resourceName.length() > MAX_NAME_LENGTH || separator >= resourceName.length() - extension.length())
+        {
+            return null;
+        }
+
+        String ids;
+        try
+        {
+            ids = new String(Base64.getUrlDecoder().decode(
+                    resourceName.substring(separator + 1, resourceName.length() - extension.length())),
+                    StandardCharsets.UTF_8);
+        }
+        catch (IllegalArgumentException e)
+        {
+            return null;
+        }
+
+        List<Resource> resources = new ArrayList<>();
+        int start = 0;
+        while (start <= ids.length())
+        {
+            int end = ids.indexOf(ID_SEPARATOR, start);
+            if (end < 0)
+            {
+                end = ids.length();
+            }
+            if (resources.size() == MAX_RESOURCES)
+            {
+                return null;
+            }
+            Resource resource = createCombinableResource(ids.substring(start, end), extension, resourceFactory);
+            if (resource == null)
+            {
+                return null;
+            }
+            resources.add(resource);
+            start = end + 1;
+        }
+
+        try
+        {
+            byte[] bytes = concat(resources, extension);
+            if (bytes == null || !getContentHash(bytes).equals(getVersion(resourceName)))
+            {
+                // a resource changed since the name was created
+                return null;
+            }
+            return new ResourceContent(bytes);
+        }
+        catch (IOException e)
+        {
+            log.log(Level.WARNING, "Resources cannot be combined: " + ids, e);
+            return null;
+        }
+    }
+
+    private Resource createCombinableResource(String id, String extension,
+            BiFunction<String, String, Resource> resourceFactory)
+    {
+        int colon = id.indexOf(':');
+        String libraryName = colon < 0 ? null : id.substring(0, colon);
+        String name = id.substring(colon + 1);
+        if (name.isEmpty() || !ResourceValidationUtils.isValidResourceName(name)
+                || (libraryName != null && (!ResourceValidationUtils.isValidLibraryName(libraryName, true)
+                        || LIBRARY_NAME.equals(libraryName))))
+        {
+            return null;
+        }
+
+        Resource resource = resourceFactory.apply(name, libraryName);
+        if (resource == null || !isCreatedFromName(resource))
+        {
+            return null;
+        }
+        String contentType = resource.getContentType();
+        if (SCRIPT_EXTENSION.equals(extension))
+        {
+            return contentType != null && contentType.contains("javascript") ? resource : null;
+        }
+        return "text/css".equals(contentType) && isCombinableStylesheet(resource) ? resource : null;
+    }
+}
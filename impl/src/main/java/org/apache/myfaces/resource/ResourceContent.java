@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The content of a resource as it is sent to the client, that is after the value expressions of
+ * the resource are evaluated, with its gzip encoded variant if any. Kept in the
+ * ResourceHandlerCache, so it must not be modified.
+ */
+public class ResourceContent
+{
+    private final byte[] bytes;
+    private final ResourceContent gzipContent;
+
+    public ResourceContent(byte[] bytes)
+    {
+        this(bytes, null);
+    }
+
+    public ResourceContent(byte[] bytes, ResourceContent gzipContent)
+    {
+        this.bytes = bytes;
+        this.gzipContent = gzipContent;
+    }
+
+    /**
+     * @return the number of bytes sent to the client
+     */
+    public int getLength()
+    {
+        return bytes.length;
+    }
+
+    /**
+     * @return the number of bytes kept in memory, including the variants
+     */
+    public int getSize()
+    {
+        return gzipContent == null ? bytes.length : bytes.length + gzipContent.getSize();
+    }
+
+    /**
+     * @return the gzip encoded content, or null if the content is not compressed
+     */
+    public ResourceContent getGzipContent()
+    {
+        return gzipContent;
+    }
+
+    public void writeTo(OutputStream out) throws IOException
+    {
+        out.write(bytes);
+    }
+
+    public InputStream getInputStream()
+    {
+        return new ByteArrayInputStream(bytes);
+    }
+}
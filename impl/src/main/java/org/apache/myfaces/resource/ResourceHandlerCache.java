@@ -18,13 +18,14 @@
  */
 package org.apache.myfaces.resource;
 
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import jakarta.faces.context.FacesContext;
 
 import org.apache.myfaces.config.webparameters.MyfacesConfig;
-import org.apache.myfaces.util.lang.ConcurrentLRUCache;
+import org.apache.myfaces.util.lang.ShardedLRUCache;
 
 public class ResourceHandlerCache
 {
@@ -32,9 +33,13 @@
 
     private boolean _resourceCacheEnabled;
 
-    private volatile ConcurrentLRUCache<Object, ResourceValue> _resourceCacheMap = null;
-    private volatile ConcurrentLRUCache<Object, ResourceValue> _viewResourceCacheMap = null;
-    private volatile ConcurrentLRUCache<Object, Boolean> _libraryExistsCacheMap = null;
+    private volatile ShardedLRUCache<Object, ResourceValue> _resourceCacheMap = null;
+    private volatile ShardedLRUCache<Object, ResourceValue> _viewResourceCacheMap = null;
+    private volatile ShardedLRUCache<Object, Boolean> _libraryExistsCacheMap = null;
+    private volatile ShardedLRUCache<ResourceKey, ResourceContent> _resourceContentCacheMap = null;
+    private long _resourceContentCacheSize;
+    private int _resourceContentCacheMaxEntrySize;
+    private final AtomicLong _resourceContentSize = new AtomicLong();
 
     public ResourceHandlerCache()
     {
@@ -52,9 +57,19 @@ public ResourceHandlerCache()
         {
             int maxSize = myfacesConfig.getResourceHandlerCacheSize();
 
-            _resourceCacheMap = new ConcurrentLRUCache<>((maxSize * 4 + 3) / 3, maxSize);
-            _viewResourceCacheMap = new ConcurrentLRUCache<>((maxSize * 4 + 3) / 3, maxSize);
-            _libraryExistsCacheMap = new ConcurrentLRUCache<>((maxSize * 4 + 3) / 3, maxSize / 5);
+            _resourceCacheMap = new ShardedLRUCache<>(maxSize);
+            _viewResourceCacheMap = new ShardedLRUCache<>(maxSize);
+            _libraryExistsCacheMap = new ShardedLRUCache<>(Math.max(1, maxSize / 5));
+
+            _resourceContentCacheSize = myfacesConfig.getResourceHandlerContentCacheSize();
+            _resourceContentCacheMaxEntrySize = (int) Math.min(_resourceContentCacheSize,
+                    myfacesConfig.getResourceHandlerContentCacheMaxEntrySize());
+            if (_resourceContentCacheSize > 0 && _resourceContentCacheMaxEntrySize > 0)
+            {
+                // evicted, removed and cleared contents are not counted anymore
+                _resourceContentCacheMap = new ShardedLRUCache<>(maxSize,
+                        (key, content) -> _resourceContentSize.addAndGet(-content.getSize()));
+            }
         }
     }
     
@@ -307,6 +322,77 @@ public void confirmLibraryNotExists(String libraryName)
     }    
 
 
+    public boolean isResourceContentCacheEnabled()
+    {
+        return _resourceContentCacheMap != null;
+    }
+
+    /**
+     * @return the maximum length of a resource content that can be cached, 0 if the cache is disabled
+     */
+    public int getResourceContentCacheMaxEntrySize()
+    {
+        return isResourceContentCacheEnabled() ? _resourceContentCacheMaxEntrySize : 0;
+    }
+
+    /**
+     * @return the counters of the cache of the resources, or null if it is disabled
+     */
+    public ShardedLRUCache.Stats getResourceCacheStats()
+    {
+        return _resourceCacheMap == null ? null : _resourceCacheMap.getStats();
+    }
+
+    /**
+     * @return the counters of the cache of the resource contents, or null if it is disabled
+     */
+    public ShardedLRUCache.Stats getResourceContentCacheStats()
+    {
+        return _resourceContentCacheMap == null ? null : _resourceContentCacheMap.getStats();
+    }
+
+    public ResourceContent getResourceContent(ResourceKey key)
+    {
+        if (!isResourceContentCacheEnabled())
+        {
+            return null;
+        }
+
+        return _resourceContentCacheMap.get(key);
+    }
+
+    /**
+     * Caches the content of a resource, unless it is bigger than the maximum entry size or the total
+     * size of the cached contents, including their compressed variants, would exceed the cache size.
+     */
+    public void putResourceContent(ResourceKey key, ResourceContent content)
+    {
+        if (!isResourceContentCacheEnabled() || content.getLength() > _resourceContentCacheMaxEntrySize)
+        {
+            return;
+        }
+
+        ResourceContent current = _resourceContentCacheMap.get(key);
+        int delta = content.getSize() - (current == null ? 0 : current.getSize());
+        if (_resourceContentSize.addAndGet(delta) > _resourceContentCacheSize)
+        {
+            _resourceContentSize.addAndGet(-delta);
+            if (log.isLoggable(Level.FINE))
+            {
+                log.log(Level.FINE, "Resource content cache is full, not caching " + key.resourceName);
+            }
+            return;
+        }
+
+        ResourceContent previous = _resourceContentCacheMap.put(key, content);
+        if (previous != current)
+        {
+            // replaced concurrently
+            _resourceContentSize.addAndGet((current == null ? 0 : current.getSize())
+                    - (previous == null ? 0 : previous.getSize()));
+        }
+    }
+
     public static class ResourceKey
     {
         private final String resourceName;
@@ -40,6 +40,12 @@ public class ResourceImpl extends Resource implements ContractResource
     protected final static String JAKARTA_FACES_LIBRARY_NAME = "jakarta.faces";
     protected final static String FACES_JS_RESOURCE_NAME = "faces.js";
 
+    /**
+     * Request parameter with the content hash, see {@link MyfacesConfig#RESOURCE_HANDLER_CONTENT_HASH_URLS}.
+     */
+    public final static String CONTENT_HASH_PARAM = "v";
+
+    private final static long IMMUTABLE_MAX_AGE = 31536000L;
 
     private ResourceMeta _resourceMeta;
     private ResourceLoader _resourceLoader;
@@ -84,6 +90,11 @@ public InputStream getInputStream() throws IOException
     {
         if (couldResourceContainValueExpressions())
         {
+            FacesContext facesContext = FacesContext.getCurrentInstance();
+            if (facesContext != null)
+            {
+                return ValueExpressionContentCache.getInstance(facesContext).getInputStream(facesContext, this);
+            }
             return new ValueExpressionFilterInputStream(
                     getResourceLoader().getResourceInputStream(_resourceMeta), getLibraryName(), getResourceName()); 
         }
@@ -93,7 +104,10 @@ public InputStream getInputStream() throws IOException
         }
     }
     
-    private boolean couldResourceContainValueExpressions()
+    /**
+     * @return true if the value expressions of the resource content are evaluated when it is served
+     */
+    public boolean couldResourceContainValueExpressions()
     {
         if (_resourceMeta.couldResourceContainValueExpressions())
         {
@@ -159,6 +173,15 @@ public String getRequestPath()
                 path = path + (useAmp ? '&' : '?') + "con=" + _resourceMeta.getContractName();
                 useAmp = true;
             }
+            if (MyfacesConfig.getCurrentInstance(context).isResourceHandlerContentHashUrls())
+            {
+                String contentHash = getContentHash(context);
+                if (contentHash != null)
+                {
+                    path = path + (useAmp ? '&' : '?') + CONTENT_HASH_PARAM + '=' + contentHash;
+                    useAmp = true;
+                }
+            }
             _requestPath = context.getApplication().getViewHandler().getResourceURL(context, path);
         }
         return _requestPath;
@@ -171,7 +194,7 @@ public Map<String, String> getResponseHeaders()
         
         if (facesContext.getApplication().getResourceHandler().isResourceRequest(facesContext))
         {
-            Map<String, String> headers = new HashMap<>(2, 1f);
+            Map<String, String> headers = new HashMap<>(3, 1f);
             
             long lastModified = getLastModified(facesContext);
             
@@ -199,11 +222,22 @@ else if (_resourceMeta instanceof AliasResourceMetaImpl
                 {
                     headers.put("Cache-Control", "no-cache");
                 }
+                else if (isRequestedWithContentHash(facesContext))
+                {
+                    // the url changes with the content
+                    headers.put("Cache-Control", "max-age=" + IMMUTABLE_MAX_AGE + ", immutable");
+                }
                 else
                 {
                     headers.put("Cache-Control", "max-age=" + (_resourceHandlerSupport.getMaxTimeExpires()/1000));
                 }
             }
+
+            String eTag = getETag(facesContext);
+            if (eTag != null)
+            {
+                headers.put("ETag", eTag);
+            }
             
             return headers;
         }
@@ -240,6 +274,17 @@ public boolean userAgentNeedsUpdate(FacesContext context)
         // This method is called from ResourceHandlerImpl.handleResourceRequest and if
         // returns false send a 304 Not Modified response.
         
+        // If-None-Match takes precedence over If-Modified-Since, see RFC 7232
+        String ifNoneMatch = context.getExternalContext().getRequestHeaderMap().get("If-None-Match");
+        if (ifNoneMatch != null)
+        {
+            String eTag = getETag(context);
+            if (eTag != null)
+            {
+                return !ResourceLoaderUtils.isETagMatch(ifNoneMatch, eTag);
+            }
+        }
+
         String ifModifiedSinceString = context.getExternalContext().getRequestHeaderMap().get("If-Modified-Since");
         
         if (ifModifiedSinceString == null)
@@ -283,7 +328,7 @@ protected ResourceHandlerSupport getResourceHandlerSupport()
         return _resourceHandlerSupport;
     }
     
-    protected ResourceMeta getResourceMeta()
+    public ResourceMeta getResourceMeta()
     {
         return _resourceMeta;
     }
@@ -301,6 +346,81 @@ public String getContractName()
     }
     
     
+    /**
+     * Returns the strong entity tag of the resource, a hash of its content computed once and kept in
+     * the resource meta. As the resource metas are only reused if the resource handler cache is
+     * enabled, null is returned otherwise.
+     * <p>
+     * The content of a resource with value expressions depends on the request, so its hash is the
+     * one of the content served for the request, see {@link ValueExpressionContentCache}, and it is
+     * not kept in the resource meta.
+     * </p>
+     */
+    protected String getETag(FacesContext facesContext)
+    {
+        if (!MyfacesConfig.getCurrentInstance(facesContext).isResourceHandlerCacheEnabled())
+        {
+            return null;
+        }
+
+        if (couldResourceContainValueExpressions())
+        {
+            try
+            {
+                String hash = ValueExpressionContentCache.getInstance(facesContext).getContentHash(facesContext, this);
+                return hash == null ? null : '"' + hash + '"';
+            }
+            catch (IOException e)
+            {
+                return null;
+            }
+        }
+
+        String eTag = _resourceMeta.getETag();
+        if (eTag == null)
+        {
+            try (InputStream in = getInputStream())
+            {
+                eTag = '"' + ResourceLoaderUtils.getContentHash(in) + '"';
+            }
+            catch (IOException e)
+            {
+                return null;
+            }
+            _resourceMeta.setETag(eTag);
+        }
+        return eTag;
+    }
+
+    /**
+     * @return the hash of the resource content, as used in the entity tag, or null if it is not
+     *         available. Resources with value expressions have none, their content depends on the
+     *         request, and evaluating it would ask for the request paths of the resources in the
+     *         expressions, which can be this one.
+     */
+    protected String getContentHash(FacesContext facesContext)
+    {
+        if (couldResourceContainValueExpressions())
+        {
+            return null;
+        }
+        String eTag = getETag(facesContext);
+        return eTag == null ? null : eTag.substring(1, eTag.length() - 1);
+    }
+
+    /**
+     * Checks if the resource was requested with a content hash url that matches its current content.
+     */
+    private boolean isRequestedWithContentHash(FacesContext facesContext)
+    {
+        if (!MyfacesConfig.getCurrentInstance(facesContext).isResourceHandlerContentHashUrls())
+        {
+            return false;
+        }
+        String requestedHash = facesContext.getExternalContext().getRequestParameterMap().get(CONTENT_HASH_PARAM);
+        return requestedHash != null && requestedHash.equals(getContentHash(facesContext));
+    }
+
     protected long getLastModified(FacesContext facesContext)
     {
         if (MyfacesConfig.getCurrentInstance(facesContext).isResourceCacheLastModified())
@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import jakarta.faces.context.ExternalContext;
+
+/**
+ * The files and directories below the root of a ResourceLoader, so the existence of a library or
+ * resource and the available versions are known without probing the ExternalContext or the
+ * ClassLoader. The paths are relative to the root, without leading or trailing slash.
+ *
+ * <p>An index is built once and not modified afterwards.</p>
+ *
+ * @see org.apache.myfaces.config.webparameters.MyfacesConfig#RESOURCE_HANDLER_INDEX_ENABLED
+ */
+public class ResourceIndex
+{
+    private static final Logger log = Logger.getLogger(ResourceIndex.class.getName());
+
+    private static final String MANIFEST = "META-INF/MANIFEST.MF";
+
+    private final Set<String> files = new HashSet<>();
+    private final Map<String, Set<String>> directories = new HashMap<>();
+
+    ResourceIndex()
+    {
+        directories.put("", new HashSet<>());
+    }
+
+    /**
+     * Indexes the paths of the ExternalContext below the given root, like "/resources".
+     */
+    public static ResourceIndex create(ExternalContext externalContext, String root)
+    {
+        ResourceIndex index = new ResourceIndex();
+        String base = root.endsWith("/") ? root : root + '/';
+
+        Deque<String> pending = new ArrayDeque<>();
+        pending.add(base);
+        while (!pending.isEmpty())
+        {
+            Set<String> paths = externalContext.getResourcePaths(pending.poll());
+            if (paths == null)
+            {
+                continue;
+            }
+            for (String path : paths)
+            {
+                if (!path.startsWith(base) || path.length() == base.length())
+                {
+                    continue;
+                }
+                if (path.endsWith("/"))
+                {
+                    index.addDirectory(path.substring(base.length(), path.length() - 1));
+                    pending.add(path);
+                }
+                else
+                {
+                    index.addFile(path.substring(base.length()));
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Indexes the entries of all directories and jars of the class loaders with the given root,
+     * like "META-INF/resources". The jars are also found by their manifest, because the root of a
+     * jar without directory entries is not found by the class loader.
+     *
+     * @return the index, or null if the entries of an url of the class path cannot be listed
+     */
+    public static ResourceIndex create(String root, ClassLoader... classLoaders)
+    {
+        ResourceIndex index = new ResourceIndex();
+        String base = root.endsWith("/") ? root : root + '/';
+        Set<String> visited = new HashSet<>();
+        try
+        {
+            for (ClassLoader classLoader : classLoaders)
+            {
+                if (classLoader == null)
+                {
+                    continue;
+                }
+                for (Enumeration<URL> urls = classLoader.getResources(root); urls.hasMoreElements();)
+                {
+                    URL url = urls.nextElement();
+                    if (!index.addEntries(url, base, visited))
+                    {
+                        logNotIndexed(root, url);
+                        return null;
+                    }
+                }
+                for (Enumeration<URL> urls = classLoader.getResources(MANIFEST); urls.hasMoreElements();)
+                {
+                    URL url = urls.nextElement();
+                    // the directories of the class path were found above
+                    if (!"file".equals(url.getProtocol()) && !index.addEntries(url, base, visited))
+                    {
+                        logNotIndexed(root, url);
+                        return null;
+                    }
+                }
+            }
+        }
+        catch (IOException | UncheckedIOException e)
+        {
+            log.log(Level.FINE, root + " cannot be indexed", e);
+            return null;
+        }
+        return index;
+    }
+
+    private static void logNotIndexed(String root, URL url)
+    {
+        if (log.isLoggable(Level.FINE))
+        {
+            log.fine("Entries of " + url + " cannot be listed, " + root + " is not indexed");
+        }
+    }
+
+    private boolean addEntries(URL url, String base, Set<String> visited) throws IOException
+    {
+        String protocol = url.getProtocol();
+        if ("file".equals(protocol))
+        {
+            if (!visited.add(url.toExternalForm()))
+            {
+                return true;
+            }
+            Path directory;
+            try
+            {
+                directory = Paths.get(url.toURI());
+            }
+            catch (URISyntaxException | IllegalArgumentException e)
+            {
+                return false;
+            }
+            try (Stream<Path> paths = Files.walk(directory))
+            {
+                paths.filter(path -> !path.equals(directory)).forEach(path ->
+                {
+                    String relativePath = directory.relativize(path).toString().replace(File.separatorChar, '/');
+                    if (Files.isDirectory(path))
+                    {
+                        addDirectory(relativePath);
+                    }
+                    else
+                    {
+                        addFile(relativePath);
+                    }
+                });
+            }
+            return true;
+        }
+
+        if ("jar".equals(protocol) || "wsjar".equals(protocol) || "zip".equals(protocol))
+        {
+            URLConnection connection = url.openConnection();
+            if (!(connection instanceof JarURLConnection jarConnection))
+            {
+                return false;
+            }
+            if (!visited.add(jarConnection.getJarFileURL().toExternalForm()))
+            {
+                return true;
+            }
+            // See DIGESTER-29
+            jarConnection.setUseCaches(false);
+            try (JarFile jarFile = jarConnection.getJarFile())
+            {
+                for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();)
+                {
+                    JarEntry entry = entries.nextElement();
+                    String name = entry.getName();
+                    if (!name.startsWith(base) || name.length() == base.length())
+                    {
+                        continue;
+                    }
+                    if (entry.isDirectory())
+                    {
+                        addDirectory(name.substring(base.length(), name.length() - 1));
+                    }
+                    else
+                    {
+                        addFile(name.substring(base.length()));
+                    }
+                }
+            }
+            return true;
+        }
+
+        return false;
+    }
+
+    void addFile(String path)
+    {
+        if (files.add(path))
+        {
+            addToParent(path, false);
+        }
+    }
+
+    void addDirectory(String path)
+    {
+        getOrAddDirectory(path);
+    }
+
+    private Set<String> getOrAddDirectory(String path)
+    {
+        Set<String> children = directories.get(path);
+        if (children == null)
+        {
+            children = new HashSet<>();
+            directories.put(path, children);
+            addToParent(path, true);
+        }
+        return children;
+    }
+
+    private void addToParent(String path, boolean directory)
+    {
+        int slash = path.lastIndexOf('/');
+        String parent = slash < 0 ? "" : path.substring(0, slash);
+        String name = path.substring(slash + 1);
+        getOrAddDirectory(parent).add(directory ? name + '/' : name);
+    }
+
+    /**
+     * @return true if the path is a file or a directory
+     */
+    public boolean contains(String path)
+    {
+        path = normalize(path);
+        return files.contains(path) || directories.containsKey(path);
+    }
+
+    public boolean containsFile(String path)
+    {
+        return files.contains(normalize(path));
+    }
+
+    /**
+     * @return the names of the files and directories, the latter with a trailing slash, in the
+     *         given directory, or null if it is not a directory
+     */
+    public Set<String> getChildren(String directory)
+    {
+        Set<String> children = directories.get(normalize(directory));
+        return children == null ? null : Collections.unmodifiableSet(children);
+    }
+
+    private static String normalize(String path)
+    {
+        int start = 0;
+        int end = path.length();
+        while (start < end && path.charAt(start) == '/')
+        {
+            start++;
+        }
+        while (end > start && path.charAt(end - 1) == '/')
+        {
+            end--;
+        }
+        return path.substring(start, end);
+    }
+}
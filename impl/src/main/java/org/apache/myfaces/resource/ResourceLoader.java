@@ -26,7 +26,7 @@
 import jakarta.faces.context.FacesContext;
 
 import org.apache.myfaces.config.webparameters.MyfacesConfig;
-import org.apache.myfaces.util.lang.ConcurrentLRUCache;
+import org.apache.myfaces.util.lang.ShardedLRUCache;
 
 /**
  * Base class for resource loaders.  Resource loaders can lookup resources 
@@ -39,7 +39,10 @@
     
     private String prefix;
     private boolean resourceCacheEnabled;
-    private ConcurrentLRUCache<Object, Boolean> resourceExistsCache;
+    private ShardedLRUCache<Object, Boolean> resourceExistsCache;
+    private boolean resourceIndexEnabled;
+    private volatile ResourceIndex resourceIndex;
+    private volatile boolean resourceIndexCreated;
     
     public ResourceLoader(String prefix)
     {
@@ -52,10 +55,44 @@ public ResourceLoader(String prefix)
         if (this.resourceCacheEnabled)
         {
             int maxSize = myfacesConfig.getResourceHandlerCacheSize();
-            this.resourceExistsCache = new ConcurrentLRUCache<>(maxSize * 2, maxSize);
+            this.resourceExistsCache = new ShardedLRUCache<>(maxSize);
+            this.resourceIndexEnabled = myfacesConfig.isResourceHandlerIndexEnabled();
         }
     }
 
+    /**
+     * Returns the index of the resources of this loader, created on the first call.
+     *
+     * @return the index, or null if the index is disabled or this loader has none
+     */
+    protected ResourceIndex getResourceIndex()
+    {
+        if (!resourceIndexEnabled)
+        {
+            return null;
+        }
+        if (!resourceIndexCreated)
+        {
+            synchronized (this)
+            {
+                if (!resourceIndexCreated)
+                {
+                    resourceIndex = createResourceIndex();
+                    resourceIndexCreated = true;
+                }
+            }
+        }
+        return resourceIndex;
+    }
+
+    /**
+     * @return the index of the resources of this loader, or null if they cannot be indexed
+     */
+    protected ResourceIndex createResourceIndex()
+    {
+        return null;
+    }
+
     public abstract String getResourceVersion(String path);
 
     /**
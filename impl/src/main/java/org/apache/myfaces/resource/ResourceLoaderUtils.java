@@ -23,11 +23,15 @@
 import java.net.JarURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Locale;
 import org.apache.myfaces.util.lang.StringUtils;
 
@@ -126,4 +130,120 @@ public static boolean isDirectory(String path)
     {
         return path.startsWith("/") && path.endsWith("/");
     }
+
+    /**
+     * Hashes the content of a resource with SHA-256. The result only depends on the content, so it
+     * is the same on all the nodes of a cluster.
+     *
+     * @return the first 128 bits of the hash, encoded in URL safe base64 without padding
+     */
+    public static String getContentHash(InputStream in) throws IOException
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+
+        byte[] buffer = new byte[4096];
+        int length;
+        while ((length = in.read(buffer)) >= 0)
+        {
+            digest.update(buffer, 0, length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest.digest(), 16));
+    }
+
+    /**
+     * @return the strong entity tag of the gzip encoded variant of the resource with the given
+     *         entity tag
+     */
+    public static String getGzipETag(String eTag)
+    {
+        return eTag.substring(0, eTag.length() - 1) + "-gzip\"";
+    }
+
+    /**
+     * Checks if an If-None-Match request header matches the entity tag of a resource or of its
+     * gzip encoded variant, using the weak comparison required for that header.
+     */
+    public static boolean isETagMatch(String ifNoneMatch, String eTag)
+    {
+        String gzipETag = getGzipETag(eTag);
+        for (String candidate : StringUtils.splitShortString(ifNoneMatch, ','))
+        {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/"))
+            {
+                candidate = candidate.substring(2);
+            }
+            if ("*".equals(candidate) || eTag.equals(candidate) || gzipETag.equals(candidate))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses the value of a Range header with a single byte range.
+     *
+     * @param range the value of the Range header
+     * @param length the length of the resource
+     * @return the first and last position of the range, an empty array if the range cannot be
+     *         satisfied, or null if the header must be ignored because it is invalid or has more
+     *         than one range
+     */
+    public static long[] getByteRange(String range, long length)
+    {
+        if (range == null || !range.startsWith("bytes=") || range.indexOf(',') >= 0)
+        {
+            return null;
+        }
+        String spec = range.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0)
+        {
+            return null;
+        }
+        try
+        {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty())
+            {
+                // the suffix of the given length
+                long suffix = Long.parseLong(last);
+                if (suffix < 0)
+                {
+                    return null;
+                }
+                if (suffix == 0 || length == 0)
+                {
+                    return new long[0];
+                }
+                return new long[] { Math.max(0, length - suffix), length - 1 };
+            }
+
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (start < 0 || end < start)
+            {
+                return null;
+            }
+            if (start >= length)
+            {
+                return new long[0];
+            }
+            return new long[] { start, Math.min(end, length - 1) };
+        }
+        catch (NumberFormatException e)
+        {
+            return null;
+        }
+    }
 }
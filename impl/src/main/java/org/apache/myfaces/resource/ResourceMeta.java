@@ -50,4 +50,20 @@ public String getContractName()
     public abstract Long getLastModified();
     
     public abstract void setLastModified(Long lastModified);
+
+    /**
+     * @since 5.0
+     * @return the entity tag computed from the content of the resource, or null if it is not known yet
+     */
+    public String getETag()
+    {
+        return null;
+    }
+
+    /**
+     * @since 5.0
+     */
+    public void setETag(String eTag)
+    {
+    }
 }
@@ -33,6 +33,7 @@ public class ResourceMetaImpl extends ResourceMeta
     private final String _contractName;
     
     private Long lastModified;
+    private volatile String eTag;
     private String resourceIdentifier = null;
 
     public ResourceMetaImpl(String prefix, String libraryName, String libraryVersion,
@@ -162,6 +163,18 @@ public void setLastModified(Long lastModified)
         this.lastModified = lastModified;
     }
 
+    @Override
+    public String getETag()
+    {
+        return eTag;
+    }
+
+    @Override
+    public void setETag(String eTag)
+    {
+        this.eTag = eTag;
+    }
+
     @Override
     public int hashCode()
     {
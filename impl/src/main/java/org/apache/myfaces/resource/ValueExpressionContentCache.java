@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import jakarta.faces.application.Application;
+import jakarta.faces.context.ExternalContext;
+import jakarta.faces.context.FacesContext;
+
+import org.apache.myfaces.application.FacesServletMapping;
+import org.apache.myfaces.application.FacesServletMappingUtils;
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.util.lang.ShardedLRUCache;
+
+/**
+ * Keeps the content of resources after their value expressions were evaluated, see
+ * {@link ValueExpressionFilterInputStream}, so a stylesheet is not parsed on every request.
+ *
+ * <p>The content is cached per resource, locale, contract and Faces servlet mapping, that is
+ * everything the #{resource[...]} expressions depend on. Other expressions of a cached resource
+ * must have the same value for all the requests, like the ones of application scoped beans, as
+ * they are only evaluated again when the entry expires. The entries expire after the facelets
+ * refresh period, and nothing is cached if it is 0, like in the Development project stage by
+ * default.</p>
+ */
+public class ValueExpressionContentCache
+{
+    private static final String APPLICATION_MAP_KEY = ValueExpressionContentCache.class.getName();
+
+    private final ShardedLRUCache<String, CachedContent> _contents;
+    private final long _refreshPeriod;
+    private final int _maxEntrySize;
+
+    public static ValueExpressionContentCache getInstance(FacesContext facesContext)
+    {
+        Map<String, Object> applicationMap = facesContext.getExternalContext().getApplicationMap();
+        ValueExpressionContentCache cache = (ValueExpressionContentCache) applicationMap.get(APPLICATION_MAP_KEY);
+        if (cache == null)
+        {
+            MyfacesConfig config = MyfacesConfig.getCurrentInstance(facesContext);
+            cache = new ValueExpressionContentCache(config.getFaceletsRefreshPeriod(),
+                    config.getResourceHandlerCacheSize(), config.getResourceHandlerContentCacheMaxEntrySize());
+            applicationMap.put(APPLICATION_MAP_KEY, cache);
+        }
+        return cache;
+    }
+
+    /**
+     * @param refreshPeriod the seconds an entry is valid, -1 if it never expires
+     * @param maxSize the maximum number of entries
+     * @param maxEntrySize the maximum number of bytes of an entry
+     */
+    public ValueExpressionContentCache(long refreshPeriod, int maxSize, int maxEntrySize)
+    {
+        _refreshPeriod = refreshPeriod < 0 ? -1 : refreshPeriod * 1000;
+        _maxEntrySize = maxEntrySize;
+        _contents = _refreshPeriod == 0 || maxSize <= 0 || maxEntrySize <= 0
+                ? null
+                : new ShardedLRUCache<>(maxSize);
+    }
+
+    /**
+     * @return the content of the resource with the value expressions evaluated, or null if the
+     *         resource loader has no content
+     */
+    public InputStream getInputStream(FacesContext facesContext, ResourceImpl resource) throws IOException
+    {
+        String key = null;
+        if (_contents != null)
+        {
+            key = getKey(facesContext, resource);
+            CachedContent cached = getCachedContent(key);
+            if (cached != null)
+            {
+                return cached.getContent().getInputStream();
+            }
+        }
+
+        InputStream in = resource.getResourceLoader().getResourceInputStream(resource.getResourceMeta());
+        if (in == null)
+        {
+            return null;
+        }
+        ValueExpressionFilterInputStream filter = new ValueExpressionFilterInputStream(in,
+                resource.getLibraryName(), resource.getResourceName());
+        if (key == null)
+        {
+            return filter;
+        }
+
+        byte[] bytes;
+        try (InputStream evaluated = filter)
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            evaluated.transferTo(out);
+            bytes = out.toByteArray();
+        }
+        ResourceContent content = new ResourceContent(bytes);
+        // a failed expression is reported again on the next request
+        if (bytes.length <= _maxEntrySize && !filter.isEvaluationFailed())
+        {
+            _contents.put(key, new CachedContent(content));
+        }
+        return content.getInputStream();
+    }
+
+    /**
+     * @return the hash of the content of the resource with the value expressions evaluated, as
+     *         {@link ResourceLoaderUtils#getContentHash(InputStream)}, or null if the resource loader
+     *         has no content
+     */
+    public String getContentHash(FacesContext facesContext, ResourceImpl resource) throws IOException
+    {
+        if (_contents != null)
+        {
+            String key = getKey(facesContext, resource);
+            CachedContent cached = getCachedContent(key);
+            if (cached == null)
+            {
+                // evaluates and caches the content
+                InputStream in = getInputStream(facesContext, resource);
+                if (in == null)
+                {
+                    return null;
+                }
+                in.close();
+                cached = getCachedContent(key);
+            }
+            if (cached != null)
+            {
+                return cached.getContentHash();
+            }
+        }
+
+        try (InputStream in = getInputStream(facesContext, resource))
+        {
+            return in == null ? null : ResourceLoaderUtils.getContentHash(in);
+        }
+    }
+
+    private CachedContent getCachedContent(String key)
+    {
+        CachedContent cached = _contents.get(key);
+        return cached == null || cached.isExpired(_refreshPeriod) ? null : cached;
+    }
+
+    /**
+     * The locale prefix and the contract of a #{resource[...]} expression are the ones of the
+     * resource, or else the ones found like in ResourceHandlerImpl. The request path of a resource
+     * starts with the mapping of the Faces servlet, see ResourceImpl.getRequestPath().
+     */
+    private static String getKey(FacesContext facesContext, ResourceImpl resource)
+    {
+        ResourceMeta resourceMeta = resource.getResourceMeta();
+        StringBuilder key = new StringBuilder(resourceMeta.getResourceIdentifier());
+        key.append('|').append(resourceMeta.getContractName()).append('|').append(resource.getContentType());
+
+        FacesServletMapping mapping = FacesServletMappingUtils.getCurrentRequestFacesServletMapping(facesContext);
+        if (mapping.isExactMapping())
+        {
+            mapping = FacesServletMappingUtils.getGenericPrefixOrSuffixMapping(facesContext);
+        }
+        key.append('|').append(mapping == null ? null : mapping.getUrlPattern());
+
+        ExternalContext externalContext = facesContext.getExternalContext();
+        Application application = facesContext.getApplication();
+        boolean resourceRequest = application.getResourceHandler().isResourceRequest(facesContext);
+        if (resourceRequest)
+        {
+            Map<String, String> params = externalContext.getRequestParameterMap();
+            key.append('|').append(params.get("loc")).append('|').append(params.get("con"));
+        }
+        if (application.getMessageBundle() != null)
+        {
+            key.append('|').append(resourceRequest || facesContext.getViewRoot() == null
+                    ? application.getViewHandler().calculateLocale(facesContext)
+                    : facesContext.getViewRoot().getLocale());
+        }
+        return key.toString();
+    }
+
+    private static class CachedContent
+    {
+        private final ResourceContent content;
+        private final long created;
+        private volatile String contentHash;
+
+        CachedContent(ResourceContent content)
+        {
+            this.content = content;
+            this.created = System.currentTimeMillis();
+        }
+
+        ResourceContent getContent()
+        {
+            return content;
+        }
+
+        String getContentHash() throws IOException
+        {
+            String hash = contentHash;
+            if (hash == null)
+            {
+                hash = ResourceLoaderUtils.getContentHash(content.getInputStream());
+                contentHash = hash;
+            }
+            return hash;
+        }
+
+        boolean isExpired(long refreshPeriod)
+        {
+            return refreshPeriod >= 0 && System.currentTimeMillis() - created >= refreshPeriod;
+        }
+    }
+}
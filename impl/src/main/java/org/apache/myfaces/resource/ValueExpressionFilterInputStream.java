@@ -42,6 +42,7 @@ public class ValueExpressionFilterInputStream extends InputStream
     private final String libraryName;
     private final String resourceName;
     private final String contractName;
+    private boolean evaluationFailed;
     
     public ValueExpressionFilterInputStream(InputStream in, String libraryName, String resourceName)
     {
@@ -138,6 +139,7 @@ public int read() throws IOException
                     }
                     catch(ELException e)
                     {
+                        evaluationFailed = true;
                         ExceptionQueuedEventContext equecontext = new ExceptionQueuedEventContext(
                                 context, e, null);
                         context.getApplication().publishEvent (context, ExceptionQueuedEvent.class, equecontext);
@@ -190,6 +192,14 @@ public int read() throws IOException
         }
     }
     
+    /**
+     * @return true if an expression of the content read so far could not be evaluated
+     */
+    public boolean isEvaluationFailed()
+    {
+        return evaluationFailed;
+    }
+
     private String convertToExpression(List<Integer> expressionList)
     {
         if (expressionList == null)
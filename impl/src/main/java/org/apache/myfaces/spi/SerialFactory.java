@@ -26,19 +26,20 @@
 import java.io.OutputStream;
 import org.apache.myfaces.util.lang.FastByteArrayInputStream;
 
+/**
+ * Serializes the view state returned by the state manager. The default implementation
+ * uses java serialization through {@link #getObjectOutputStream(OutputStream)} and
+ * {@link #getObjectInputStream(InputStream)}. Implementations that use another encoding
+ * override {@link #writeObject(Object, OutputStream)} and {@link #readObject(InputStream)}.
+ */
 public abstract class SerialFactory
 {
     public byte[] toByteArray(Object object) throws IOException
     {
         try (ByteArrayOutputStream baos = new ByteArrayOutputStream())
         {
-            try (ObjectOutputStream oos = getObjectOutputStream(baos))
-            {
-                oos.writeObject(object);
-                oos.flush();
-
-                return baos.toByteArray();
-            }
+            writeObject(object, baos);
+            return baos.toByteArray();
         }
     }
 
@@ -46,13 +47,38 @@ public Object toObject(byte[] bytes) throws IOException, ClassNotFoundException
     {
         try (InputStream bias = new FastByteArrayInputStream(bytes))
         {
-            try (ObjectInputStream ois = getObjectInputStream(bias))
-            {
-                return ois.readObject();
-            }
+            return readObject(bias);
         }
     }
 
+    /**
+     * Write the object to the stream. The stream is flushed but not closed.
+     * 
+     * @param object
+     * @param outputStream
+     * @throws IOException 
+     */
+    public void writeObject(Object object, OutputStream outputStream) throws IOException
+    {
+        ObjectOutputStream oos = getObjectOutputStream(outputStream);
+        oos.writeObject(object);
+        oos.flush();
+    }
+
+    /**
+     * Read an object written by {@link #writeObject(Object, OutputStream)}.
+     * 
+     * @param inputStream
+     * @return
+     * @throws IOException
+     * @throws ClassNotFoundException 
+     */
+    public Object readObject(InputStream inputStream) throws IOException, ClassNotFoundException
+    {
+        ObjectInputStream ois = getObjectInputStream(inputStream);
+        return ois.readObject();
+    }
+
     protected abstract ObjectOutputStream getObjectOutputStream(OutputStream outputStream) throws IOException;
 
     protected abstract ObjectInputStream getObjectInputStream(InputStream inputStream) throws IOException;
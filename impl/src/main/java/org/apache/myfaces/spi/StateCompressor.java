@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.spi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compresses the client side view state when org.apache.myfaces.COMPRESS_STATE_IN_CLIENT is enabled.
+ * The implementation is selected with org.apache.myfaces.STATE_COMPRESSOR, see
+ * {@link org.apache.myfaces.application.viewstate.StateUtils#STATE_COMPRESSOR}. Implementations must be
+ * thread safe, one instance is used by all requests.
+ */
+public abstract class StateCompressor
+{
+    /**
+     * @param outputStream the stream the compressed bytes are written to
+     * @return a stream that compresses into outputStream. Closing it must finish the compressed data and
+     *     close outputStream.
+     * @throws IOException 
+     */
+    public abstract OutputStream compress(OutputStream outputStream) throws IOException;
+
+    /**
+     * @param inputStream the compressed bytes
+     * @return a stream that reads the uncompressed bytes
+     * @throws IOException 
+     */
+    public abstract InputStream decompress(InputStream inputStream) throws IOException;
+}
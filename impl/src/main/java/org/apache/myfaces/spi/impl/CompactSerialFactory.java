@@ -0,0 +1,629 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.spi.impl;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.myfaces.util.lang.ClassUtils;
+import org.apache.myfaces.util.lang.FastByteArrayOutputStream;
+
+/**
+ * SerialFactory that writes the types the state saving produces most (Object[], String, boxed
+ * primitives, enums like the PropertyKeys of the components, ArrayList, HashMap) with a compact
+ * tagged binary encoding instead of java serialization. Repeated strings, enum and class names
+ * are written once per stream and referenced by index later. Any other object (for example the
+ * attached state wrappers of converters and validators) falls back to java serialization, using
+ * a single ObjectOutputStream per serialized view.
+ *
+ * <p>The stream layout is: format byte, length of the compact section, compact section, and
+ * the java serialization section (only if some object needed it). Objects in the java section
+ * are read back in the same order they were written.</p>
+ *
+ * <p>Shared references and cycles are preserved for arrays, lists and maps of the compact
+ * section. A reference between an object of the compact section and one of the java section
+ * is not preserved, the object is written twice.</p>
+ *
+ * <p>Enable it with the <code>org.apache.myfaces.SERIAL_FACTORY</code> web config param.</p>
+ */
+public class CompactSerialFactory extends DefaultSerialFactory
+{
+    static final int FORMAT = 0x4D;
+
+    static final int NULL = 0;
+    static final int TRUE = 1;
+    static final int FALSE = 2;
+    static final int INTEGER = 3;
+    static final int LONG = 4;
+    static final int SHORT = 5;
+    static final int BYTE = 6;
+    static final int CHARACTER = 7;
+    static final int FLOAT = 8;
+    static final int DOUBLE = 9;
+    static final int STRING = 10;
+    static final int STRING_REF = 11;
+    static final int OBJECT_ARRAY = 12;
+    static final int ARRAY_LIST = 13;
+    static final int HASH_MAP = 14;
+    static final int LINKED_HASH_MAP = 15;
+    static final int ENUM = 16;
+    static final int CLASS = 17;
+    static final int REFERENCE = 18;
+    static final int SERIALIZABLE = 19;
+
+    @Override
+    public void writeObject(Object object, OutputStream outputStream) throws IOException
+    {
+        Writer writer = new Writer();
+        writer.writeObject(object);
+        writer.writeTo(outputStream);
+        outputStream.flush();
+    }
+
+    @Override
+    public Object readObject(InputStream inputStream) throws IOException, ClassNotFoundException
+    {
+        int format = inputStream.read();
+        if (format != FORMAT)
+        {
+            throw new StreamCorruptedException("Not a compact serialized stream, format " + format);
+        }
+        int length = readVarInt(inputStream);
+        if (length < 0)
+        {
+            throw new StreamCorruptedException("Malformed length " + length);
+        }
+        byte[] bytes = inputStream.readNBytes(length);
+        if (bytes.length != length)
+        {
+            throw new EOFException();
+        }
+        return new Reader(bytes, inputStream).readObject();
+    }
+
+    private static int readVarInt(InputStream in) throws IOException
+    {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7)
+        {
+            int b = in.read();
+            if (b < 0)
+            {
+                throw new EOFException();
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed length");
+    }
+
+    private class Writer
+    {
+        private byte[] buf = new byte[1024];
+        private int size = 0;
+
+        private Map<String, Integer> strings;
+        private IdentityHashMap<Object, Integer> handles;
+        private int nextHandle = 0;
+
+        private FastByteArrayOutputStream javaBytes;
+        private ObjectOutputStream javaOut;
+
+        void writeObject(Object object) throws IOException
+        {
+            if (object == null)
+            {
+                write(NULL);
+                return;
+            }
+
+            Class<?> type = object.getClass();
+            if (type == String.class)
+            {
+                writeString((String) object);
+            }
+            else if (type == Object[].class)
+            {
+                if (writeHandle(object))
+                {
+                    Object[] array = (Object[]) object;
+                    write(OBJECT_ARRAY);
+                    writeVarInt(array.length);
+                    for (Object element : array)
+                    {
+                        writeObject(element);
+                    }
+                }
+            }
+            else if (type == Integer.class)
+            {
+                write(INTEGER);
+                writeVarLong(zigZag((Integer) object));
+            }
+            else if (type == Boolean.class)
+            {
+                write((Boolean) object ? TRUE : FALSE);
+            }
+            else if (object instanceof Enum<?> e)
+            {
+                write(ENUM);
+                writeString(e.getDeclaringClass().getName());
+                writeString(e.name());
+            }
+            else if (type == Long.class)
+            {
+                write(LONG);
+                writeVarLong(zigZag((Long) object));
+            }
+            else if (type == ArrayList.class)
+            {
+                if (writeHandle(object))
+                {
+                    List<?> list = (List<?>) object;
+                    write(ARRAY_LIST);
+                    writeVarInt(list.size());
+                    for (int i = 0, size = list.size(); i < size; i++)
+                    {
+                        writeObject(list.get(i));
+                    }
+                }
+            }
+            else if (type == HashMap.class || type == LinkedHashMap.class)
+            {
+                if (writeHandle(object))
+                {
+                    Map<?, ?> map = (Map<?, ?>) object;
+                    write(type == HashMap.class ? HASH_MAP : LINKED_HASH_MAP);
+                    writeVarInt(map.size());
+                    for (Map.Entry<?, ?> entry : map.entrySet())
+                    {
+                        writeObject(entry.getKey());
+                        writeObject(entry.getValue());
+                    }
+                }
+            }
+            else if (type == Class.class)
+            {
+                write(CLASS);
+                writeString(((Class<?>) object).getName());
+            }
+            else if (type == Short.class)
+            {
+                write(SHORT);
+                writeVarLong(zigZag((Short) object));
+            }
+            else if (type == Byte.class)
+            {
+                write(BYTE);
+                write((Byte) object);
+            }
+            else if (type == Character.class)
+            {
+                write(CHARACTER);
+                writeVarInt((Character) object);
+            }
+            else if (type == Float.class)
+            {
+                write(FLOAT);
+                writeFixed(Float.floatToIntBits((Float) object), 4);
+            }
+            else if (type == Double.class)
+            {
+                write(DOUBLE);
+                writeFixed(Double.doubleToLongBits((Double) object), 8);
+            }
+            else
+            {
+                write(SERIALIZABLE);
+                if (javaOut == null)
+                {
+                    javaBytes = new FastByteArrayOutputStream(1024);
+                    javaOut = getObjectOutputStream(javaBytes);
+                }
+                javaOut.writeObject(object);
+            }
+        }
+
+        /**
+         * @return true if the object was not written before and must be written now
+         */
+        private boolean writeHandle(Object object)
+        {
+            if (handles == null)
+            {
+                handles = new IdentityHashMap<>();
+            }
+            Integer handle = handles.putIfAbsent(object, nextHandle);
+            if (handle != null)
+            {
+                write(REFERENCE);
+                writeVarInt(handle);
+                return false;
+            }
+            nextHandle++;
+            return true;
+        }
+
+        private void writeString(String value)
+        {
+            if (strings == null)
+            {
+                strings = new HashMap<>();
+            }
+            Integer index = strings.putIfAbsent(value, strings.size());
+            if (index != null)
+            {
+                write(STRING_REF);
+                writeVarInt(index);
+                return;
+            }
+
+            int length = value.length();
+            write(STRING);
+            writeVarInt(length);
+            ensureCapacity(length * 3);
+            for (int i = 0; i < length; i++)
+            {
+                char c = value.charAt(i);
+                if (c < 0x80)
+                {
+                    buf[size++] = (byte) c;
+                }
+                else
+                {
+                    writeVarInt(c);
+                }
+            }
+        }
+
+        private void writeVarInt(int value)
+        {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0)
+            {
+                buf[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[size++] = (byte) value;
+        }
+
+        private void writeVarLong(long value)
+        {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0)
+            {
+                buf[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[size++] = (byte) value;
+        }
+
+        private void writeFixed(long value, int bytes)
+        {
+            ensureCapacity(bytes);
+            for (int i = 0; i < bytes; i++)
+            {
+                buf[size++] = (byte) (value >>> (i * 8));
+            }
+        }
+
+        private void write(int b)
+        {
+            ensureCapacity(1);
+            buf[size++] = (byte) b;
+        }
+
+        private void ensureCapacity(int bytes)
+        {
+            if (size + bytes > buf.length)
+            {
+                byte[] old = buf;
+                buf = new byte[Math.max(size + bytes, buf.length * 2)];
+                System.arraycopy(old, 0, buf, 0, size);
+            }
+        }
+
+        void writeTo(OutputStream outputStream) throws IOException
+        {
+            outputStream.write(FORMAT);
+            int length = size;
+            while ((length & ~0x7F) != 0)
+            {
+                outputStream.write((length & 0x7F) | 0x80);
+                length >>>= 7;
+            }
+            outputStream.write(length);
+            outputStream.write(buf, 0, size);
+            if (javaOut != null)
+            {
+                javaOut.flush();
+                outputStream.write(javaBytes.getByteArray(), 0, javaBytes.getSize());
+            }
+        }
+    }
+
+    private class Reader
+    {
+        private final byte[] buf;
+        private int pos = 0;
+        private final InputStream javaSection;
+
+        private List<String> strings;
+        private List<Object> handles;
+        private Map<String, Class<?>> classes;
+
+        private ObjectInputStream javaIn;
+
+        Reader(byte[] buf, InputStream javaSection)
+        {
+            this.buf = buf;
+            this.javaSection = javaSection;
+        }
+
+        Object readObject() throws IOException, ClassNotFoundException
+        {
+            int tag = read();
+            switch (tag)
+            {
+                case NULL:
+                    return null;
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case INTEGER:
+                    return Integer.valueOf((int) unZigZag(readVarLong()));
+                case LONG:
+                    return Long.valueOf(unZigZag(readVarLong()));
+                case SHORT:
+                    return Short.valueOf((short) unZigZag(readVarLong()));
+                case BYTE:
+                    return Byte.valueOf((byte) read());
+                case CHARACTER:
+                    return Character.valueOf((char) readVarInt());
+                case FLOAT:
+                    return Float.valueOf(Float.intBitsToFloat((int) readFixed(4)));
+                case DOUBLE:
+                    return Double.valueOf(Double.longBitsToDouble(readFixed(8)));
+                case STRING:
+                case STRING_REF:
+                    return readString(tag);
+                case OBJECT_ARRAY:
+                {
+                    Object[] array = new Object[readLength()];
+                    addHandle(array);
+                    for (int i = 0; i < array.length; i++)
+                    {
+                        array[i] = readObject();
+                    }
+                    return array;
+                }
+                case ARRAY_LIST:
+                {
+                    int length = readLength();
+                    ArrayList<Object> list = new ArrayList<>(length);
+                    addHandle(list);
+                    for (int i = 0; i < length; i++)
+                    {
+                        list.add(readObject());
+                    }
+                    return list;
+                }
+                case HASH_MAP:
+                case LINKED_HASH_MAP:
+                {
+                    int length = readLength();
+                    int capacity = (int) (length / 0.75f) + 1;
+                    Map<Object, Object> map = tag == HASH_MAP
+                            ? new HashMap<>(capacity) : new LinkedHashMap<>(capacity);
+                    addHandle(map);
+                    for (int i = 0; i < length; i++)
+                    {
+                        Object key = readObject();
+                        map.put(key, readObject());
+                    }
+                    return map;
+                }
+                case ENUM:
+                {
+                    Class<?> enumClass = readClass();
+                    String name = readString(read());
+                    if (!enumClass.isEnum())
+                    {
+                        throw new InvalidObjectException("Not an enum " + enumClass.getName() + " at " + pos);
+                    }
+                    try
+                    {
+                        return Enum.valueOf(enumClass.asSubclass(Enum.class), name);
+                    }
+                    catch (IllegalArgumentException e)
+                    {
+                        InvalidObjectException ioe = new InvalidObjectException("No enum constant "
+                                + enumClass.getName() + "." + name + " at " + pos);
+                        ioe.initCause(e);
+                        throw ioe;
+                    }
+                }
+                case CLASS:
+                    return readClass();
+                case REFERENCE:
+                    return get(handles, readVarInt());
+                case SERIALIZABLE:
+                    if (javaIn == null)
+                    {
+                        javaIn = getObjectInputStream(javaSection);
+                    }
+                    return javaIn.readObject();
+                default:
+                    throw new StreamCorruptedException("Unknown tag " + tag + " at " + (pos - 1));
+            }
+        }
+
+        private void addHandle(Object object)
+        {
+            if (handles == null)
+            {
+                handles = new ArrayList<>();
+            }
+            handles.add(object);
+        }
+
+        private Class<?> readClass() throws IOException, ClassNotFoundException
+        {
+            String name = readString(read());
+            if (classes == null)
+            {
+                classes = new HashMap<>();
+            }
+            Class<?> clazz = classes.get(name);
+            if (clazz == null)
+            {
+                clazz = ClassUtils.classForName(name);
+                classes.put(name, clazz);
+            }
+            return clazz;
+        }
+
+        private String readString(int tag) throws IOException
+        {
+            if (strings == null)
+            {
+                strings = new ArrayList<>();
+            }
+            if (tag == STRING_REF)
+            {
+                return get(strings, readVarInt());
+            }
+            if (tag != STRING)
+            {
+                throw new StreamCorruptedException("Expected string at " + (pos - 1));
+            }
+
+            int length = readLength();
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++)
+            {
+                if (pos >= buf.length)
+                {
+                    throw new EOFException();
+                }
+                byte b = buf[pos];
+                if (b >= 0)
+                {
+                    chars[i] = (char) b;
+                    pos++;
+                }
+                else
+                {
+                    chars[i] = (char) readVarInt();
+                }
+            }
+            String value = new String(chars);
+            strings.add(value);
+            return value;
+        }
+
+        private int readVarInt() throws IOException
+        {
+            return (int) readVarLong();
+        }
+
+        /**
+         * Reads the length of an array, a collection or a string, each element takes at least one
+         * byte, so a length beyond the remaining bytes is corrupted and is never allocated.
+         */
+        private int readLength() throws IOException
+        {
+            int length = readVarInt();
+            if (length < 0 || length > buf.length - pos)
+            {
+                throw new StreamCorruptedException("Invalid length " + length + " at " + pos);
+            }
+            return length;
+        }
+
+        private <T> T get(List<T> list, int index) throws IOException
+        {
+            if (list == null || index < 0 || index >= list.size())
+            {
+                throw new StreamCorruptedException("Invalid reference " + index + " at " + pos);
+            }
+            return list.get(index);
+        }
+
+        private long readVarLong() throws IOException
+        {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7)
+            {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                {
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException("Malformed number at " + pos);
+        }
+
+        private long readFixed(int bytes) throws IOException
+        {
+            long value = 0;
+            for (int i = 0; i < bytes; i++)
+            {
+                value |= (long) read() << (i * 8);
+            }
+            return value;
+        }
+
+        private int read() throws IOException
+        {
+            if (pos >= buf.length)
+            {
+                throw new EOFException();
+            }
+            return buf[pos++] & 0xFF;
+        }
+    }
+
+    private static long zigZag(long value)
+    {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value)
+    {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
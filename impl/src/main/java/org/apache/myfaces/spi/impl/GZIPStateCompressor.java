@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.spi.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.myfaces.spi.StateCompressor;
+
+/**
+ * GZIP, the default. Same format as {@link org.apache.myfaces.application.viewstate.StateUtils#compress(byte[])}.
+ */
+public class GZIPStateCompressor extends StateCompressor
+{
+    @Override
+    public OutputStream compress(OutputStream outputStream) throws IOException
+    {
+        return new GZIPOutputStream(outputStream, 1024);
+    }
+
+    @Override
+    public InputStream decompress(InputStream inputStream) throws IOException
+    {
+        return new GZIPInputStream(inputStream, 1024);
+    }
+}
@@ -0,0 +1,405 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.util.lang;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * A bounded cache with an approximate LRU eviction, replacing {@link ConcurrentLRUCache}.
+ * <p>
+ * The entries are split into shards by the hash of their key, each with its own
+ * ConcurrentHashMap and a CLOCK queue: a get only marks the entry as referenced, without
+ * locking, and a put locks its shard only. When a shard is full, the entries are taken from
+ * the head of its queue, a referenced entry gets a second chance at the tail, the first one
+ * that was not referenced since is evicted. So there is no global lock and no scan of the
+ * whole cache, the cost of an eviction is amortized constant.</p>
+ * <p>
+ * The size limit is kept per shard, so the cache can evict an entry before the total size
+ * reaches the maximum size if the keys are unevenly distributed.</p>
+ */
+public class ShardedLRUCache<K, V>
+{
+    private static final int MIN_SHARD_SIZE = 16;
+    private static final int MAX_SHARDS = 64;
+
+    private final Shard<K, V>[] shards;
+    private final int shardMask;
+    private final int maxSize;
+    private final RemovalListener<K, V> removalListener;
+    private final Stats stats = new Stats(this);
+
+    public ShardedLRUCache(int maxSize)
+    {
+        this(maxSize, null);
+    }
+
+    /**
+     * @param maxSize the maximum number of entries
+     * @param removalListener notified of each entry that is evicted, removed or cleared, while the
+     *        shard is locked, or null. It is not notified of a value replaced by a put.
+     */
+    @SuppressWarnings("unchecked")
+    public ShardedLRUCache(int maxSize, RemovalListener<K, V> removalListener)
+    {
+        if (maxSize < 1)
+        {
+            throw new IllegalArgumentException("maxSize must be > 0");
+        }
+        int shardCount = 1;
+        int maxShards = Math.min(MAX_SHARDS, Runtime.getRuntime().availableProcessors() * 2);
+        while (shardCount < maxShards && maxSize / (shardCount * 2) >= MIN_SHARD_SIZE)
+        {
+            shardCount *= 2;
+        }
+
+        this.maxSize = maxSize;
+        this.removalListener = removalListener;
+        this.shards = new Shard[shardCount];
+        this.shardMask = shardCount - 1;
+        for (int i = 0; i < shardCount; i++)
+        {
+            // the first shards take the remainder
+            shards[i] = new Shard<>(maxSize / shardCount + (i < maxSize % shardCount ? 1 : 0));
+        }
+    }
+
+    private Shard<K, V> getShard(Object key)
+    {
+        int h = key.hashCode();
+        // spread the higher bits, the lower ones select the bin of the ConcurrentHashMap
+        h ^= (h >>> 16);
+        h ^= (h >>> 7);
+        return shards[h & shardMask];
+    }
+
+    public V get(K key)
+    {
+        Node<K, V> node = getShard(key).map.get(key);
+        if (node == null)
+        {
+            stats.misses.increment();
+            return null;
+        }
+        stats.hits.increment();
+        // avoid writing the shared entry if it is already marked
+        if (!node.referenced)
+        {
+            node.referenced = true;
+        }
+        return node.value;
+    }
+
+    /**
+     * @return true if the key is cached, without marking it as used
+     */
+    public boolean containsKey(K key)
+    {
+        return getShard(key).map.containsKey(key);
+    }
+
+    public V put(K key, V value)
+    {
+        if (value == null)
+        {
+            return null;
+        }
+        stats.puts.increment();
+        Shard<K, V> shard = getShard(key);
+        shard.lock.lock();
+        try
+        {
+            Node<K, V> node = shard.map.get(key);
+            if (node != null)
+            {
+                V previous = node.value;
+                node.value = value;
+                node.referenced = true;
+                return previous;
+            }
+
+            // make room first, so the new entry is not the one evicted
+            while (shard.map.size() >= shard.maxSize && evictOne(shard))
+            {
+                // evicted
+            }
+            node = new Node<>(key, value);
+            shard.map.put(key, node);
+            shard.queue.addLast(node);
+            // removed entries stay in the queue until they are reached, drop them in bulk
+            if (shard.queue.size() > 2 * shard.maxSize)
+            {
+                shard.queue.removeIf(queued -> shard.map.get(queued.key) != queued);
+            }
+            return null;
+        }
+        finally
+        {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Evicts the first entry of the queue that is not referenced, must be called with the lock
+     * of the shard.
+     *
+     * @return false if the queue is empty
+     */
+    private boolean evictOne(Shard<K, V> shard)
+    {
+        Node<K, V> node;
+        while ((node = shard.queue.pollFirst()) != null)
+        {
+            if (shard.map.get(node.key) != node)
+            {
+                // removed
+                continue;
+            }
+            if (node.referenced)
+            {
+                node.referenced = false;
+                shard.queue.addLast(node);
+                continue;
+            }
+            shard.map.remove(node.key, node);
+            stats.evictions.increment();
+            if (removalListener != null)
+            {
+                removalListener.removedEntry(node.key, node.value);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public V remove(K key)
+    {
+        Shard<K, V> shard = getShard(key);
+        shard.lock.lock();
+        try
+        {
+            // the node stays in the queue until it is reached
+            Node<K, V> node = shard.map.remove(key);
+            if (node == null)
+            {
+                return null;
+            }
+            if (removalListener != null)
+            {
+                removalListener.removedEntry(node.key, node.value);
+            }
+            return node.value;
+        }
+        finally
+        {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the entry only if the key is still mapped to the value, like
+     * {@link java.util.Map#remove(Object, Object)}.
+     *
+     * @return true if the entry was removed
+     */
+    public boolean remove(K key, V value)
+    {
+        Shard<K, V> shard = getShard(key);
+        shard.lock.lock();
+        try
+        {
+            Node<K, V> node = shard.map.get(key);
+            if (node == null || !node.value.equals(value))
+            {
+                return false;
+            }
+            // the node stays in the queue until it is reached
+            shard.map.remove(key, node);
+            if (removalListener != null)
+            {
+                removalListener.removedEntry(node.key, node.value);
+            }
+            return true;
+        }
+        finally
+        {
+            shard.lock.unlock();
+        }
+    }
+
+    public int size()
+    {
+        int size = 0;
+        for (Shard<K, V> shard : shards)
+        {
+            size += shard.map.size();
+        }
+        return size;
+    }
+
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * Performs the action for each entry, without marking them as used.
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action)
+    {
+        for (Shard<K, V> shard : shards)
+        {
+            for (Node<K, V> node : shard.map.values())
+            {
+                action.accept(node.key, node.value);
+            }
+        }
+    }
+
+    public void clear()
+    {
+        for (Shard<K, V> shard : shards)
+        {
+            shard.lock.lock();
+            try
+            {
+                if (removalListener != null)
+                {
+                    for (Node<K, V> node : shard.map.values())
+                    {
+                        removalListener.removedEntry(node.key, node.value);
+                    }
+                }
+                shard.map.clear();
+                shard.queue.clear();
+            }
+            finally
+            {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    public Stats getStats()
+    {
+        return stats;
+    }
+
+    /**
+     * The counters of a cache, since it was created.
+     */
+    public static class Stats
+    {
+        private final ShardedLRUCache<?, ?> cache;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder puts = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+
+        private Stats(ShardedLRUCache<?, ?> cache)
+        {
+            this.cache = cache;
+        }
+
+        public long getCumulativeHits()
+        {
+            return hits.sum();
+        }
+
+        public long getCumulativeMisses()
+        {
+            return misses.sum();
+        }
+
+        public long getCumulativeLookups()
+        {
+            return getCumulativeHits() + getCumulativeMisses();
+        }
+
+        public long getCumulativePuts()
+        {
+            return puts.sum();
+        }
+
+        public long getCumulativeEvictions()
+        {
+            return evictions.sum();
+        }
+
+        public int getCurrentSize()
+        {
+            return cache.size();
+        }
+
+        /**
+         * @return the hits divided by the lookups, or 0 if there was no lookup
+         */
+        public double getHitRatio()
+        {
+            long lookups = getCumulativeLookups();
+            return lookups == 0 ? 0 : (double) getCumulativeHits() / lookups;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "hits=" + getCumulativeHits() + ", misses=" + getCumulativeMisses() + ", puts="
+                    + getCumulativePuts() + ", evictions=" + getCumulativeEvictions() + ", size=" + getCurrentSize();
+        }
+    }
+
+    /**
+     * Notified when an entry leaves the cache.
+     */
+    public interface RemovalListener<K, V>
+    {
+        void removedEntry(K key, V value);
+    }
+
+    private static class Shard<K, V>
+    {
+        private final ConcurrentHashMap<K, Node<K, V>> map;
+        private final ArrayDeque<Node<K, V>> queue;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int maxSize;
+
+        Shard(int maxSize)
+        {
+            this.maxSize = Math.max(1, maxSize);
+            this.map = new ConcurrentHashMap<>(Math.min(this.maxSize, 256));
+            this.queue = new ArrayDeque<>(Math.min(this.maxSize, 256));
+        }
+    }
+
+    private static class Node<K, V>
+    {
+        private final K key;
+        private volatile V value;
+        private volatile boolean referenced;
+
+        Node(K key, V value)
+        {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import jakarta.faces.application.ResourceHandler;
+import jakarta.faces.application.ViewHandler;
+import jakarta.faces.application.ViewResource;
+import jakarta.faces.context.ExternalContext;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.view.ViewDeclarationLanguage;
+import jakarta.servlet.ServletContext;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.context.ExceptionHandlerImpl;
+import org.apache.myfaces.context.servlet.StartupFacesContextImpl;
+import org.apache.myfaces.context.servlet.StartupServletExternalContextImpl;
+import org.apache.myfaces.resource.ExternalContextResourceLoaderIterator;
+import org.apache.myfaces.util.WebConfigParamUtils;
+import org.apache.myfaces.util.lang.ClassUtils;
+import org.apache.myfaces.util.lang.StringUtils;
+
+/**
+ * Compiles all the facelets of the application in parallel at startup, so the first requests
+ * after a deployment do not wait for the compilation of the views they use.
+ *
+ * <p>The views, templates and includes are found with {@link ResourceHandler#getViewResources},
+ * the composite components in the resources directory of the web application. They are compiled
+ * into the FaceletCache of the facelets ViewDeclarationLanguage by a {@link ForkJoinPool}. A facelet
+ * that cannot be compiled is logged and compiled again when it is first used, as usual.</p>
+ *
+ * @since 5.0
+ */
+public final class FaceletsPrecompiler
+{
+    private static final Logger log = Logger.getLogger(FaceletsPrecompiler.class.getName());
+
+    private enum Kind
+    {
+        VIEW, FACELET, COMPOSITE_COMPONENT
+    }
+
+    private interface Adder
+    {
+        void add(String path, URL url, Kind kind);
+    }
+
+    /**
+     * Compiles the facelets if {@link MyfacesConfig#FACELETS_PRECOMPILE} is enabled.
+     */
+    public static void initialize(FacesContext facesContext)
+    {
+        MyfacesConfig config = MyfacesConfig.getCurrentInstance(facesContext);
+        if (!config.isFaceletsPrecompile())
+        {
+            return;
+        }
+        if (config.getFaceletsRefreshPeriod() == 0)
+        {
+            log.info(MyfacesConfig.FACELETS_PRECOMPILE + " is ignored because "
+                    + ViewHandler.FACELETS_REFRESH_PERIOD_PARAM_NAME + " is 0, the facelets are not cached.");
+            return;
+        }
+        if (!(facesContext.getExternalContext().getContext() instanceof ServletContext))
+        {
+            return;
+        }
+
+        precompile(facesContext, (ServletContext) facesContext.getExternalContext().getContext());
+    }
+
+    private FaceletsPrecompiler()
+    {
+    }
+
+    private static void precompile(FacesContext facesContext, ServletContext servletContext)
+    {
+        long start = System.nanoTime();
+
+        List<Compilation> compilations = findFacelets(facesContext, servletContext);
+        if (compilations.isEmpty())
+        {
+            return;
+        }
+
+        int parallelism = Math.min(compilations.size(), Runtime.getRuntime().availableProcessors());
+        ClassLoader classLoader = ClassUtils.getContextClassLoader();
+        ForkJoinPool pool = new ForkJoinPool(parallelism, p ->
+        {
+            // the factories are registered by class loader
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setContextClassLoader(classLoader);
+            thread.setName("MyFaces facelets precompile-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+
+        int compiled = 0;
+        try
+        {
+            for (Future<Boolean> result : pool.invokeAll(compilations))
+            {
+                try
+                {
+                    if (result.get())
+                    {
+                        compiled++;
+                    }
+                }
+                catch (ExecutionException e)
+                {
+                    log.log(Level.WARNING, "Error precompiling facelets", e.getCause());
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+
+        log.info("Precompiled " + compiled + " of " + compilations.size() + " facelets with " + parallelism
+                + " threads in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+    }
+
+    /**
+     * Resolves the urls of all views, templates and composite components in the calling thread,
+     * which owns the startup FacesContext.
+     */
+    private static List<Compilation> findFacelets(FacesContext facesContext, ServletContext servletContext)
+    {
+        ExternalContext externalContext = facesContext.getExternalContext();
+        ResourceHandler resourceHandler = facesContext.getApplication().getResourceHandler();
+        ViewHandler viewHandler = facesContext.getApplication().getViewHandler();
+
+        List<Compilation> compilations = new ArrayList<>();
+        Set<String> urls = new HashSet<>();
+        Adder add = (path, url, kind) ->
+        {
+            FaceletFactory faceletFactory = getFaceletFactory(facesContext, viewHandler, path);
+            if (faceletFactory != null && url != null && urls.add(url.toString()))
+            {
+                compilations.add(new Compilation(faceletFactory, servletContext, path, url, kind));
+            }
+        };
+
+        String resourcesDirectory = WebConfigParamUtils.getStringInitParameter(externalContext,
+                ResourceHandler.WEBAPP_RESOURCES_DIRECTORY_PARAM_NAME, "resources");
+        resourcesDirectory = resourcesDirectory.startsWith("/") ? resourcesDirectory : '/' + resourcesDirectory;
+        String resourcesPrefix = resourcesDirectory + '/';
+
+        try (Stream<String> paths = resourceHandler.getViewResources(facesContext, "/", Integer.MAX_VALUE))
+        {
+            paths.forEach(path ->
+            {
+                // the composite components, added below
+                if (path.startsWith(resourcesPrefix))
+                {
+                    return;
+                }
+                ViewResource resource = resourceHandler.createViewResource(facesContext, path);
+                URL url = resource == null ? null : resource.getURL();
+                Kind kind = path.startsWith("/WEB-INF/") || path.startsWith("/META-INF/")
+                        ? Kind.FACELET
+                        : Kind.VIEW;
+                add.add(path, url, kind);
+            });
+        }
+
+        String[] suffixes = StringUtils.splitShortString(WebConfigParamUtils.getStringInitParameter(
+                externalContext, ViewHandler.FACELETS_SUFFIX_PARAM_NAME, ViewHandler.DEFAULT_FACELETS_SUFFIX), ' ');
+
+        Iterator<String> it = new ExternalContextResourceLoaderIterator(facesContext, resourcesPrefix,
+                Integer.MAX_VALUE);
+        while (it.hasNext())
+        {
+            String path = it.next();
+            if (path == null || !endsWith(path, suffixes))
+            {
+                continue;
+            }
+            try
+            {
+                add.add(path, externalContext.getResource(path), Kind.COMPOSITE_COMPONENT);
+            }
+            catch (MalformedURLException e)
+            {
+                // not a composite component
+            }
+        }
+
+        return compilations;
+    }
+
+    private static FaceletFactory getFaceletFactory(FacesContext facesContext, ViewHandler viewHandler,
+            String path)
+    {
+        ViewDeclarationLanguage vdl = viewHandler.getViewDeclarationLanguage(facesContext, path);
+        if (vdl instanceof FaceletViewDeclarationLanguage faceletVdl)
+        {
+            return faceletVdl.getFaceletFactory();
+        }
+        return null;
+    }
+
+    private static boolean endsWith(String path, String[] suffixes)
+    {
+        for (String suffix : suffixes)
+        {
+            if (path.endsWith(suffix))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compiles one facelet in a worker thread, with its own FacesContext.
+     */
+    private static final class Compilation implements Callable<Boolean>
+    {
+        private final FaceletFactory faceletFactory;
+        private final ServletContext servletContext;
+        private final String path;
+        private final URL url;
+        private final Kind kind;
+
+        Compilation(FaceletFactory faceletFactory, ServletContext servletContext, String path, URL url, Kind kind)
+        {
+            this.faceletFactory = faceletFactory;
+            this.servletContext = servletContext;
+            this.path = path;
+            this.url = url;
+            this.kind = kind;
+        }
+
+        @Override
+        public Boolean call()
+        {
+            // the pool may run a compilation in the calling thread, which has the startup FacesContext
+            FacesContext facesContext = null;
+            if (FacesContext.getCurrentInstance() == null)
+            {
+                ExternalContext externalContext = new StartupServletExternalContextImpl(servletContext, true);
+                facesContext = new StartupFacesContextImpl(externalContext, externalContext,
+                        new ExceptionHandlerImpl(), true);
+            }
+            FaceletFactory previous = FaceletFactory.getInstance();
+            FaceletFactory.setInstance(faceletFactory);
+
+            long start = System.nanoTime();
+            try
+            {
+                faceletFactory.getFacelet(url);
+                if (kind == Kind.VIEW)
+                {
+                    faceletFactory.getViewMetadataFacelet(url);
+                }
+                else if (kind == Kind.COMPOSITE_COMPONENT)
+                {
+                    faceletFactory.getCompositeComponentMetadataFacelet(url);
+                }
+
+                if (log.isLoggable(Level.FINE))
+                {
+                    log.fine("Precompiled " + path + " in "
+                            + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+                }
+                return true;
+            }
+            catch (IOException | RuntimeException e)
+            {
+                log.log(Level.WARNING, "Facelet " + path + " cannot be precompiled: " + e.getMessage(),
+                        log.isLoggable(Level.FINE) ? e : null);
+                return false;
+            }
+            finally
+            {
+                FaceletFactory.setInstance(previous);
+                if (facesContext != null)
+                {
+                    facesContext.release();
+                }
+            }
+        }
+    }
+}
@@ -27,6 +27,7 @@
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.BaseStream;
 
 import jakarta.el.ValueExpression;
 import jakarta.faces.FacesException;
@@ -51,14 +52,16 @@
 import jakarta.faces.model.DataModel;
 import jakarta.faces.model.IterableDataModel;
 import jakarta.faces.model.ListDataModel;
-import jakarta.faces.model.ResultSetDataModel;
 import jakarta.faces.model.ScalarDataModel;
 import jakarta.faces.render.Renderer;
 
 import org.apache.myfaces.buildtools.maven2.plugin.builder.annotation.JSFComponent;
 import org.apache.myfaces.buildtools.maven2.plugin.builder.annotation.JSFProperty;
 import org.apache.myfaces.cdi.model.FacesDataModelManager;
+import org.apache.myfaces.core.api.shared.ChunkedResultSetDataModel;
 import org.apache.myfaces.core.api.shared.EditableValueHolderState;
+import org.apache.myfaces.core.api.shared.RowStateMap;
+import org.apache.myfaces.core.api.shared.StreamingDataModel;
 import org.apache.myfaces.core.api.shared.lang.Assert;
 import org.apache.myfaces.core.api.shared.lang.SharedStringBuilder;
 import org.apache.myfaces.util.ExternalSpecifications;
@@ -87,13 +90,14 @@ public class UIRepeat extends UIComponentBase implements NamingContainer
 
     protected Object _initialDescendantFullComponentState = null;
 
-    protected Map<String, Map<String, Object>> _rowDeltaStates = new HashMap<>();
-    protected Map<String, Map<String, Object>> _rowTransientStates = new HashMap<>();
+    // The states are kept by row index, see RowStateMap.
+    private RowStateMap<Map<String, Object>> _rowDeltaStates = new RowStateMap<>();
+    private RowStateMap<Map<String, Object>> _rowTransientStates = new RowStateMap<>();
 
     // Holds for each row the states of the child components of this UIData.
     // Note that only "partial" component state is saved: the component fields
     // that are expected to vary between rows.
-    private Map<String, Collection<Object[]>> _rowStates = new HashMap<>();
+    private RowStateMap<Collection<Object[]>> _rowStates = new RowStateMap<>();
     
     /**
      * Handle case where this table is nested inside another table. See method getDataModel for more details.
@@ -123,6 +127,22 @@ public UIRepeat()
         setRendererType("facelets.ui.Repeat");
     }
 
+    /**
+     * @return the delta states of the rows, by the client id of this component and the row index
+     */
+    protected RowStateMap<Map<String, Object>> getRowDeltaStates()
+    {
+        return _rowDeltaStates;
+    }
+
+    /**
+     * @return the transient states of the rows, by the client id of this component and the row index
+     */
+    protected RowStateMap<Map<String, Object>> getRowTransientStates()
+    {
+        return _rowTransientStates;
+    }
+
     @Override
     public String getFamily()
     {
@@ -374,7 +394,7 @@ else if (OBJECT_ARRAY_CLASS.isAssignableFrom(value.getClass()))
                 }
                 else if (value instanceof ResultSet set)
                 {
-                    return new ResultSetDataModel(set);
+                    return ChunkedResultSetDataModel.createDataModel(set);
                 }
                 else if (value instanceof Iterable iterable)
                 {
@@ -388,6 +408,11 @@ else if (value instanceof Collection collection)
                 {
                     return new CollectionDataModel(collection);
                 }
+                else if (value instanceof BaseStream || value instanceof Iterator)
+                {
+                    // the value is evaluated again to visit the rows once more
+                    return new StreamingDataModel<>(value, this::getValue);
+                }
                 else
                 {
                     return new ScalarDataModel(value);
@@ -904,6 +929,7 @@ private void _setIndexPreserveComponentState(int index)
        }
 
        FacesContext facesContext = getFacesContext();
+       String clientId = super.getContainerClientId(facesContext);
 
        if (_initialDescendantFullComponentState != null)
        {
@@ -912,11 +938,11 @@ private void _setIndexPreserveComponentState(int index)
                                                                       getChildren().iterator(), false);
            if (sm != null && !sm.isEmpty())
            {
-               _rowDeltaStates.put(getContainerClientId(facesContext), sm);
+               _rowDeltaStates.put(clientId, _index, sm);
            }
            if (index != -1)
            {
-               _rowTransientStates.put(getContainerClientId(facesContext),
+               _rowTransientStates.put(clientId, _index,
                        saveTransientDescendantComponentStates(facesContext, null, getChildren().iterator(), false));
            }
        }
@@ -950,7 +976,7 @@ private void _setIndexPreserveComponentState(int index)
 
        if (_initialDescendantFullComponentState != null)
        {
-           Map<String, Object> rowState = _rowDeltaStates.get(getContainerClientId(facesContext));
+           Map<String, Object> rowState = _rowDeltaStates.get(clientId, _index);
            if (rowState == null)
            {
                //Restore as original
@@ -969,7 +995,7 @@ private void _setIndexPreserveComponentState(int index)
            }
            else
            {
-               rowState = _rowTransientStates.get(getContainerClientId(facesContext));
+               rowState = _rowTransientStates.get(clientId, _index);
                if (rowState == null)
                {
                    restoreTransientDescendantComponentStates(facesContext, getChildren().iterator(), null, false);
@@ -1022,7 +1048,7 @@ private void _setIndexWithoutPreserveComponentState(int index)
                Collection<Object[]> savedRowState = saveDescendantComponentStates(this, true, true);
                if (savedRowState != null)
                {
-                   _rowStates.put(getContainerClientId(facesContext), savedRowState);
+                   _rowStates.put(super.getContainerClientId(facesContext), _index, savedRowState);
                }
            }
        }
@@ -1069,7 +1095,7 @@ private void _setIndexWithoutPreserveComponentState(int index)
        }
        else
        {
-           Object rowState = _rowStates.get(getContainerClientId(facesContext));
+           Object rowState = _rowStates.get(super.getContainerClientId(facesContext), _index);
            if (rowState == null)
            {
                // We haven't been positioned on this row before, so just
@@ -2049,48 +2075,16 @@ public void restoreState(FacesContext context, Object state)
         Object[] values = (Object[]) state;
         super.restoreState(context, values[0]);
 
-        Object restoredRowStates = UIComponentBase.restoreAttachedState(context, values[1]);
-        if (restoredRowStates == null)
-        {
-            if (!_rowDeltaStates.isEmpty())
-            {
-                _rowDeltaStates.clear();
-            }
-        }
-        else
-        {
-            _rowDeltaStates = (Map<String, Map<String, Object> >) restoredRowStates;
-        }
+        char separatorChar = context.getNamingContainerSeparatorChar();
+        _rowDeltaStates.restoreState(values[1], separatorChar);
 
         if (values.length > 2)
         {
-            Object rs = UIComponentBase.restoreAttachedState(context, values[2]);
-            if (rs == null)
-            {
-                if (!_rowStates.isEmpty())
-                {
-                    _rowStates.clear();
-                }
-            }
-            else
-            {
-                _rowStates = (Map<String, Collection<Object[]> >) rs;
-            }
+            _rowStates.restoreState(values[2], separatorChar);
         }
         if (values.length > 3)
         {
-            Object rs = UIComponentBase.restoreAttachedState(context, values[3]);
-            if (rs == null)
-            {
-                if (!_rowTransientStates.isEmpty())
-                {
-                    _rowTransientStates.clear();
-                }
-            }
-            else
-            {
-                _rowTransientStates = (Map<String, Map<String, Object> >) rs;
-            }
+            _rowTransientStates.restoreState(values[3], separatorChar);
         }
     }
 
@@ -2130,9 +2124,9 @@ else if (context.getViewRoot().getAttributes().get(ViewPoolProcessor.RESET_SAVE_
                 {
                     Object[] values = new Object[4];
                     values[0] = super.saveState(context);
-                    values[1] = UIComponentBase.saveAttachedState(context, _rowDeltaStates);
-                    values[2] = UIComponentBase.saveAttachedState(context, _rowStates);
-                    values[3] = UIComponentBase.saveAttachedState(context, _rowTransientStates);
+                    values[1] = _rowDeltaStates.saveState();
+                    values[2] = _rowStates.saveState();
+                    values[3] = _rowTransientStates.saveState();
                     return values;
                 }
             }
@@ -2146,7 +2140,7 @@ else if (context.getViewRoot().getAttributes().get(ViewPoolProcessor.RESET_SAVE_
                 {
                     Object[] values = new Object[2];
                     values[0] = super.saveState(context);
-                    values[1] = UIComponentBase.saveAttachedState(context, _rowDeltaStates);
+                    values[1] = _rowDeltaStates.saveState();
                     return values;
                 }
             }
@@ -2158,16 +2152,16 @@ else if (context.getViewRoot().getAttributes().get(ViewPoolProcessor.RESET_SAVE_
             {
                 Object[] values = new Object[4];
                 values[0] = super.saveState(context);
-                values[1] = UIComponentBase.saveAttachedState(context, _rowDeltaStates);
-                values[2] = UIComponentBase.saveAttachedState(context, _rowStates);
-                values[3] = UIComponentBase.saveAttachedState(context, _rowTransientStates);
+                values[1] = _rowDeltaStates.saveState();
+                values[2] = _rowStates.saveState();
+                values[3] = _rowTransientStates.saveState();
                 return values; 
             }
             else
             {
                 Object[] values = new Object[2];
                 values[0] = super.saveState(context);
-                values[1] = UIComponentBase.saveAttachedState(context, _rowDeltaStates);
+                values[1] = _rowDeltaStates.saveState();
                 return values;
             }
         }
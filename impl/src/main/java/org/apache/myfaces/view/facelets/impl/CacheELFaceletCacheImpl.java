@@ -22,9 +22,7 @@
 import java.net.URL;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import jakarta.faces.view.facelets.FaceletContext;
 import jakarta.faces.view.facelets.FaceletException;
@@ -55,21 +53,45 @@ class CacheELFaceletCacheImpl extends AbstractFaceletCache<DefaultFacelet>
      * and composite component metadata only takes into account composite:xxx tags,
      * ignoring ui:xxx tags.
      */
-    private Map<String, FaceletNode> _facelets;
+    private final CompiledFaceletMap<FaceletNode> _facelets;
     
-    private Map<String, DefaultFacelet> _viewMetadataFacelets;
+    private final CompiledFaceletMap<DefaultFacelet> _viewMetadataFacelets;
     
-    private Map<String, DefaultFacelet> _compositeComponentMetadataFacelets;
+    private final CompiledFaceletMap<DefaultFacelet> _compositeComponentMetadataFacelets;
+
+    private final FaceletCacheStats _stats = new FaceletCacheStats();
     
     private long _refreshPeriod;
+
+    private final FaceletRefresher _refresher;
     
     CacheELFaceletCacheImpl(long refreshPeriod)
+    {
+        this(refreshPeriod, -1, null);
+    }
+
+    /**
+     * @param refreshPeriod the refresh period in seconds
+     * @param maxSize the maximum number of facelets of each kind, no limit if it is 0 or less
+     * @param refresher refreshes the facelets in the background instead of the requests, may be null
+     */
+    CacheELFaceletCacheImpl(long refreshPeriod, int maxSize, FaceletRefresher refresher)
     {
         _refreshPeriod = refreshPeriod < 0 ? INFINITE_DELAY : refreshPeriod * 1000;
 
-        _facelets = new ConcurrentHashMap<>();
-        _viewMetadataFacelets = new ConcurrentHashMap<>();
-        _compositeComponentMetadataFacelets = new ConcurrentHashMap<>();
+        _facelets = new CompiledFaceletMap<>(maxSize, _stats);
+        _viewMetadataFacelets = new CompiledFaceletMap<>(maxSize, _stats);
+        _compositeComponentMetadataFacelets = new CompiledFaceletMap<>(maxSize, _stats);
+        _refresher = refresher;
+        if (refresher != null)
+        {
+            refresher.watch(_facelets, FaceletNode::getFacelet,
+                    (url, previous) -> new FaceletNode(getMemberFactory().newInstance(url), previous.getParams()));
+            refresher.watch(_viewMetadataFacelets, f -> f,
+                    (url, previous) -> getMetadataMemberFactory().newInstance(url));
+            refresher.watch(_compositeComponentMetadataFacelets, f -> f,
+                    (url, previous) -> getCompositeComponentMetadataMemberFactory().newInstance(url));
+        }
     }
 
     @Override
@@ -77,34 +99,23 @@ public DefaultFacelet getFacelet(URL url) throws IOException
     {
         Assert.notNull(url, "url");
         
-        String key = url.toString();
-        
-        FaceletNode node = _facelets.get(key);
-        DefaultFacelet f = node != null ? node.getFacelet() : null;
-        
-        if (f == null || this.needsToBeRefreshed(f))
+        if (_refreshPeriod == NO_CACHE_DELAY)
         {
-            Set<String> paramsSet = null;
-            if (node != null)
-            {
-                paramsSet = node.getParams();
-            }
-            f = getMemberFactory().newInstance(url);
-            if (_refreshPeriod != NO_CACHE_DELAY)
-            {
-                _facelets.put(key, (paramsSet != null && !paramsSet.isEmpty()) ? 
-                        new FaceletNode(f, paramsSet) : new FaceletNode(f) );
-            }
+            return getMemberFactory().newInstance(url);
         }
-        
-        return f;
+
+        FaceletNode node = _facelets.get(url.toString(), n -> !needsToBeRefreshed(n.getFacelet()), previous ->
+        {
+            DefaultFacelet f = getMemberFactory().newInstance(url);
+            return (previous != null && !previous.getParams().isEmpty()) ?
+                    new FaceletNode(f, previous.getParams()) : new FaceletNode(f);
+        });
+        return node.getFacelet();
     }
 
     @Override
     public DefaultFacelet getFacelet(FaceletContext ctx, URL url) throws IOException
     {
-        String key = url.toString();
-        
         //1. Check that the current parameters on the template are known
         //   for the template.
         //2. If all current parameters are known return the template
@@ -112,44 +123,31 @@ public DefaultFacelet getFacelet(FaceletContext ctx, URL url) throws IOException
         //   template, register the known params in the template context and
         //   recompile the facelet, to clean up al EL expressions at once.
 
-        FaceletNode node = _facelets.get(key);
-        DefaultFacelet f = (node != null) ? node.getFacelet() : null;
-        
-        Set<String> paramsSet = Collections.emptySet();
-        paramsSet = (node != null) ? node.getParams() : paramsSet;
+        if (_refreshPeriod == NO_CACHE_DELAY)
+        {
+            return getMemberFactory().newInstance(url);
+        }
 
         AbstractFaceletContext actx = (AbstractFaceletContext) ctx;
         Set<String> knownParameters = actx.getTemplateContext().isKnownParametersEmpty() ?
-            (Set) Collections.emptySet() : actx.getTemplateContext().getKnownParameters();
-        
-        boolean create = false;
-        for (String paramKey : knownParameters)
-        {
-            if (!paramsSet.contains(paramKey))
-            {
-                create = true;
-                break;
-            }
-        }
-        
-        if (f == null || this.needsToBeRefreshed(f) || create)
-        {
-            f = getMemberFactory().newInstance(url);
-            if (_refreshPeriod != NO_CACHE_DELAY)
-            {
-                if (!paramsSet.isEmpty()|| !knownParameters.isEmpty() )
-                {
-                    paramsSet = new HashSet(paramsSet);
-                    paramsSet.addAll(knownParameters);
-                    _facelets.put(key, new FaceletNode(f, paramsSet));
-                }
-                else
+            Collections.emptySet() : actx.getTemplateContext().getKnownParameters();
+
+        FaceletNode node = _facelets.get(url.toString(),
+                n -> !needsToBeRefreshed(n.getFacelet()) && n.getParams().containsAll(knownParameters),
+                previous ->
                 {
-                    _facelets.put(key, new FaceletNode(f));
-                }
-            }
-        }
+                    DefaultFacelet f = getMemberFactory().newInstance(url);
+                    Set<String> params = previous != null ? previous.getParams() : Collections.emptySet();
+                    if (!params.isEmpty() || !knownParameters.isEmpty())
+                    {
+                        params = new HashSet<>(params);
+                        params.addAll(knownParameters);
+                        return new FaceletNode(f, params);
+                    }
+                    return new FaceletNode(f);
+                });
 
+        Set<String> paramsSet = node.getParams();
         if (!paramsSet.isEmpty())
         {
             for (String param : paramsSet)
@@ -161,7 +159,7 @@ public DefaultFacelet getFacelet(FaceletContext ctx, URL url) throws IOException
             }
         }
         
-        return f;
+        return node.getFacelet();
     }
     
     @Override
@@ -175,20 +173,13 @@ public DefaultFacelet getViewMetadataFacelet(URL url) throws IOException
     {
         Assert.notNull(url, "url");
         
-        String key = url.toString();
-        
-        DefaultFacelet f = _viewMetadataFacelets.get(key);
-        
-        if (f == null || this.needsToBeRefreshed(f))
+        if (_refreshPeriod == NO_CACHE_DELAY)
         {
-            f = getMetadataMemberFactory().newInstance(url);
-            if (_refreshPeriod != NO_CACHE_DELAY)
-            {
-                _viewMetadataFacelets.put(key, f);
-            }
+            return getMetadataMemberFactory().newInstance(url);
         }
-        
-        return f;
+
+        return _viewMetadataFacelets.get(url.toString(), f -> !needsToBeRefreshed(f),
+                previous -> getMetadataMemberFactory().newInstance(url));
     }
 
     @Override
@@ -197,6 +188,14 @@ public boolean isViewMetadataFaceletCached(URL url)
         return _viewMetadataFacelets.containsKey(url.toString());
     }
 
+    /**
+     * @return the hit, miss and compilation counters of this cache, nothing is counted if the refresh period is 0
+     */
+    public FaceletCacheStats getStats()
+    {
+        return _stats;
+    }
+
     /**
      * Template method for determining if the Facelet needs to be refreshed.
      * 
@@ -218,6 +217,12 @@ protected boolean needsToBeRefreshed(DefaultFacelet facelet)
             return false;
         }
 
+        // refreshed in the background
+        if (_refresher != null)
+        {
+            return false;
+        }
+
         long target = facelet.getCreateTime() + _refreshPeriod;
         if (System.currentTimeMillis() > target)
         {
@@ -242,19 +247,13 @@ public DefaultFacelet getCompositeComponentMetadataFacelet(URL url) throws IOExc
     {
         Assert.notNull(url, "url");
 
-        String key = url.toString();
-
-        DefaultFacelet f = _compositeComponentMetadataFacelets.get(key);
-
-        if (f == null || this.needsToBeRefreshed(f))
+        if (_refreshPeriod == NO_CACHE_DELAY)
         {
-            f = getCompositeComponentMetadataMemberFactory().newInstance(url);
-            if (_refreshPeriod != NO_CACHE_DELAY)
-            {
-                _compositeComponentMetadataFacelets.put(key, f);
-            }
+            return getCompositeComponentMetadataMemberFactory().newInstance(url);
         }
-        return f;
+
+        return _compositeComponentMetadataFacelets.get(url.toString(), f -> !needsToBeRefreshed(f),
+                previous -> getCompositeComponentMetadataMemberFactory().newInstance(url));
     }
 
     @Override
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.impl;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+import org.apache.myfaces.util.lang.ShardedLRUCache;
+
+/**
+ * The compiled facelets of one kind (view, view metadata, composite component metadata) of a
+ * FaceletCache, by url.
+ *
+ * <p>When a facelet is missing or expired, only one thread compiles it, the other threads asking
+ * for the same url in the meantime wait for that compilation and share its result. If a maximum
+ * size is given, the least recently used facelets are evicted when it is exceeded.</p>
+ *
+ * @param <V> the cached value
+ */
+class CompiledFaceletMap<V>
+{
+    /**
+     * Compiles the value of an url, given the value that is replaced or null.
+     */
+    interface Compiler<V>
+    {
+        V compile(V previous) throws IOException;
+    }
+
+    private final Map<String, V> _map;
+    private final ShardedLRUCache<String, V> _lruCache;
+    private final Map<String, CompletableFuture<V>> _compilations = new ConcurrentHashMap<>();
+    private final FaceletCacheStats _stats;
+
+    /**
+     * @param maxSize the maximum number of facelets, no limit if it is 0 or less
+     * @param stats where hits, misses and compilations are counted
+     */
+    CompiledFaceletMap(int maxSize, FaceletCacheStats stats)
+    {
+        if (maxSize > 0)
+        {
+            _map = null;
+            _lruCache = new ShardedLRUCache<>(maxSize);
+        }
+        else
+        {
+            _map = new ConcurrentHashMap<>();
+            _lruCache = null;
+        }
+        _stats = stats;
+        _stats.register(this);
+    }
+
+    V get(String key)
+    {
+        return _lruCache == null ? _map.get(key) : _lruCache.get(key);
+    }
+
+    boolean containsKey(String key)
+    {
+        return _lruCache == null ? _map.containsKey(key) : _lruCache.containsKey(key);
+    }
+
+    int size()
+    {
+        return _lruCache == null ? _map.size() : _lruCache.size();
+    }
+
+    /**
+     * Performs the action for each cached value, without changing the access order.
+     */
+    void forEach(BiConsumer<String, V> action)
+    {
+        if (_lruCache == null)
+        {
+            _map.forEach(action);
+        }
+        else
+        {
+            _lruCache.forEach(action);
+        }
+    }
+
+    /**
+     * Removes the value, if it is still cached.
+     */
+    void remove(String key, V value)
+    {
+        if (_lruCache == null)
+        {
+            _map.remove(key, value);
+        }
+        else
+        {
+            _lruCache.remove(key, value);
+        }
+    }
+
+    long getEvictions()
+    {
+        return _lruCache == null ? 0 : _lruCache.getStats().getCumulativeEvictions();
+    }
+
+    /**
+     * Returns the cached value if it is valid, otherwise compiles it and caches the result.
+     *
+     * @param key the url
+     * @param valid checks if a cached value or the value compiled by another thread can be used, the
+     *        value compiled by the calling thread is always returned
+     * @param compiler creates the new value
+     */
+    V get(String key, Predicate<V> valid, Compiler<V> compiler) throws IOException
+    {
+        V value = get(key);
+        if (value != null && valid.test(value))
+        {
+            _stats.hit();
+            return value;
+        }
+        _stats.miss();
+
+        while (true)
+        {
+            CompletableFuture<V> compilation = new CompletableFuture<>();
+            CompletableFuture<V> running = _compilations.putIfAbsent(key, compilation);
+            if (running == null)
+            {
+                try
+                {
+                    // a compilation may have finished since the value was read
+                    V current = get(key);
+                    if (current != null && current != value && valid.test(current))
+                    {
+                        compilation.complete(current);
+                        return current;
+                    }
+                    return compile(key, current, compiler, compilation);
+                }
+                finally
+                {
+                    _compilations.remove(key, compilation);
+                }
+            }
+            else
+            {
+                _stats.waited();
+                V compiled = join(running);
+                if (compiled != null && valid.test(compiled))
+                {
+                    return compiled;
+                }
+                value = compiled;
+            }
+        }
+    }
+
+    /**
+     * Compiles the value again if the stale value is still cached, unless another thread is already
+     * compiling it. Used to refresh the facelets outside of the requests.
+     */
+    void refresh(String key, V stale, Compiler<V> compiler) throws IOException
+    {
+        CompletableFuture<V> compilation = new CompletableFuture<>();
+        if (_compilations.putIfAbsent(key, compilation) != null)
+        {
+            return;
+        }
+        try
+        {
+            V current = get(key);
+            if (current == stale)
+            {
+                compile(key, stale, compiler, compilation);
+            }
+            else
+            {
+                compilation.complete(current);
+            }
+        }
+        finally
+        {
+            _compilations.remove(key, compilation);
+        }
+    }
+
+    private V compile(String key, V previous, Compiler<V> compiler, CompletableFuture<V> compilation)
+            throws IOException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            V compiled = compiler.compile(previous);
+            _stats.compiled(System.nanoTime() - start);
+            // cached before the compilation is removed, so nobody can miss both
+            put(key, compiled);
+            compilation.complete(compiled);
+            return compiled;
+        }
+        catch (IOException | RuntimeException | Error e)
+        {
+            _stats.failed();
+            compilation.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private void put(String key, V value)
+    {
+        if (_lruCache == null)
+        {
+            _map.put(key, value);
+        }
+        else
+        {
+            _lruCache.put(key, value);
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> compilation) throws IOException
+    {
+        try
+        {
+            return compilation.join();
+        }
+        catch (CompletionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
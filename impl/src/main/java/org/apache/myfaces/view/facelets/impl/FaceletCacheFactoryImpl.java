@@ -20,7 +20,9 @@
 
 import jakarta.faces.context.FacesContext;
 import jakarta.faces.view.facelets.FaceletCache;
+import jakarta.faces.event.PreDestroyApplicationEvent;
 import jakarta.faces.view.facelets.FaceletCacheFactory;
+import jakarta.servlet.ServletContext;
 
 import org.apache.myfaces.config.webparameters.MyfacesConfig;
 import org.apache.myfaces.view.facelets.ELExpressionCacheMode;
@@ -41,15 +43,33 @@ public FaceletCache getFaceletCache()
         MyfacesConfig myfacesConfig = MyfacesConfig.getCurrentInstance(context.getExternalContext());
 
         long refreshPeriod = myfacesConfig.getFaceletsRefreshPeriod();
+        int cacheSize = myfacesConfig.getFaceletsCacheSize();
 
+        FaceletRefresher refresher = null;
+        if (refreshPeriod > 0 && myfacesConfig.isFaceletsBackgroundRefresh())
+        {
+            Object servletContext = context.getExternalContext().getContext();
+            refresher = new FaceletRefresher(
+                    servletContext instanceof ServletContext ? (ServletContext) servletContext : null,
+                    refreshPeriod * 1000);
+            context.getApplication().subscribeToEvent(PreDestroyApplicationEvent.class, refresher);
+        }
+
+        FaceletCache cache;
         if (ELExpressionCacheMode.alwaysRecompile == myfacesConfig.getELExpressionCacheMode())
         {
-            return new CacheELFaceletCacheImpl(refreshPeriod);
+            cache = new CacheELFaceletCacheImpl(refreshPeriod, cacheSize, refresher);
         }
         else
         {
-            return new FaceletCacheImpl(refreshPeriod);
+            cache = new FaceletCacheImpl(refreshPeriod, cacheSize, refresher);
+        }
+
+        if (refresher != null)
+        {
+            refresher.start();
         }
+        return cache;
     }
 
 }
@@ -20,8 +20,6 @@
 
 import java.io.IOException;
 import java.net.URL;
-import java.util.HashMap;
-import java.util.Map;
 
 import jakarta.faces.view.facelets.FaceletCache;
 import jakarta.faces.view.facelets.FaceletException;
@@ -52,17 +50,38 @@ class FaceletCacheImpl extends FaceletCache<DefaultFacelet>
     private static final long INFINITE_DELAY = -1;
     private static final long NO_CACHE_DELAY = 0;
     
-    private Map<String, DefaultFacelet> _facelets;
+    private final CompiledFaceletMap<DefaultFacelet> _facelets;
     
-    private Map<String, DefaultFacelet> _viewMetadataFacelets;
+    private final CompiledFaceletMap<DefaultFacelet> _viewMetadataFacelets;
+
+    private final FaceletCacheStats _stats = new FaceletCacheStats();
 
     private long _refreshPeriod;
+
+    private final FaceletRefresher _refresher;
     
     FaceletCacheImpl(long refreshPeriod)
+    {
+        this(refreshPeriod, -1, null);
+    }
+
+    /**
+     * @param refreshPeriod the refresh period in seconds
+     * @param maxSize the maximum number of facelets of each kind, no limit if it is 0 or less
+     * @param refresher refreshes the facelets in the background instead of the requests, may be null
+     */
+    FaceletCacheImpl(long refreshPeriod, int maxSize, FaceletRefresher refresher)
     {
         _refreshPeriod = refreshPeriod < 0 ? INFINITE_DELAY : refreshPeriod * 1000;
-        _facelets = new HashMap<>();
-        _viewMetadataFacelets = new HashMap<>();
+        _facelets = new CompiledFaceletMap<>(maxSize, _stats);
+        _viewMetadataFacelets = new CompiledFaceletMap<>(maxSize, _stats);
+        _refresher = refresher;
+        if (refresher != null)
+        {
+            refresher.watch(_facelets, f -> f, (url, previous) -> getMemberFactory().newInstance(url));
+            refresher.watch(_viewMetadataFacelets, f -> f,
+                    (url, previous) -> getMetadataMemberFactory().newInstance(url));
+        }
     }
 
     @Override
@@ -70,22 +89,13 @@ public DefaultFacelet getFacelet(URL url) throws IOException
     {
         Assert.notNull(url, "url");
         
-        String key = url.toString();
-
-        DefaultFacelet f = _facelets.get(key);
-        if (f == null || this.needsToBeRefreshed(f))
+        if (_refreshPeriod == NO_CACHE_DELAY)
         {
-            //f = this._createFacelet(url);
-            f = getMemberFactory().newInstance(url);
-            if (_refreshPeriod != NO_CACHE_DELAY)
-            {
-                Map<String, DefaultFacelet> newLoc = new HashMap<>(_facelets);
-                newLoc.put(key, f);
-                _facelets = newLoc;
-            }
+            return getMemberFactory().newInstance(url);
         }
-        
-        return f;
+
+        return _facelets.get(url.toString(), f -> !needsToBeRefreshed(f),
+                previous -> getMemberFactory().newInstance(url));
     }
     
     @Override
@@ -99,23 +109,13 @@ public DefaultFacelet getViewMetadataFacelet(URL url) throws IOException
     {
         Assert.notNull(url, "url");
         
-        String key = url.toString();
-        
-        DefaultFacelet f = _viewMetadataFacelets.get(key);
-        
-        if (f == null || this.needsToBeRefreshed(f))
+        if (_refreshPeriod == NO_CACHE_DELAY)
         {
-            //f = this._createViewMetadataFacelet(url);
-            f = getMetadataMemberFactory().newInstance(url);
-            if (_refreshPeriod != NO_CACHE_DELAY)
-            {
-                Map<String, DefaultFacelet> newLoc = new HashMap<>(_viewMetadataFacelets);
-                newLoc.put(key, f);
-                _viewMetadataFacelets = newLoc;
-            }
+            return getMetadataMemberFactory().newInstance(url);
         }
-        
-        return f;
+
+        return _viewMetadataFacelets.get(url.toString(), f -> !needsToBeRefreshed(f),
+                previous -> getMetadataMemberFactory().newInstance(url));
     }
 
     @Override
@@ -124,6 +124,14 @@ public boolean isViewMetadataFaceletCached(URL url)
         return _viewMetadataFacelets.containsKey(url.toString());
     }
 
+    /**
+     * @return the hit, miss and compilation counters of this cache, nothing is counted if the refresh period is 0
+     */
+    public FaceletCacheStats getStats()
+    {
+        return _stats;
+    }
+
     /**
      * Template method for determining if the Facelet needs to be refreshed.
      * 
@@ -145,6 +153,12 @@ protected boolean needsToBeRefreshed(DefaultFacelet facelet)
             return false;
         }
 
+        // refreshed in the background
+        if (_refresher != null)
+        {
+            return false;
+        }
+
         long target = facelet.getCreateTime() + _refreshPeriod;
         if (System.currentTimeMillis() > target)
         {
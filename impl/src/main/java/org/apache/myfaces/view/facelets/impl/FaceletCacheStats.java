@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.impl;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the MyFaces FaceletCache implementations, for all kinds of facelets of a cache.
+ *
+ * @since 5.0
+ */
+public class FaceletCacheStats
+{
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder compilations = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder compileTime = new LongAdder();
+    private final List<CompiledFaceletMap<?>> maps = new CopyOnWriteArrayList<>();
+
+    void register(CompiledFaceletMap<?> map)
+    {
+        maps.add(map);
+    }
+
+    void hit()
+    {
+        hits.increment();
+    }
+
+    void miss()
+    {
+        misses.increment();
+    }
+
+    void waited()
+    {
+        waits.increment();
+    }
+
+    void compiled(long nanos)
+    {
+        compilations.increment();
+        compileTime.add(nanos);
+    }
+
+    void failed()
+    {
+        failures.increment();
+    }
+
+    /**
+     * @return the number of facelets found in the cache and not expired
+     */
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of facelets not found in the cache or expired
+     */
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of times a thread waited for the compilation of another thread instead of
+     *         compiling the same facelet again
+     */
+    public long getWaits()
+    {
+        return waits.sum();
+    }
+
+    public long getCompilations()
+    {
+        return compilations.sum();
+    }
+
+    public long getFailedCompilations()
+    {
+        return failures.sum();
+    }
+
+    /**
+     * @return the total time spent compiling facelets, in milliseconds
+     */
+    public long getCompileTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(compileTime.sum());
+    }
+
+    /**
+     * @return the number of facelets in the cache
+     */
+    public int getSize()
+    {
+        int size = 0;
+        for (CompiledFaceletMap<?> map : maps)
+        {
+            size += map.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of facelets evicted because the cache was full
+     */
+    public long getEvictions()
+    {
+        long evictions = 0;
+        for (CompiledFaceletMap<?> map : maps)
+        {
+            evictions += map.getEvictions();
+        }
+        return evictions;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "hits=" + getHits() + ", misses=" + getMisses() + ", waits=" + getWaits()
+                + ", compilations=" + getCompilations() + ", failedCompilations=" + getFailedCompilations()
+                + ", compileTime=" + getCompileTime() + "ms, size=" + getSize() + ", evictions=" + getEvictions();
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.impl;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jakarta.faces.context.ExternalContext;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.event.AbortProcessingException;
+import jakarta.faces.event.SystemEvent;
+import jakarta.faces.event.SystemEventListener;
+import jakarta.servlet.ServletContext;
+
+import org.apache.myfaces.context.ExceptionHandlerImpl;
+import org.apache.myfaces.context.servlet.StartupFacesContextImpl;
+import org.apache.myfaces.context.servlet.StartupServletExternalContextImpl;
+import org.apache.myfaces.resource.ResourceLoaderUtils;
+
+/**
+ * Refreshes the facelets of a FaceletCache in a background thread, so the requests neither check the
+ * last modified time of the facelets nor wait for the changed ones to be compiled.
+ *
+ * <p>All cached facelets are checked once per refresh period, this covers facelets in jars and
+ * other non file urls. The directories of the facelets in the file system are also watched with a
+ * {@link WatchService}, so a change there is picked up without waiting for the next period.
+ * A facelet that was deleted or does not compile anymore is removed from the cache, so the next
+ * request reports the error as usual.</p>
+ *
+ * <p>The thread is stopped with the {@link jakarta.faces.event.PreDestroyApplicationEvent}.</p>
+ */
+class FaceletRefresher implements Runnable, SystemEventListener
+{
+    private static final Logger log = Logger.getLogger(FaceletRefresher.class.getName());
+
+    /**
+     * Compiles the value of an url again, given the value that is replaced.
+     */
+    interface Recompiler<V>
+    {
+        V compile(URL url, V previous) throws IOException;
+    }
+
+    private final ServletContext _servletContext;
+    private final long _refreshPeriod;
+    private final List<Watched<?>> _watched = new CopyOnWriteArrayList<>();
+    // only used by the refresh thread
+    private final Set<Path> _watchedDirectories = new HashSet<>();
+    private WatchService _watchService;
+    private volatile boolean _running;
+    private Thread _thread;
+
+    /**
+     * @param servletContext used to create a FacesContext for the compilation, may be null
+     * @param refreshPeriod the refresh period in milliseconds
+     */
+    FaceletRefresher(ServletContext servletContext, long refreshPeriod)
+    {
+        _servletContext = servletContext;
+        _refreshPeriod = refreshPeriod;
+    }
+
+    /**
+     * Refresh the values of the map.
+     *
+     * @param map the cached values
+     * @param facelet returns the facelet of a value
+     * @param recompiler compiles a changed value
+     */
+    <V> void watch(CompiledFaceletMap<V> map, Function<V, DefaultFacelet> facelet, Recompiler<V> recompiler)
+    {
+        _watched.add(new Watched<>(map, facelet, recompiler));
+    }
+
+    synchronized void start()
+    {
+        if (_running)
+        {
+            return;
+        }
+        try
+        {
+            _watchService = FileSystems.getDefault().newWatchService();
+        }
+        catch (IOException | UnsupportedOperationException e)
+        {
+            log.log(Level.FINE, "Facelets directories cannot be watched, they are checked every "
+                    + _refreshPeriod + "ms", e);
+        }
+        _running = true;
+        _thread = new Thread(this, "MyFaces facelets refresh");
+        _thread.setDaemon(true);
+        _thread.start();
+    }
+
+    synchronized void stop()
+    {
+        if (!_running)
+        {
+            return;
+        }
+        _running = false;
+        _thread.interrupt();
+        if (_watchService != null)
+        {
+            try
+            {
+                _watchService.close();
+            }
+            catch (IOException e)
+            {
+                // ignore
+            }
+        }
+    }
+
+    @Override
+    public void run()
+    {
+        long nextScan = System.currentTimeMillis() + _refreshPeriod;
+        while (_running)
+        {
+            try
+            {
+                boolean changed = awaitChange(nextScan - System.currentTimeMillis());
+                long now = System.currentTimeMillis();
+                if (changed || now >= nextScan)
+                {
+                    scan();
+                    if (now >= nextScan)
+                    {
+                        nextScan = now + _refreshPeriod;
+                    }
+                }
+            }
+            catch (InterruptedException | ClosedWatchServiceException e)
+            {
+                break;
+            }
+            catch (RuntimeException e)
+            {
+                log.log(Level.WARNING, "Error refreshing facelets", e);
+            }
+        }
+    }
+
+    /**
+     * Waits until a watched directory changed or the timeout elapsed.
+     */
+    private boolean awaitChange(long timeout) throws InterruptedException
+    {
+        timeout = Math.max(timeout, 1);
+        if (_watchService == null)
+        {
+            Thread.sleep(timeout);
+            return false;
+        }
+
+        WatchKey key = _watchService.poll(timeout, TimeUnit.MILLISECONDS);
+        boolean changed = false;
+        while (key != null)
+        {
+            changed |= !key.pollEvents().isEmpty();
+            if (!key.reset())
+            {
+                _watchedDirectories.remove((Path) key.watchable());
+            }
+            key = _watchService.poll();
+        }
+        return changed;
+    }
+
+    /**
+     * Checks all cached facelets and compiles the changed ones.
+     */
+    void scan()
+    {
+        List<Runnable> refreshes = new ArrayList<>();
+        for (Watched<?> watched : _watched)
+        {
+            watched.check(refreshes);
+        }
+        if (refreshes.isEmpty())
+        {
+            return;
+        }
+
+        FacesContext facesContext = null;
+        if (FacesContext.getCurrentInstance() == null && _servletContext != null)
+        {
+            ExternalContext externalContext = new StartupServletExternalContextImpl(_servletContext, false);
+            facesContext = new StartupFacesContextImpl(externalContext, externalContext,
+                    new ExceptionHandlerImpl(), false);
+        }
+        try
+        {
+            for (Runnable refresh : refreshes)
+            {
+                refresh.run();
+            }
+        }
+        finally
+        {
+            if (facesContext != null)
+            {
+                facesContext.release();
+            }
+        }
+    }
+
+    private void watchDirectory(URL url)
+    {
+        if (_watchService == null || !"file".equals(url.getProtocol()))
+        {
+            return;
+        }
+        try
+        {
+            Path directory = Paths.get(url.toURI()).getParent();
+            if (directory != null && _watchedDirectories.add(directory))
+            {
+                directory.register(_watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+        catch (Exception e)
+        {
+            // checked every refresh period
+            log.log(Level.FINEST, "Cannot watch the directory of " + url, e);
+        }
+    }
+
+    @Override
+    public void processEvent(SystemEvent event) throws AbortProcessingException
+    {
+        stop();
+    }
+
+    @Override
+    public boolean isListenerForSource(Object source)
+    {
+        return true;
+    }
+
+    private final class Watched<V>
+    {
+        private final CompiledFaceletMap<V> map;
+        private final Function<V, DefaultFacelet> facelet;
+        private final Recompiler<V> recompiler;
+
+        Watched(CompiledFaceletMap<V> map, Function<V, DefaultFacelet> facelet, Recompiler<V> recompiler)
+        {
+            this.map = map;
+            this.facelet = facelet;
+            this.recompiler = recompiler;
+        }
+
+        void check(List<Runnable> refreshes)
+        {
+            map.forEach((key, value) ->
+            {
+                DefaultFacelet f = facelet.apply(value);
+                URL url = f.getSource();
+                watchDirectory(url);
+
+                long lastModified;
+                try
+                {
+                    lastModified = ResourceLoaderUtils.getResourceLastModified(url);
+                }
+                catch (IOException e)
+                {
+                    lastModified = 0;
+                }
+
+                if (lastModified == 0)
+                {
+                    // deleted, or the modification time is unknown
+                    map.remove(key, value);
+                }
+                else if (lastModified > f.getCreateTime())
+                {
+                    refreshes.add(() -> refresh(key, value, url));
+                }
+            });
+        }
+
+        private void refresh(String key, V value, URL url)
+        {
+            if (log.isLoggable(Level.FINE))
+            {
+                log.fine("Refreshing facelet " + url);
+            }
+            try
+            {
+                map.refresh(key, value, previous -> recompiler.compile(url, previous));
+            }
+            catch (IOException | RuntimeException e)
+            {
+                log.log(Level.FINE, "Facelet " + url + " cannot be compiled, it is removed from the cache", e);
+                map.remove(key, value);
+            }
+        }
+    }
+}
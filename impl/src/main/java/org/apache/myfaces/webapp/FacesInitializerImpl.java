@@ -78,6 +78,7 @@
 import org.apache.myfaces.util.lang.ClassUtils;
 import org.apache.myfaces.spi.ServiceProviderFinder;
 import org.apache.myfaces.spi.ServiceProviderFinderFactory;
+import org.apache.myfaces.view.facelets.FaceletsPrecompiler;
 import org.apache.myfaces.view.facelets.ViewPoolProcessor;
 import org.apache.myfaces.util.lang.StringUtils;
 
@@ -212,6 +213,8 @@ public void initFaces(ServletContext servletContext)
                 initAutomaticExtensionlessMapping(facesContext, servletContext);
             }
 
+            FaceletsPrecompiler.initialize(facesContext);
+
             // publish resourceBundleControl to applicationMap, to make it available to the API
             ResourceBundle.Control resourceBundleControl = config.getResourceBundleControl();
             if (resourceBundleControl != null)
@@ -201,4 +201,41 @@ public void testWithRelativeExpressionNamingContainer() throws Exception
         Assertions.assertEquals(_testImpl, namingContainer.findComponent(expression));
     }
 
+    @Test
+    public void testWithIdIndex() throws Exception
+    {
+        servletContext.addInitParameter("org.apache.myfaces.VIEW_ROOT_ID_INDEX", "true");
+
+        UIViewRoot viewRoot = new UIViewRoot();
+        UIComponent namingContainer = new UINamingContainer();
+        namingContainer.setId("namingContainer");
+        UIComponent parent = new UIPanel();
+        parent.setId("parent");
+        viewRoot.getChildren().add(namingContainer);
+        namingContainer.getChildren().add(parent);
+        parent.getChildren().add(_testImpl);
+        _testImpl.setId("testimpl");
+
+        Assertions.assertEquals(_testImpl, viewRoot.findComponent(":namingContainer:testimpl"));
+        Assertions.assertNull(viewRoot.findComponent(":testimpl"));
+        Assertions.assertNotNull(viewRoot.getAttributes().get("oam.view.idIndex"));
+
+        // the index follows the changes of the view
+        _testImpl.setId("renamed");
+        Assertions.assertNull(viewRoot.findComponent(":namingContainer:testimpl"));
+        Assertions.assertEquals(_testImpl, viewRoot.findComponent(":namingContainer:renamed"));
+
+        UIComponent added = new UIOutput();
+        added.setId("added");
+        parent.getFacets().put("facet", added);
+        Assertions.assertEquals(added, namingContainer.findComponent("added"));
+
+        namingContainer.setId("renamedContainer");
+        Assertions.assertEquals(_testImpl, viewRoot.findComponent(":renamedContainer:renamed"));
+
+        namingContainer.getChildren().remove(parent);
+        Assertions.assertNull(viewRoot.findComponent(":renamedContainer:renamed"));
+        Assertions.assertNull(viewRoot.findComponent(":renamedContainer:added"));
+    }
+
 }
@@ -815,6 +815,80 @@ public void testProcessUpdatesRenderedTrue() throws Exception {
         Assertions.assertEquals(parent, UIComponent.getCurrentComponent(facesContext), "processUpdates must not change currentComponent");
     }
 
+    @Test
+    public void testWindowedProcessing() throws Exception
+    {
+        servletContext.addInitParameter("org.apache.myfaces.DATA_WINDOWED_PROCESSING", "true");
+        request.addParameter("table:3:input", "value3");
+        request.addParameter("jakarta.faces.source", "table:7:button");
+        request.addParameter("table:12:input", "value12");
+        request.addParameter("table:999999999:input", "value999999999");
+        request.addParameter("jakarta.faces.partial.execute", "table:3:input");
+
+        UIViewRoot root = facesContext.getViewRoot();
+        UIData table = new UIData();
+        table.setId("table");
+        table.setValue(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+        UIColumn column = new UIColumn();
+        List<Integer> decodedRows = new ArrayList<>();
+        UIInput input = new UIInput()
+        {
+            @Override
+            public void processDecodes(FacesContext context)
+            {
+                decodedRows.add(table.getRowIndex());
+            }
+        };
+        input.setId("input");
+        root.getChildren().add(table);
+        table.getChildren().add(column);
+        column.getChildren().add(input);
+
+        table.processDecodes(facesContext);
+        Assertions.assertEquals(Arrays.asList(3, 7), decodedRows);
+    }
+
+    @Test
+    public void testWindowedProcessingOfRenderedRows() throws Exception
+    {
+        servletContext.addInitParameter("org.apache.myfaces.DATA_WINDOWED_PROCESSING", "true");
+        // only the checked checkbox of the rendered rows is submitted
+        request.addParameter("table:3:checkbox", "true");
+        request.addParameter("table:8:checkbox", "true");
+
+        UIViewRoot root = facesContext.getViewRoot();
+        UIData table = new UIData();
+        table.setId("table");
+        table.setRendererType(null);
+        table.setValue(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+        table.setRows(8);
+        UIColumn column = new UIColumn();
+        List<Integer> decodedRows = new ArrayList<>();
+        UISelectBoolean checkbox = new UISelectBoolean()
+        {
+            @Override
+            public void processDecodes(FacesContext context)
+            {
+                decodedRows.add(table.getRowIndex());
+            }
+        };
+        checkbox.setId("checkbox");
+        root.getChildren().add(table);
+        table.getChildren().add(column);
+        column.getChildren().add(checkbox);
+
+        // renders the rows 2 to 5, the way the table renderer does
+        table.encodeBegin(facesContext);
+        for (int rowIndex = 2; rowIndex < 6; rowIndex++)
+        {
+            table.setRowIndex(rowIndex);
+        }
+        table.encodeEnd(facesContext);
+
+        table.processDecodes(facesContext);
+        Assertions.assertEquals(Arrays.asList(2, 3, 4, 5), decodedRows);
+    }
+
     private void _addColumn() {
         UIColumn uiColumn = new UIColumn();
         uiColumn.setId("testId");
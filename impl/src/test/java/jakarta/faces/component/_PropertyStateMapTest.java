@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package jakarta.faces.component;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class _PropertyStateMapTest
+{
+    enum FirstKeys
+    {
+        a,
+        b,
+        c
+    }
+
+    enum SecondKeys
+    {
+        x
+        {
+            @Override
+            public String toString()
+            {
+                return "x";
+            }
+        },
+        y
+    }
+
+    @Test
+    public void testEnumAndOtherKeys()
+    {
+        _PropertyStateMap map = new _PropertyStateMap();
+        Assertions.assertTrue(map.isEmpty());
+
+        Assertions.assertNull(map.put(FirstKeys.b, "b1"));
+        Assertions.assertEquals("b1", map.put(FirstKeys.b, "b2"));
+        map.put(FirstKeys.c, null);
+        map.put(SecondKeys.x, "x");
+        map.put("other", "o");
+
+        Assertions.assertEquals(4, map.size());
+        Assertions.assertEquals("b2", map.get(FirstKeys.b));
+        Assertions.assertTrue(map.containsKey(FirstKeys.c));
+        Assertions.assertNull(map.get(FirstKeys.c));
+        Assertions.assertFalse(map.containsKey(FirstKeys.a));
+        Assertions.assertFalse(map.containsKey(SecondKeys.y));
+        Assertions.assertEquals("x", map.get(SecondKeys.x));
+        Assertions.assertEquals("o", map.get("other"));
+
+        Map<Serializable, Object> expected = new HashMap<>();
+        expected.put(FirstKeys.b, "b2");
+        expected.put(FirstKeys.c, null);
+        expected.put(SecondKeys.x, "x");
+        expected.put("other", "o");
+        Assertions.assertEquals(expected, new HashMap<>(map));
+
+        Assertions.assertNull(map.remove(FirstKeys.c));
+        Assertions.assertFalse(map.containsKey(FirstKeys.c));
+        Assertions.assertEquals("x", map.remove(SecondKeys.x));
+        Assertions.assertEquals(2, map.size());
+
+        map.clear();
+        Assertions.assertTrue(map.isEmpty());
+        Assertions.assertNull(map.get(FirstKeys.b));
+        Assertions.assertFalse(map.entrySet().iterator().hasNext());
+    }
+}
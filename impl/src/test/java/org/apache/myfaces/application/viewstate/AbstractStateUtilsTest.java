@@ -24,6 +24,7 @@
 import org.apache.myfaces.test.base.junit.AbstractFacesTestCase;
 
 import java.io.Serializable;
+import java.io.StringWriter;
 import java.util.Arrays;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
@@ -84,6 +85,30 @@ public void testConstruction()
         Assertions.assertTrue(TEST_DATA.equals(object));
     }
 
+    @Test
+    public void testConstructionWriter() throws Exception
+    {
+        StringWriter writer = new StringWriter();
+        StateUtils.construct(TEST_DATA, externalContext, writer);
+        Assertions.assertEquals(StateUtils.construct(TEST_DATA, externalContext), writer.toString());
+        Assertions.assertEquals(TEST_DATA, StateUtils.reconstruct(writer.toString(), externalContext));
+    }
+
+    @Test
+    public void testConstructionCompressed()
+    {
+        servletContext.addInitParameter(StateUtils.COMPRESS_STATE_IN_CLIENT, "true");
+        Object[] state = new Object[] { TEST_DATA, new int[2048], null };
+
+        String constructed = StateUtils.construct(state, externalContext);
+        Assertions.assertArrayEquals(state, (Object[]) StateUtils.reconstruct(constructed, externalContext));
+        
+        servletContext.addInitParameter(StateUtils.STATE_COMPRESSOR, "deflate");
+        externalContext.getApplicationMap().remove(StateUtils.STATE_COMPRESSOR);
+        String deflated = StateUtils.construct(state, externalContext);
+        Assertions.assertArrayEquals(state, (Object[]) StateUtils.reconstruct(deflated, externalContext));
+    }
+
     @Test
     public void testSerialization()
     {
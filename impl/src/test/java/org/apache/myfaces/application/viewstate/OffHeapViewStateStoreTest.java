@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class OffHeapViewStateStoreTest
+{
+    private static byte[] bytes(int length, int seed)
+    {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+        {
+            bytes[i] = (byte) (i * 31 + seed);
+        }
+        return bytes;
+    }
+
+    @Test
+    public void testPutGetRemove() throws Exception
+    {
+        OffHeapViewStateStore store = new OffHeapViewStateStore(64 * 1024, 1024);
+
+        byte[] small = bytes(10, 1);
+        byte[] large = bytes(5000, 2);
+        byte[] empty = new byte[0];
+
+        OffHeapViewStateStore.Entry e1 = store.put(small);
+        OffHeapViewStateStore.Entry e2 = store.put(large);
+        OffHeapViewStateStore.Entry e3 = store.put(empty);
+
+        Assertions.assertArrayEquals(small, store.get(e1));
+        Assertions.assertArrayEquals(large, store.get(e2));
+        Assertions.assertArrayEquals(empty, store.get(e3));
+        Assertions.assertEquals(3, store.getEntryCount());
+        Assertions.assertEquals(7 * 1024, store.getUsedBytes());
+
+        store.remove(e2);
+        Assertions.assertNull(store.get(e2));
+        Assertions.assertEquals(2, store.getEntryCount());
+        Assertions.assertEquals(2 * 1024, store.getUsedBytes());
+
+        // the released blocks are reused
+        byte[] other = bytes(4096, 3);
+        OffHeapViewStateStore.Entry e4 = store.put(other);
+        Assertions.assertArrayEquals(other, store.get(e4));
+        Assertions.assertArrayEquals(small, store.get(e1));
+    }
+
+    @Test
+    public void testEviction() throws Exception
+    {
+        OffHeapViewStateStore store = new OffHeapViewStateStore(4 * 1024, 1024);
+
+        OffHeapViewStateStore.Entry e1 = store.put(bytes(1024, 1));
+        OffHeapViewStateStore.Entry e2 = store.put(bytes(1024, 2));
+        OffHeapViewStateStore.Entry e3 = store.put(bytes(2048, 3));
+
+        // e1 is now the most recently used one
+        Assertions.assertNotNull(store.get(e1));
+
+        OffHeapViewStateStore.Entry e4 = store.put(bytes(1500, 4));
+        Assertions.assertNull(store.get(e2));
+        Assertions.assertNull(store.get(e3));
+        Assertions.assertTrue(Arrays.equals(bytes(1024, 1), store.get(e1)));
+        Assertions.assertTrue(Arrays.equals(bytes(1500, 4), store.get(e4)));
+        Assertions.assertEquals(2, store.getEvictionCount());
+        Assertions.assertEquals(3 * 1024, store.getUsedBytes());
+
+        // larger than the whole store
+        Assertions.assertNull(store.put(bytes(5 * 1024, 5)));
+    }
+
+    @Test
+    public void testSegmentsAreReleased() throws Exception
+    {
+        // two blocks per segment, two segments
+        int blockSize = 32 * 1024 * 1024;
+        OffHeapViewStateStore store = new OffHeapViewStateStore(4L * blockSize, blockSize);
+        Assertions.assertEquals(0, store.getMappedSegmentCount());
+
+        OffHeapViewStateStore.Entry e1 = store.put(bytes(10, 1));
+        OffHeapViewStateStore.Entry e2 = store.put(bytes(10, 2));
+        Assertions.assertEquals(1, store.getMappedSegmentCount());
+        OffHeapViewStateStore.Entry e3 = store.put(bytes(10, 3));
+        Assertions.assertEquals(2, store.getMappedSegmentCount());
+
+        store.remove(e3);
+        Assertions.assertEquals(1, store.getMappedSegmentCount());
+        store.remove(e1);
+        Assertions.assertEquals(1, store.getMappedSegmentCount());
+        Assertions.assertArrayEquals(bytes(10, 2), store.get(e2));
+        store.remove(e2);
+        Assertions.assertEquals(0, store.getMappedSegmentCount());
+        Assertions.assertEquals(0, store.getUsedBytes());
+
+        OffHeapViewStateStore.Entry e4 = store.put(bytes(10, 4));
+        Assertions.assertArrayEquals(bytes(10, 4), store.get(e4));
+        Assertions.assertEquals(1, store.getMappedSegmentCount());
+
+        store.destroy();
+        Assertions.assertEquals(0, store.getMappedSegmentCount());
+        Assertions.assertEquals(0, store.getEntryCount());
+        Assertions.assertNull(store.get(e4));
+        Assertions.assertNull(store.put(bytes(10, 5)));
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception
+    {
+        // small enough that the threads evict the views of each other
+        OffHeapViewStateStore store = new OffHeapViewStateStore(64 * 1024, 1024);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++)
+            {
+                int thread = t;
+                futures.add(executor.submit(() ->
+                {
+                    for (int i = 0; i < 2000; i++)
+                    {
+                        byte[] view = bytes(500 + (i % 10) * 700, thread * 10000 + i);
+                        OffHeapViewStateStore.Entry entry = store.put(view);
+                        byte[] read = entry == null ? null : store.get(entry);
+                        // either evicted meanwhile or the view as written, never another one
+                        if (read != null)
+                        {
+                            Assertions.assertArrayEquals(view, read);
+                        }
+                        if (i % 3 == 0 && entry != null)
+                        {
+                            store.remove(entry);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures)
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        Assertions.assertTrue(store.getUsedBytes() <= store.getMaxSize());
+        store.destroy();
+    }
+}
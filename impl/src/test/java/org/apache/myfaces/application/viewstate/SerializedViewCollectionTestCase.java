@@ -266,4 +266,96 @@ public void testSerializedViewCollection6()
         
         Assertions.assertEquals(destroyed.get(), 5);
     }
+    
+    @Test
+    public void testSerializedViewCollectionConcurrentPut() throws Exception
+    {
+        servletContext.addInitParameter(MyfacesConfig.NUMBER_OF_VIEWS_IN_SESSION, "20");
+        servletContext.addInitParameter(MyfacesConfig.NUMBER_OF_SEQUENTIAL_VIEWS_IN_SESSION, "4");
+        
+        SerializedViewCollection collection = new SerializedViewCollection();
+        String viewId = "/test.xhtml";
+        
+        AtomicInteger destroyed = new AtomicInteger();
+        AtomicInteger counter = new AtomicInteger();
+        
+        // initialize MyfacesConfig before the threads use it
+        collection.put(facesContext, new Object[]{null,null,2}, 
+                new SerializedViewKeyIntInt(viewId.hashCode(), counter.incrementAndGet()), null, "1",
+                (id) -> destroyed.incrementAndGet());
+        
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++)
+        {
+            threads[i] = new Thread(() ->
+            {
+                for (int j = 0; j < 1000; j++)
+                {
+                    int id = counter.incrementAndGet();
+                    SerializedViewKey key = new SerializedViewKeyIntInt(viewId.hashCode(), id);
+                    SerializedViewKey previous = id % 3 == 0 
+                            ? new SerializedViewKeyIntInt(viewId.hashCode(), id - 1) : null;
+                    collection.put(facesContext, new Object[]{null,null,2}, key, previous, 
+                            String.valueOf(id), (vs) -> destroyed.incrementAndGet());
+                    collection.putLastWindowKey(facesContext, "window" + (id % 5), key);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        
+        // a put only evicts the views it added beyond the limit, but a sequential removal of another
+        // put can come after that eviction, so each thread can leave at most one view less
+        Assertions.assertTrue(collection.size() <= 20, "size " + collection.size());
+        Assertions.assertTrue(collection.size() >= 20 - threads.length, "size " + collection.size());
+        // every view scope is used by one view only, so each discarded view destroyed its view scope
+        Assertions.assertEquals(counter.get(), destroyed.get() + collection.size());
+        Assertions.assertEquals(counter.get(), collection.getStats().getPuts());
+        Assertions.assertEquals(destroyed.get(),
+                collection.getStats().getEvictions() + collection.getStats().getSequentialEvictions());
+        Assertions.assertNotNull(collection.getLastWindowKey(facesContext, "window1"));
+    }
+    
+    @Test
+    public void testDeltaSerializedViewCollection()
+    {
+        servletContext.addInitParameter(MyfacesConfig.NUMBER_OF_VIEWS_IN_SESSION, "3");
+        servletContext.addInitParameter(MyfacesConfig.NUMBER_OF_SEQUENTIAL_VIEWS_IN_SESSION, "0");
+        
+        SerializedViewCollection collection = new DeltaSerializedViewCollection(4);
+        String viewId = "/test.xhtml";
+        
+        byte[] state = new byte[4096];
+        new java.util.Random(1).nextBytes(state);
+        byte[][] states = new byte[10][];
+        SerializedViewKey[] keys = new SerializedViewKey[10];
+        for (int i = 0; i < 10; i++)
+        {
+            state = state.clone();
+            state[i * 100] ^= 0x55;
+            states[i] = state;
+            keys[i] = new SerializedViewKeyIntInt(viewId.hashCode(), i);
+            collection.put(facesContext, state, keys[i], i == 0 ? null : keys[i - 1], null, (id) -> {});
+            
+            Assertions.assertArrayEquals(state, (byte[]) collection.get(keys[i]));
+            // every 4th view is stored in full
+            if (i % 4 == 0)
+            {
+                Assertions.assertInstanceOf(byte[].class, collection.getStoredValue(keys[i]));
+            }
+            else
+            {
+                Assertions.assertInstanceOf(DeltaSerializedViewCollection.Delta.class,
+                        collection.getStoredValue(keys[i]));
+            }
+        }
+        
+        // the bases of the remaining views were discarded, but they can still be restored
+        Assertions.assertNull(collection.get(keys[6]));
+        Assertions.assertArrayEquals(states[7], (byte[]) collection.get(keys[7]));
+        Assertions.assertArrayEquals(states[9], (byte[]) collection.get(keys[9]));
+    }
 }
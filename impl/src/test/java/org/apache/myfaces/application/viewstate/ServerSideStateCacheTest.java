@@ -26,6 +26,7 @@
 import jakarta.faces.application.ProjectStage;
 import jakarta.faces.application.StateManager;
 
+import org.apache.myfaces.spi.impl.CompactSerialFactory;
 import org.apache.myfaces.test.base.junit.AbstractFacesConfigurableMultipleRequestsTestCase;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -109,6 +110,43 @@ public void testNumberOfSequentialViewsInSession() throws Exception
         }
     }
     
+    @Test
+    public void testSerializeStateInSessionWithCompactSerialFactory() throws Exception
+    {
+        servletContext.addInitParameter(StateManager.STATE_SAVING_METHOD_PARAM_NAME, StateManager.StateSavingMethod.SERVER.name());
+        servletContext.addInitParameter(StateManager.SERIALIZE_SERVER_STATE_PARAM_NAME, "true");
+        servletContext.setAttribute(StateUtils.SERIAL_FACTORY, new CompactSerialFactory());
+
+        // Initialization
+        setupRequest();
+        StateCache stateCache = new StateCacheServerSide();
+        tearDownRequest();
+
+        Object[] state = new Object[] { "value", 1, new Object[] { Boolean.TRUE, null } };
+        Object savedToken;
+        try
+        {
+            setupRequest();
+            facesContext.getViewRoot().setViewId("/view1.xhtml");
+            savedToken = stateCache.saveSerializedView(facesContext, state);
+        }
+        finally
+        {
+            tearDownRequest();
+        }
+
+        try
+        {
+            setupRequest();
+            Object value = stateCache.restoreSerializedView(facesContext, "/view1.xhtml", savedToken);
+            Assertions.assertArrayEquals(state, (Object[]) value);
+        }
+        finally
+        {
+            tearDownRequest();
+        }
+    }
+
     @Test
     public void testSaveRestoreStateWrongViewId() throws Exception
     {
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2004-2006 The Apache Software Foundation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * <p>This TestCase uses the Advanced Encryption Standard with
+ * Galois/Counter Mode, the state is authenticated by the cipher instead of a MAC.</p>
+ */
+public class StateUtilsAES_GCMTest extends AbstractStateUtilsTest
+{
+    @Override
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        super.setUp();
+
+        servletContext.addInitParameter(StateUtils.INIT_SECRET, BASE64_KEY_SIZE_16);
+        servletContext.addInitParameter(StateUtils.INIT_ALGORITHM, "AES");
+        servletContext.addInitParameter(StateUtils.INIT_ALGORITHM_PARAM, "GCM/NoPadding");
+        servletContext.addInitParameter(StateUtils.INIT_SECRET_KEY_CACHE, "false");
+        StateUtils.initSecret(servletContext);// should do nothing
+    }
+
+    /**
+     * Every state is encrypted with a new IV, so the streamed state can only be compared after decryption.
+     */
+    @Test
+    @Override
+    public void testConstructionWriter() throws Exception
+    {
+        StringWriter writer = new StringWriter();
+        StateUtils.construct(sensitiveString, externalContext, writer);
+        Assertions.assertNotEquals(StateUtils.construct(sensitiveString, externalContext), writer.toString());
+        Assertions.assertEquals(sensitiveString, StateUtils.reconstruct(writer.toString(), externalContext));
+    }
+
+    @Test
+    public void testTamperedState()
+    {
+        byte[] sensitiveBytes = sensitiveString.getBytes();
+        byte[] secure = StateUtils.encrypt(sensitiveBytes, externalContext);
+        Assertions.assertFalse(Arrays.equals(secure, StateUtils.encrypt(sensitiveBytes, externalContext)));
+
+        for (int i = 0; i < secure.length; i++)
+        {
+            byte[] tampered = secure.clone();
+            tampered[i] ^= 1;
+            Assertions.assertThrows(Exception.class, () -> StateUtils.decrypt(tampered, externalContext));
+        }
+        Assertions.assertArrayEquals(sensitiveBytes, StateUtils.decrypt(secure, externalContext));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.application.viewstate;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ViewStateDeltaTest
+{
+    private static byte[] randomBytes(Random random, int length)
+    {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void testIdentical()
+    {
+        byte[] base = randomBytes(new Random(1), 10000);
+        byte[] delta = ViewStateDelta.diff(base, base.clone());
+        Assertions.assertTrue(delta.length < 16, "delta length " + delta.length);
+        Assertions.assertArrayEquals(base, ViewStateDelta.patch(base, delta));
+    }
+
+    @Test
+    public void testSmallChanges()
+    {
+        Random random = new Random(2);
+        byte[] base = randomBytes(random, 20000);
+
+        // a few changed, inserted and removed bytes, like a serialized view where some inputs changed
+        byte[] target = new byte[base.length + 7];
+        System.arraycopy(base, 0, target, 0, 5000);
+        System.arraycopy(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10}, 0, target, 5000, 10);
+        System.arraycopy(base, 5003, target, 5010, base.length - 5003);
+        target[12000] ^= 0x55;
+        target[19000] ^= 0x55;
+
+        byte[] delta = ViewStateDelta.diff(base, target);
+        Assertions.assertTrue(delta.length < 100, "delta length " + delta.length);
+        Assertions.assertArrayEquals(target, ViewStateDelta.patch(base, delta));
+    }
+
+    @Test
+    public void testUnrelated()
+    {
+        Random random = new Random(3);
+        byte[] base = randomBytes(random, 3000);
+        byte[] target = randomBytes(random, 5000);
+        Assertions.assertArrayEquals(target, ViewStateDelta.patch(base, ViewStateDelta.diff(base, target)));
+    }
+
+    @Test
+    public void testShortArrays()
+    {
+        byte[] empty = new byte[0];
+        byte[] small = new byte[]{1, 2, 3};
+        byte[] large = randomBytes(new Random(4), 100);
+        Assertions.assertArrayEquals(empty, ViewStateDelta.patch(large, ViewStateDelta.diff(large, empty)));
+        Assertions.assertArrayEquals(small, ViewStateDelta.patch(large, ViewStateDelta.diff(large, small)));
+        Assertions.assertArrayEquals(large, ViewStateDelta.patch(small, ViewStateDelta.diff(small, large)));
+        Assertions.assertArrayEquals(large, ViewStateDelta.patch(empty, ViewStateDelta.diff(empty, large)));
+    }
+
+    @Test
+    public void testRandomEdits()
+    {
+        Random random = new Random(5);
+        byte[] base = randomBytes(random, 8192);
+        for (int i = 0; i < 200; i++)
+        {
+            byte[] target = base.clone();
+            for (int j = random.nextInt(20); j > 0; j--)
+            {
+                target[random.nextInt(target.length)] = (byte) random.nextInt();
+            }
+            int cut = random.nextInt(target.length);
+            byte[] shifted = new byte[target.length + 3];
+            System.arraycopy(target, 0, shifted, 0, cut);
+            System.arraycopy(target, cut, shifted, cut + 3, target.length - cut);
+            Assertions.assertArrayEquals(shifted, ViewStateDelta.patch(base, ViewStateDelta.diff(base, shifted)));
+            base = shifted;
+        }
+    }
+}
@@ -19,6 +19,7 @@
 package org.apache.myfaces.component.visit;
 
 import jakarta.faces.component.UIComponent;
+import jakarta.faces.component.UIPanel;
 import jakarta.faces.component.UIViewRoot;
 import jakarta.faces.component.html.HtmlForm;
 import jakarta.faces.component.html.HtmlInputText;
@@ -86,4 +87,52 @@ public VisitResult visit(VisitContext context, UIComponent target) {
 
         Assertions.assertTrue(processValidatorsOfInputInvoked.get());
     }
+
+    @Test
+    public void testSubtreesWithoutIdsToVisitAreSkippedWithIdIndex() {
+        servletContext.addInitParameter("org.apache.myfaces.VIEW_ROOT_ID_INDEX", "true");
+
+        UIViewRoot viewRoot = new UIViewRoot();
+        facesContext.setViewRoot(viewRoot);
+
+        HtmlForm form = new HtmlForm();
+        form.setId("form");
+        viewRoot.getChildren().add(form);
+
+        List<UIComponent> walkedComponents = new ArrayList<>();
+        for (String id : Arrays.asList("a", "b"))
+        {
+            UIPanel panel = new UIPanel();
+            panel.setId("panel_" + id);
+            form.getChildren().add(panel);
+
+            HtmlInputText inputText = new HtmlInputText()
+            {
+                @Override
+                public boolean visitTree(VisitContext context, VisitCallback callback)
+                {
+                    walkedComponents.add(this);
+                    return super.visitTree(context, callback);
+                }
+            };
+            inputText.setId(id);
+            panel.getChildren().add(inputText);
+        }
+
+        PartialVisitContext visitContext = new PartialVisitContext(facesContext, Arrays.asList("form:b"));
+
+        List<UIComponent> visitedComponents = new ArrayList<>();
+        viewRoot.visitTree(visitContext, new VisitCallback() {
+            @Override
+            public VisitResult visit(VisitContext context, UIComponent target) {
+                visitedComponents.add(target);
+                return VisitResult.REJECT;
+            }
+        });
+
+        UIComponent inputB = form.findComponent("b");
+        Assertions.assertEquals(Arrays.asList(inputB), visitedComponents);
+        // the panel of the input a is rejected, so the input a is not walked
+        Assertions.assertEquals(Arrays.asList(inputB), walkedComponents);
+    }
 }
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.core.api.shared;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+
+import jakarta.faces.model.ResultSetDataModel;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ChunkedResultSetDataModelTest
+{
+    @Test
+    public void testForwardOnlyResultSet()
+    {
+        InMemoryResultSet rows = new InMemoryResultSet(25, ResultSet.TYPE_FORWARD_ONLY);
+        ChunkedResultSetDataModel model = new ChunkedResultSetDataModel(rows.create(), 10, 20);
+
+        Assertions.assertEquals(-1, model.getRowCount());
+        Assertions.assertEquals(0, model.getRowData().get("ID"));
+        Assertions.assertEquals(10, rows.fetched);
+        Assertions.assertEquals("name0", model.getRowData().get("name"));
+
+        model.setRowIndex(12);
+        Assertions.assertEquals(12, model.getRowData().get("id"));
+        Assertions.assertEquals(20, rows.fetched);
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> model.getRowData().put("id", 1));
+
+        model.setRowIndex(25);
+        Assertions.assertFalse(model.isRowAvailable());
+        Assertions.assertEquals(25, model.getRowCount());
+
+        // rows 5 to 24 are kept
+        model.setRowIndex(5);
+        Assertions.assertEquals(5, model.getRowData().get("id"));
+        model.setRowIndex(4);
+        Assertions.assertThrows(IllegalStateException.class, () -> model.isRowAvailable());
+    }
+
+    @Test
+    public void testScrollableResultSet()
+    {
+        InMemoryResultSet rows = new InMemoryResultSet(25, ResultSet.TYPE_SCROLL_INSENSITIVE);
+        ChunkedResultSetDataModel model = new ChunkedResultSetDataModel(rows.create(), 10, 10);
+        model.setRowIndex(24);
+        Assertions.assertEquals(24, model.getRowData().get("id"));
+        model.setRowIndex(0);
+        Assertions.assertEquals(0, model.getRowData().get("id"));
+
+        Assertions.assertTrue(ChunkedResultSetDataModel.createDataModel(rows.create())
+                instanceof ResultSetDataModel);
+        Assertions.assertTrue(ChunkedResultSetDataModel.createDataModel(
+                new InMemoryResultSet(1, ResultSet.TYPE_FORWARD_ONLY).create()) instanceof ChunkedResultSetDataModel);
+    }
+
+    /**
+     * A ResultSet stand-in with the columns ID and NAME, which counts the fetched rows.
+     */
+    private static class InMemoryResultSet
+    {
+        private final int size;
+        private final int type;
+        private int cursor = -1;
+        private int fetched;
+
+        InMemoryResultSet(int size, int type)
+        {
+            this.size = size;
+            this.type = type;
+        }
+
+        ResultSet create()
+        {
+            ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { ResultSetMetaData.class }, (proxy, method, args) ->
+            {
+                switch (method.getName())
+                {
+                    case "getColumnCount":
+                        return 2;
+                    case "getColumnLabel":
+                    case "getColumnName":
+                        return (Integer) args[0] == 1 ? "ID" : "NAME";
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+            return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { ResultSet.class }, (proxy, method, args) ->
+            {
+                switch (method.getName())
+                {
+                    case "getType":
+                        return type;
+                    case "setFetchSize":
+                        return null;
+                    case "getMetaData":
+                        return metaData;
+                    case "next":
+                        cursor++;
+                        if (cursor < size)
+                        {
+                            fetched++;
+                            return true;
+                        }
+                        return false;
+                    case "absolute":
+                        cursor = (Integer) args[0] - 1;
+                        return cursor < size;
+                    case "beforeFirst":
+                        cursor = -1;
+                        return null;
+                    case "getObject":
+                        return (Integer) args[0] == 1 ? (Object) cursor : "name" + cursor;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+    }
+}
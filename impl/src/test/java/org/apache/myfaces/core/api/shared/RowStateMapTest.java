@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.core.api.shared;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RowStateMapTest
+{
+    @Test
+    public void testPutAndGet()
+    {
+        RowStateMap<String> map = new RowStateMap<>();
+        Assertions.assertTrue(map.isEmpty());
+        Assertions.assertNull(map.get("form:table", 0));
+
+        for (int i = -1; i < 5000; i++)
+        {
+            map.put("form:table", i, "row" + i);
+        }
+        map.put("form:outer:1:table", 3, "nested");
+        map.put("form:table", 7, "changed");
+
+        Assertions.assertFalse(map.isEmpty());
+        Assertions.assertEquals("row-1", map.get("form:table", -1));
+        Assertions.assertEquals("row4999", map.get("form:table", 4999));
+        Assertions.assertEquals("changed", map.get("form:table", 7));
+        Assertions.assertEquals("nested", map.get("form:outer:1:table", 3));
+        Assertions.assertNull(map.get("form:outer:0:table", 3));
+        Assertions.assertNull(map.get("form:table", 5000));
+
+        map.clear();
+        Assertions.assertTrue(map.isEmpty());
+        Assertions.assertNull(map.get("form:table", 7));
+    }
+
+    @Test
+    public void testSaveAndRestoreState()
+    {
+        RowStateMap<String> map = new RowStateMap<>();
+        map.put("form:table", 2, "a");
+        map.put("form:table", 100000, "b");
+        map.put("form:outer:1:table", -1, "c");
+
+        RowStateMap<String> restored = new RowStateMap<>();
+        restored.restoreState(map.saveState(), ':');
+        Assertions.assertEquals("a", restored.get("form:table", 2));
+        Assertions.assertEquals("b", restored.get("form:table", 100000));
+        Assertions.assertEquals("c", restored.get("form:outer:1:table", -1));
+
+        restored.restoreState(null, ':');
+        Assertions.assertTrue(restored.isEmpty());
+        Assertions.assertNull(new RowStateMap<String>().saveState());
+    }
+
+    @Test
+    public void testRestoreStateKeyedByClientId()
+    {
+        Map<String, String> state = new HashMap<>();
+        state.put("form:outer:1:table:12", "a");
+        state.put("form:table", "b");
+
+        RowStateMap<String> map = new RowStateMap<>();
+        map.restoreState(state, ':');
+        Assertions.assertEquals("a", map.get("form:outer:1:table", 12));
+        Assertions.assertEquals("b", map.get("form:table", -1));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.core.api.shared;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class StreamingDataModelTest
+{
+    @Test
+    public void testSupplierIsVisitedAgain()
+    {
+        AtomicInteger streams = new AtomicInteger();
+        Supplier<Stream<Integer>> supplier = () ->
+        {
+            streams.incrementAndGet();
+            return IntStream.range(0, 5).boxed();
+        };
+        StreamingDataModel<Integer> model = new StreamingDataModel<>(supplier);
+
+        Assertions.assertEquals(0, (int) model.getRowData());
+        Assertions.assertEquals(-1, model.getRowCount());
+        model.setRowIndex(3);
+        Assertions.assertEquals(3, (int) model.getRowData());
+        model.setRowIndex(5);
+        Assertions.assertFalse(model.isRowAvailable());
+        Assertions.assertEquals(5, model.getRowCount());
+        Assertions.assertEquals(1, streams.get());
+
+        model.setRowIndex(-1);
+        Assertions.assertFalse(model.isRowAvailable());
+        model.setRowIndex(1);
+        Assertions.assertEquals(1, (int) model.getRowData());
+        Assertions.assertEquals(2, streams.get());
+    }
+
+    @Test
+    public void testIteratorIsVisitedOnce()
+    {
+        StreamingDataModel<String> model = new StreamingDataModel<>(List.of("a", "b", "c").iterator());
+        model.setRowIndex(2);
+        Assertions.assertEquals("c", model.getRowData());
+        Assertions.assertThrows(IllegalStateException.class, () -> model.setRowIndex(0));
+    }
+
+    @Test
+    public void testFirstStreamThenSupplier()
+    {
+        StreamingDataModel<String> model = new StreamingDataModel<>(Stream.of("a", "b"), () -> Stream.of("c", "d"));
+        model.setRowIndex(1);
+        Assertions.assertEquals("b", model.getRowData());
+        model.setRowIndex(0);
+        Assertions.assertEquals("c", model.getRowData());
+
+        Stream<String> stream = Stream.of("e");
+        StreamingDataModel<String> sameStream = new StreamingDataModel<>(stream, () -> stream);
+        sameStream.setRowIndex(1);
+        Assertions.assertThrows(IllegalStateException.class, () -> sameStream.setRowIndex(0));
+    }
+}
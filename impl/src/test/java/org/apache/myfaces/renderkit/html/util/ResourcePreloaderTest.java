@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.renderkit.html.util;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import jakarta.faces.application.Resource;
+import jakarta.faces.application.ResourceHandlerWrapper;
+import jakarta.faces.component.UIOutput;
+import jakarta.faces.component.UIViewRoot;
+import jakarta.faces.context.FacesContext;
+
+import org.apache.myfaces.test.base.junit.AbstractFacesTestCase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ResourcePreloaderTest extends AbstractFacesTestCase
+{
+    @Test
+    public void testSendPreloadLinks() throws Exception
+    {
+        application.setResourceHandler(new TestResourceHandler());
+        UIViewRoot root = facesContext.getViewRoot();
+        root.setViewId("/test.xhtml");
+        root.setLocale(Locale.ENGLISH);
+        ResourcePreloader preloader = new ResourcePreloader();
+
+        preloader.sendPreloadLinks(facesContext, root);
+        Assertions.assertNull(response.getHeader(ResourcePreloader.LINK_HEADER));
+
+        preloader.setRenderedLinks(facesContext, root, Arrays.asList(
+                new ResourcePreloader.PreloadLink(null, "a.js", true),
+                new ResourcePreloader.PreloadLink("lib", "b.css", false),
+                new ResourcePreloader.PreloadLink(null, "missing.js", true)));
+        preloader.sendPreloadLinks(facesContext, root);
+        Assertions.assertEquals(Arrays.asList("</a.js>; rel=preload; as=script", "</lib/b.css>; rel=preload; as=style"),
+                new ArrayList<>(response.getHeaders(ResourcePreloader.LINK_HEADER)));
+    }
+
+    @Test
+    public void testRenderedLinksAreKeptByLocale() throws Exception
+    {
+        application.setResourceHandler(new TestResourceHandler());
+        UIViewRoot root = facesContext.getViewRoot();
+        root.setViewId("/test.xhtml");
+        root.setLocale(Locale.ENGLISH);
+        ResourcePreloader preloader = new ResourcePreloader();
+        preloader.setRenderedLinks(facesContext, root,
+                Collections.singletonList(new ResourcePreloader.PreloadLink(null, "a.js", true)));
+
+        root.setLocale(Locale.GERMAN);
+        preloader.sendPreloadLinks(facesContext, root);
+        Assertions.assertNull(response.getHeader(ResourcePreloader.LINK_HEADER));
+    }
+
+    @Test
+    public void testGetPreloadLinkOfOtherComponent()
+    {
+        UIOutput output = new UIOutput();
+        output.setRendererType("jakarta.faces.Text");
+        output.getAttributes().put(ComponentAttrs.NAME_ATTR, "a.js");
+        Assertions.assertNull(ResourcePreloader.getPreloadLink(output));
+    }
+
+    private static class TestResourceHandler extends ResourceHandlerWrapper
+    {
+        @Override
+        public Resource createResource(String resourceName)
+        {
+            return createResource(resourceName, null);
+        }
+
+        @Override
+        public Resource createResource(String resourceName, String libraryName)
+        {
+            if (resourceName.startsWith("missing"))
+            {
+                return null;
+            }
+            Resource resource = new Resource()
+            {
+                @Override
+                public InputStream getInputStream()
+                {
+                    return null;
+                }
+
+                @Override
+                public Map<String, String> getResponseHeaders()
+                {
+                    return Collections.emptyMap();
+                }
+
+                @Override
+                public String getRequestPath()
+                {
+                    return (getLibraryName() == null ? "" : '/' + getLibraryName()) + '/' + getResourceName();
+                }
+
+                @Override
+                public URL getURL()
+                {
+                    return null;
+                }
+
+                @Override
+                public boolean userAgentNeedsUpdate(FacesContext context)
+                {
+                    return true;
+                }
+            };
+            resource.setResourceName(resourceName);
+            resource.setLibraryName(libraryName);
+            return resource;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import jakarta.faces.application.Resource;
+import jakarta.faces.context.FacesContext;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ResourceCombinerTest
+{
+    @Test
+    public void testCombine() throws Exception
+    {
+        ResourceCombiner combiner = new ResourceCombiner();
+        Resource a = new TestResource("lib", "a.js", "var a = 1 // no line break");
+        Resource b = new TestResource(null, "b.js", "var b = 2;");
+
+        String resourceName = combiner.combine(Arrays.asList(a, b), ResourceCombiner.SCRIPT_EXTENSION);
+        Assertions.assertTrue(resourceName.endsWith(".js"));
+        Assertions.assertEquals(resourceName,
+                combiner.combine(Arrays.asList(a, b), ResourceCombiner.SCRIPT_EXTENSION));
+        Assertions.assertNotEquals(resourceName,
+                combiner.combine(Arrays.asList(b, a), ResourceCombiner.SCRIPT_EXTENSION));
+
+        Resource combined = combiner.createResource(resourceName, null);
+        Assertions.assertEquals(ResourceCombiner.LIBRARY_NAME, combined.getLibraryName());
+        Assertions.assertEquals("text/javascript", combined.getContentType());
+        try (InputStream in = combined.getInputStream())
+        {
+            Assertions.assertEquals("var a = 1 // no line break\n;\nvar b = 2;\n;\n",
+                    new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        Assertions.assertEquals('"' + resourceName.substring(0, resourceName.indexOf('.')) + '"',
+                combined.getResponseHeaders().get("ETag"));
+
+        Assertions.assertNull(combiner.createResource("unknown.js", null, (name, libraryName) -> null));
+    }
+
+    @Test
+    public void testCreateResourceCombinesAgain() throws Exception
+    {
+        Resource a = new TestResource("lib", "a.js", "var a = 1;");
+        Resource b = new TestResource(null, "b.js", "var b = 2;");
+        Map<String, Resource> resources = new HashMap<>();
+        resources.put("lib:a.js", a);
+        resources.put("b.js", b);
+        BiFunction<String, String, Resource> resourceFactory =
+                (name, libraryName) -> resources.get(libraryName == null ? name : libraryName + ':' + name);
+
+        String resourceName = new ResourceCombiner().combine(Arrays.asList(a, b),
+                ResourceCombiner.SCRIPT_EXTENSION);
+
+        // another instance of the application, which did not render the page
+        ResourceCombiner combiner = new ResourceCombiner();
+        Resource combined = combiner.createResource(resourceName, null, resourceFactory);
+        Assertions.assertNotNull(combined);
+        try (InputStream in = combined.getInputStream())
+        {
+            Assertions.assertEquals("var a = 1;\n;\nvar b = 2;\n;\n",
+                    new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        // the content changed since the name was created
+        resources.put("b.js", new TestResource(null, "b.js", "var b = 3;"));
+        Assertions.assertNull(new ResourceCombiner().createResource(resourceName, null, resourceFactory));
+
+        // only scripts are combined, and the ids are validated
+        resources.put("lib:a.xhtml", new TestResource("lib", "a.xhtml", "<html/>"));
+        String version = resourceName.substring(0, resourceName.indexOf('.'));
+        Assertions.assertNull(combiner.createResource(version + '.' + encode("lib:a.xhtml\nb.js") + ".js", null,
+                resourceFactory));
+        Assertions.assertNull(combiner.createResource(version + '.' + encode("../a.js\nb.js") + ".js", null,
+                resourceFactory));
+        Assertions.assertNull(combiner.createResource(version + ".not-base64!.js", null, resourceFactory));
+    }
+
+    @Test
+    public void testCreateResourceAfterEviction() throws Exception
+    {
+        Resource a = new TestResource("lib", "a.js", "var a = 1;");
+        Resource b = new TestResource(null, "b.js", "var b = 2;");
+        Map<String, Resource> resources = new HashMap<>();
+        resources.put("lib:a.js", a);
+        resources.put("b.js", b);
+        int[] created = new int[1];
+        BiFunction<String, String, Resource> resourceFactory = (name, libraryName) ->
+        {
+            created[0]++;
+            return resources.get(libraryName == null ? name : libraryName + ':' + name);
+        };
+
+        ResourceCombiner combiner = new ResourceCombiner();
+        String resourceName = combiner.combine(Arrays.asList(a, b), ResourceCombiner.SCRIPT_EXTENSION);
+        for (int i = 0; i < 1000; i++)
+        {
+            combiner.combine(Collections.singletonList(new TestResource(null, "c" + i + ".js", "var c = " + i + ';')),
+                    ResourceCombiner.SCRIPT_EXTENSION);
+        }
+
+        Resource combined = combiner.createResource(resourceName, null, resourceFactory);
+        Assertions.assertNotNull(combined);
+        Assertions.assertEquals(2, created[0]);
+        try (InputStream in = combined.getInputStream())
+        {
+            Assertions.assertEquals("var a = 1;\n;\nvar b = 2;\n;\n",
+                    new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testCreateResourceOfLocalizedResources() throws Exception
+    {
+        Resource a = new TestResource("lib", "a.js", "var a = 1;");
+        String resourceName = new ResourceCombiner().combine(Collections.singletonList(a),
+                ResourceCombiner.SCRIPT_EXTENSION);
+
+        // the request for the combined resource has no locale or contract
+        ResourceImpl localized = new ResourceImpl(new ResourceMetaImpl("de", "lib", null, "a.js", null),
+                null, null, "text/javascript");
+        Assertions.assertFalse(ResourceCombiner.isCreatedFromName(localized));
+        Assertions.assertNull(new ResourceCombiner().createResource(resourceName, null,
+                (name, libraryName) -> localized));
+
+        ResourceImpl contract = new ResourceImpl(new ResourceMetaImpl(null, "lib", null, "a.js", null, "dark"),
+                null, null, "text/javascript");
+        Assertions.assertFalse(ResourceCombiner.isCreatedFromName(contract));
+        Assertions.assertNull(new ResourceCombiner().createResource(resourceName, null,
+                (name, libraryName) -> contract));
+
+        Assertions.assertTrue(ResourceCombiner.isCreatedFromName(new ResourceImpl(
+                new ResourceMetaImpl(null, "lib", null, "a.js", null), null, null, "text/javascript")));
+    }
+
+    private static String encode(String ids)
+    {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(ids.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testIsCombinableStylesheet()
+    {
+        ResourceCombiner combiner = new ResourceCombiner();
+        Assertions.assertTrue(combiner.isCombinableStylesheet(new TestResource(null, "a.css",
+                "a { background: url(/ctx/jakarta.faces.resource/a.png?ln=lib) } b { background: url('data:x') }")));
+        Assertions.assertTrue(combiner.isCombinableStylesheet(new TestResource(null, "b.css",
+                "a { background: url(\"https://example.org/a.png\") }")));
+        Assertions.assertFalse(combiner.isCombinableStylesheet(new TestResource(null, "c.css",
+                "a { background: url(images/a.png) }")));
+        Assertions.assertFalse(combiner.isCombinableStylesheet(new TestResource(null, "d.css",
+                "@import 'other.css';")));
+    }
+
+    private static class TestResource extends Resource
+    {
+        private final String content;
+
+        TestResource(String libraryName, String resourceName, String content)
+        {
+            this.content = content;
+            setLibraryName(libraryName);
+            setResourceName(resourceName);
+            if (resourceName.endsWith(".js"))
+            {
+                setContentType("text/javascript");
+            }
+            else if (resourceName.endsWith(".css"))
+            {
+                setContentType("text/css");
+            }
+            else
+            {
+                setContentType("application/xhtml+xml");
+            }
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException
+        {
+            return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public Map<String, String> getResponseHeaders()
+        {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public String getRequestPath()
+        {
+            return '/' + getResourceName() + (getLibraryName() == null ? "" : "?ln=" + getLibraryName());
+        }
+
+        @Override
+        public URL getURL()
+        {
+            return null;
+        }
+
+        @Override
+        public boolean userAgentNeedsUpdate(FacesContext context)
+        {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.resource.ResourceHandlerCache.ResourceKey;
+import org.apache.myfaces.test.base.junit.AbstractFacesTestCase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ResourceHandlerCacheTest extends AbstractFacesTestCase
+{
+    @Test
+    public void testResourceContentCacheSize() throws Exception
+    {
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_HANDLER_CONTENT_CACHE_SIZE, "100");
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_HANDLER_CONTENT_CACHE_MAX_ENTRY_SIZE, "60");
+
+        ResourceHandlerCache cache = new ResourceHandlerCache();
+        Assertions.assertTrue(cache.isResourceContentCacheEnabled());
+        Assertions.assertEquals(60, cache.getResourceContentCacheMaxEntrySize());
+
+        ResourceKey a = new ResourceKey("a.css", "lib", "text/css", null);
+        ResourceKey b = new ResourceKey("b.css", "lib", "text/css", null);
+        ResourceKey c = new ResourceKey("c.css", "lib", "text/css", null);
+        ResourceKey d = new ResourceKey("d.css", "lib", "text/css", null);
+
+        ResourceContent content = new ResourceContent(new byte[50]);
+        cache.putResourceContent(a, content);
+        Assertions.assertSame(content, cache.getResourceContent(new ResourceKey("a.css", "lib", "text/css", null)));
+
+        // bigger than the maximum entry size
+        cache.putResourceContent(b, new ResourceContent(new byte[70]));
+        Assertions.assertNull(cache.getResourceContent(b));
+
+        cache.putResourceContent(c, new ResourceContent(new byte[50]));
+        Assertions.assertNotNull(cache.getResourceContent(c));
+
+        // the cache is full
+        cache.putResourceContent(d, new ResourceContent(new byte[10]));
+        Assertions.assertNull(cache.getResourceContent(d));
+
+        // replacing a content frees its size
+        cache.putResourceContent(a, new ResourceContent(new byte[40]));
+        cache.putResourceContent(d, new ResourceContent(new byte[10]));
+        Assertions.assertNotNull(cache.getResourceContent(d));
+        Assertions.assertEquals(40, cache.getResourceContent(a).getLength());
+    }
+
+    @Test
+    public void testResourceContentCacheSizeWithGzip() throws Exception
+    {
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_HANDLER_CONTENT_CACHE_SIZE, "100");
+
+        ResourceHandlerCache cache = new ResourceHandlerCache();
+        ResourceKey a = new ResourceKey("a.js", "lib", "text/javascript", null);
+        ResourceKey b = new ResourceKey("b.js", "lib", "text/javascript", null);
+
+        // the gzip variant counts in the size of the cache
+        ResourceContent content = new ResourceContent(new byte[50], new ResourceContent(new byte[20]));
+        Assertions.assertEquals(50, content.getLength());
+        Assertions.assertEquals(70, content.getSize());
+        cache.putResourceContent(a, content);
+        Assertions.assertEquals(20, cache.getResourceContent(a).getGzipContent().getLength());
+
+        cache.putResourceContent(b, new ResourceContent(new byte[40]));
+        Assertions.assertNull(cache.getResourceContent(b));
+    }
+
+    @Test
+    public void testResourceContentCacheDisabled() throws Exception
+    {
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_HANDLER_CONTENT_CACHE_SIZE, "0");
+
+        ResourceHandlerCache cache = new ResourceHandlerCache();
+        Assertions.assertFalse(cache.isResourceContentCacheEnabled());
+        Assertions.assertEquals(0, cache.getResourceContentCacheMaxEntrySize());
+
+        ResourceKey a = new ResourceKey("a.css", "lib", "text/css", null);
+        cache.putResourceContent(a, new ResourceContent(new byte[50]));
+        Assertions.assertNull(cache.getResourceContent(a));
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import jakarta.faces.application.ResourceHandler;
+import jakarta.faces.context.FacesContext;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.apache.myfaces.test.base.junit.AbstractFacesTestCase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+public class ResourceImplTest extends AbstractFacesTestCase
+{
+    private static final String SCRIPT = "var a = 1;";
+
+    @TempDir
+    Path resourcesDir;
+
+    @Override
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        request.setPathElements("/ctx", "/faces", "/test.xhtml", null);
+
+        ResourceHandler resourceHandler = Mockito.mock(ResourceHandler.class);
+        Mockito.when(resourceHandler.isResourceRequest(Mockito.any())).thenReturn(true);
+        application.setResourceHandler(resourceHandler);
+    }
+
+    @Test
+    public void testContentHashUrl() throws Exception
+    {
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_HANDLER_CONTENT_HASH_URLS, "true");
+
+        String hash = ResourceLoaderUtils.getContentHash(
+                new ByteArrayInputStream(SCRIPT.getBytes(StandardCharsets.UTF_8)));
+        ResourceImpl resource = createResource("a.js", "text/javascript", SCRIPT);
+        Assertions.assertTrue(resource.getRequestPath().endsWith("a.js?ln=lib&v=" + hash),
+                resource.getRequestPath());
+        Assertions.assertEquals('"' + hash + '"', resource.getResponseHeaders().get("ETag"));
+    }
+
+    @Test
+    public void testContentHashUrlDisabled() throws Exception
+    {
+        ResourceImpl resource = createResource("a.js", "text/javascript", SCRIPT);
+        Assertions.assertTrue(resource.getRequestPath().endsWith("a.js?ln=lib"), resource.getRequestPath());
+    }
+
+    @Test
+    public void testContentHashUrlOfResourceWithValueExpressions() throws Exception
+    {
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_HANDLER_CONTENT_HASH_URLS, "true");
+
+        // the content is not evaluated to build the url
+        ResourceImpl resource = createResource("a.css", "text/css",
+                "a { background: url(#{resource['lib:a.css']}) }");
+        Assertions.assertTrue(resource.getRequestPath().endsWith("a.css?ln=lib"), resource.getRequestPath());
+    }
+
+    @Test
+    public void testImmutableCacheControl() throws Exception
+    {
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_HANDLER_CONTENT_HASH_URLS, "true");
+
+        ResourceImpl resource = createResource("a.js", "text/javascript", SCRIPT);
+        request.addParameter(ResourceImpl.CONTENT_HASH_PARAM, resource.getContentHash(facesContext));
+        Assertions.assertEquals("max-age=31536000, immutable", resource.getResponseHeaders().get("Cache-Control"));
+    }
+
+    @Test
+    public void testNotImmutableWithOtherContentHash() throws Exception
+    {
+        servletContext.addInitParameter(MyfacesConfig.RESOURCE_HANDLER_CONTENT_HASH_URLS, "true");
+
+        // the url of a previous version of the resource
+        ResourceImpl resource = createResource("a.js", "text/javascript", SCRIPT);
+        request.addParameter(ResourceImpl.CONTENT_HASH_PARAM, "previous");
+        Assertions.assertEquals("max-age=604800", resource.getResponseHeaders().get("Cache-Control"));
+    }
+
+    @Test
+    public void testNotImmutableWithoutContentHashUrls() throws Exception
+    {
+        ResourceImpl resource = createResource("a.js", "text/javascript", SCRIPT);
+        request.addParameter(ResourceImpl.CONTENT_HASH_PARAM, resource.getContentHash(facesContext));
+        Assertions.assertEquals("max-age=604800", resource.getResponseHeaders().get("Cache-Control"));
+    }
+
+    private ResourceImpl createResource(String resourceName, String contentType, String content)
+            throws IOException
+    {
+        Path file = resourcesDir.resolve(resourceName);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return new ResourceImpl(new ResourceMetaImpl(null, "lib", null, resourceName, null),
+                new FileResourceLoader(file), new TestResourceHandlerSupport(), contentType);
+    }
+
+    private static class FileResourceLoader extends ResourceLoader
+    {
+        private final Path file;
+
+        FileResourceLoader(Path file)
+        {
+            super("/resources");
+            this.file = file;
+        }
+
+        @Override
+        public String getResourceVersion(String path)
+        {
+            return null;
+        }
+
+        @Override
+        public String getLibraryVersion(String path)
+        {
+            return null;
+        }
+
+        @Override
+        public URL getResourceURL(ResourceMeta resourceMeta)
+        {
+            try
+            {
+                return file.toUri().toURL();
+            }
+            catch (MalformedURLException e)
+            {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public InputStream getResourceInputStream(ResourceMeta resourceMeta)
+        {
+            try
+            {
+                return Files.newInputStream(file);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public ResourceMeta createResourceMeta(String prefix, String libraryName, String libraryVersion,
+                String resourceName, String resourceVersion)
+        {
+            return new ResourceMetaImpl(prefix, libraryName, libraryVersion, resourceName, resourceVersion);
+        }
+
+        @Override
+        public boolean libraryExists(String libraryName)
+        {
+            return true;
+        }
+    }
+
+    private static class TestResourceHandlerSupport extends ResourceHandlerSupport
+    {
+        @Override
+        public String calculateResourceBasePath(FacesContext facesContext)
+        {
+            return null;
+        }
+
+        @Override
+        public ResourceLoader[] getResourceLoaders()
+        {
+            return new ResourceLoader[0];
+        }
+
+        @Override
+        public ContractResourceLoader[] getContractResourceLoaders()
+        {
+            return new ContractResourceLoader[0];
+        }
+
+        @Override
+        public ResourceLoader[] getViewResourceLoaders()
+        {
+            return new ResourceLoader[0];
+        }
+
+        @Override
+        public long getStartupTime()
+        {
+            return 0;
+        }
+
+        @Override
+        public long getMaxTimeExpires()
+        {
+            return 604800000L;
+        }
+    }
+}
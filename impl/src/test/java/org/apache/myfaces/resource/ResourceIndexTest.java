@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ResourceIndexTest
+{
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testIndex()
+    {
+        ResourceIndex index = new ResourceIndex();
+        index.addFile("lib/1_0/script.js");
+        index.addFile("lib/1_1/script.js/2_0.js");
+        index.addDirectory("empty");
+
+        Assertions.assertTrue(index.contains("lib"));
+        Assertions.assertTrue(index.contains("/lib/1_0/"));
+        Assertions.assertTrue(index.containsFile("lib/1_0/script.js"));
+        Assertions.assertFalse(index.containsFile("lib/1_1/script.js"));
+        Assertions.assertTrue(index.contains("lib/1_1/script.js"));
+        Assertions.assertFalse(index.contains("other"));
+
+        Assertions.assertEquals(Set.of("1_0/", "1_1/"), index.getChildren("lib"));
+        Assertions.assertEquals(Set.of("lib/", "empty/"), index.getChildren(""));
+        Assertions.assertTrue(index.getChildren("empty").isEmpty());
+        Assertions.assertNull(index.getChildren("lib/1_0/script.js"));
+    }
+
+    @Test
+    public void testCreateFromClassLoader() throws Exception
+    {
+        Path directory = tempDir.resolve("classes");
+        Files.createDirectories(directory.resolve("META-INF/resources/css"));
+        Files.writeString(directory.resolve("META-INF/resources/css/style.css"), "");
+
+        Path jar = tempDir.resolve("lib.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar), new Manifest()))
+        {
+            // no directory entries, the jar is found by its manifest
+            out.putNextEntry(new JarEntry("META-INF/resources/lib/2_0/script.js"));
+            out.closeEntry();
+            out.putNextEntry(new JarEntry("META-INF/other/ignored.js"));
+            out.closeEntry();
+        }
+
+        try (URLClassLoader classLoader = new URLClassLoader(
+                new URL[] { directory.toUri().toURL(), jar.toUri().toURL() }, null))
+        {
+            ResourceIndex index = ResourceIndex.create("META-INF/resources", classLoader);
+            Assertions.assertNotNull(index);
+            Assertions.assertTrue(index.containsFile("css/style.css"));
+            Assertions.assertTrue(index.containsFile("lib/2_0/script.js"));
+            Assertions.assertEquals(Set.of("2_0/"), index.getChildren("lib"));
+            Assertions.assertFalse(index.contains("ignored.js"));
+        }
+    }
+
+    @Test
+    public void testCreateWithUnsupportedUrl() throws Exception
+    {
+        ClassLoader classLoader = new ClassLoader(null)
+        {
+            @Override
+            protected Enumeration<URL> findResources(String name)
+            {
+                try
+                {
+                    return Collections.enumeration(List.of(new URL("http://example.org/META-INF/resources")));
+                }
+                catch (MalformedURLException e)
+                {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        Assertions.assertNull(ResourceIndex.create("META-INF/resources", classLoader));
+    }
+}
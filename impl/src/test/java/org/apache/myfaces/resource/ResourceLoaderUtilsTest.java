@@ -18,6 +18,9 @@
  */
 package org.apache.myfaces.resource;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -44,4 +47,51 @@ public void testParseDateHeader()
                 ResourceLoaderUtils.parseDateHeader("Tue, 16 Jul 2019 08:29:38 GMT"),
                 2000);
     }
+
+    @Test
+    public void testGetContentHash() throws Exception
+    {
+        String hash = ResourceLoaderUtils.getContentHash(
+                new ByteArrayInputStream("body { color: red; }".getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertEquals(22, hash.length());
+        Assertions.assertEquals(hash, ResourceLoaderUtils.getContentHash(
+                new ByteArrayInputStream("body { color: red; }".getBytes(StandardCharsets.UTF_8))));
+        Assertions.assertNotEquals(hash, ResourceLoaderUtils.getContentHash(
+                new ByteArrayInputStream("body { color: blue; }".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void testIsETagMatch()
+    {
+        String eTag = "\"abc\"";
+        Assertions.assertEquals("\"abc-gzip\"", ResourceLoaderUtils.getGzipETag(eTag));
+
+        Assertions.assertTrue(ResourceLoaderUtils.isETagMatch("\"abc\"", eTag));
+        Assertions.assertTrue(ResourceLoaderUtils.isETagMatch("W/\"abc\"", eTag));
+        Assertions.assertTrue(ResourceLoaderUtils.isETagMatch("\"xyz\", \"abc-gzip\"", eTag));
+        Assertions.assertTrue(ResourceLoaderUtils.isETagMatch("*", eTag));
+        Assertions.assertFalse(ResourceLoaderUtils.isETagMatch("\"xyz\"", eTag));
+        Assertions.assertFalse(ResourceLoaderUtils.isETagMatch("abc", eTag));
+    }
+
+    @Test
+    public void testGetByteRange()
+    {
+        Assertions.assertArrayEquals(new long[] { 0, 99 }, ResourceLoaderUtils.getByteRange("bytes=0-99", 1000));
+        Assertions.assertArrayEquals(new long[] { 500, 999 }, ResourceLoaderUtils.getByteRange("bytes=500-", 1000));
+        Assertions.assertArrayEquals(new long[] { 900, 999 }, ResourceLoaderUtils.getByteRange("bytes=-100", 1000));
+        Assertions.assertArrayEquals(new long[] { 0, 999 }, ResourceLoaderUtils.getByteRange("bytes=-2000", 1000));
+        Assertions.assertArrayEquals(new long[] { 990, 999 }, ResourceLoaderUtils.getByteRange("bytes=990-2000", 1000));
+
+        // not satisfiable
+        Assertions.assertEquals(0, ResourceLoaderUtils.getByteRange("bytes=1000-", 1000).length);
+        Assertions.assertEquals(0, ResourceLoaderUtils.getByteRange("bytes=-0", 1000).length);
+
+        // ignored
+        Assertions.assertNull(ResourceLoaderUtils.getByteRange(null, 1000));
+        Assertions.assertNull(ResourceLoaderUtils.getByteRange("bytes=0-9,20-29", 1000));
+        Assertions.assertNull(ResourceLoaderUtils.getByteRange("bytes=9-0", 1000));
+        Assertions.assertNull(ResourceLoaderUtils.getByteRange("bytes=a-b", 1000));
+        Assertions.assertNull(ResourceLoaderUtils.getByteRange("items=0-9", 1000));
+    }
 }
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import jakarta.faces.application.ResourceHandler;
+
+import org.apache.myfaces.test.base.junit.AbstractFacesTestCase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class ValueExpressionContentCacheTest extends AbstractFacesTestCase
+{
+    private static final String STYLESHEET = "a { color: #{bean.color} }";
+
+    private ColorBean bean;
+
+    @Override
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        request.setPathElements("/ctx", "/test.xhtml", null, null);
+
+        ResourceHandler resourceHandler = Mockito.mock(ResourceHandler.class);
+        Mockito.when(resourceHandler.isResourceRequest(Mockito.any())).thenReturn(true);
+        application.setResourceHandler(resourceHandler);
+
+        bean = new ColorBean();
+        externalContext.getRequestMap().put("bean", bean);
+    }
+
+    @Test
+    public void testContentIsCached() throws Exception
+    {
+        ValueExpressionContentCache cache = new ValueExpressionContentCache(-1, 10, 1000);
+        CountingResourceLoader loader = new CountingResourceLoader(STYLESHEET);
+        ResourceImpl resource = createResource(loader);
+
+        Assertions.assertEquals("a { color: red }", read(cache, resource));
+
+        // the expressions are not evaluated again
+        bean.color = "blue";
+        Assertions.assertEquals("a { color: red }", read(cache, resource));
+        Assertions.assertEquals(1, loader.reads);
+        Assertions.assertEquals(ResourceLoaderUtils.getContentHash(new ByteArrayInputStream(
+                "a { color: red }".getBytes(StandardCharsets.UTF_8))), cache.getContentHash(facesContext, resource));
+        Assertions.assertEquals(1, loader.reads);
+    }
+
+    @Test
+    public void testFailedEvaluationIsNotCached() throws Exception
+    {
+        ValueExpressionContentCache cache = new ValueExpressionContentCache(-1, 10, 1000);
+        CountingResourceLoader loader = new CountingResourceLoader("a { color: #{bean.failing} }");
+        ResourceImpl resource = createResource(loader);
+
+        Assertions.assertEquals("a { color: #{bean.failing} }", read(cache, resource));
+        Assertions.assertEquals("a { color: #{bean.failing} }", read(cache, resource));
+        Assertions.assertEquals(2, loader.reads);
+    }
+
+    @Test
+    public void testContentBiggerThanMaxEntrySizeIsNotCached() throws Exception
+    {
+        ValueExpressionContentCache cache = new ValueExpressionContentCache(-1, 10, 10);
+        CountingResourceLoader loader = new CountingResourceLoader(STYLESHEET);
+        ResourceImpl resource = createResource(loader);
+
+        Assertions.assertEquals("a { color: red }", read(cache, resource));
+        bean.color = "blue";
+        Assertions.assertEquals("a { color: blue }", read(cache, resource));
+        Assertions.assertEquals(2, loader.reads);
+    }
+
+    @Test
+    public void testContentExpires() throws Exception
+    {
+        ValueExpressionContentCache cache = new ValueExpressionContentCache(1, 10, 1000);
+        CountingResourceLoader loader = new CountingResourceLoader(STYLESHEET);
+        ResourceImpl resource = createResource(loader);
+
+        Assertions.assertEquals("a { color: red }", read(cache, resource));
+        bean.color = "blue";
+        Assertions.assertEquals("a { color: red }", read(cache, resource));
+
+        Thread.sleep(1100);
+        Assertions.assertEquals("a { color: blue }", read(cache, resource));
+        Assertions.assertEquals(2, loader.reads);
+    }
+
+    @Test
+    public void testNothingIsCachedWithoutRefreshPeriod() throws Exception
+    {
+        ValueExpressionContentCache cache = new ValueExpressionContentCache(0, 10, 1000);
+        CountingResourceLoader loader = new CountingResourceLoader(STYLESHEET);
+        ResourceImpl resource = createResource(loader);
+
+        read(cache, resource);
+        read(cache, resource);
+        Assertions.assertEquals(2, loader.reads);
+    }
+
+    @Test
+    public void testContentIsCachedByServletMapping() throws Exception
+    {
+        ValueExpressionContentCache cache = new ValueExpressionContentCache(-1, 10, 1000);
+        CountingResourceLoader loader = new CountingResourceLoader(STYLESHEET);
+        ResourceImpl resource = createResource(loader);
+
+        read(cache, resource);
+
+        // a request through another mapping of the Faces servlet
+        facesContext.getAttributes().clear();
+        request.setPathElements("/ctx", "/test.jsf", null, null);
+        read(cache, resource);
+        read(cache, resource);
+        Assertions.assertEquals(2, loader.reads);
+    }
+
+    private String read(ValueExpressionContentCache cache, ResourceImpl resource) throws IOException
+    {
+        try (InputStream in = cache.getInputStream(facesContext, resource))
+        {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static ResourceImpl createResource(ResourceLoader loader)
+    {
+        return new ResourceImpl(new ResourceMetaImpl(null, "lib", null, "a.css", null), loader, null, "text/css");
+    }
+
+    public static class ColorBean
+    {
+        private String color = "red";
+
+        public String getColor()
+        {
+            return color;
+        }
+
+        public String getFailing()
+        {
+            throw new IllegalStateException("failing");
+        }
+    }
+
+    private static class CountingResourceLoader extends ResourceLoader
+    {
+        private final String content;
+        private int reads;
+
+        CountingResourceLoader(String content)
+        {
+            super("/resources");
+            this.content = content;
+        }
+
+        @Override
+        public String getResourceVersion(String path)
+        {
+            return null;
+        }
+
+        @Override
+        public String getLibraryVersion(String path)
+        {
+            return null;
+        }
+
+        @Override
+        public URL getResourceURL(ResourceMeta resourceMeta)
+        {
+            return null;
+        }
+
+        @Override
+        public InputStream getResourceInputStream(ResourceMeta resourceMeta)
+        {
+            reads++;
+            return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public ResourceMeta createResourceMeta(String prefix, String libraryName, String libraryVersion,
+                String resourceName, String resourceVersion)
+        {
+            return new ResourceMetaImpl(prefix, libraryName, libraryVersion, resourceName, resourceVersion);
+        }
+
+        @Override
+        public boolean libraryExists(String libraryName)
+        {
+            return true;
+        }
+    }
+}
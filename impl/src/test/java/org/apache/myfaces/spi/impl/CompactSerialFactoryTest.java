@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.spi.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CompactSerialFactoryTest
+{
+    enum PropertyKeys
+    {
+        value,
+        required
+        {
+            @Override
+            public String toString()
+            {
+                return "required";
+            }
+        }
+    }
+
+    private final CompactSerialFactory serialFactory = new CompactSerialFactory();
+
+    private Object roundTrip(Object object) throws Exception
+    {
+        return serialFactory.toObject(serialFactory.toByteArray(object));
+    }
+
+    @Test
+    public void testPrimitives() throws Exception
+    {
+        Object[] values = new Object[] { null, Boolean.TRUE, Boolean.FALSE, 0, -1, Integer.MAX_VALUE,
+            Integer.MIN_VALUE, Long.MIN_VALUE, 123456789012L, (short) -5, (byte) 7, 'x', '\u20ac',
+            1.5f, Double.NaN, -0.25d, "", "abc", "\u00e4\u00f6 \u20ac \ud83d\ude00" };
+        Object[] result = (Object[]) roundTrip(values);
+        Assertions.assertArrayEquals(values, result);
+        for (int i = 0; i < values.length; i++)
+        {
+            if (values[i] != null)
+            {
+                Assertions.assertEquals(values[i].getClass(), result[i].getClass());
+            }
+        }
+    }
+
+    @Test
+    public void testComponentState() throws Exception
+    {
+        Map<Object, Object> attributes = new HashMap<>();
+        attributes.put("styleClass", "input");
+        attributes.put(PropertyKeys.required, Boolean.TRUE);
+
+        List<Object> list = new ArrayList<>();
+        list.add("a");
+        list.add(null);
+        list.add(PropertyKeys.value);
+
+        Object[] state = new Object[] {
+            new Object[] { PropertyKeys.value, "text", PropertyKeys.required, Boolean.TRUE },
+            attributes,
+            list,
+            new Object[0],
+            String.class,
+            PropertyKeys.value
+        };
+
+        Object[] result = (Object[]) roundTrip(state);
+        Assertions.assertArrayEquals((Object[]) state[0], (Object[]) result[0]);
+        Assertions.assertEquals(attributes, result[1]);
+        Assertions.assertEquals(HashMap.class, result[1].getClass());
+        Assertions.assertEquals(list, result[2]);
+        Assertions.assertEquals(0, ((Object[]) result[3]).length);
+        Assertions.assertSame(String.class, result[4]);
+        Assertions.assertSame(PropertyKeys.value, result[5]);
+        Assertions.assertSame(Boolean.TRUE, ((Map<?, ?>) result[1]).get(PropertyKeys.required));
+    }
+
+    @Test
+    public void testLinkedHashMapOrder() throws Exception
+    {
+        Map<String, Integer> map = new LinkedHashMap<>();
+        map.put("z", 1);
+        map.put("a", 2);
+        map.put("m", 3);
+
+        Object result = roundTrip(map);
+        Assertions.assertEquals(LinkedHashMap.class, result.getClass());
+        Assertions.assertEquals(Arrays.asList("z", "a", "m"), new ArrayList<>(((Map<?, ?>) result).keySet()));
+    }
+
+    @Test
+    public void testSharedReferencesAndCycles() throws Exception
+    {
+        Object[] shared = new Object[] { "shared" };
+        Object[] cycle = new Object[2];
+        cycle[0] = cycle;
+        cycle[1] = shared;
+
+        Object[] result = (Object[]) roundTrip(new Object[] { shared, shared, cycle });
+        Assertions.assertSame(result[0], result[1]);
+        Object[] resultCycle = (Object[]) result[2];
+        Assertions.assertSame(resultCycle, resultCycle[0]);
+        Assertions.assertSame(result[0], resultCycle[1]);
+    }
+
+    @Test
+    public void testJavaSerializationFallback() throws Exception
+    {
+        Object[] state = new Object[] { new BigDecimal("1.25"), "x", Locale.GERMANY, new String[] { "a", "b" },
+            new BigDecimal("2.5") };
+
+        Object[] result = (Object[]) roundTrip(state);
+        Assertions.assertEquals(state[0], result[0]);
+        Assertions.assertEquals("x", result[1]);
+        Assertions.assertEquals(Locale.GERMANY, result[2]);
+        Assertions.assertArrayEquals((String[]) state[3], (String[]) result[3]);
+        Assertions.assertEquals(state[4], result[4]);
+    }
+
+    @Test
+    public void testStreamIsNotConsumedBeyondObject() throws Exception
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serialFactory.writeObject(new Object[] { "a", 1 }, baos);
+        baos.write(42);
+
+        InputStream is = new ByteArrayInputStream(baos.toByteArray());
+        Object[] result = (Object[]) serialFactory.readObject(is);
+        Assertions.assertArrayEquals(new Object[] { "a", 1 }, result);
+        Assertions.assertEquals(42, is.read());
+    }
+
+    @Test
+    public void testLengthBeyondInputIsRejected() throws Exception
+    {
+        // an array, a list and a string of 2^31 - 1 elements in a section of 6 bytes
+        for (int tag : new int[] { CompactSerialFactory.OBJECT_ARRAY, CompactSerialFactory.ARRAY_LIST,
+            CompactSerialFactory.STRING })
+        {
+            byte[] bytes = { CompactSerialFactory.FORMAT, 6, (byte) tag, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFF, 0x07 };
+            Assertions.assertThrows(StreamCorruptedException.class, () -> serialFactory.toObject(bytes));
+        }
+
+        byte[] reference = { CompactSerialFactory.FORMAT, 2, CompactSerialFactory.REFERENCE, 5 };
+        Assertions.assertThrows(StreamCorruptedException.class, () -> serialFactory.toObject(reference));
+    }
+
+    @Test
+    public void testInvalidEnumIsRejected() throws Exception
+    {
+        Assertions.assertEquals(PropertyKeys.required,
+                serialFactory.toObject(enumStream(PropertyKeys.class.getName(), "required")));
+        Assertions.assertThrows(InvalidObjectException.class,
+                () -> serialFactory.toObject(enumStream(String.class.getName(), "value")));
+        Assertions.assertThrows(InvalidObjectException.class,
+                () -> serialFactory.toObject(enumStream(PropertyKeys.class.getName(), "unknown")));
+    }
+
+    private static byte[] enumStream(String className, String name)
+    {
+        ByteArrayOutputStream section = new ByteArrayOutputStream();
+        section.write(CompactSerialFactory.ENUM);
+        for (String value : new String[] { className, name })
+        {
+            section.write(CompactSerialFactory.STRING);
+            section.write(value.length());
+            section.writeBytes(value.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(CompactSerialFactory.FORMAT);
+        stream.write(section.size());
+        stream.writeBytes(section.toByteArray());
+        return stream.toByteArray();
+    }
+
+    @Test
+    public void testSmallerThanJavaSerialization() throws Exception
+    {
+        Object[] state = new Object[200];
+        for (int i = 0; i < state.length; i++)
+        {
+            state[i] = new Object[] { new Object[] { PropertyKeys.value, "value" + i,
+                PropertyKeys.required, Boolean.TRUE }, null, "form:table:" + i + ":name" };
+        }
+
+        byte[] compact = serialFactory.toByteArray(state);
+        byte[] java = new DefaultSerialFactory().toByteArray(state);
+        Assertions.assertTrue(compact.length < java.length, compact.length + " >= " + java.length);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.util.lang;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ShardedLRUCacheTest
+{
+    @Test
+    public void testEvictsNotReferencedEntries()
+    {
+        List<String> removed = new ArrayList<>();
+        ShardedLRUCache<String, String> cache = new ShardedLRUCache<>(3, (key, value) -> removed.add(key));
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+        Assertions.assertEquals("1", cache.get("a"));
+
+        cache.put("d", "4");
+        Assertions.assertEquals(List.of("b"), removed);
+        Assertions.assertEquals(3, cache.size());
+        Assertions.assertTrue(cache.containsKey("a"));
+        Assertions.assertNull(cache.get("b"));
+
+        Assertions.assertEquals("4", cache.put("d", "5"));
+        Assertions.assertEquals("5", cache.remove("d"));
+        Assertions.assertEquals(2, cache.size());
+        // a replaced value is not removed, a removed entry is
+        Assertions.assertEquals(List.of("b", "d"), removed);
+
+        ShardedLRUCache.Stats stats = cache.getStats();
+        Assertions.assertEquals(1, stats.getCumulativeHits());
+        Assertions.assertEquals(1, stats.getCumulativeMisses());
+        Assertions.assertEquals(5, stats.getCumulativePuts());
+        Assertions.assertEquals(1, stats.getCumulativeEvictions());
+        Assertions.assertEquals(2, stats.getCurrentSize());
+
+        cache.clear();
+        Assertions.assertEquals(4, removed.size());
+        Assertions.assertTrue(removed.containsAll(List.of("a", "c")));
+    }
+
+    @Test
+    public void testConditionalRemove()
+    {
+        List<String> removed = new ArrayList<>();
+        ShardedLRUCache<String, String> cache = new ShardedLRUCache<>(3, (key, value) -> removed.add(value));
+        cache.put("a", "1");
+        cache.put("a", "2");
+
+        Assertions.assertFalse(cache.remove("a", "1"));
+        Assertions.assertEquals("2", cache.get("a"));
+        Assertions.assertFalse(cache.remove("b", "1"));
+
+        Assertions.assertTrue(cache.remove("a", "2"));
+        Assertions.assertFalse(cache.containsKey("a"));
+        Assertions.assertEquals(List.of("2"), removed);
+    }
+
+    @Test
+    public void testSizeIsBounded() throws Exception
+    {
+        int maxSize = 1000;
+        ShardedLRUCache<Integer, Integer> cache = new ShardedLRUCache<>(maxSize);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++)
+            {
+                int offset = t * 100000;
+                futures.add(executor.submit(() ->
+                {
+                    for (int i = 0; i < 20000; i++)
+                    {
+                        cache.put(offset + i, i);
+                        cache.get(offset + i / 2);
+                        if (i % 10 == 0)
+                        {
+                            cache.remove(offset + i - 5);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures)
+            {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        Assertions.assertTrue(cache.size() <= maxSize, "size " + cache.size());
+        Assertions.assertTrue(cache.getStats().getCumulativeEvictions() > 0);
+
+        cache.clear();
+        Assertions.assertEquals(0, cache.size());
+    }
+}
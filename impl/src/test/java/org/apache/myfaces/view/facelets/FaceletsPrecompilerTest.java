@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import jakarta.faces.FactoryFinder;
+import jakarta.faces.application.ViewHandler;
+import jakarta.faces.component.UIViewRoot;
+import jakarta.faces.context.FacesContext;
+import jakarta.faces.view.facelets.FaceletCache;
+import jakarta.faces.view.facelets.FaceletCacheFactory;
+
+import org.apache.myfaces.config.webparameters.MyfacesConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class FaceletsPrecompilerTest extends AbstractFaceletTestCase
+{
+    @Override
+    protected String getDirectory()
+    {
+        return "org/apache/myfaces/view/facelets/precompiler/";
+    }
+
+    @Override
+    protected void setUpServletObjects() throws Exception
+    {
+        super.setUpServletObjects();
+        servletContext.addInitParameter(MyfacesConfig.FACELETS_PRECOMPILE, "true");
+        servletContext.addInitParameter(ViewHandler.FACELETS_REFRESH_PERIOD_PARAM_NAME, "-1");
+    }
+
+    @Override
+    protected void setFactories() throws Exception
+    {
+        super.setFactories();
+        FactoryFinder.setFactory(FactoryFinder.FACELET_CACHE_FACTORY,
+                RecordingFaceletCacheFactory.class.getName());
+    }
+
+    @Override
+    protected void setupComponents() throws Exception
+    {
+        application.addComponent(UIViewRoot.COMPONENT_TYPE, UIViewRoot.class.getName());
+    }
+
+    @Override
+    protected void setupConvertersAndValidators() throws Exception
+    {
+    }
+
+    @Override
+    protected void setupRenderers() throws Exception
+    {
+    }
+
+    @Test
+    public void testPrecompile() throws Exception
+    {
+        List<LogRecord> records = new ArrayList<>();
+        Handler handler = new Handler()
+        {
+            @Override
+            public void publish(LogRecord record)
+            {
+                records.add(record);
+            }
+
+            @Override
+            public void flush()
+            {
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        };
+        Logger log = Logger.getLogger(FaceletsPrecompiler.class.getName());
+        log.addHandler(handler);
+        try
+        {
+            FaceletsPrecompiler.initialize(facesContext);
+        }
+        finally
+        {
+            log.removeHandler(handler);
+        }
+
+        FaceletCache<?> cache = (FaceletCache<?>) externalContext.getApplicationMap()
+                .get(RecordingFaceletCacheFactory.FACELET_CACHE_KEY);
+
+        URL view = externalContext.getResource("/index.xhtml");
+        Assertions.assertTrue(cache.isFaceletCached(view));
+        Assertions.assertTrue(cache.isViewMetadataFaceletCached(view));
+
+        URL template = externalContext.getResource("/WEB-INF/template.xhtml");
+        Assertions.assertTrue(cache.isFaceletCached(template));
+        Assertions.assertFalse(cache.isViewMetadataFaceletCached(template));
+
+        URL compositeComponent = externalContext.getResource("/resources/precompiler/panel.xhtml");
+        Assertions.assertTrue(cache.isFaceletCached(compositeComponent));
+        Assertions.assertFalse(cache.isViewMetadataFaceletCached(compositeComponent));
+
+        // logged and compiled again when it is first used
+        URL broken = externalContext.getResource("/broken.xhtml");
+        Assertions.assertFalse(cache.isFaceletCached(broken));
+        Assertions.assertTrue(records.stream().anyMatch(r -> r.getLevel() == Level.WARNING
+                && r.getMessage().contains("/broken.xhtml")));
+    }
+
+    /**
+     * Keeps the FaceletCache of the FaceletFactory in the application map.
+     */
+    public static class RecordingFaceletCacheFactory extends FaceletCacheFactory
+    {
+        static final String FACELET_CACHE_KEY = RecordingFaceletCacheFactory.class.getName();
+
+        public RecordingFaceletCacheFactory(FaceletCacheFactory delegate)
+        {
+            super(delegate);
+        }
+
+        @Override
+        public FaceletCache getFaceletCache()
+        {
+            FaceletCache cache = getWrapped().getFaceletCache();
+            FacesContext.getCurrentInstance().getExternalContext().getApplicationMap().put(FACELET_CACHE_KEY, cache);
+            return cache;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.impl;
+
+import java.io.FileNotFoundException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CompiledFaceletMapTest
+{
+    @Test
+    public void testSingleCompilation() throws Exception
+    {
+        FaceletCacheStats stats = new FaceletCacheStats();
+        CompiledFaceletMap<String> map = new CompiledFaceletMap<>(-1, stats);
+        AtomicInteger compilations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++)
+            {
+                results.add(executor.submit(() -> map.get("/a.xhtml", v -> true, previous ->
+                {
+                    compilations.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return "compiled";
+                })));
+            }
+            Assertions.assertTrue(started.await(10, TimeUnit.SECONDS));
+            // give the other threads the time to find the running compilation
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<String> result : results)
+            {
+                Assertions.assertEquals("compiled", result.get(10, TimeUnit.SECONDS));
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(1, compilations.get());
+        Assertions.assertEquals(1, stats.getCompilations());
+        Assertions.assertEquals(threads, stats.getMisses() + stats.getHits());
+        Assertions.assertTrue(map.containsKey("/a.xhtml"));
+        Assertions.assertEquals("compiled", map.get("/a.xhtml", v -> true, previous -> "again"));
+    }
+
+    @Test
+    public void testRefresh() throws Exception
+    {
+        FaceletCacheStats stats = new FaceletCacheStats();
+        CompiledFaceletMap<String> map = new CompiledFaceletMap<>(-1, stats);
+
+        Assertions.assertEquals("1", map.get("/a.xhtml", v -> true, previous -> "1"));
+        Assertions.assertEquals("1", map.get("/a.xhtml", v -> true, previous -> "2"));
+        Assertions.assertEquals("1+1", map.get("/a.xhtml", v -> !v.equals("1"), previous -> previous + "+1"));
+        Assertions.assertEquals(2, stats.getCompilations());
+        Assertions.assertEquals(1, stats.getHits());
+        Assertions.assertEquals(2, stats.getMisses());
+    }
+
+    @Test
+    public void testFailedCompilation() throws Exception
+    {
+        FaceletCacheStats stats = new FaceletCacheStats();
+        CompiledFaceletMap<String> map = new CompiledFaceletMap<>(-1, stats);
+
+        Assertions.assertThrows(FileNotFoundException.class, () -> map.get("/a.xhtml", v -> true, previous ->
+        {
+            throw new FileNotFoundException("/a.xhtml");
+        }));
+        Assertions.assertFalse(map.containsKey("/a.xhtml"));
+        Assertions.assertEquals(1, stats.getFailedCompilations());
+        Assertions.assertEquals("1", map.get("/a.xhtml", v -> true, previous -> "1"));
+    }
+
+    @Test
+    public void testMaxSize() throws Exception
+    {
+        FaceletCacheStats stats = new FaceletCacheStats();
+        CompiledFaceletMap<String> map = new CompiledFaceletMap<>(10, stats);
+
+        for (int i = 0; i < 100; i++)
+        {
+            String key = "/page" + i + ".xhtml";
+            map.get(key, v -> true, previous -> key);
+        }
+        Assertions.assertTrue(stats.getSize() <= 14, "size " + stats.getSize());
+        Assertions.assertTrue(stats.getEvictions() > 0);
+        Assertions.assertTrue(map.containsKey("/page99.xhtml"));
+    }
+
+    @Test
+    public void testBackgroundRefresh() throws Exception
+    {
+        FaceletCacheStats stats = new FaceletCacheStats();
+        CompiledFaceletMap<String> map = new CompiledFaceletMap<>(-1, stats);
+        map.get("/a.xhtml", v -> true, previous -> "1");
+
+        map.refresh("/a.xhtml", "1", previous -> previous + "+1");
+        Assertions.assertEquals("1+1", map.get("/a.xhtml"));
+
+        // the stale value was already replaced
+        map.refresh("/a.xhtml", "1", previous -> "2");
+        Assertions.assertEquals("1+1", map.get("/a.xhtml"));
+        Assertions.assertEquals(2, stats.getCompilations());
+
+        String current = map.get("/a.xhtml");
+        Assertions.assertThrows(FileNotFoundException.class, () -> map.refresh("/a.xhtml", current, previous ->
+        {
+            throw new FileNotFoundException("/a.xhtml");
+        }));
+        Assertions.assertSame(current, map.get("/a.xhtml"));
+        Assertions.assertEquals(2, stats.getCompilations());
+        Assertions.assertEquals(1, stats.getFailedCompilations());
+    }
+
+    @Test
+    public void testRemove() throws Exception
+    {
+        for (int maxSize : new int[] { -1, 10 })
+        {
+            CompiledFaceletMap<String> map = new CompiledFaceletMap<>(maxSize, new FaceletCacheStats());
+            map.get("/a.xhtml", v -> true, previous -> "a");
+            map.get("/b.xhtml", v -> true, previous -> "b");
+
+            List<String> keys = new ArrayList<>();
+            map.forEach((key, value) -> keys.add(key));
+            Assertions.assertEquals(2, keys.size());
+
+            // a value that was compiled again is kept
+            map.remove("/b.xhtml", "previous b");
+            Assertions.assertTrue(map.containsKey("/b.xhtml"));
+
+            map.remove("/a.xhtml", "a");
+            Assertions.assertFalse(map.containsKey("/a.xhtml"));
+            Assertions.assertEquals(1, map.size());
+        }
+    }
+
+    private static void await(CountDownLatch latch) throws InterruptedIOException
+    {
+        try
+        {
+            latch.await(10, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            throw new InterruptedIOException();
+        }
+    }
+}
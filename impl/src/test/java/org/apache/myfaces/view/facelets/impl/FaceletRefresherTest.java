@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.view.facelets.impl;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import jakarta.faces.component.UIViewRoot;
+
+import org.apache.myfaces.view.facelets.AbstractFaceletTestCase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FaceletRefresherTest extends AbstractFaceletTestCase
+{
+    @TempDir
+    Path faceletsDir;
+
+    @Override
+    protected void setupComponents() throws Exception
+    {
+        application.addComponent(UIViewRoot.COMPONENT_TYPE, UIViewRoot.class.getName());
+    }
+
+    @Override
+    protected void setupConvertersAndValidators() throws Exception
+    {
+    }
+
+    @Override
+    protected void setupRenderers() throws Exception
+    {
+    }
+
+    @Test
+    public void testRefreshChangedAndDeletedFacelets() throws Exception
+    {
+        URL changed = createFile("changed.xhtml");
+        URL deleted = createFile("deleted.xhtml");
+        URL unchanged = createFile("unchanged.xhtml");
+
+        CompiledFaceletMap<DefaultFacelet> map = new CompiledFaceletMap<>(-1, new FaceletCacheStats());
+        for (URL url : new URL[] { changed, deleted, unchanged })
+        {
+            map.get(url.toString(), f -> true, previous -> createFacelet(url));
+        }
+        DefaultFacelet changedFacelet = getCached(map, changed);
+        DefaultFacelet unchangedFacelet = getCached(map, unchanged);
+
+        FaceletRefresher refresher = new FaceletRefresher(null, 1000);
+        refresher.watch(map, f -> f, (url, previous) -> createFacelet(url));
+
+        Files.setLastModifiedTime(Path.of(changed.toURI()),
+                FileTime.fromMillis(changedFacelet.getCreateTime() + 10000));
+        Files.delete(Path.of(deleted.toURI()));
+        refresher.scan();
+
+        Assertions.assertNotSame(changedFacelet, getCached(map, changed));
+        Assertions.assertFalse(map.containsKey(deleted.toString()));
+        Assertions.assertSame(unchangedFacelet, getCached(map, unchanged));
+    }
+
+    private URL createFile(String name) throws IOException
+    {
+        Path file = faceletsDir.resolve(name);
+        Files.writeString(file, "<html/>");
+        // older than the facelets compiled from it
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 10000));
+        return file.toUri().toURL();
+    }
+
+    private DefaultFacelet createFacelet(URL url)
+    {
+        return new DefaultFacelet((DefaultFaceletFactory) vdl.getFaceletFactory(), null, url, url.getPath(),
+                url.getPath(), null, false, null);
+    }
+
+    private static DefaultFacelet getCached(CompiledFaceletMap<DefaultFacelet> map, URL url) throws IOException
+    {
+        return map.get(url.toString(), f -> true, previous ->
+        {
+            throw new IOException(url + " is not cached");
+        });
+    }
+}